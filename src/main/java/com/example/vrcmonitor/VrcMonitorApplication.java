@@ -1,8 +1,6 @@
 package com.example.vrcmonitor;
 
 import com.example.vrcmonitor.config.ConfigLoader;
-import com.example.vrcmonitor.services.AuthService;
-import com.example.vrcmonitor.services.MonitoringService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -32,7 +30,7 @@ public class VrcMonitorApplication {
     }
 
     @Bean
-    public CommandLineRunner commandLineRunner(AuthService authService, ConfigLoader configLoader, MonitoringService monitoringService, ConfigurableApplicationContext ctx) {
+    public CommandLineRunner commandLineRunner(ConfigLoader configLoader, ConfigurableApplicationContext ctx) {
         return args -> {
             log.info("VRChat Monitor Starting...");
 
@@ -50,8 +48,7 @@ public class VrcMonitorApplication {
             // No longer perform console login - wait for client login
             log.info("Starting in disconnected mode. Waiting for client login...");
             
-            // The monitoring service will check for active session before polling
-            monitoringService.startMonitoring();
+            // Monitoring starts on SessionEstablishedEvent (client login or validated restored session)
 
             log.info("Web UI will be available shortly on http://localhost:8080");
         };
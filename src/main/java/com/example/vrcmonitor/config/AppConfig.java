@@ -27,4 +27,103 @@ public class AppConfig {
      * Default is false.
      */
     private Boolean fileCacheSesssionInfo = false; // Default to false if not specified in config
-} 
\ No newline at end of file
+
+    /**
+     * When true, user states, recent history and poll timing are saved to a binary
+     * snapshot file on shutdown (and periodically) and restored on startup, so a
+     * restart doesn't show every user as unknown until their next poll.
+     * Default is true.
+     */
+    private Boolean persistState = true; // Default to true if not specified in config
+
+    /**
+     * Durability of the state write-ahead log (only used when persistState is true):
+     * "BATCH" fsyncs each group commit, "ASYNC" writes without fsync (the OS flushes),
+     * "OFF" disables the log so only periodic snapshots are kept.
+     * Default is "BATCH".
+     */
+    private String walDurability = "BATCH";
+
+    /**
+     * Group commit window for the write-ahead log in milliseconds: a batch is written
+     * at most this long after its first record. Default is 200.
+     */
+    private Integer walBatchMillis = 200;
+
+    /**
+     * Maximum records per write-ahead log group commit. Default is 256.
+     */
+    private Integer walBatchRecords = 256;
+
+    /**
+     * User fields whose changes count as a status transition (history entry and
+     * field-changed event): STATE, STATUS, STATUS_DESCRIPTION, LOCATION, WORLD, AVATAR,
+     * DISPLAY_NAME. Can be overridden per user. Default is STATE and STATUS.
+     */
+    private List<String> trackedFields;
+
+    /**
+     * When true, poll intervals follow each user's learned time-of-week activity: faster in
+     * hours where they usually come or go, slower when they are usually inactive, with the
+     * total request rate kept at what the configured poll rates would use.
+     * Users without enough recorded transitions keep their configured rate. Default is true.
+     */
+    private Boolean predictivePolling = true; // Default to true if not specified in config
+
+    /**
+     * When true, config.json is watched and edits are applied while running: added and
+     * removed users start and stop being polled, changed poll rates are rescheduled, and
+     * connected clients are updated. Other users keep their state and schedule.
+     * Read at startup only. Default is true.
+     */
+    private Boolean hotReloadConfig = true; // Default to true if not specified in config
+
+    /**
+     * Names of additional VRChat accounts to spread polling over (letters, digits, '-' and
+     * '_'). Each logs in separately (see /api/accounts) and gets its own session, session
+     * cache file and rate limiter; users are assigned to the logged-in accounts by consistent
+     * hashing. Read at startup only. Default is none (only the primary login).
+     */
+    private List<String> accounts;
+
+    /**
+     * Groups of users that get their own WebSocket namespace (/ws/{name}) and, optionally,
+     * their own polling account. Reloaded with the rest of the config. Default is none.
+     */
+    private List<TenantConfig> tenants;
+
+    /**
+     * Whether only loopback clients may use the all-users namespace: /ws/status, and the
+     * tenant-scoped endpoints (and /api/logs, /api/polling) without ?tenant=. Others get a 403
+     * or a closed WebSocket. Reloaded with the rest of the config. Default is on when tenants
+     * are configured.
+     */
+    private Boolean tenantIsolation;
+
+    /**
+     * Where this server accepts read replicas: a port (loopback), "host:port" or
+     * "unix:/path/to/socket". Every state update is streamed to the connected replicas.
+     * Read at startup only. Default is none (no replicas).
+     */
+    private String replicationListen;
+
+    /**
+     * Makes this server a read replica of the primary at this address (same forms as
+     * replicationListen). A replica does not poll VRChat or keep state files; it serves the
+     * primary's state to its own WebSocket clients. Read at startup only. Default is none.
+     */
+    private String replicaOf;
+
+    /**
+     * Lease file for active/passive failover between two instances sharing this working
+     * directory. Only the lease holder polls and writes state; the other instance follows
+     * its WAL and takes over when the lease expires. Read at startup only. Default is none.
+     */
+    private String leaderLeaseFile;
+
+    /**
+     * How long a leader lease lasts without renewal, in seconds (minimum 3). The standby takes
+     * over within about this long after the leader stops. Read at startup only. Default is 10.
+     */
+    private Integer leaderLeaseSeconds = 10;
+}
@@ -1,35 +1,52 @@
 package com.example.vrcmonitor.config;
 
+import com.example.vrcmonitor.events.ConfigChangedEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct; // Use jakarta annotation with newer Spring Boot
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ConfigLoader {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigLoader.class);
-    private static final String CONFIG_FILENAME = "config.json";
+    static final String CONFIG_FILENAME = "config.json";
 
     @Value("classpath:config.json") // Fallback to classpath
     private Resource classPathConfigResource;
 
-    private AppConfig appConfig;
+    // Replaced as a whole on reload, so readers always see one consistent config
+    private volatile AppConfig appConfig;
     // Inject the primary ObjectMapper bean configured in JacksonConfig
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserRegistry userRegistry;
+    private final TenantRegistry tenantRegistry;
 
-    public ConfigLoader(ObjectMapper objectMapper) {
+    public ConfigLoader(ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher, UserRegistry userRegistry,
+                        TenantRegistry tenantRegistry) {
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.userRegistry = userRegistry;
+        this.tenantRegistry = tenantRegistry;
     }
 
     @PostConstruct // Load config when the service is created
@@ -64,6 +81,10 @@ public class ConfigLoader {
         log.info("Attempting to load configuration from {}", configFileResource.getDescription());
         try (InputStream inputStream = configFileResource.getInputStream()) {
             appConfig = objectMapper.readValue(inputStream, AppConfig.class);
+            userRegistry.update(appConfig != null ? appConfig.getUsers() : null);
+            if (appConfig != null) {
+                tenantRegistry.update(appConfig.getTenants(), appConfig.getUsers(), appConfig.getTenantIsolation());
+            }
             int userCount = (appConfig != null && appConfig.getUsers() != null) ? appConfig.getUsers().size() : 0;
             log.info("Configuration loaded successfully: {} users.", userCount);
              // Validate poll rates during load
@@ -81,6 +102,107 @@ public class ConfigLoader {
         }
     }
 
+    /**
+     * @return Absolute path of the external config file (which may not exist)
+     */
+    public Path getConfigPath() {
+        return new File(CONFIG_FILENAME).getAbsoluteFile().toPath();
+    }
+
+    /**
+     * Re-reads the external config file and, if it parses and differs from the current one,
+     * swaps it in and publishes a {@link ConfigChangedEvent} with the per-user differences.
+     * A file that is missing or invalid (e.g. half-written) leaves the current config in place.
+     * @return true if a changed config was applied
+     */
+    public boolean reloadConfig() {
+        File externalConfigFile = new File(CONFIG_FILENAME);
+        if (!externalConfigFile.isFile()) {
+            log.warn("Config file {} not found, keeping the current configuration", externalConfigFile.getAbsolutePath());
+            return false;
+        }
+
+        AppConfig loaded;
+        try (InputStream inputStream = new FileInputStream(externalConfigFile)) {
+            loaded = objectMapper.readValue(inputStream, AppConfig.class);
+        } catch (IOException e) {
+            log.error("Could not reload {}: {}. Keeping the current configuration.", CONFIG_FILENAME, e.getMessage());
+            return false;
+        }
+        if (loaded == null) {
+            log.error("Reloaded {} is empty. Keeping the current configuration.", CONFIG_FILENAME);
+            return false;
+        }
+
+        ConfigChangedEvent event;
+        synchronized (this) {
+            AppConfig previous = appConfig;
+            if (loaded.equals(previous)) {
+                log.debug("{} changed on disk but its content is the same", CONFIG_FILENAME);
+                return false;
+            }
+            event = diff(previous, loaded);
+            appConfig = loaded;
+            userRegistry.update(loaded.getUsers());
+            tenantRegistry.update(loaded.getTenants(), loaded.getUsers(), loaded.getTenantIsolation());
+        }
+        log.info("Configuration reloaded: {} user(s) added, {} removed, {} changed",
+                event.added().size(), event.removed().size(), event.changed().size());
+        warnAboutRestartOnlySettings(event.previous(), loaded);
+        eventPublisher.publishEvent(event);
+        return true;
+    }
+
+    private static ConfigChangedEvent diff(AppConfig previous, AppConfig current) {
+        Map<String, UserConfig> before = byVrcUid(previous);
+        Map<String, UserConfig> after = byVrcUid(current);
+        List<UserConfig> added = new ArrayList<>();
+        List<UserConfig> changed = new ArrayList<>();
+        List<UserConfig> removed = new ArrayList<>();
+        after.forEach((vrcUid, user) -> {
+            UserConfig old = before.get(vrcUid);
+            if (old == null) {
+                added.add(user);
+            } else if (!old.equals(user)) {
+                changed.add(user);
+            }
+        });
+        before.forEach((vrcUid, user) -> {
+            if (!after.containsKey(vrcUid)) {
+                removed.add(user);
+            }
+        });
+        return new ConfigChangedEvent(previous, current, added, removed, changed);
+    }
+
+    private static Map<String, UserConfig> byVrcUid(AppConfig config) {
+        Map<String, UserConfig> users = new LinkedHashMap<>();
+        if (config != null && config.getUsers() != null) {
+            config.getUsers().forEach(user -> users.putIfAbsent(user.getVrcUid(), user));
+        }
+        return users;
+    }
+
+    // These are only read while starting up
+    private static void warnAboutRestartOnlySettings(AppConfig previous, AppConfig current) {
+        if (previous == null) {
+            return;
+        }
+        if (!Objects.equals(previous.getPersistState(), current.getPersistState())
+                || !Objects.equals(previous.getWalDurability(), current.getWalDurability())
+                || !Objects.equals(previous.getWalBatchMillis(), current.getWalBatchMillis())
+                || !Objects.equals(previous.getWalBatchRecords(), current.getWalBatchRecords())
+                || !Objects.equals(previous.getHotReloadConfig(), current.getHotReloadConfig())
+                || !Objects.equals(previous.getAccounts(), current.getAccounts())
+                || !Objects.equals(previous.getReplicationListen(), current.getReplicationListen())
+                || !Objects.equals(previous.getReplicaOf(), current.getReplicaOf())
+                || !Objects.equals(previous.getLeaderLeaseFile(), current.getLeaderLeaseFile())
+                || !Objects.equals(previous.getLeaderLeaseSeconds(), current.getLeaderLeaseSeconds())) {
+            log.warn("Changes to persistState, walDurability, walBatchMillis, walBatchRecords, hotReloadConfig, accounts, "
+                    + "replicationListen, replicaOf, leaderLeaseFile or leaderLeaseSeconds take effect after a restart");
+        }
+    }
+
     public AppConfig getConfig() {
         if (appConfig == null) {
             // This shouldn't happen if PostConstruct logic is correct, but good safeguard
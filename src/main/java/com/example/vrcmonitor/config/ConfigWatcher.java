@@ -0,0 +1,103 @@
+package com.example.vrcmonitor.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directory of config.json and reloads the config when the file is written
+ * (see {@link ConfigLoader#reloadConfig()}), so edits apply without a restart.
+ */
+@Component
+public class ConfigWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    // Editors often save in several steps (truncate, write, rename); wait for the writes to settle
+    private static final long SETTLE_MILLIS = 250;
+
+    private final ConfigLoader configLoader;
+    private WatchService watchService;
+
+    public ConfigWatcher(ConfigLoader configLoader) {
+        this.configLoader = configLoader;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (Boolean.FALSE.equals(configLoader.getConfig().getHotReloadConfig())) {
+            log.info("Config hot-reload disabled");
+            return;
+        }
+        Path directory = configLoader.getConfigPath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            // The file itself can't be watched; creation is included for editors that replace it
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("Config hot-reload unavailable: {}", e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(this::watch, "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for changes", configLoader.getConfigPath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing config watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean touched = drain(watchService.take());
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    touched |= drain(more);
+                }
+                if (touched) {
+                    try {
+                        configLoader.reloadConfig();
+                    } catch (Exception e) {
+                        // Keep watching; the next save gets another chance
+                        log.error("Error applying reloaded configuration: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Config watcher stopped");
+        }
+    }
+
+    // True if any of the key's events concern the config file (or events were lost)
+    private boolean drain(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (event.context() instanceof Path path && path.toString().equals(ConfigLoader.CONFIG_FILENAME))) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.vrcmonitor.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A tenant: a named group of the configured users. Its web clients connect to /ws/{name}
+ * (or open the page with ?tenant={name}) and only see and control these users.
+ */
+@Data
+@NoArgsConstructor
+public class TenantConfig {
+
+    private String name; // Letters, digits, '-' and '_'; "status" is the all-users namespace
+
+    /**
+     * Optional name of an entry in AppConfig.accounts. When set, that account (its session
+     * and rate limiter) polls only this tenant's users, which gives the tenant its own API
+     * budget. Without it, the tenant's users are polled by the shared accounts.
+     */
+    private String account;
+
+    private List<String> users; // hrToken or vrcUid of entries in AppConfig.users
+}
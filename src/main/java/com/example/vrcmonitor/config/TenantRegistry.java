@@ -0,0 +1,210 @@
+package com.example.vrcmonitor.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Indexed view of the configured tenants (see {@link TenantConfig}). Like {@link UserRegistry},
+ * the index is immutable and replaced as a whole by {@link ConfigLoader} when the config is
+ * (re)loaded, before any {@link com.example.vrcmonitor.events.ConfigChangedEvent} goes out.
+ *
+ * Tenants share the user states, the scheduler and the caches: a user that belongs to several
+ * tenants is still polled once. Nothing authenticates clients, so they choose their namespace
+ * (/ws/{tenant}, ?tenant=) themselves; with tenant isolation on (the default when tenants are
+ * configured) only loopback clients may use the all-users namespace.
+ */
+@Component
+public class TenantRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRegistry.class);
+
+    /**
+     * WebSocket namespace that sees every user (the original /ws/status endpoint)
+     */
+    public static final String ALL_USERS = "status";
+
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    /**
+     * @param account Dedicated polling account, or null
+     * @param vrcUids The tenant's users in config order (unmodifiable)
+     */
+    public record Tenant(String name, String account, Set<String> vrcUids) {
+
+        public boolean includes(String vrcUid) {
+            return vrcUids.contains(vrcUid);
+        }
+    }
+
+    /**
+     * The users a request may see: a tenant's, or every user when {@code tenant} is null.
+     */
+    public record Scope(Tenant tenant) {
+
+        public static final Scope ALL = new Scope(null);
+
+        public boolean includes(String vrcUid) {
+            return tenant == null || tenant.includes(vrcUid);
+        }
+
+        public boolean isAll() {
+            return tenant == null;
+        }
+
+        /**
+         * @return The tenant's name, or null for every user
+         */
+        public String name() {
+            return tenant != null ? tenant.name() : null;
+        }
+    }
+
+    private record Index(Map<String, Tenant> byName, Map<String, String> dedicatedAccountByVrcUid,
+                         Map<String, String> tenantByVrcUid, boolean isolated) {}
+
+    private volatile Index index = new Index(Map.of(), Map.of(), Map.of(), false);
+
+    /**
+     * @return The tenant with this name, or null
+     */
+    public Tenant get(String name) {
+        return name != null ? index.byName().get(name) : null;
+    }
+
+    /**
+     * @param tenantName The {@code tenant} parameter of a request; blank or {@value #ALL_USERS} means every user
+     * @return The request's scope, or null for an unknown tenant
+     */
+    public Scope scope(String tenantName) {
+        if (tenantName == null || tenantName.isBlank() || ALL_USERS.equals(tenantName)) {
+            return Scope.ALL;
+        }
+        Tenant tenant = get(tenantName);
+        return tenant != null ? new Scope(tenant) : null;
+    }
+
+    /**
+     * @param client The client's address
+     * @return Whether the client may use the all-users namespace (/ws/status, or a tenant-scoped
+     *         endpoint without ?tenant=): always without tenant isolation, else only from loopback
+     */
+    public boolean admitsAllUsers(InetAddress client) {
+        return !index.isolated() || client != null && client.isLoopbackAddress();
+    }
+
+    /**
+     * @return Whether tenant isolation is on
+     */
+    public boolean isIsolated() {
+        return index.isolated();
+    }
+
+    /**
+     * @return The (first) tenant this user belongs to, or null
+     */
+    public String tenantOf(String vrcUid) {
+        return vrcUid != null ? index.tenantByVrcUid().get(vrcUid) : null;
+    }
+
+    /**
+     * @return All tenants in config order
+     */
+    public List<Tenant> tenants() {
+        return List.copyOf(index.byName().values());
+    }
+
+    /**
+     * @return The dedicated account of the (first) tenant this user belongs to, or null
+     */
+    public String dedicatedAccountFor(String vrcUid) {
+        return index.dedicatedAccountByVrcUid().get(vrcUid);
+    }
+
+    /**
+     * @return Names of the accounts dedicated to a tenant
+     */
+    public Set<String> dedicatedAccounts() {
+        Set<String> accounts = new LinkedHashSet<>();
+        index.byName().values().forEach(tenant -> {
+            if (tenant.account() != null) {
+                accounts.add(tenant.account());
+            }
+        });
+        return accounts;
+    }
+
+    /*
+     * Rebuilds the index for a newly loaded config; users are resolved by hrToken or vrcUid.
+     * Isolation is on when configured so, or by default when there are tenants.
+     */
+    void update(List<TenantConfig> configured, List<UserConfig> users, Boolean isolation) {
+        Map<String, String> vrcUidByName = new HashMap<>();
+        if (users != null) {
+            for (UserConfig user : users) {
+                if (user.getVrcUid() != null) {
+                    vrcUidByName.put(user.getVrcUid(), user.getVrcUid());
+                    if (user.getHrToken() != null) {
+                        vrcUidByName.putIfAbsent(user.getHrToken(), user.getVrcUid());
+                    }
+                }
+            }
+        }
+
+        Map<String, Tenant> byName = new LinkedHashMap<>();
+        Map<String, String> dedicated = new HashMap<>();
+        Map<String, String> tenantByVrcUid = new HashMap<>();
+        Set<String> claimedAccounts = new LinkedHashSet<>();
+        if (configured != null) {
+            for (TenantConfig tenantConfig : configured) {
+                String name = tenantConfig.getName();
+                if (name == null || !TENANT_NAME.matcher(name).matches() || ALL_USERS.equals(name) || byName.containsKey(name)) {
+                    log.warn("Ignoring tenant with an invalid or duplicate name: '{}'", name);
+                    continue;
+                }
+                String account = tenantConfig.getAccount();
+                if (account != null && !claimedAccounts.add(account)) {
+                    log.warn("Account '{}' is already dedicated to another tenant; tenant '{}' uses the shared accounts", account, name);
+                    account = null;
+                }
+                Set<String> members = new LinkedHashSet<>();
+                if (tenantConfig.getUsers() != null) {
+                    for (String user : tenantConfig.getUsers()) {
+                        String vrcUid = vrcUidByName.get(user);
+                        if (vrcUid == null) {
+                            log.warn("Tenant '{}' lists unknown user '{}'", name, user);
+                            continue;
+                        }
+                        members.add(vrcUid);
+                        tenantByVrcUid.putIfAbsent(vrcUid, name);
+                        if (account != null) {
+                            dedicated.putIfAbsent(vrcUid, account);
+                        }
+                    }
+                }
+                byName.put(name, new Tenant(name, account, Collections.unmodifiableSet(members)));
+            }
+        }
+        if (!byName.isEmpty()) {
+            List<String> summary = new ArrayList<>();
+            byName.values().forEach(tenant -> summary.add(tenant.name() + " (" + tenant.vrcUids().size() + " users)"));
+            log.info("Tenants: {}", summary);
+        }
+        boolean isolated = isolation != null ? isolation : !byName.isEmpty();
+        if (isolated) {
+            log.info("Tenant isolation on: only loopback clients may use the all-users namespace");
+        }
+        index = new Index(Collections.unmodifiableMap(byName), Map.copyOf(dedicated), Map.copyOf(tenantByVrcUid), isolated);
+    }
+}
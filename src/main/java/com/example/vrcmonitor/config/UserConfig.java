@@ -1,13 +1,18 @@
 package com.example.vrcmonitor.config;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.apache.commons.lang3.time.DurationFormatUtils; // Using Commons Lang for parsing
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,9 +40,25 @@ public class UserConfig {
     
     private Double announceVolumeMult; // Add optional volume multiplier (nullable Double)
 
+    private List<String> trackedFields; // Optional per-user override of AppConfig.trackedFields
+
+    // The last parse of pollRate, so the pattern runs (and an invalid rate warns) once per value
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile ParsedPollRate parsedPollRate;
+
+    private record ParsedPollRate(String rate, Duration duration) {}
+
     @JsonIgnore // Don't serialize/deserialize this derived field directly
     public Duration getPollRateDuration() {
-        return parsePollRate(this.pollRate);
+        ParsedPollRate parsed = parsedPollRate;
+        if (parsed == null || !Objects.equals(parsed.rate(), pollRate)) {
+            String rate = pollRate;
+            parsed = new ParsedPollRate(rate, parsePollRate(rate));
+            parsedPollRate = parsed;
+        }
+        return parsed.duration();
     }
 
     // Simple parser for "XmYs" format
@@ -76,6 +97,9 @@ public class UserConfig {
         if (announceVolumeMult != null) {
             base += ", announceVolumeMult=" + announceVolumeMult;
         }
+        if (trackedFields != null) {
+            base += ", trackedFields=" + trackedFields;
+        }
         return base + "}";
     }
 } 
\ No newline at end of file
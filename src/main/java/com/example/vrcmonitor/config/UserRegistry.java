@@ -0,0 +1,102 @@
+package com.example.vrcmonitor.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Indexed view of the configured users, shared by every component instead of each one
+ * scanning or re-indexing {@code config.getUsers()}.
+ *
+ * Every VRChat user ID gets a dense int id the first time it is seen (configured or not).
+ * Ids are never reused while the server runs, so they stay valid across config reloads and
+ * can index arrays; they are not persisted (persisted data keeps the VRChat user IDs).
+ *
+ * The index is immutable and replaced as a whole by {@link ConfigLoader} when the config is
+ * (re)loaded, before any {@link com.example.vrcmonitor.events.ConfigChangedEvent} goes out.
+ */
+@Component
+public class UserRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(UserRegistry.class);
+
+    /**
+     * Id of states that are not attached to a user yet (e.g. while being decoded)
+     */
+    public static final int NO_ID = -1;
+
+    private final Map<String, Integer> idsByVrcUid = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private volatile Index index = new Index(new UserConfig[0], List.of());
+
+    // byId is sized to the largest id in use; ids of users that are not configured map to null
+    private record Index(UserConfig[] byId, List<UserConfig> users) {}
+
+    /**
+     * @return The dense id for a VRChat user ID, assigned on first use
+     */
+    public int idOf(String vrcUid) {
+        Integer id = idsByVrcUid.get(vrcUid);
+        return id != null ? id : idsByVrcUid.computeIfAbsent(vrcUid, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * @return The user's config, or null if the id is not (or no longer) configured
+     */
+    public UserConfig get(int id) {
+        UserConfig[] byId = index.byId();
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * @return The user's config, or null if the VRChat user ID is not configured
+     */
+    public UserConfig get(String vrcUid) {
+        Integer id = vrcUid != null ? idsByVrcUid.get(vrcUid) : null;
+        return id != null ? get(id) : null;
+    }
+
+    /**
+     * @return The configured users in config order (unmodifiable)
+     */
+    public List<UserConfig> users() {
+        return index.users();
+    }
+
+    public int size() {
+        return index.users().size();
+    }
+
+    // Rebuilds the index for a newly loaded config; later duplicates of a VRChat user ID are ignored
+    void update(List<UserConfig> configured) {
+        List<UserConfig> users = new ArrayList<>();
+        List<UserConfig> byId = new ArrayList<>();
+        if (configured != null) {
+            for (UserConfig user : configured) {
+                if (user.getVrcUid() == null || user.getVrcUid().isBlank()) {
+                    log.warn("Ignoring configured user without a vrcUid: {}", user.getHrToken());
+                    continue;
+                }
+                int id = idOf(user.getVrcUid());
+                while (byId.size() <= id) {
+                    byId.add(null);
+                }
+                if (byId.get(id) != null) {
+                    log.warn("Ignoring duplicate config entry for {} ({})", user.getHrToken(), user.getVrcUid());
+                    continue;
+                }
+                byId.set(id, user);
+                users.add(user);
+            }
+        }
+        index = new Index(byId.toArray(new UserConfig[0]), Collections.unmodifiableList(users));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.vrcmonitor.events;
+
+/**
+ * Published when the session of an additional polling account (see AccountPool) becomes usable
+ * or ends. The primary account keeps using {@link SessionEstablishedEvent} and
+ * {@link SessionInvalidatedEvent}.
+ *
+ * @param account The account name from the config
+ * @param active true if the session became usable, false if it ended
+ * @param reason Human-readable reason, for logs
+ */
+public record AccountSessionEvent(String account, boolean active, String reason) {}
@@ -0,0 +1,11 @@
+package com.example.vrcmonitor.events;
+
+import java.util.Set;
+
+/**
+ * Published when the set of users that connected clients are focused on (viewing or pinned) changes.
+ *
+ * @param focusedUsers VRChat user IDs focused by at least one client
+ * @param newlyFocused The subset that was not focused before this change
+ */
+public record ClientFocusChangedEvent(Set<String> focusedUsers, Set<String> newlyFocused) {}
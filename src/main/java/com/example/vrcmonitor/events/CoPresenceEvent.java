@@ -0,0 +1,24 @@
+package com.example.vrcmonitor.events;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published when a monitored user enters an instance that other monitored users are already in
+ * (JOINED), or leaves one that still has monitored users in it (LEFT).
+ *
+ * @param kind Whether the user joined or left the others
+ * @param vrcUid The user who moved
+ * @param location The full instance location ("wrld_xxx:12345~...")
+ * @param worldId The world ID part of the location
+ * @param companions The other monitored users in the instance (after the move)
+ * @param timestamp When the move was observed
+ */
+public record CoPresenceEvent(Kind kind, String vrcUid, String location, String worldId,
+                              List<String> companions, Instant timestamp) {
+
+    public enum Kind {
+        JOINED,
+        LEFT
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.vrcmonitor.events;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.UserConfig;
+
+import java.util.List;
+
+/**
+ * Published when config.json was edited and reloaded while the server is running.
+ * Users are matched by VRChat user ID.
+ *
+ * @param previous The configuration before the reload
+ * @param current The configuration now in effect
+ * @param added Users that are new in the configuration
+ * @param removed Users that are no longer in the configuration (as previously configured)
+ * @param changed Users whose settings changed (as now configured)
+ */
+public record ConfigChangedEvent(AppConfig previous, AppConfig current,
+                                 List<UserConfig> added, List<UserConfig> removed, List<UserConfig> changed) {}
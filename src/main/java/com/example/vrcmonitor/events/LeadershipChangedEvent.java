@@ -0,0 +1,11 @@
+package com.example.vrcmonitor.events;
+
+/**
+ * Published when this instance takes over the leader lease or loses it (see LeaderLease).
+ * Not published for the lease taken at startup; services check the lease directly then.
+ *
+ * @param leader true if this instance is now the leader, false if it became the standby
+ * @param fencingToken The lease's fencing token when it was taken or lost
+ * @param reason Human-readable reason, for logs
+ */
+public record LeadershipChangedEvent(boolean leader, long fencingToken, String reason) {}
@@ -0,0 +1,17 @@
+package com.example.vrcmonitor.events;
+
+/**
+ * Published once when a VRChat session becomes usable: either a login (with or without 2FA)
+ * completed, or a session restored from the cache was confirmed by its first successful request.
+ * Listeners start monitoring and push the new session status to clients.
+ *
+ * @param generation The generation of the session that became active
+ * @param source How the session was obtained
+ */
+public record SessionEstablishedEvent(long generation, Source source) {
+
+    public enum Source {
+        LOGIN,     // Fresh login from the client UI or console
+        RESTORED   // Session cache from a previous run, validated against the API
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.vrcmonitor.events;
+
+/**
+ * Published once when the current VRChat session ends (401, logout or failed validation).
+ * Listeners pause polling and update clients; requests still in flight with the old
+ * session are expected to fail quietly.
+ *
+ * @param generation The generation of the session that ended
+ * @param reason Human-readable reason, for logs
+ */
+public record SessionInvalidatedEvent(long generation, String reason) {}
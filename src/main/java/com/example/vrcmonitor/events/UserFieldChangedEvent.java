@@ -0,0 +1,18 @@
+package com.example.vrcmonitor.events;
+
+import com.example.vrcmonitor.services.TrackedField;
+
+import java.time.Instant;
+
+/**
+ * Published for each tracked field that changed between two polls of a user.
+ * Not published for the first observation of a user or while replaying persisted state.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param field The field that changed
+ * @param previousValue The value before the change (may be null)
+ * @param newValue The value after the change (may be null)
+ * @param timestamp When the change was observed
+ */
+public record UserFieldChangedEvent(String vrcUid, TrackedField field, String previousValue,
+                                    String newValue, Instant timestamp) {}
@@ -0,0 +1,18 @@
+package com.example.vrcmonitor.events;
+
+import java.time.Instant;
+
+/**
+ * Published whenever a user's location string changes between two live polls, including the
+ * first observation of a user (previousLocation is then null). Unlike {@link UserFieldChangedEvent}
+ * this does not depend on the tracked fields, so location-based consumers always see every move.
+ * Not published while replaying persisted state.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param displayName The user's display name at the time of the change (may be null)
+ * @param previousLocation The location before the change (may be null)
+ * @param newLocation The location after the change (may be null, "offline", "private", ...)
+ * @param timestamp When the change was observed
+ */
+public record UserLocationChangedEvent(String vrcUid, String displayName, String previousLocation,
+                                       String newLocation, Instant timestamp) {}
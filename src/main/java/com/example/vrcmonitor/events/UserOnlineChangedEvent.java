@@ -0,0 +1,15 @@
+package com.example.vrcmonitor.events;
+
+import java.time.Instant;
+
+/**
+ * Published when a live poll finds a user going in-game or leaving it (see
+ * OnlineSessionService.isInGame), and for the first observation of a user.
+ * Not published while replaying persisted state.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param online Whether the user is now in-game
+ * @param location The user's location at the time (may be "offline", "private", ...)
+ * @param timestamp When the change was observed
+ */
+public record UserOnlineChangedEvent(String vrcUid, boolean online, String location, Instant timestamp) {}
@@ -0,0 +1,16 @@
+package com.example.vrcmonitor.events;
+
+import com.example.vrcmonitor.services.PresenceCategory;
+
+import java.time.Instant;
+
+/**
+ * Published when a live poll moves a user into a different {@link PresenceCategory}
+ * (online, busy, offline), and for the first observation of a user.
+ * Not published while replaying persisted state.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param presence The user's new presence category
+ * @param timestamp When the change was observed
+ */
+public record UserPresenceChangedEvent(String vrcUid, PresenceCategory presence, Instant timestamp) {}
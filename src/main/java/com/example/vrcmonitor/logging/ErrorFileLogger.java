@@ -1,97 +1,217 @@
 package com.example.vrcmonitor.logging;
 
 import com.example.vrcmonitor.config.ConfigLoader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
 
 /**
- * Component that logs errors to daily rolling files when enabled in config.
- * Also handles cleanup of log files older than 3 days.
+ * Component that logs errors to daily rolling files when enabled in config. Each error is one
+ * JSON line ({@link ErrorRecord}) with its user, endpoint, status code, error class and a
+ * stack trace fingerprint; every file has a sidecar index ({@link ErrorLogIndex}) that
+ * {@link ErrorLogQueryService} answers queries from.
+ *
+ * Callers only format the entry and put it on a lock-free queue; a single writer thread drains
+ * the queue into one long-lived FileChannel, one write (and one flush) per batch. If the queue
+ * is full, entries are dropped and counted instead of blocking the caller (pollers log here).
+ *
+ * The current file is vrc-monitor-errors-{date}.log. It is rotated at midnight and when it
+ * reaches {@value #MAX_FILE_BYTES} bytes; rotated files are gzipped in the background (in
+ * blocks, so they stay searchable), and files older than {@value #LOG_RETENTION_DAYS} days
+ * are deleted on each rotation.
  */
 @Component
 public class ErrorFileLogger {
     private static final Logger log = LoggerFactory.getLogger(ErrorFileLogger.class);
-    private static final String LOG_DIRECTORY = "logs";
-    private static final String LOG_FILE_PREFIX = "vrc-monitor-errors-";
-    private static final String LOG_FILE_EXTENSION = ".log";
+    static final String LOG_DIRECTORY = "logs";
+    static final String LOG_FILE_PREFIX = "vrc-monitor-errors-";
+    static final String LOG_FILE_EXTENSION = ".log";
+    static final String COMPRESSED_EXTENSION = ".gz";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final int LOG_RETENTION_DAYS = 3;
-    
+    static final int LOG_RETENTION_DAYS = 3;
+    // Stack frames per exception that go into the fingerprint
+    private static final int FINGERPRINT_FRAMES = 40;
+
+    static final int MAX_QUEUED_ENTRIES = 10_000;
+    static final long MAX_FILE_BYTES = 10L * 1024 * 1024;
+    // How long the writer waits for more entries before it checks the date again
+    private static final long IDLE_WAIT_MILLIS = 500;
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
+
     private final ConfigLoader configLoader;
-    private final ReentrantLock fileLock = new ReentrantLock();
-    
-    public ErrorFileLogger(ConfigLoader configLoader) {
+    private final ObjectMapper objectMapper;
+    private final Path logDirectory = Paths.get(LOG_DIRECTORY);
+
+    // A formatted line and its index record (offset filled in when it is written)
+    private record Pending(String line, ErrorLogIndex.Entry index) {}
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+
+    // Gzips rotated files and enforces retention, off the writer thread
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "error-log-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    // Only used by the writer thread
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private LocalDate channelDate;
+    private long channelSize;
+
+    public ErrorFileLogger(ConfigLoader configLoader, ObjectMapper objectMapper) {
         this.configLoader = configLoader;
+        this.objectMapper = objectMapper;
     }
-    
+
     @PostConstruct
     public void init() {
         // Create logs directory if it doesn't exist
         try {
-            Files.createDirectories(Paths.get(LOG_DIRECTORY));
-            
+            Files.createDirectories(logDirectory);
+
             // Create .gitignore in logs directory to exclude log files from git
-            Path gitignorePath = Paths.get(LOG_DIRECTORY, ".gitignore");
+            Path gitignorePath = logDirectory.resolve(".gitignore");
             if (!Files.exists(gitignorePath)) {
-                Files.writeString(gitignorePath, "*.log\n");
+                Files.writeString(gitignorePath, "*.log\n*.log.gz\n*.idx\n");
                 log.info("Created .gitignore in logs directory");
+            } else if (!Files.readString(gitignorePath).contains("*.idx")) {
+                Files.writeString(gitignorePath, "*.log.gz\n*.idx\n", StandardOpenOption.APPEND);
             }
-            
-            log.info("Error file logging initialized. Log directory: {}", Paths.get(LOG_DIRECTORY).toAbsolutePath());
+
+            log.info("Error file logging initialized. Log directory: {}", logDirectory.toAbsolutePath());
         } catch (IOException e) {
             log.error("Failed to create logs directory: {}", e.getMessage(), e);
         }
+
+        // Files left by earlier runs: compress the old days, drop what is past retention
+        compressor.execute(() -> compressAndExpire(LocalDate.now()));
+
+        writer = new Thread(this::runWriter, "error-file-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes what is still queued and closes the file.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-    
+
     /**
-     * Logs an error message to the current day's log file if error logging is enabled
-     * 
+     * Logs an error message to the current day's log file if error logging is enabled.
+     * Never blocks on the file: the entry is queued, or dropped if the queue is full.
+     *
      * @param message The error message to log
      * @param throwable Optional throwable to include stack trace
      */
     public void logError(String message, Throwable throwable) {
+        logError(message, throwable, null, null, null);
+    }
+
+    /**
+     * Logs an error with the context it can be searched by (see {@link ErrorLogQueryService}).
+     *
+     * @param message The error message to log
+     * @param throwable Optional throwable to include stack trace
+     * @param vrcUid The user the error is about, or null
+     * @param endpoint The API path (or request) involved, or null
+     * @param statusCode The HTTP status of the failed call, or null
+     */
+    public void logError(String message, Throwable throwable, String vrcUid, String endpoint, Integer statusCode) {
         if (!isLoggingEnabled()) {
             return;
         }
-        
-        String currentDate = LocalDate.now().format(DATE_FORMATTER);
-        String logFilePath = LOG_DIRECTORY + File.separator + LOG_FILE_PREFIX + currentDate + LOG_FILE_EXTENSION;
-        
-        fileLock.lock();
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
-            writer.println("[" + java.time.LocalDateTime.now() + "] ERROR: " + message);
-            if (throwable != null) {
-                writer.println("Exception: " + throwable.getClass().getName() + ": " + throwable.getMessage());
-                throwable.printStackTrace(writer);
-                writer.println();
-            }
-        } catch (IOException e) {
-            log.error("Failed to write to error log file: {}", e.getMessage(), e);
-        } finally {
-            fileLock.unlock();
+
+        String errorClass = throwable != null ? throwable.getClass().getName() : null;
+        String stackTrace = null;
+        if (throwable != null) {
+            StringWriter trace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(trace));
+            stackTrace = trace.toString();
+        }
+        String fingerprint = fingerprint(throwable, statusCode);
+        ErrorRecord record = new ErrorRecord(Instant.now(), message, vrcUid, endpoint, statusCode, errorClass,
+                throwable != null ? throwable.getMessage() : null, fingerprint, stackTrace);
+        String line;
+        try {
+            line = objectMapper.writeValueAsString(record) + "\n";
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to format error log entry: {}", e.getMessage());
+            return;
         }
+        enqueue(new Pending(line, new ErrorLogIndex.Entry(record.timestamp().toEpochMilli(), 0,
+                ErrorLogIndex.userHash(vrcUid), ErrorLogIndex.classHash(errorClass), ErrorLogIndex.fingerprintBits(fingerprint))));
     }
-    
+
     /**
-     * Logs an API error to the current day's log file
-     * 
+     * Logs an API error to the current day's log file, searchable by endpoint and status code
+     *
      * @param requestInfo Information about the request
      * @param statusCode The HTTP status code
      * @param responseBody The response body
@@ -100,66 +220,312 @@ public class ErrorFileLogger {
         if (!isLoggingEnabled()) {
             return;
         }
-        
+
         StringBuilder message = new StringBuilder();
         message.append("API Error: ").append(requestInfo).append("\n");
         message.append("Status Code: ").append(statusCode).append("\n");
         message.append("Response: ").append(responseBody);
-        
-        logError(message.toString(), null);
+
+        logError(message.toString(), null, null, requestInfo, statusCode);
     }
-    
+
     /**
      * Checks if error logging to file is enabled
-     * 
+     *
      * @return true if enabled in config, false otherwise
      */
     public boolean isLoggingEnabled() {
         try {
-            return configLoader.getConfig().getLogErrorsToFile() != null && 
+            return configLoader.getConfig().getLogErrorsToFile() != null &&
                    configLoader.getConfig().getLogErrorsToFile();
         } catch (Exception e) {
             log.warn("Failed to check if error logging is enabled: {}", e.getMessage());
             return false;
         }
     }
-    
+
     /**
-     * Scheduled task that runs daily at midnight to clean up old log files
+     * @return Queue depth, entries written and dropped, write errors, and rotation counters
      */
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void cleanupOldLogFiles() {
-        log.info("Running scheduled cleanup of old log files");
-        LocalDate cutoffDate = LocalDate.now().minus(LOG_RETENTION_DAYS, ChronoUnit.DAYS);
-        
-        File logsDir = new File(LOG_DIRECTORY);
-        File[] logFiles = logsDir.listFiles((dir, name) -> 
-            name.startsWith(LOG_FILE_PREFIX) && name.endsWith(LOG_FILE_EXTENSION));
-        
-        if (logFiles == null) {
-            log.warn("Failed to list log files for cleanup");
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isLoggingEnabled());
+        stats.put("queued", queued.get());
+        stats.put("maxQueued", MAX_QUEUED_ENTRIES);
+        stats.put("written", written.get());
+        stats.put("bytesWritten", bytesWritten.get());
+        stats.put("dropped", dropped.get());
+        stats.put("writeErrors", writeErrors.get());
+        stats.put("rotations", rotations.get());
+        stats.put("compressed", compressed.get());
+        stats.put("deleted", deleted.get());
+        return stats;
+    }
+
+    /*
+     * Identical stack traces (same exception classes and frames, including causes; messages
+     * and line-independent details don't count) get the same fingerprint. Errors without a
+     * throwable are grouped by status code.
+     */
+    private static String fingerprint(Throwable throwable, Integer statusCode) {
+        StringBuilder shape = new StringBuilder();
+        if (throwable == null) {
+            shape.append("status:").append(statusCode);
+        }
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable cause = throwable; cause != null && seen.add(cause); cause = cause.getCause()) {
+            shape.append(cause.getClass().getName()).append('\n');
+            StackTraceElement[] frames = cause.getStackTrace();
+            for (int i = 0; i < Math.min(frames.length, FINGERPRINT_FRAMES); i++) {
+                shape.append(frames[i].getClassName()).append('.').append(frames[i].getMethodName())
+                        .append(':').append(frames[i].getLineNumber()).append('\n');
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(shape.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void enqueue(Pending entry) {
+        if (queued.incrementAndGet() > MAX_QUEUED_ENTRIES) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
             return;
         }
-        
-        Arrays.stream(logFiles)
-            .filter(file -> {
-                try {
-                    String datePart = file.getName()
-                        .replace(LOG_FILE_PREFIX, "")
-                        .replace(LOG_FILE_EXTENSION, "");
-                    LocalDate fileDate = LocalDate.parse(datePart, DATE_FORMATTER);
-                    return fileDate.isBefore(cutoffDate);
-                } catch (Exception e) {
-                    log.warn("Failed to parse date from filename: {}", file.getName());
-                    return false;
-                }
-            })
-            .forEach(file -> {
-                if (file.delete()) {
-                    log.info("Deleted old log file: {}", file.getName());
-                } else {
-                    log.warn("Failed to delete old log file: {}", file.getName());
+        queue.offer(entry);
+        LockSupport.unpark(writer);
+    }
+
+    private void runWriter() {
+        ByteBuffer batch = ByteBuffer.allocate(MAX_BATCH_BYTES);
+        while (true) {
+            boolean stopping = !running;
+            try {
+                rotateIfNewDay();
+                writeBatches(batch);
+            } catch (IOException | RuntimeException e) {
+                writeErrors.incrementAndGet();
+                log.error("Failed to write to error log file: {}", e.getMessage());
+                closeChannel(); // Reopened with the next batch
+            }
+            if (stopping) {
+                break;
+            }
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(IDLE_WAIT_MILLIS));
+            }
+        }
+        closeChannel();
+    }
+
+    // Everything queued so far, as few writes as the batch buffer allows, then one flush
+    private void writeBatches(ByteBuffer batch) throws IOException {
+        List<ErrorLogIndex.Entry> indexed = new ArrayList<>(); // Offsets relative to the batch
+        Pending entry;
+        while ((entry = queue.peek()) != null) {
+            byte[] bytes = entry.line().getBytes(StandardCharsets.UTF_8);
+            if (batch.position() > 0 && bytes.length > batch.remaining()) {
+                flushBatch(batch, indexed);
+            }
+            queue.poll();
+            queued.decrementAndGet();
+            ErrorLogIndex.Entry index = withOffset(entry.index(), batch.position());
+            if (bytes.length > batch.capacity()) {
+                // A huge entry goes out on its own
+                long offset = write(ByteBuffer.wrap(bytes));
+                writeIndex(List.of(withOffset(index, 0)), offset);
+                written.incrementAndGet();
+                continue;
+            }
+            batch.put(bytes);
+            indexed.add(index);
+        }
+        flushBatch(batch, indexed);
+        if (channel != null) {
+            channel.force(false);
+            indexChannel.force(false);
+        }
+    }
+
+    private void flushBatch(ByteBuffer batch, List<ErrorLogIndex.Entry> indexed) throws IOException {
+        if (batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        try {
+            long offset = write(batch);
+            writeIndex(indexed, offset);
+            written.addAndGet(indexed.size());
+        } finally {
+            batch.clear();
+            indexed.clear();
+        }
+    }
+
+    // Writes to the current file (rotating first if it would get too big); returns where the bytes start
+    private long write(ByteBuffer bytes) throws IOException {
+        if (channel == null) {
+            openChannel();
+        } else if (channelSize + bytes.remaining() > MAX_FILE_BYTES && channelSize > 0) {
+            rotate(false);
+            openChannel();
+        }
+        long offset = channelSize;
+        int length = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channelSize += length;
+        bytesWritten.addAndGet(length);
+        return offset;
+    }
+
+    // The index is written after the lines, so every indexed offset has its line
+    private void writeIndex(List<ErrorLogIndex.Entry> entries, long baseOffset) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(entries.size() * ErrorLogIndex.RECORD_BYTES);
+        for (ErrorLogIndex.Entry entry : entries) {
+            ErrorLogIndex.put(records, withOffset(entry, baseOffset + entry.offset()));
+        }
+        records.flip();
+        while (records.hasRemaining()) {
+            indexChannel.write(records);
+        }
+    }
+
+    private static ErrorLogIndex.Entry withOffset(ErrorLogIndex.Entry entry, long offset) {
+        return new ErrorLogIndex.Entry(entry.timeMillis(), offset, entry.userHash(), entry.classHash(), entry.fingerprint());
+    }
+
+    private void openChannel() throws IOException {
+        Files.createDirectories(logDirectory);
+        channelDate = LocalDate.now();
+        Path file = currentFile(channelDate);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSize = channel.size();
+        indexChannel = FileChannel.open(indexOf(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            indexChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close error log file: {}", e.getMessage());
+        }
+        channel = null;
+        indexChannel = null;
+    }
+
+    // Midnight: the previous day's file is done. Checked even when nothing is logged, so retention still runs.
+    private void rotateIfNewDay() throws IOException {
+        LocalDate today = LocalDate.now();
+        if (channelDate == null) {
+            channelDate = today;
+        } else if (!channelDate.equals(today)) {
+            if (channel != null) {
+                rotate(true);
+            } else {
+                channelDate = today;
+                compressor.execute(() -> compressAndExpire(today));
+            }
+        }
+    }
+
+    /*
+     * Closes the current file and hands it to the compressor. A size rotation first renames the
+     * file to the next free "{date}.{n}.log", so the day's file name is free again.
+     */
+    private void rotate(boolean newDay) throws IOException {
+        LocalDate date = channelDate;
+        closeChannel();
+        Path current = currentFile(date);
+        if (!newDay && Files.exists(current)) {
+            Path rotated = nextSizeRotatedFile(date);
+            if (Files.exists(indexOf(current))) {
+                Files.move(indexOf(current), indexOf(rotated), StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(current, rotated, StandardCopyOption.ATOMIC_MOVE);
+        }
+        rotations.incrementAndGet();
+        channelDate = LocalDate.now();
+        LocalDate today = channelDate;
+        compressor.execute(() -> compressAndExpire(today));
+    }
+
+    private Path currentFile(LocalDate date) {
+        return logDirectory.resolve(LOG_FILE_PREFIX + date.format(DATE_FORMATTER) + LOG_FILE_EXTENSION);
+    }
+
+    static Path indexOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ErrorLogIndex.INDEX_EXTENSION);
+    }
+
+    private Path nextSizeRotatedFile(LocalDate date) {
+        String base = LOG_FILE_PREFIX + date.format(DATE_FORMATTER) + ".";
+        for (int part = 1; ; part++) {
+            Path candidate = logDirectory.resolve(base + part + LOG_FILE_EXTENSION);
+            if (!Files.exists(candidate) && !Files.exists(candidate.resolveSibling(candidate.getFileName() + COMPRESSED_EXTENSION))) {
+                return candidate;
+            }
+        }
+    }
+
+    /*
+     * Runs on the compressor thread: gzips every log file except today's current one, then
+     * deletes the files (compressed or not) older than the retention.
+     */
+    private void compressAndExpire(LocalDate today) {
+        LocalDate cutoffDate = today.minusDays(LOG_RETENTION_DAYS);
+        Path active = currentFile(today);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(logDirectory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(LOG_FILE_PREFIX)).toList();
+        } catch (IOException e) {
+            log.warn("Failed to list log files for rotation: {}", e.getMessage());
+            return;
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            LocalDate fileDate = dateOf(name);
+            if (fileDate == null) {
+                continue;
+            }
+            try {
+                if (fileDate.isBefore(cutoffDate)) {
+                    Files.deleteIfExists(file);
+                    deleted.incrementAndGet();
+                    log.info("Deleted old log file: {}", name);
+                } else if (name.endsWith(LOG_FILE_EXTENSION) && !file.equals(active)) {
+                    ErrorLogIndex.compress(file);
+                    compressed.incrementAndGet();
+                    log.debug("Compressed rotated log file {}", name);
                 }
-            });
+            } catch (IOException e) {
+                log.warn("Failed to compress or delete log file {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    // The date in "vrc-monitor-errors-{date}[.{n}].log[.gz][.idx]", or null for other files
+    static LocalDate dateOf(String name) {
+        String file = name.endsWith(ErrorLogIndex.INDEX_EXTENSION)
+                ? name.substring(0, name.length() - ErrorLogIndex.INDEX_EXTENSION.length()) : name;
+        if (!file.startsWith(LOG_FILE_PREFIX)
+                || !file.endsWith(LOG_FILE_EXTENSION) && !file.endsWith(LOG_FILE_EXTENSION + COMPRESSED_EXTENSION)) {
+            return null;
+        }
+        try {
+            String datePart = name.substring(LOG_FILE_PREFIX.length(), LOG_FILE_PREFIX.length() + 10);
+            return LocalDate.parse(datePart, DATE_FORMATTER);
+        } catch (RuntimeException e) {
+            log.warn("Failed to parse date from filename: {}", name);
+            return null;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.example.vrcmonitor.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The sidecar index of an error log file ("{file}.idx"): one fixed-size record per line with
+ * its time, where it starts in the file, and 64-bit hashes of its user, error class and
+ * fingerprint, so a query filters on the small index alone and then seeks to the lines it
+ * returns only.
+ *
+ * Rotated files are gzipped in independent {@value #BLOCK_SIZE}-byte blocks (one gzip member
+ * each) and get a "{file}.gz.idx" whose offsets point at the block plus the offset in it, so
+ * a line in a compressed file is read by decompressing one block, not the file.
+ */
+final class ErrorLogIndex {
+    static final String INDEX_EXTENSION = ".idx";
+    // time, offset, user hash, class hash, fingerprint
+    static final int RECORD_BYTES = 8 + 8 + 8 + 8 + 8;
+    static final int BLOCK_SIZE = 64 * 1024;
+    private static final int BLOCK_BITS = 16;
+
+    private ErrorLogIndex() {
+    }
+
+    /**
+     * One index record.
+     * @param offset Start of the line: in the file, or (for a compressed file) block start << 16 | offset in block
+     */
+    record Entry(long timeMillis, long offset, long userHash, long classHash, long fingerprint) {
+    }
+
+    static long userHash(String vrcUid) {
+        return hash(vrcUid);
+    }
+
+    static long classHash(String className) {
+        return hash(ErrorRecord.simpleClassName(className));
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, 0 for null; wide enough that a match needs no check against the line
+    private static long hash(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    static long fingerprintBits(String fingerprint) {
+        return fingerprint == null ? 0 : Long.parseUnsignedLong(fingerprint, 16);
+    }
+
+    static void put(ByteBuffer buffer, Entry entry) {
+        buffer.putLong(entry.timeMillis()).putLong(entry.offset())
+                .putLong(entry.userHash()).putLong(entry.classHash()).putLong(entry.fingerprint());
+    }
+
+    /**
+     * Reads every complete record (the writer may be appending one right now).
+     */
+    static List<Entry> read(Path index) throws IOException {
+        byte[] bytes = Files.readAllBytes(index);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - bytes.length % RECORD_BYTES);
+        List<Entry> entries = new ArrayList<>(bytes.length / RECORD_BYTES);
+        while (buffer.hasRemaining()) {
+            entries.add(new Entry(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the line starting at an indexed offset.
+     * @param compressed Whether the file was gzipped by {@link #compress}
+     */
+    static String readLine(Path file, long offset, boolean compressed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try (InputStream in = compressed ? openBlock(channel, offset) : Channels.newInputStream(channel.position(offset))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                int end = 0;
+                while (end < read && chunk[end] != '\n') {
+                    end++;
+                }
+                line.write(chunk, 0, end);
+                if (end < read) {
+                    break;
+                }
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Decompresses from the line's block on (into the following members if the line continues there)
+    private static InputStream openBlock(FileChannel channel, long offset) throws IOException {
+        channel.position(offset >>> BLOCK_BITS);
+        InputStream in = new GZIPInputStream(Channels.newInputStream(channel), 8192);
+        in.skipNBytes(offset & (BLOCK_SIZE - 1));
+        return in;
+    }
+
+    // Closing a gzip member must not close the file the next member goes to
+    private static OutputStream unclosable(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Gzips a log file in blocks to "{file}.gz" and converts its index (if any) to
+     * "{file}.gz.idx", then deletes the originals. The new files are in place before the
+     * old ones are deleted, so a concurrent query always finds one of them (and prefers the
+     * compressed one while both exist).
+     */
+    static void compress(Path file) throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        Path temp = file.resolveSibling(file.getFileName() + ".gz.tmp");
+        List<Long> blockStarts = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream outStream = Channels.newOutputStream(out);
+            byte[] block = new byte[BLOCK_SIZE];
+            int length;
+            while ((length = in.readNBytes(block, 0, BLOCK_SIZE)) > 0) {
+                blockStarts.add(out.position());
+                try (GZIPOutputStream member = new GZIPOutputStream(unclosable(outStream), 16 * 1024)) {
+                    member.write(block, 0, length);
+                }
+            }
+        }
+
+        Path index = file.resolveSibling(file.getFileName() + INDEX_EXTENSION);
+        Path targetIndex = target.resolveSibling(target.getFileName() + INDEX_EXTENSION);
+        if (Files.exists(index)) {
+            List<Entry> entries = read(index);
+            ByteBuffer converted = ByteBuffer.allocate(entries.size() * RECORD_BYTES);
+            for (Entry entry : entries) {
+                int block = (int) (entry.offset() / BLOCK_SIZE);
+                long offset = block < blockStarts.size()
+                        ? blockStarts.get(block) << BLOCK_BITS | entry.offset() % BLOCK_SIZE
+                        : -1; // Indexed but never written (a failed batch)
+                put(converted, new Entry(entry.timeMillis(), offset, entry.userHash(), entry.classHash(), entry.fingerprint()));
+            }
+            Path tempIndex = targetIndex.resolveSibling(targetIndex.getFileName() + ".tmp");
+            Files.write(tempIndex, converted.array());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempIndex, targetIndex, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.delete(file);
+        Files.deleteIfExists(index);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.vrcmonitor.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Searches the error log files by user, time range, error class and fingerprint. Only the
+ * sidecar indexes ({@link ErrorLogIndex}) of the days in range are read in full; the log
+ * itself is only read at the offsets of the entries that are returned.
+ */
+@Service
+public class ErrorLogQueryService {
+    private static final Logger log = LoggerFactory.getLogger(ErrorLogQueryService.class);
+    static final int MAX_GROUPS = 100;
+
+    private final ObjectMapper objectMapper;
+    private final Path logDirectory = Paths.get(ErrorFileLogger.LOG_DIRECTORY);
+
+    public ErrorLogQueryService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Errors with the same fingerprint (identical stack traces).
+     *
+     * @param sample The newest error of the group
+     */
+    public record ErrorGroup(String fingerprint, int count, Instant firstSeen, Instant lastSeen, ErrorRecord sample) {
+    }
+
+    /**
+     * @param matched How many errors matched (all of them, not only the returned ones)
+     * @param entries The newest matching errors, newest first
+     * @param groups The matching errors by fingerprint, biggest group first
+     */
+    public record SearchResult(int matched, List<ErrorRecord> entries, List<ErrorGroup> groups) {
+    }
+
+    // An index record that matched, and the file it points into
+    private record Match(Path file, boolean compressed, ErrorLogIndex.Entry entry) {
+    }
+
+    // Counts one fingerprint's errors, newest first
+    private static final class GroupBuilder {
+        final Match newest;
+        ErrorRecord sample; // Already read, or null
+        int count;
+        long oldestMillis;
+
+        GroupBuilder(Match newest, ErrorRecord sample) {
+            this.newest = newest;
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * @param vrcUid Only errors about this user, or null
+     * @param users Only errors about one of these users (not errors about no user), or null
+     * @param from Only errors at or after this time, or null
+     * @param to Only errors before this time, or null
+     * @param errorClass Only errors of this exception class (simple or full name), or null
+     * @param fingerprint Only errors with this fingerprint, or null
+     * @param limit At most this many entries are read and returned
+     */
+    public SearchResult search(String vrcUid, Set<String> users, Instant from, Instant to, String errorClass,
+                               String fingerprint, int limit) {
+        try {
+            return searchOnce(vrcUid, users, from, to, errorClass, fingerprint, limit);
+        } catch (NoSuchFileException e) {
+            // A file was compressed (or expired) while we read it; the listing is fresh the second time
+            log.debug("Error log file went away during search, retrying: {}", e.getMessage());
+            try {
+                return searchOnce(vrcUid, users, from, to, errorClass, fingerprint, limit);
+            } catch (IOException retryError) {
+                throw new IllegalStateException("Failed to search error log: " + retryError.getMessage(), retryError);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to search error log: " + e.getMessage(), e);
+        }
+    }
+
+    private SearchResult searchOnce(String vrcUid, Set<String> users, Instant from, Instant to, String errorClass,
+                                    String fingerprint, int limit) throws IOException {
+        long userHash = ErrorLogIndex.userHash(vrcUid);
+        Set<Long> userHashes = users != null
+                ? users.stream().map(ErrorLogIndex::userHash).collect(Collectors.toSet()) : null;
+        long classHash = ErrorLogIndex.classHash(errorClass);
+        long fingerprintBits = fingerprint != null ? ErrorLogIndex.fingerprintBits(fingerprint) : 0;
+        long fromMillis = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+
+        List<Match> matches = new ArrayList<>();
+        for (Path index : indexFiles(from, to)) {
+            String name = index.getFileName().toString();
+            Path file = index.resolveSibling(name.substring(0, name.length() - ErrorLogIndex.INDEX_EXTENSION.length()));
+            boolean compressed = file.getFileName().toString().endsWith(ErrorFileLogger.COMPRESSED_EXTENSION);
+            for (ErrorLogIndex.Entry entry : ErrorLogIndex.read(index)) {
+                if (entry.offset() < 0
+                        || entry.timeMillis() < fromMillis || entry.timeMillis() >= toMillis
+                        || vrcUid != null && entry.userHash() != userHash
+                        || userHashes != null && !userHashes.contains(entry.userHash())
+                        || errorClass != null && entry.classHash() != classHash
+                        || fingerprint != null && entry.fingerprint() != fingerprintBits) {
+                    continue;
+                }
+                matches.add(new Match(file, compressed, entry));
+            }
+        }
+        // Within a millisecond, later in the file is newer
+        matches.sort(Comparator.comparingLong((Match match) -> match.entry().timeMillis())
+                .thenComparingLong(match -> match.entry().offset()).reversed());
+
+        List<ErrorRecord> entries = new ArrayList<>();
+        Map<Long, GroupBuilder> byFingerprint = new LinkedHashMap<>();
+        for (Match match : matches) {
+            ErrorRecord record = entries.size() < limit ? readRecord(match) : null;
+            if (record != null) {
+                entries.add(record);
+            }
+            ErrorRecord sample = record;
+            GroupBuilder group = byFingerprint.computeIfAbsent(match.entry().fingerprint(),
+                    bits -> new GroupBuilder(match, sample));
+            group.count++;
+            group.oldestMillis = match.entry().timeMillis();
+        }
+        return new SearchResult(matches.size(), entries, groups(byFingerprint.values()));
+    }
+
+    private List<ErrorGroup> groups(Collection<GroupBuilder> newestFirst) throws IOException {
+        List<GroupBuilder> biggestFirst = new ArrayList<>(newestFirst);
+        biggestFirst.sort(Comparator.comparingInt((GroupBuilder group) -> group.count).reversed());
+
+        List<ErrorGroup> groups = new ArrayList<>();
+        for (GroupBuilder group : biggestFirst.subList(0, Math.min(MAX_GROUPS, biggestFirst.size()))) {
+            Match newest = group.newest;
+            groups.add(new ErrorGroup(String.format("%016x", newest.entry().fingerprint()), group.count,
+                    Instant.ofEpochMilli(group.oldestMillis), Instant.ofEpochMilli(newest.entry().timeMillis()),
+                    group.sample != null ? group.sample : readRecord(newest)));
+        }
+        return groups;
+    }
+
+    private ErrorRecord readRecord(Match match) throws IOException {
+        String line = ErrorLogIndex.readLine(match.file(), match.entry().offset(), match.compressed());
+        try {
+            return objectMapper.readValue(line, ErrorRecord.class);
+        } catch (IOException e) {
+            // Not a JSON line (e.g. written before the format change)
+            log.debug("Unreadable error log entry in {}: {}", match.file().getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * The index files of the days that can hold errors in range (file dates are local dates and a
+     * day's file can get the first entries after midnight, so one day either side). Where a file has been compressed but its original is not
+     * deleted yet, only the compressed index is used.
+     */
+    private List<Path> indexFiles(Instant from, Instant to) throws IOException {
+        LocalDate firstDay = from != null ? LocalDate.ofInstant(from, ZoneId.systemDefault()).minusDays(1) : LocalDate.MIN;
+        LocalDate lastDay = to != null ? LocalDate.ofInstant(to, ZoneId.systemDefault()).plusDays(1) : LocalDate.MAX;
+        if (!Files.isDirectory(logDirectory)) {
+            return List.of();
+        }
+        Map<String, Path> byLogFile = new HashMap<>();
+        try (Stream<Path> listing = Files.list(logDirectory)) {
+            listing.forEach(path -> {
+                String name = path.getFileName().toString();
+                LocalDate date = ErrorFileLogger.dateOf(name);
+                if (date == null || !name.endsWith(ErrorLogIndex.INDEX_EXTENSION)
+                        || date.isBefore(firstDay) || date.isAfter(lastDay)) {
+                    return;
+                }
+                String compressedSuffix = ErrorFileLogger.LOG_FILE_EXTENSION + ErrorFileLogger.COMPRESSED_EXTENSION
+                        + ErrorLogIndex.INDEX_EXTENSION;
+                String logFile = name.substring(0, name.indexOf(ErrorFileLogger.LOG_FILE_EXTENSION, ErrorFileLogger.LOG_FILE_PREFIX.length()));
+                if (name.endsWith(compressedSuffix) || !byLogFile.containsKey(logFile)) {
+                    byLogFile.put(logFile, path);
+                }
+            });
+        }
+        return new ArrayList<>(byLogFile.values());
+    }
+}
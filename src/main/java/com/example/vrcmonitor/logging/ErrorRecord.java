@@ -0,0 +1,30 @@
+package com.example.vrcmonitor.logging;
+
+import java.time.Instant;
+
+/**
+ * One line of the error log (JSON lines, see {@link ErrorFileLogger}).
+ *
+ * @param timestamp When the error was logged
+ * @param message What failed, in words
+ * @param user The vrcUid the error is about, if any
+ * @param endpoint The VRChat API path (or request) involved, if any
+ * @param statusCode The HTTP status of the failed call, if any
+ * @param errorClass Class of the exception, if any
+ * @param exceptionMessage Message of the exception, if any
+ * @param fingerprint Hash of the error class and stack frames, equal for identical stack traces
+ * @param stackTrace The full stack trace including causes, if any
+ */
+public record ErrorRecord(Instant timestamp, String message, String user, String endpoint, Integer statusCode,
+                          String errorClass, String exceptionMessage, String fingerprint, String stackTrace) {
+
+    /**
+     * @return The class name without its package (and outer class), as used by the class filter
+     */
+    public static String simpleClassName(String className) {
+        if (className == null) {
+            return null;
+        }
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+    }
+}
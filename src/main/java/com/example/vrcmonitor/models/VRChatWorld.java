@@ -0,0 +1,20 @@
+package com.example.vrcmonitor.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true) // Ignore fields not defined here
+public class VRChatWorld {
+    private String id;
+    private String name;
+    private String authorName;
+    private Integer capacity;
+    private Integer recommendedCapacity;
+    private String thumbnailImageUrl;
+    private String imageUrl;
+    private Integer occupants;
+    // Add more fields as needed based on VRChat API documentation
+}
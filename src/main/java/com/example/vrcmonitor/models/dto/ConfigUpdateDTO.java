@@ -0,0 +1,20 @@
+package com.example.vrcmonitor.models.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Sent to clients when config.json was reloaded: only the users that differ, plus the new order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigUpdateDTO {
+    private List<String> userOrder;          // All monitored VRChat user IDs, in config order
+    private List<StatusUpdateDTO> added;     // New users with their current state
+    private List<StatusUpdateDTO> changed;   // Users whose settings (name, volume, ...) changed
+    private List<String> removed;            // VRChat user IDs no longer monitored
+}
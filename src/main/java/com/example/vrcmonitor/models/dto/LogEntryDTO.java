@@ -14,11 +14,24 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 public class LogEntryDTO {
-    private String type;    // "request" or "response"
+    private String type;    // "request", "response" or "client-request"
     private String content; // The log content (already sanitized)
     
     @JsonIgnore // Don't include the Instant object directly in JSON
     private Instant timestamp;
+
+    private String level;   // "DEBUG", "INFO", "WARN" or "ERROR"; clients can subscribe by level
+
+    private Long id;           // Set by ApiLogStore; the full entry is at /api/logs/{id}
+    private boolean truncated; // Content is only a preview (broadcasts), or was cut to the store's limit
+
+    public LogEntryDTO(String type, String content, Instant timestamp) {
+        this(type, content, timestamp, "INFO");
+    }
+
+    public LogEntryDTO(String type, String content, Instant timestamp, String level) {
+        this(type, content, timestamp, level, null, false);
+    }
     
     @JsonProperty("timestamp")
     public long getTimestampMillis() {
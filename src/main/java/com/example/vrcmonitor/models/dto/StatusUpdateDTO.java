@@ -1,6 +1,7 @@
 package com.example.vrcmonitor.models.dto;
 
 import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.models.VRChatWorld;
 import com.example.vrcmonitor.services.UserStateService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,5 +20,6 @@ public class StatusUpdateDTO {
     private String errorMessage;
     private Instant lastUpdated;
     private Double announceVolumeMult; // Add volume multiplier
+    private VRChatWorld world; // Resolved metadata for the user's current world (null if unknown)
     // We might add specific fields like state, status string directly later for optimization
 } 
\ No newline at end of file
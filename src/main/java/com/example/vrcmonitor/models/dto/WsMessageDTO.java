@@ -29,6 +29,10 @@ public class WsMessageDTO {
         LOG_ENTRY,     // For sending API log entries to clients
         SESSION_STATUS, // For sending session status updates (logged in/out)
         LOGIN_REQUIRED, // To inform client that 2FA is required
-        LOGIN_RESULT    // To inform client of login result
+        LOGIN_RESULT,   // To inform client of login result
+        CO_PRESENCE,    // Monitored users joined/left each other in an instance
+        LOCATION_QUERY, // Answer to a WHO_IS_IN command
+        CONFIG_UPDATE,  // Users added/removed/changed by a config.json reload
+        SUBSCRIPTION    // A client's subscription after a SUBSCRIBE/UNSUBSCRIBE command
     }
 } 
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.events.LeadershipChangedEvent;
+import com.example.vrcmonitor.services.LocationIndexService;
+import com.example.vrcmonitor.services.MonitoringService;
+import com.example.vrcmonitor.services.UserStateService;
+import com.example.vrcmonitor.web.StatusUpdateHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The standby half of failover (see {@link LeaderLease}): while another instance holds the
+ * lease, follows its WAL once a second and applies the new records, so this instance's state,
+ * derived statistics, clients and last poll times stay current.
+ *
+ * On takeover it applies whatever is left in the log, then starts writing the WAL after the
+ * last record; the session and polling resume from there (see AuthService), with the leader's
+ * poll schedule, so there is no re-login and no sweep of immediate polls. If the leader's
+ * checkpoint deleted records the standby had not read yet, it resyncs from the snapshot file.
+ */
+@Service
+public class FailoverService {
+    private static final Logger log = LoggerFactory.getLogger(FailoverService.class);
+
+    private final LeaderLease leaderLease;
+    private final StateSnapshotService stateSnapshotService;
+    private final UserStateService userStateService;
+    private final MonitoringService monitoringService;
+    private final StatusUpdateHandler statusUpdateHandler;
+    private final LocationIndexService locationIndexService;
+
+    // Guarded by 'this'; null while leader (or without a WAL to follow)
+    private StateWriteAheadLog.Tail tail;
+    private long appliedLsn = 0;
+    private long appliedRecords = 0;
+    private long resyncs = 0;
+    private Instant lastAppliedAt;
+
+    // Follows on its own thread, not the shared scheduler (a large catch-up must not hold up other jobs)
+    private ScheduledExecutorService follower;
+
+    public FailoverService(LeaderLease leaderLease, StateSnapshotService stateSnapshotService,
+                           UserStateService userStateService, MonitoringService monitoringService,
+                           @Lazy StatusUpdateHandler statusUpdateHandler, @Lazy LocationIndexService locationIndexService) {
+        this.leaderLease = leaderLease;
+        this.stateSnapshotService = stateSnapshotService;
+        this.userStateService = userStateService;
+        this.monitoringService = monitoringService;
+        this.statusUpdateHandler = statusUpdateHandler;
+        this.locationIndexService = locationIndexService;
+    }
+
+    // Runs after StateSnapshotService restored the snapshot and replayed the WAL
+    @PostConstruct
+    public synchronized void init() {
+        if (!leaderLease.isEnabled()) {
+            return;
+        }
+        // A leader needs the follower too, once it loses the lease
+        follower = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "failover-follower");
+            thread.setDaemon(true);
+            return thread;
+        });
+        follower.scheduleWithFixedDelay(this::follow, 1, 1, TimeUnit.SECONDS);
+        if (leaderLease.isLeader()) {
+            return;
+        }
+        appliedLsn = stateSnapshotService.getRecoveredLsn();
+        tail = stateSnapshotService.tailWal(appliedLsn);
+        if (tail == null) {
+            log.warn("Failover standby without a state WAL: state is only refreshed from the snapshot at takeover");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (follower != null) {
+            follower.shutdownNow();
+        }
+    }
+
+    public synchronized void follow() {
+        if (tail == null || leaderLease.isLeader()) {
+            return;
+        }
+        try {
+            apply(tail.poll());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failover standby could not read the leader's WAL: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs before the session and polling react to the change (they use a later order), so
+     * the takeover starts from the old leader's last record.
+     */
+    @EventListener
+    @Order(0)
+    public synchronized void onLeadershipChanged(LeadershipChangedEvent event) {
+        if (event.leader()) {
+            if (tail != null) {
+                // Drain what the old leader wrote (it is fenced off, so nothing more will come)
+                try {
+                    apply(tail.poll());
+                } catch (IOException e) {
+                    log.warn("Could not read the rest of the old leader's WAL: {}", e.getMessage());
+                }
+            } else {
+                resyncFromSnapshot();
+            }
+            tail = null;
+            log.info("Taking over at LSN {} (fencing token {})", appliedLsn, event.fencingToken());
+            stateSnapshotService.takeOverWal(appliedLsn);
+        } else {
+            appliedLsn = stateSnapshotService.releaseWal();
+            tail = stateSnapshotService.tailWal(appliedLsn);
+        }
+    }
+
+    /**
+     * @return Lease status plus what the standby has applied; null without failover
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> lease = leaderLease.getStatus();
+        if (lease == null) {
+            return null;
+        }
+        Map<String, Object> status = new LinkedHashMap<>(lease);
+        status.put("appliedLsn", appliedLsn);
+        status.put("appliedRecords", appliedRecords);
+        status.put("lastAppliedAt", lastAppliedAt);
+        status.put("resyncs", resyncs);
+        return status;
+    }
+
+    /*
+     * Applies the records after appliedLsn in LSN order. A record at or below it is already
+     * applied (or in a resynced snapshot) and is skipped, so a stray older record never rolls
+     * the state back. A gap means the leader's checkpoint deleted records we had not read.
+     * Caller holds the lock.
+     */
+    private void apply(List<StateWriteAheadLog.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        boolean resynced = false;
+        for (StateWriteAheadLog.Entry entry : entries) {
+            if (entry.lsn() > appliedLsn + 1 && !resynced) {
+                resynced = true;
+                resyncFromSnapshot();
+            }
+            if (entry.lsn() <= appliedLsn) {
+                continue;
+            }
+            UserStateService.UserState state = entry.state();
+            if (entry.isError()) {
+                userStateService.updateUserErrorState(entry.vrcUid(), state.errorMessage(), state.lastUpdated());
+            } else {
+                userStateService.updateUserState(entry.vrcUid(), state.user(), state.lastUpdated());
+            }
+            monitoringService.recordPollTime(entry.vrcUid(), state.lastUpdated());
+            UserStateService.UserState latest = userStateService.getLatestUserState(entry.vrcUid());
+            if (latest != null) {
+                statusUpdateHandler.broadcastStatusUpdate(latest);
+            }
+            appliedLsn = entry.lsn();
+            appliedRecords++;
+        }
+        lastAppliedAt = Instant.now();
+    }
+
+    // Returns true if a newer snapshot than the applied state was loaded
+    private boolean resyncFromSnapshot() {
+        StateSnapshot snapshot = stateSnapshotService.readSnapshotFile();
+        if (snapshot == null || snapshot.checkpointLsn() <= appliedLsn) {
+            return false;
+        }
+        log.warn("Failover standby fell behind the leader's WAL, resyncing from snapshot at LSN {}", snapshot.checkpointLsn());
+        userStateService.replaceSnapshot(snapshot.users());
+        snapshot.lastPollTimes().forEach(monitoringService::recordPollTime);
+        locationIndexService.rebuild();
+        appliedLsn = snapshot.checkpointLsn();
+        resyncs++;
+        statusUpdateHandler.broadcastInitialState();
+        return true;
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.events.LeadershipChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active/passive failover between instances that share a working directory: only the holder
+ * of the lease file {@code leaderLeaseFile} polls and writes the snapshot and WAL; the other
+ * instance is a standby that follows the leader's WAL.
+ *
+ * The lease file holds the owner, an expiry time and a fencing token. The leader rewrites it
+ * every third of {@code leaderLeaseSeconds}; anyone may take it once it has expired, and
+ * taking it from another owner increments the token. Every read-modify-write happens under an
+ * OS file lock. The leader stops acting as leader a quarter TTL before its lease could expire,
+ * and state writes check the token in the file before they commit ({@link #holdsFence()}), so
+ * a leader that was paused (GC, suspended VM) and missed its renewals cannot overwrite the
+ * history of the instance that took over.
+ *
+ * Without {@code leaderLeaseFile} every check here says "leader" and nothing else happens.
+ */
+@Service
+public class LeaderLease {
+    private static final Logger log = LoggerFactory.getLogger(LeaderLease.class);
+
+    static final int DEFAULT_LEASE_SECONDS = 10;
+
+    private final ConfigLoader configLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String ownerId = ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private Path leasePath;
+    private long leaseMillis;
+    private ScheduledExecutorService renewer;
+    // OS file locks are per process, so threads of this instance take turns here first
+    private final Object fileLock = new Object();
+
+    private volatile boolean leader = false;
+    private volatile long fencingToken = 0;
+    private volatile long validUntilMillis = 0; // Leader duties stop here unless the lease is renewed
+    private volatile boolean ready = false;     // Takeovers wait until the application is up
+    private volatile String holder;             // Last seen owner, for status
+    private volatile Instant leaderSince;
+    private volatile long takeovers = 0;
+
+    public LeaderLease(ConfigLoader configLoader, ApplicationEventPublisher eventPublisher) {
+        this.configLoader = configLoader;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Contents of the lease file
+    private record Lease(String owner, long token, long expiresAtMillis) {}
+
+    /**
+     * Takes the lease if it is free, so an instance that starts alone comes up as leader and
+     * restores and polls exactly like it does without failover.
+     */
+    @PostConstruct
+    public void init() {
+        String file = configLoader.getConfig().getLeaderLeaseFile();
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        Integer seconds = configLoader.getConfig().getLeaderLeaseSeconds();
+        leaseMillis = TimeUnit.SECONDS.toMillis(seconds != null && seconds >= 3 ? seconds : DEFAULT_LEASE_SECONDS);
+        leasePath = Paths.get(file);
+        renewOrAcquire(true);
+        log.info("Leader lease {}: starting as {} (owner {}, token {})",
+                leasePath.toAbsolutePath(), leader ? "leader" : "standby", ownerId, fencingToken);
+
+        // Renewals must not wait for the (slow) context startup, or the lease would lapse meanwhile
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leaseMillis / 3;
+        renewer.scheduleWithFixedDelay(() -> renewOrAcquire(false), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ready = true;
+    }
+
+    /**
+     * Gives the lease up on a clean shutdown so the standby takes over at its next check
+     * instead of waiting for the lease to expire. Runs after the services that use the lease
+     * have written their final state.
+     */
+    @PreDestroy
+    public synchronized void release() {
+        if (renewer == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        if (!leader) {
+            return;
+        }
+        leader = false;
+        try {
+            update(current -> current != null && ownerId.equals(current.owner())
+                    ? new Lease(ownerId, current.token(), 0) : null);
+            log.info("Leader lease released");
+        } catch (IOException e) {
+            log.warn("Could not release leader lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if failover is configured
+     */
+    public boolean isEnabled() {
+        return leasePath != null;
+    }
+
+    /**
+     * @return true if this instance may poll and write state (always true without failover)
+     */
+    public boolean isLeader() {
+        return !isEnabled() || (leader && System.currentTimeMillis() < validUntilMillis);
+    }
+
+    /**
+     * @return The fencing token of the lease this instance holds (0 without failover)
+     */
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * Fencing check for state writes: reads the lease file and confirms it still carries this
+     * instance's token. A deposed leader fails this even before its own renewal notices.
+     */
+    public boolean holdsFence() {
+        if (!isEnabled()) {
+            return true;
+        }
+        if (!isLeader()) {
+            return false;
+        }
+        try {
+            Lease current = read();
+            return current != null && ownerId.equals(current.owner()) && current.token() == fencingToken;
+        } catch (IOException e) {
+            log.warn("Could not read leader lease for fencing check: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Role, holder, token and expiry; null without failover
+     */
+    public Map<String, Object> getStatus() {
+        if (!isEnabled()) {
+            return null;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", isLeader() ? "leader" : "standby");
+        status.put("owner", ownerId);
+        status.put("holder", holder);
+        status.put("fencingToken", fencingToken);
+        status.put("leaderSince", leaderSince);
+        status.put("leaseSeconds", leaseMillis / 1000);
+        status.put("takeovers", takeovers);
+        return status;
+    }
+
+    private synchronized void renewOrAcquire(boolean startup) {
+        long now = System.currentTimeMillis();
+        boolean wasLeader = leader;
+        if (!wasLeader && !startup && !ready) {
+            return; // Standby during startup: services are not ready to take over yet
+        }
+        try {
+            Lease written = update(current -> {
+                if (current == null || ownerId.equals(current.owner()) || current.expiresAtMillis() <= now) {
+                    long token = current == null ? 1
+                            : ownerId.equals(current.owner()) ? current.token() : current.token() + 1;
+                    return new Lease(ownerId, token, now + leaseMillis);
+                }
+                holder = current.owner();
+                return null; // Held by someone else
+            });
+            if (written != null) {
+                holder = ownerId;
+                fencingToken = written.token();
+                validUntilMillis = now + leaseMillis - leaseMillis / 4;
+                leader = true;
+                if (!wasLeader) {
+                    leaderSince = Instant.now();
+                    if (!startup) {
+                        takeovers++;
+                        log.warn("Leader lease acquired (token {}), taking over", fencingToken);
+                        eventPublisher.publishEvent(new LeadershipChangedEvent(true, fencingToken, "lease expired"));
+                    }
+                }
+            } else if (wasLeader) {
+                stepDown("lease taken by " + holder);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Leader lease renewal failed: {}", e.getMessage());
+            if (wasLeader && now >= validUntilMillis) {
+                stepDown("lease could not be renewed");
+            }
+        }
+    }
+
+    private void stepDown(String reason) {
+        leader = false;
+        leaderSince = null;
+        log.error("No longer leader ({}), switching to standby", reason);
+        eventPublisher.publishEvent(new LeadershipChangedEvent(false, fencingToken, reason));
+    }
+
+    private interface LeaseUpdate {
+        // Returns the lease to write, or null to leave the file as it is
+        Lease apply(Lease current);
+    }
+
+    // Read-modify-write under an exclusive OS lock; returns what was written, or null
+    private Lease update(LeaseUpdate change) throws IOException {
+        synchronized (fileLock) {
+            return doUpdate(change);
+        }
+    }
+
+    private Lease doUpdate(LeaseUpdate change) throws IOException {
+        try (FileChannel channel = FileChannel.open(leasePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                Lease next = change.apply(parse(readAll(channel)));
+                if (next == null) {
+                    return null;
+                }
+                byte[] bytes = format(next).getBytes(StandardCharsets.UTF_8);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(bytes), 0);
+                channel.force(false);
+                return next;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private Lease read() throws IOException {
+        synchronized (fileLock) {
+            return doRead();
+        }
+    }
+
+    private Lease doRead() throws IOException {
+        try (FileChannel channel = FileChannel.open(leasePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                return parse(readAll(channel));
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static String readAll(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 4096));
+        channel.read(buffer, 0);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    // An empty or unreadable file counts as a free lease (token 0)
+    private static Lease parse(String text) throws IOException {
+        if (text.isBlank()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        properties.load(new StringReader(text));
+        try {
+            return new Lease(properties.getProperty("owner"),
+                    Long.parseLong(properties.getProperty("token", "0")),
+                    Long.parseLong(properties.getProperty("expiresAt", "0")));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed leader lease file: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String format(Lease lease) {
+        return "owner=" + lease.owner() + "\n"
+                + "token=" + lease.token() + "\n"
+                + "expiresAt=" + lease.expiresAtMillis() + "\n";
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.services.LocationIndexService;
+import com.example.vrcmonitor.services.UserStateService;
+import com.example.vrcmonitor.web.StatusUpdateHandler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read replica side of replication: follows the primary at {@code replicaOf} and applies its
+ * snapshot and live records to the local {@link UserStateService}, so this server's WebSocket
+ * clients see the same states without this server polling VRChat itself.
+ *
+ * On (re)connect the replica replaces its state with the primary's snapshot, then applies the
+ * records after it in order and broadcasts each one to its clients like a poll result. Heartbeats carry
+ * the primary's latest sequence (for the records-behind count) and its session status, which
+ * replica clients see as their own. If the primary goes quiet the connection is dropped and
+ * re-established with backoff.
+ */
+@Service
+public class ReplicationClient {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationClient.class);
+
+    static final long MIN_BACKOFF_MILLIS = 1000;
+    static final long MAX_BACKOFF_MILLIS = 30_000;
+    static final long HEARTBEAT_TIMEOUT_MILLIS = 10_000;
+
+    private static final double LAG_EWMA_WEIGHT = 0.1;
+
+    private final ConfigLoader configLoader;
+    private final UserStateService userStateService;
+    private final StatusUpdateHandler statusUpdateHandler;
+    private final LocationIndexService locationIndexService;
+
+    private volatile SocketChannel channel;
+    private volatile boolean running = false;
+    private volatile boolean connected = false;
+    private volatile long appliedSequence = 0;
+    private volatile long primarySequence = 0;
+    private volatile long lastHeartbeatAt = 0;
+    private volatile boolean primarySessionActive = false;
+    private volatile Instant primarySessionSince;
+    private volatile long snapshotsReceived = 0;
+    private volatile long reconnects = 0;
+
+    // Apply lag (now minus the primary's send time), guarded by 'this'
+    private long lastLagMillis = -1;
+    private double averageLagMillis = -1;
+    private long maxLagMillis = 0;
+
+    public ReplicationClient(ConfigLoader configLoader, UserStateService userStateService,
+                             @Lazy StatusUpdateHandler statusUpdateHandler, @Lazy LocationIndexService locationIndexService) {
+        this.configLoader = configLoader;
+        this.userStateService = userStateService;
+        this.statusUpdateHandler = statusUpdateHandler;
+        this.locationIndexService = locationIndexService;
+    }
+
+    /**
+     * @return true if this server is a read replica
+     */
+    public boolean isEnabled() {
+        String replicaOf = configLoader.getConfig().getReplicaOf();
+        return replicaOf != null && !replicaOf.isBlank();
+    }
+
+    /**
+     * @return Whether the primary has a VRChat session, as of its last heartbeat
+     */
+    public boolean isPrimarySessionActive() {
+        return connected && primarySessionActive;
+    }
+
+    /**
+     * @return When the primary's session became active, or null if unknown
+     */
+    public Instant getPrimarySessionSince() {
+        return primarySessionSince;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        Thread follower = new Thread(this::followLoop, "replication-follower");
+        follower.setDaemon(true);
+        follower.start();
+        log.info("Running as read replica of {}", configLoader.getConfig().getReplicaOf());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeChannel();
+    }
+
+    /**
+     * Drops a connection whose primary stopped sending heartbeats (e.g. a half-open TCP
+     * connection); the follower thread then reconnects.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void checkHeartbeat() {
+        if (connected && System.currentTimeMillis() - lastHeartbeatAt > HEARTBEAT_TIMEOUT_MILLIS) {
+            log.warn("Replication: no heartbeat from primary for {} ms, reconnecting", HEARTBEAT_TIMEOUT_MILLIS);
+            closeChannel();
+        }
+    }
+
+    /**
+     * @return Connection and lag figures; null if this server is not a replica
+     */
+    public synchronized Map<String, Object> getStatus() {
+        if (!isEnabled()) {
+            return null;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("primary", configLoader.getConfig().getReplicaOf());
+        status.put("connected", connected);
+        status.put("appliedSequence", appliedSequence);
+        status.put("primarySequence", primarySequence);
+        status.put("recordsBehind", Math.max(0, primarySequence - appliedSequence));
+        status.put("lastLagMillis", lastLagMillis);
+        status.put("averageLagMillis", Math.round(averageLagMillis));
+        status.put("maxLagMillis", maxLagMillis);
+        status.put("heartbeatAgeMillis", lastHeartbeatAt > 0 ? System.currentTimeMillis() - lastHeartbeatAt : null);
+        status.put("snapshotsReceived", snapshotsReceived);
+        status.put("reconnects", reconnects);
+        status.put("primarySessionActive", isPrimarySessionActive());
+        return status;
+    }
+
+    private void followLoop() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (running) {
+            try {
+                SocketAddress address = ReplicationProtocol.parseAddress(configLoader.getConfig().getReplicaOf());
+                if (follow(address)) {
+                    backoff = MIN_BACKOFF_MILLIS; // Got a snapshot, so the primary was reachable and sane
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Replication: connection to primary lost: {}", e.getMessage());
+                }
+            } catch (IllegalArgumentException e) {
+                log.error("Replication: {}; not following a primary", e.getMessage());
+                return;
+            } finally {
+                onDisconnected();
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            reconnects++;
+        }
+    }
+
+    // Reads frames until the connection ends; returns true if a snapshot was applied
+    private boolean follow(SocketAddress address) throws IOException {
+        boolean synced = false;
+        try (SocketChannel socket = SocketChannel.open(address)) {
+            channel = socket;
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(socket)));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(socket)));
+            ReplicationProtocol.writeHello(out);
+            out.flush();
+            ReplicationProtocol.readHello(in);
+            lastHeartbeatAt = System.currentTimeMillis();
+            connected = true;
+            log.info("Replication: connected to primary {}", address);
+
+            while (running) {
+                ReplicationProtocol.Frame frame = ReplicationProtocol.readFrame(in);
+                switch (frame.type()) {
+                    case ReplicationProtocol.SNAPSHOT -> {
+                        applySnapshot(ReplicationProtocol.decodeSnapshot(frame.payload()));
+                        synced = true;
+                    }
+                    case ReplicationProtocol.RECORD -> applyRecord(ReplicationProtocol.decodeRecord(frame.payload()));
+                    case ReplicationProtocol.HEARTBEAT -> applyHeartbeat(ReplicationProtocol.decodeHeartbeat(frame.payload()));
+                    default -> throw new IOException("Unknown replication frame type " + frame.type());
+                }
+            }
+        } finally {
+            channel = null;
+        }
+        return synced;
+    }
+
+    private void applySnapshot(StateSnapshot snapshot) {
+        userStateService.replaceSnapshot(snapshot.users());
+        locationIndexService.rebuild();
+        appliedSequence = snapshot.checkpointLsn();
+        primarySequence = Math.max(primarySequence, appliedSequence);
+        snapshotsReceived++;
+        log.info("Replication: applied snapshot of {} users at sequence {}", snapshot.users().size(), snapshot.checkpointLsn());
+        statusUpdateHandler.broadcastInitialState();
+    }
+
+    private void applyRecord(ReplicationProtocol.Record record) {
+        // The primary queues live records before it takes the snapshot, so the first records
+        // can be ones the snapshot already holds; applying them again would roll the state back
+        if (record.sequence() <= appliedSequence) {
+            return;
+        }
+        appliedSequence = record.sequence();
+        UserStateService.UserState state = record.state();
+        // Two polls of one user can finish in either order; never go back to an older observation
+        UserStateService.UserState current = userStateService.getLatestUserState(record.vrcUid());
+        if (current != null && state.lastUpdated().isBefore(current.lastUpdated())) {
+            return;
+        }
+        if (record.isError()) {
+            userStateService.updateUserErrorState(record.vrcUid(), state.errorMessage(), state.lastUpdated());
+        } else {
+            userStateService.updateUserState(record.vrcUid(), state.user(), state.lastUpdated());
+        }
+        recordLag(System.currentTimeMillis() - record.sentAtMillis());
+
+        UserStateService.UserState latest = userStateService.getLatestUserState(record.vrcUid());
+        if (latest != null) {
+            statusUpdateHandler.broadcastStatusUpdate(latest);
+        }
+    }
+
+    private void applyHeartbeat(ReplicationProtocol.Heartbeat heartbeat) {
+        lastHeartbeatAt = System.currentTimeMillis();
+        primarySequence = heartbeat.sequence();
+        boolean changed = heartbeat.sessionActive() != primarySessionActive;
+        primarySessionActive = heartbeat.sessionActive();
+        primarySessionSince = heartbeat.sessionSince();
+        if (changed) {
+            log.info("Replication: primary session is now {}", primarySessionActive ? "active" : "inactive");
+            statusUpdateHandler.broadcastSessionStatus();
+        }
+    }
+
+    private synchronized void recordLag(long lagMillis) {
+        long lag = Math.max(0, lagMillis); // Clock skew between the hosts can make it negative
+        lastLagMillis = lag;
+        averageLagMillis = averageLagMillis < 0 ? lag : averageLagMillis + LAG_EWMA_WEIGHT * (lag - averageLagMillis);
+        maxLagMillis = Math.max(maxLagMillis, lag);
+    }
+
+    // Clients see "not connected" while the primary is unreachable, as they would on the primary without a session
+    private void onDisconnected() {
+        boolean wasActive = isPrimarySessionActive();
+        connected = false;
+        if (wasActive) {
+            statusUpdateHandler.broadcastSessionStatus();
+        }
+    }
+
+    private void closeChannel() {
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close(); // Unblocks the follower thread's read
+            } catch (IOException e) {
+                log.debug("Error closing replication connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.time.Instant;
+
+/**
+ * Wire format between a primary ({@link ReplicationServer}) and its read replicas
+ * ({@link ReplicationClient}).
+ *
+ * Both sides start with a hello (magic, version). After that the primary only sends frames:
+ * type (byte), payload length (int), payload. Payloads:
+ * <ul>
+ *   <li>SNAPSHOT: a {@link StateSnapshotCodec} snapshot of every user's state and history; its
+ *       checkpoint LSN is the record sequence it reflects. Sent once per connection, first.</li>
+ *   <li>RECORD: sequence (long), send time (epoch millis), op (byte), vrcUid, encoded
+ *       {@link UserState} — one observation, same encoding as the WAL.</li>
+ *   <li>HEARTBEAT: latest sequence (long), send time (epoch millis), whether the primary has a
+ *       VRChat session (boolean) and since when (epoch millis, -1 if unknown).</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x56524352; // "VRCR"
+    static final short VERSION = 1;
+
+    static final byte SNAPSHOT = 1;
+    static final byte RECORD = 2;
+    static final byte HEARTBEAT = 3;
+
+    static final byte OP_STATE = 1;
+    static final byte OP_ERROR = 2;
+
+    // Larger frames are treated as corruption
+    private static final int MAX_FRAME_BYTES = 256 * 1024 * 1024;
+
+    record Frame(byte type, byte[] payload) {}
+
+    record Record(long sequence, long sentAtMillis, String vrcUid, UserState state) {
+        boolean isError() {
+            return state.statusType() == StatusType.ERROR;
+        }
+    }
+
+    record Heartbeat(long sequence, long sentAtMillis, boolean sessionActive, Instant sessionSince) {}
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Parses an endpoint from the config: "unix:/path/to/socket", "host:port", or just a port
+     * (loopback).
+     */
+    static SocketAddress parseAddress(String value) {
+        String address = value.trim();
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        int separator = address.lastIndexOf(':');
+        try {
+            if (separator < 0) {
+                return new InetSocketAddress("127.0.0.1", Integer.parseInt(address));
+            }
+            return new InetSocketAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid replication address '" + value + "'");
+        }
+    }
+
+    static ProtocolFamily familyOf(SocketAddress address) {
+        return address instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+    }
+
+    static void writeHello(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    static void readHello(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replication peer (bad magic)");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replication protocol version " + version);
+        }
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    static Frame readFrame(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid replication frame length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(type, payload);
+    }
+
+    static byte[] encodeSnapshot(StateSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateSnapshotCodec.write(snapshot, bytes);
+        return bytes.toByteArray();
+    }
+
+    static StateSnapshot decodeSnapshot(byte[] payload) throws IOException {
+        return StateSnapshotCodec.read(new ByteArrayInputStream(payload));
+    }
+
+    static byte[] encodeRecord(long sequence, long sentAtMillis, byte op, String vrcUid, UserState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(sequence);
+        out.writeLong(sentAtMillis);
+        out.writeByte(op);
+        UserStateCodec.INLINE_WRITER.write(out, vrcUid);
+        UserStateCodec.writeState(out, state, UserStateCodec.INLINE_WRITER);
+        return bytes.toByteArray();
+    }
+
+    static Record decodeRecord(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        long sentAtMillis = in.readLong();
+        byte op = in.readByte();
+        if (op != OP_STATE && op != OP_ERROR) {
+            throw new IOException("Unknown replication record op " + op);
+        }
+        String vrcUid = UserStateCodec.INLINE_READER.read(in);
+        UserState state = UserStateCodec.readState(in, UserStateCodec.INLINE_READER);
+        if (vrcUid == null || state.lastUpdated() == null) {
+            throw new IOException("Incomplete replication record " + sequence);
+        }
+        return new Record(sequence, sentAtMillis, vrcUid, state);
+    }
+
+    static byte[] encodeHeartbeat(long sequence, long sentAtMillis, boolean sessionActive, Instant sessionSince) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(sequence);
+        out.writeLong(sentAtMillis);
+        out.writeBoolean(sessionActive);
+        out.writeLong(sessionSince != null ? sessionSince.toEpochMilli() : -1);
+        return bytes.toByteArray();
+    }
+
+    static Heartbeat decodeHeartbeat(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        long sentAtMillis = in.readLong();
+        boolean sessionActive = in.readBoolean();
+        long since = in.readLong();
+        return new Heartbeat(sequence, sentAtMillis, sessionActive, since >= 0 ? Instant.ofEpochMilli(since) : null);
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.AuthService;
+import com.example.vrcmonitor.services.UserStateJournal;
+import com.example.vrcmonitor.services.UserStateService;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Primary side of read replication: streams every {@link UserStateService} observation to
+ * the read replicas connected to {@code replicationListen} (see {@link ReplicationProtocol}).
+ *
+ * Each replica first gets a snapshot of every user's state and history, then the live records.
+ * Records are encoded once on the poll completion path and handed to a bounded queue per
+ * replica; a thread per replica does the socket writes, so a slow replica never delays polling.
+ * A replica that falls {@value #QUEUE_CAPACITY} records behind is disconnected and resyncs
+ * from a fresh snapshot when it reconnects.
+ */
+@Service
+public class ReplicationServer implements UserStateJournal {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationServer.class);
+
+    static final int QUEUE_CAPACITY = 10_000;
+    static final long HEARTBEAT_MILLIS = 1000;
+
+    private final UserStateService userStateService;
+    private final ConfigLoader configLoader;
+    private final AuthService authService;
+    private final ReplicationClient replicationClient;
+
+    // Sequence of the last observation; also counts observations made while no replica is connected
+    private final AtomicLong sequence = new AtomicLong();
+    // Held while a sequence is assigned and its record queued, so every queue is in sequence order
+    private final Object publishLock = new Object();
+    private final List<Follower> followers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger followerCounter = new AtomicInteger();
+    private volatile ServerSocketChannel serverChannel;
+    private volatile SocketAddress listenAddress;
+    private volatile boolean running = false;
+
+    public ReplicationServer(UserStateService userStateService, ConfigLoader configLoader, AuthService authService,
+                             ReplicationClient replicationClient) {
+        this.userStateService = userStateService;
+        this.configLoader = configLoader;
+        this.authService = authService;
+        this.replicationClient = replicationClient;
+    }
+
+    /**
+     * A connected replica.
+     */
+    public record FollowerStatus(String address, Instant connectedAt, int queuedRecords, long sentRecords) {}
+
+    private static final class Follower {
+        final SocketChannel channel;
+        final String address;
+        final Instant connectedAt = Instant.now();
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AtomicLong sentRecords = new AtomicLong();
+        volatile boolean closed = false;
+
+        Follower(SocketChannel channel, String address) {
+            this.channel = channel;
+            this.address = address;
+        }
+
+        void close(String reason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            log.warn("Replication: disconnecting replica {}: {}", address, reason);
+            try {
+                channel.close(); // Also unblocks its writer thread
+            } catch (IOException e) {
+                log.debug("Error closing replica connection {}: {}", address, e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        String listen = configLoader.getConfig().getReplicationListen();
+        if (listen == null || listen.isBlank()) {
+            return;
+        }
+        try {
+            SocketAddress address = ReplicationProtocol.parseAddress(listen);
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath()); // Left over from an unclean shutdown
+            }
+            ServerSocketChannel channel = ServerSocketChannel.open(ReplicationProtocol.familyOf(address));
+            channel.bind(address);
+            serverChannel = channel;
+            listenAddress = address;
+            running = true;
+            userStateService.addJournal(this);
+
+            Thread acceptor = new Thread(this::acceptLoop, "replication-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            log.info("Replication: serving read replicas on {}", listen);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Replication: could not listen on {}: {}", listen, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        userStateService.removeJournal(this);
+        followers.forEach(follower -> follower.close("server shutting down"));
+        try {
+            serverChannel.close();
+            if (listenAddress instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath());
+            }
+        } catch (IOException e) {
+            log.debug("Error closing replication listener: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordState(String vrcUid, VRChatUser user, Instant timestamp) {
+        publish(ReplicationProtocol.OP_STATE, vrcUid, new UserState(UserRegistry.NO_ID, user, StatusType.OK, null, timestamp));
+    }
+
+    @Override
+    public void recordError(String vrcUid, String errorMessage, Instant timestamp) {
+        publish(ReplicationProtocol.OP_ERROR, vrcUid, new UserState(UserRegistry.NO_ID, null, StatusType.ERROR, errorMessage, timestamp));
+    }
+
+    // Caller thread (poll completion): encode once and enqueue only
+    private void publish(byte op, String vrcUid, UserState state) {
+        synchronized (publishLock) {
+            long recordSequence = sequence.incrementAndGet();
+            if (followers.isEmpty()) {
+                return;
+            }
+            byte[] record;
+            try {
+                record = ReplicationProtocol.encodeRecord(recordSequence, System.currentTimeMillis(), op, vrcUid, state);
+            } catch (IOException e) {
+                log.warn("Could not encode replication record for {}: {}", vrcUid, e.getMessage());
+                return;
+            }
+            for (Follower follower : followers) {
+                if (!follower.queue.offer(record)) {
+                    follower.close("more than " + QUEUE_CAPACITY + " records behind");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Listen address, current sequence and the connected replicas; null if not serving
+     */
+    public Map<String, Object> getStatus() {
+        if (!running) {
+            return null;
+        }
+        List<FollowerStatus> replicas = new ArrayList<>();
+        for (Follower follower : followers) {
+            replicas.add(new FollowerStatus(follower.address, follower.connectedAt, follower.queue.size(), follower.sentRecords.get()));
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("listen", configLoader.getConfig().getReplicationListen());
+        status.put("sequence", sequence.get());
+        status.put("replicas", replicas);
+        return status;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                Thread writer = new Thread(() -> serve(channel), "replication-replica-" + followerCounter.incrementAndGet());
+                writer.setDaemon(true);
+                writer.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Replication: accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    // One thread per replica: handshake, snapshot, then records and heartbeats until it goes away
+    private void serve(SocketChannel channel) {
+        String address = describe(channel);
+        Follower follower = null;
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            ReplicationProtocol.readHello(in);
+            ReplicationProtocol.writeHello(out);
+
+            // Queue live records before taking the snapshot so none fall between the two. A state
+            // is applied before its record gets a sequence, so every record up to snapshotSequence
+            // is already in the snapshot; the replica drops those (see ReplicationClient.applyRecord)
+            follower = new Follower(channel, address);
+            long snapshotSequence;
+            synchronized (publishLock) {
+                followers.add(follower);
+                snapshotSequence = sequence.get();
+            }
+            Map<String, UserStateService.UserStateContainerSnapshot> users = userStateService.getSnapshot();
+            StateSnapshot snapshot = new StateSnapshot(Instant.now(), snapshotSequence, users, Map.of(), List.of(), List.of());
+            ReplicationProtocol.writeFrame(out, ReplicationProtocol.SNAPSHOT, ReplicationProtocol.encodeSnapshot(snapshot));
+            out.flush();
+            log.info("Replication: replica {} connected, sent {} users at sequence {}", address, users.size(), snapshotSequence);
+
+            long lastHeartbeat = 0;
+            while (running && !follower.closed) {
+                byte[] record = follower.queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                while (record != null) {
+                    ReplicationProtocol.writeFrame(out, ReplicationProtocol.RECORD, record);
+                    follower.sentRecords.incrementAndGet();
+                    record = follower.queue.poll(); // Batch whatever else is queued into one flush
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= HEARTBEAT_MILLIS) {
+                    ReplicationProtocol.writeFrame(out, ReplicationProtocol.HEARTBEAT,
+                            ReplicationProtocol.encodeHeartbeat(sequence.get(), now, sessionActive(), sessionSince()));
+                    lastHeartbeat = now;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (follower == null || !follower.closed) {
+                log.info("Replication: replica {} disconnected: {}", address, e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (follower != null) {
+                followers.remove(follower);
+            }
+        }
+    }
+
+    // A replica that serves replicas itself passes on its own primary's session status
+    private boolean sessionActive() {
+        return replicationClient.isEnabled() ? replicationClient.isPrimarySessionActive() : authService.hasActiveSession();
+    }
+
+    private Instant sessionSince() {
+        return replicationClient.isEnabled() ? replicationClient.getPrimarySessionSince() : authService.getLastSessionTime();
+    }
+
+    private static String describe(SocketChannel channel) {
+        try {
+            SocketAddress remote = channel.getRemoteAddress();
+            return remote != null && !remote.toString().isEmpty() ? remote.toString() : "local socket";
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
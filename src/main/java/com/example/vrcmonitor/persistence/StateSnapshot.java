@@ -0,0 +1,30 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.services.OnlineSession;
+import com.example.vrcmonitor.services.PresenceCounters;
+import com.example.vrcmonitor.services.UserStateService.UserStateContainerSnapshot;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to warm-restart the monitor: the latest state and history tail of each
+ * user, plus when each user was last polled so polling can resume in phase.
+ * A snapshot doubles as a write-ahead log checkpoint.
+ *
+ * @param createdAt When the snapshot was taken
+ * @param checkpointLsn Every WAL record up to this sequence number is reflected in the snapshot
+ * @param users Latest state and history per VRChat user ID
+ * @param lastPollTimes Last poll dispatch time per VRChat user ID
+ * @param onlineSessions Retained online sessions, including open ones
+ * @param presenceCounters Hourly/daily presence statistics per user
+ */
+public record StateSnapshot(
+    Instant createdAt,
+    long checkpointLsn,
+    Map<String, UserStateContainerSnapshot> users,
+    Map<String, Instant> lastPollTimes,
+    List<OnlineSession> onlineSessions,
+    List<PresenceCounters> presenceCounters
+) {}
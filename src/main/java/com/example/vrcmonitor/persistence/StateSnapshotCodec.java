@@ -0,0 +1,296 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.services.OnlineSession;
+import com.example.vrcmonitor.services.PresenceCategory;
+import com.example.vrcmonitor.services.PresenceCounters;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import com.example.vrcmonitor.services.UserStateService.UserStateContainerSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binary format for {@link StateSnapshot}.
+ *
+ * <pre>
+ * header:  magic "VRCS" (int), version (short), createdAt epoch ms (long)
+ * section: tag (byte), payload length (int), payload
+ * ...      terminated by tag 0
+ * </pre>
+ *
+ * Strings are deduplicated into a STRINGS section and referenced by index, since most
+ * fields (names, URLs, locations) repeat across a user's history. Readers skip sections
+ * with unknown tags, so new sections can be added without breaking older snapshots.
+ */
+public final class StateSnapshotCodec {
+
+    static final int MAGIC = 0x56524353; // "VRCS"
+    static final short VERSION = 1;
+
+    private static final byte TAG_END = 0;
+    private static final byte TAG_STRINGS = 1;
+    private static final byte TAG_USERS = 2;
+    private static final byte TAG_POLL_TIMES = 3;
+    private static final byte TAG_CHECKPOINT = 4;
+    private static final byte TAG_SESSIONS = 5;
+    private static final byte TAG_PRESENCE = 6;
+
+    private static final PresenceCategory[] PRESENCE_CATEGORIES = PresenceCategory.values();
+
+    // Sanity limits for corrupt input
+    private static final int MAX_ENTRIES = 1_000_000;
+    private static final int MAX_SECTION_BYTES = 256 * 1024 * 1024;
+
+    private StateSnapshotCodec() {
+    }
+
+    public static void write(StateSnapshot snapshot, OutputStream target) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        UserStateCodec.StringWriter stringRefs = (out, value) -> {
+            if (value == null) {
+                Varints.writeUnsigned(out, 0);
+                return;
+            }
+            Integer id = stringIds.get(value);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(value, id);
+                strings.add(value);
+            }
+            Varints.writeUnsigned(out, id + 1L);
+        };
+
+        // Encode the sections that reference strings first so the table is complete
+        ByteArrayOutputStream usersBytes = new ByteArrayOutputStream();
+        DataOutputStream users = new DataOutputStream(usersBytes);
+        Varints.writeUnsigned(users, snapshot.users().size());
+        for (Map.Entry<String, UserStateContainerSnapshot> entry : snapshot.users().entrySet()) {
+            stringRefs.write(users, entry.getKey());
+            UserStateContainerSnapshot container = entry.getValue();
+            users.writeBoolean(container.latestState() != null);
+            if (container.latestState() != null) {
+                UserStateCodec.writeState(users, container.latestState(), stringRefs);
+            }
+            Varints.writeUnsigned(users, container.history().size());
+            for (UserState state : container.history()) {
+                UserStateCodec.writeState(users, state, stringRefs);
+            }
+        }
+
+        ByteArrayOutputStream pollBytes = new ByteArrayOutputStream();
+        DataOutputStream polls = new DataOutputStream(pollBytes);
+        Varints.writeUnsigned(polls, snapshot.lastPollTimes().size());
+        for (Map.Entry<String, Instant> entry : snapshot.lastPollTimes().entrySet()) {
+            stringRefs.write(polls, entry.getKey());
+            UserStateCodec.writeInstant(polls, entry.getValue());
+        }
+
+        ByteArrayOutputStream sessionBytes = new ByteArrayOutputStream();
+        DataOutputStream sessions = new DataOutputStream(sessionBytes);
+        Varints.writeUnsigned(sessions, snapshot.onlineSessions().size());
+        for (OnlineSession session : snapshot.onlineSessions()) {
+            stringRefs.write(sessions, session.vrcUid());
+            UserStateCodec.writeInstant(sessions, session.start());
+            UserStateCodec.writeInstant(sessions, session.end()); // Null while open
+            Varints.writeUnsigned(sessions, session.worlds().size());
+            for (String worldId : session.worlds()) {
+                stringRefs.write(sessions, worldId);
+            }
+        }
+
+        ByteArrayOutputStream presenceBytes = new ByteArrayOutputStream();
+        DataOutputStream presence = new DataOutputStream(presenceBytes);
+        Varints.writeUnsigned(presence, snapshot.presenceCounters().size());
+        for (PresenceCounters counters : snapshot.presenceCounters()) {
+            stringRefs.write(presence, counters.vrcUid());
+            UserStateCodec.writeInstant(presence, counters.firstSeen());
+            UserStateCodec.writeInstant(presence, counters.lastSeen());
+            Varints.writeUnsigned(presence, counters.lastPresence() != null ? counters.lastPresence().ordinal() + 1 : 0);
+            writeBuckets(presence, counters.hourly());
+            writeBuckets(presence, counters.daily());
+        }
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream stringTable = new DataOutputStream(stringBytes);
+        Varints.writeUnsigned(stringTable, strings.size());
+        for (String value : strings) {
+            UserStateCodec.INLINE_WRITER.write(stringTable, value);
+        }
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        UserStateCodec.writeInstant(out, snapshot.createdAt());
+        writeSection(out, TAG_STRINGS, stringBytes);
+        writeSection(out, TAG_USERS, usersBytes);
+        writeSection(out, TAG_POLL_TIMES, pollBytes);
+        writeSection(out, TAG_SESSIONS, sessionBytes);
+        writeSection(out, TAG_PRESENCE, presenceBytes);
+        ByteArrayOutputStream checkpointBytes = new ByteArrayOutputStream();
+        Varints.writeUnsigned(new DataOutputStream(checkpointBytes), snapshot.checkpointLsn());
+        writeSection(out, TAG_CHECKPOINT, checkpointBytes);
+        out.writeByte(TAG_END);
+        out.flush();
+    }
+
+    public static StateSnapshot read(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a state snapshot (bad magic)");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        Instant createdAt = UserStateCodec.readInstant(in);
+
+        List<String> strings = new ArrayList<>();
+        UserStateCodec.StringReader stringRefs = input -> {
+            int ref = Varints.readCount(input, strings.size());
+            return ref == 0 ? null : strings.get(ref - 1);
+        };
+        Map<String, UserStateContainerSnapshot> users = new LinkedHashMap<>();
+        Map<String, Instant> lastPollTimes = new LinkedHashMap<>();
+        long checkpointLsn = 0; // Snapshots without a checkpoint section predate the WAL
+        List<OnlineSession> onlineSessions = new ArrayList<>();
+        List<PresenceCounters> presenceCounters = new ArrayList<>();
+
+        while (true) {
+            byte tag = in.readByte();
+            if (tag == TAG_END) {
+                break;
+            }
+            int length = in.readInt();
+            if (length < 0 || length > MAX_SECTION_BYTES) {
+                throw new IOException("Bad section length " + length + " for tag " + tag);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            DataInput section = new DataInputStream(new ByteArrayInputStream(payload));
+
+            switch (tag) {
+                case TAG_STRINGS -> {
+                    int count = Varints.readCount(section, MAX_ENTRIES);
+                    for (int i = 0; i < count; i++) {
+                        strings.add(UserStateCodec.INLINE_READER.read(section));
+                    }
+                }
+                case TAG_USERS -> {
+                    int count = Varints.readCount(section, MAX_ENTRIES);
+                    for (int i = 0; i < count; i++) {
+                        String vrcUid = stringRefs.read(section);
+                        UserState latest = section.readBoolean() ? UserStateCodec.readState(section, stringRefs) : null;
+                        int historySize = Varints.readCount(section, MAX_ENTRIES);
+                        List<UserState> history = new ArrayList<>(historySize);
+                        for (int h = 0; h < historySize; h++) {
+                            history.add(UserStateCodec.readState(section, stringRefs));
+                        }
+                        users.put(vrcUid, new UserStateContainerSnapshot(latest, List.copyOf(history)));
+                    }
+                }
+                case TAG_POLL_TIMES -> {
+                    int count = Varints.readCount(section, MAX_ENTRIES);
+                    for (int i = 0; i < count; i++) {
+                        String vrcUid = stringRefs.read(section);
+                        Instant lastPoll = UserStateCodec.readInstant(section);
+                        if (vrcUid != null && lastPoll != null) {
+                            lastPollTimes.put(vrcUid, lastPoll);
+                        }
+                    }
+                }
+                case TAG_CHECKPOINT -> checkpointLsn = Varints.readUnsigned(section);
+                case TAG_SESSIONS -> {
+                    int count = Varints.readCount(section, MAX_ENTRIES);
+                    for (int i = 0; i < count; i++) {
+                        String vrcUid = stringRefs.read(section);
+                        Instant start = UserStateCodec.readInstant(section);
+                        Instant end = UserStateCodec.readInstant(section);
+                        int worldCount = Varints.readCount(section, MAX_ENTRIES);
+                        List<String> worlds = new ArrayList<>(worldCount);
+                        for (int w = 0; w < worldCount; w++) {
+                            worlds.add(stringRefs.read(section));
+                        }
+                        if (vrcUid != null && start != null) {
+                            onlineSessions.add(new OnlineSession(vrcUid, start, end, List.copyOf(worlds)));
+                        }
+                    }
+                }
+                case TAG_PRESENCE -> {
+                    int count = Varints.readCount(section, MAX_ENTRIES);
+                    for (int i = 0; i < count; i++) {
+                        String vrcUid = stringRefs.read(section);
+                        Instant firstSeen = UserStateCodec.readInstant(section);
+                        Instant lastSeen = UserStateCodec.readInstant(section);
+                        int presenceCode = (int) Varints.readUnsigned(section);
+                        PresenceCategory lastPresence = presenceCode > 0 && presenceCode <= PRESENCE_CATEGORIES.length
+                                ? PRESENCE_CATEGORIES[presenceCode - 1] : null;
+                        Map<Long, long[]> hourly = readBuckets(section);
+                        Map<Long, long[]> daily = readBuckets(section);
+                        if (vrcUid != null) {
+                            presenceCounters.add(new PresenceCounters(vrcUid, firstSeen, lastSeen, lastPresence, hourly, daily));
+                        }
+                    }
+                }
+                default -> {
+                    // Unknown section from a newer version; already consumed, ignore it
+                }
+            }
+        }
+        return new StateSnapshot(createdAt, checkpointLsn, users, lastPollTimes, onlineSessions, presenceCounters);
+    }
+
+    // Bucket keys are increasing, so they are written as deltas; slot count first for forward compatibility
+    private static void writeBuckets(DataOutput out, Map<Long, long[]> buckets) throws IOException {
+        Varints.writeUnsigned(out, buckets.size());
+        long previousKey = 0;
+        for (Map.Entry<Long, long[]> bucket : new TreeMap<>(buckets).entrySet()) {
+            Varints.writeSigned(out, bucket.getKey() - previousKey);
+            previousKey = bucket.getKey();
+            long[] slots = bucket.getValue();
+            Varints.writeUnsigned(out, slots.length);
+            for (long slot : slots) {
+                Varints.writeUnsigned(out, slot);
+            }
+        }
+    }
+
+    private static Map<Long, long[]> readBuckets(DataInput in) throws IOException {
+        int count = Varints.readCount(in, MAX_ENTRIES);
+        Map<Long, long[]> buckets = new TreeMap<>();
+        long key = 0;
+        for (int i = 0; i < count; i++) {
+            key += Varints.readSigned(in);
+            int slotCount = Varints.readCount(in, 64);
+            long[] slots = new long[PresenceCounters.SLOT_COUNT];
+            for (int s = 0; s < slotCount; s++) {
+                long value = Varints.readUnsigned(in);
+                if (s < slots.length) {
+                    slots[s] = value;
+                }
+            }
+            buckets.put(key, slots);
+        }
+        return buckets;
+    }
+
+    private static void writeSection(DataOutput out, byte tag, ByteArrayOutputStream payload) throws IOException {
+        out.writeByte(tag);
+        out.writeInt(payload.size());
+        out.write(payload.toByteArray());
+    }
+}
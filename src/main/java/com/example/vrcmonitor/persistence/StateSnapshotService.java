@@ -0,0 +1,317 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.services.MonitoringService;
+import com.example.vrcmonitor.services.OnlineSessionService;
+import com.example.vrcmonitor.services.PresenceStatsService;
+import com.example.vrcmonitor.services.UserStateService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Warm restart support: persists user states, history tails, last poll times, online sessions and
+ * presence statistics to {@value #SNAPSHOT_FILENAME} and restores them on boot.
+ *
+ * Between snapshots every state update is appended to a {@link StateWriteAheadLog}; each
+ * snapshot is a checkpoint that rolls the log and lets the segments it covers be deleted.
+ * Recovery loads the last snapshot and replays only the log records after its checkpoint,
+ * so a crash loses at most one WAL batch window instead of everything since the last snapshot.
+ *
+ * Restore runs in @PostConstruct, i.e. while the context is still being built and before
+ * the embedded web server starts accepting connections, so the first client sees the
+ * restored states instead of "Initializing...". Snapshots are written periodically and on
+ * graceful shutdown (including the SHUTDOWN command, whose System.exit runs the shutdown hooks).
+ *
+ * With failover ({@link LeaderLease}) only the leader writes the snapshot and WAL; a standby
+ * restores the same files and then follows the log (see {@link FailoverService}).
+ */
+@Service
+public class StateSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(StateSnapshotService.class);
+
+    static final String SNAPSHOT_FILENAME = "vrc_state_snapshot.bin";
+
+    private final UserStateService userStateService;
+    private final MonitoringService monitoringService;
+    private final OnlineSessionService onlineSessionService;
+    private final PresenceStatsService presenceStatsService;
+    private final ConfigLoader configLoader;
+    private final LeaderLease leaderLease;
+    private final Path snapshotPath = Paths.get(SNAPSHOT_FILENAME);
+
+    // Null when persistence or the WAL is disabled, or while this instance is a failover standby
+    private StateWriteAheadLog wal;
+    // Highest LSN restored at startup; a standby follows the leader's log from here
+    private long recoveredLsn = 0;
+
+    public StateSnapshotService(UserStateService userStateService, MonitoringService monitoringService,
+                                OnlineSessionService onlineSessionService, PresenceStatsService presenceStatsService,
+                                ConfigLoader configLoader, LeaderLease leaderLease) {
+        this.userStateService = userStateService;
+        this.monitoringService = monitoringService;
+        this.onlineSessionService = onlineSessionService;
+        this.presenceStatsService = presenceStatsService;
+        this.configLoader = configLoader;
+        this.leaderLease = leaderLease;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!isEnabled()) {
+            return;
+        }
+        long checkpointLsn = restoreSnapshot();
+        recoveredLsn = checkpointLsn;
+        if (!isWalEnabled()) {
+            return;
+        }
+        StateWriteAheadLog stateWal = newWal();
+        try {
+            long lastLsn = replayWal(stateWal, checkpointLsn);
+            recoveredLsn = lastLsn;
+            if (!leaderLease.isLeader()) {
+                log.info("Failover standby: following the leader's WAL from {}", lastLsn);
+                return;
+            }
+            openWal(stateWal, lastLsn);
+        } catch (IOException | RuntimeException e) {
+            log.error("State WAL unavailable, running with snapshots only: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Failover takeover: starts writing the WAL after the last record the standby applied.
+     * @param lastLsn Highest LSN in the old leader's log
+     */
+    public synchronized void takeOverWal(long lastLsn) {
+        if (!isEnabled() || !isWalEnabled() || wal != null) {
+            return;
+        }
+        try {
+            openWal(newWal(), lastLsn);
+        } catch (IOException | RuntimeException e) {
+            log.error("State WAL unavailable after takeover, running with snapshots only: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Failover step-down: stops writing the WAL (queued records are dropped by its fence).
+     * @return The last LSN this instance used, to follow the new leader's log from
+     */
+    public synchronized long releaseWal() {
+        if (wal == null) {
+            return recoveredLsn;
+        }
+        userStateService.setJournal(null);
+        wal.close();
+        long lastLsn = wal.getLastLsn();
+        wal = null;
+        return lastLsn;
+    }
+
+    /**
+     * @return A follower of the WAL directory for a failover standby, or null if there is no WAL
+     */
+    public StateWriteAheadLog.Tail tailWal(long afterLsn) {
+        return isEnabled() && isWalEnabled() ? newWal().tail(afterLsn) : null;
+    }
+
+    public long getRecoveredLsn() {
+        return recoveredLsn;
+    }
+
+    /**
+     * Reads the snapshot file without applying it (a standby resyncing after it fell behind
+     * the leader's log). Returns null if there is none or it cannot be read.
+     */
+    StateSnapshot readSnapshotFile() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotPath))) {
+            return StateSnapshotCodec.read(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read state snapshot {}: {}", snapshotPath.toAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private StateWriteAheadLog newWal() {
+        return StateWriteAheadLog.fromConfig(configLoader.getConfig(), Paths.get(StateWriteAheadLog.WAL_DIRECTORY));
+    }
+
+    private void openWal(StateWriteAheadLog stateWal, long lastLsn) throws IOException {
+        stateWal.open(lastLsn);
+        if (leaderLease.isEnabled()) {
+            stateWal.setFence(leaderLease::holdsFence);
+        }
+        userStateService.setJournal(stateWal);
+        this.wal = stateWal;
+    }
+
+    private boolean isWalEnabled() {
+        return StateWriteAheadLog.Durability.fromConfig(configLoader.getConfig().getWalDurability())
+                != StateWriteAheadLog.Durability.OFF;
+    }
+
+    // Returns the checkpoint LSN of the restored snapshot (0 if none)
+    private long restoreSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotPath))) {
+            StateSnapshot snapshot = StateSnapshotCodec.read(in);
+            int users = userStateService.restoreSnapshot(snapshot.users());
+            monitoringService.restoreLastPollTimes(snapshot.lastPollTimes());
+            onlineSessionService.restore(snapshot.onlineSessions());
+            presenceStatsService.restore(snapshot.presenceCounters(), snapshot.createdAt());
+            log.info("Restored state for {} users from snapshot taken {} ago ({} ms)",
+                    users, formatAge(snapshot.createdAt()), (System.nanoTime() - start) / 1_000_000);
+            return snapshot.checkpointLsn();
+        } catch (IOException | RuntimeException e) {
+            // A bad snapshot only costs us the warm start; never block boot on it
+            log.warn("Could not restore state snapshot {}: {}", snapshotPath.toAbsolutePath(), e.getMessage());
+            return 0;
+        }
+    }
+
+    // Replays records newer than the checkpoint; returns the highest LSN seen
+    private long replayWal(StateWriteAheadLog stateWal, long checkpointLsn) throws IOException {
+        long start = System.nanoTime();
+        List<StateWriteAheadLog.Entry> entries = stateWal.readAll();
+        long lastLsn = checkpointLsn;
+        int replayed = 0;
+        for (StateWriteAheadLog.Entry entry : entries) {
+            lastLsn = Math.max(lastLsn, entry.lsn());
+            if (entry.lsn() <= checkpointLsn) {
+                continue; // Already in the snapshot
+            }
+            UserStateService.UserState state = entry.state();
+            boolean applied = entry.isError()
+                    ? userStateService.replayUserErrorState(entry.vrcUid(), state.errorMessage(), state.lastUpdated())
+                    : userStateService.replayUserState(entry.vrcUid(), state.user(), state.lastUpdated());
+            if (applied) {
+                // The replay is quiet, so sessions and presence stats are fed here
+                onlineSessionService.replay(entry.vrcUid(), state);
+                presenceStatsService.replay(entry.vrcUid(), state);
+                replayed++;
+            }
+        }
+        if (!entries.isEmpty()) {
+            log.info("Replayed {} of {} WAL records after checkpoint {} ({} ms)",
+                    replayed, entries.size(), checkpointLsn, (System.nanoTime() - start) / 1_000_000);
+        }
+        return lastLsn;
+    }
+
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void periodicSnapshot() {
+        if (isEnabled() && leaderLease.isLeader()) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        if (isEnabled() && leaderLease.isLeader()) {
+            log.info("Writing state snapshot before shutdown...");
+            writeSnapshot();
+        }
+        releaseWal();
+    }
+
+    /**
+     * Writes a snapshot of the current state (a checkpoint). The file is written to a temporary
+     * sibling and moved into place, so a crash mid-write keeps the previous snapshot, and WAL
+     * segments are only deleted once the new snapshot is in place.
+     * @return true if the snapshot was written
+     */
+    public synchronized boolean writeSnapshot() {
+        if (userStateService.getCurrentStates().isEmpty()) {
+            log.debug("No user state yet, skipping snapshot");
+            return false;
+        }
+        if (!leaderLease.isLeader()) {
+            log.debug("Failover standby, skipping snapshot");
+            return false;
+        }
+
+        // Roll the log first: everything up to checkpointLsn was applied before we copy the state.
+        // Records after it may be in the copy too; replay skips those that are not newer than
+        // the user's restored state.
+        long checkpointLsn = 0;
+        Path keepSegment = null;
+        if (wal != null) {
+            try {
+                checkpointLsn = wal.roll();
+                keepSegment = wal.currentSegment();
+            } catch (IOException e) {
+                log.error("Failed to roll state WAL, skipping checkpoint: {}", e.getMessage());
+                return false;
+            }
+        }
+        StateSnapshot snapshot = new StateSnapshot(Instant.now(), checkpointLsn, userStateService.getSnapshot(),
+                monitoringService.getLastPollTimes(), onlineSessionService.getAllSessions(),
+                presenceStatsService.getAllCounters());
+
+        Path tempPath = snapshotPath.resolveSibling(SNAPSHOT_FILENAME + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                StateSnapshotCodec.write(snapshot, out);
+            }
+            if (!leaderLease.holdsFence()) {
+                Files.deleteIfExists(tempPath);
+                log.error("Not the failover leader any more, discarding state snapshot");
+                return false;
+            }
+            try {
+                Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("State snapshot written: {} users, {} bytes, checkpoint {}",
+                    snapshot.users().size(), Files.size(snapshotPath), checkpointLsn);
+            if (wal != null) {
+                wal.deleteSegmentsBefore(keepSegment);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to write state snapshot: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // A read replica takes its state from the primary, so it keeps no files of its own
+    private boolean isEnabled() {
+        AppConfig config = configLoader.getConfig();
+        return !Boolean.FALSE.equals(config.getPersistState()) && (config.getReplicaOf() == null || config.getReplicaOf().isBlank());
+    }
+
+    private static String formatAge(Instant createdAt) {
+        if (createdAt == null) {
+            return "an unknown time";
+        }
+        Duration age = Duration.between(createdAt, Instant.now());
+        return age.toMinutes() > 0 ? age.toMinutes() + " min" : age.toSeconds() + " s";
+    }
+}
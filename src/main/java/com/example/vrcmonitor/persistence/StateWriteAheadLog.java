@@ -0,0 +1,577 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateJournal;
+import com.example.vrcmonitor.services.UserStateService;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of {@link UserStateService} observations.
+ *
+ * The poll completion path only encodes the record and hands it to a queue; a single
+ * writer thread group-commits batches (one write and at most one fsync per batch, where a
+ * batch closes {@code batchMillis} after its first record or at {@code batchRecords}
+ * records). A crash therefore loses at most one batch window.
+ *
+ * The log is a series of segment files in {@value #WAL_DIRECTORY}, each named after the
+ * first sequence number it may contain. A checkpoint ({@link #roll()}) starts a new segment;
+ * once the matching snapshot is safely on disk, older segments are deleted.
+ *
+ * LSNs are assigned in the order records are queued, and the writer thread is the only one
+ * that writes (rolls included), so the records in the files are in LSN order and a roll
+ * splits them exactly at the LSN it reports.
+ *
+ * Record layout: payload length (int), CRC32 of payload (int), payload =
+ * lsn (long), op (byte), vrcUid, encoded {@link UserState}. Reading stops at the first torn
+ * or corrupt record, which can only be the tail of the last segment.
+ */
+public class StateWriteAheadLog implements UserStateJournal {
+    private static final Logger log = LoggerFactory.getLogger(StateWriteAheadLog.class);
+
+    static final String WAL_DIRECTORY = "state_wal";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final byte OP_STATE = 1;
+    private static final byte OP_ERROR = 2;
+
+    private static final int MAX_RECORD_BYTES = 4 * 1024 * 1024;
+
+    public enum Durability {
+        OFF,    // No log; only periodic snapshots
+        ASYNC,  // Written per batch, flushed by the OS
+        BATCH;  // Written and fsynced per batch
+
+        public static Durability fromConfig(String value) {
+            if (value == null || value.isBlank()) {
+                return BATCH;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown walDurability '{}', using BATCH", value);
+                return BATCH;
+            }
+        }
+    }
+
+    /**
+     * A replayable record read back from the log.
+     */
+    public record Entry(long lsn, String vrcUid, UserState state) {
+        public boolean isError() {
+            return state.statusType() == StatusType.ERROR;
+        }
+    }
+
+    private final Path directory;
+    private final Durability durability;
+    private final long batchMillis;
+    private final int batchRecords;
+
+    private final AtomicLong lastLsn = new AtomicLong();
+    // Encoded records (byte[]) and roll requests (Roll), in LSN order
+    private final BlockingQueue<Object> pending = new LinkedBlockingQueue<>();
+    // Held while an LSN is assigned and its record queued, so queue order is LSN order
+    private final Object appendLock = new Object();
+    private final Object channelLock = new Object();
+
+    // Queued by roll(): every record queued before it has an LSN up to coveredLsn, every one after it a higher one
+    private record Roll(long coveredLsn, CompletableFuture<Void> done) {}
+
+    // Guarded by channelLock
+    private FileChannel channel;
+    private Path currentSegment;
+
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    private volatile boolean running = false;
+    private Thread writerThread;
+    // Checked before every batch; false drops the batch (a deposed failover leader)
+    private volatile BooleanSupplier fence = () -> true;
+
+    public StateWriteAheadLog(Path directory, Durability durability, long batchMillis, int batchRecords) {
+        this.directory = directory;
+        this.durability = durability;
+        this.batchMillis = Math.max(1, batchMillis);
+        this.batchRecords = Math.max(1, batchRecords);
+    }
+
+    /**
+     * Creates a log from the application configuration.
+     */
+    public static StateWriteAheadLog fromConfig(AppConfig config, Path directory) {
+        return new StateWriteAheadLog(directory,
+                Durability.fromConfig(config.getWalDurability()),
+                config.getWalBatchMillis() != null ? config.getWalBatchMillis() : 200,
+                config.getWalBatchRecords() != null ? config.getWalBatchRecords() : 256);
+    }
+
+    /**
+     * Sets the check every batch must pass before it is written (see {@link LeaderLease#holdsFence()}).
+     */
+    public void setFence(BooleanSupplier fence) {
+        this.fence = fence;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Reads every intact record from the existing segments, in order.
+     * Call before {@link #open(long)}.
+     *
+     * @return The records; the caller filters by checkpoint LSN
+     */
+    public List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : listSegments()) {
+            readSegment(segment, 0, entries, false);
+        }
+        return entries;
+    }
+
+    /**
+     * Starts a fresh segment and the writer thread.
+     *
+     * @param startAfterLsn Highest LSN already used (from the checkpoint and replayed records)
+     */
+    public void open(long startAfterLsn) throws IOException {
+        Files.createDirectories(directory);
+        lastLsn.set(startAfterLsn);
+        synchronized (channelLock) {
+            openSegment(startAfterLsn + 1);
+        }
+        running = true;
+        writerThread = new Thread(this::writerLoop, "state-wal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("State WAL open ({} durability, {} ms / {} record batches) in {}",
+                durability, batchMillis, batchRecords, directory.toAbsolutePath());
+    }
+
+    @Override
+    public void recordState(String vrcUid, VRChatUser user, Instant timestamp) {
+        append(OP_STATE, vrcUid, new UserState(UserRegistry.NO_ID, user, StatusType.OK, null, timestamp));
+    }
+
+    @Override
+    public void recordError(String vrcUid, String errorMessage, Instant timestamp) {
+        append(OP_ERROR, vrcUid, new UserState(UserRegistry.NO_ID, null, StatusType.ERROR, errorMessage, timestamp));
+    }
+
+    // Caller thread: encode and enqueue only (the LSN is framed in under the lock)
+    private void append(byte op, String vrcUid, UserState state) {
+        if (!running) {
+            return;
+        }
+        byte[] body;
+        try {
+            body = encodeBody(op, vrcUid, state);
+        } catch (IOException e) {
+            log.warn("Could not encode WAL record for {}: {}", vrcUid, e.getMessage());
+            return;
+        }
+        synchronized (appendLock) {
+            pending.add(frame(lastLsn.incrementAndGet(), body));
+        }
+        appendedRecords.incrementAndGet();
+    }
+
+    /**
+     * Checkpoint step: closes the current segment and starts a new one.
+     * Every record in the closed segments has an LSN at most the returned value, and every
+     * record in the new one a higher LSN.
+     *
+     * @return The LSN the checkpoint covers
+     */
+    public long roll() throws IOException {
+        Roll roll;
+        synchronized (appendLock) {
+            roll = new Roll(lastLsn.get(), new CompletableFuture<>());
+            pending.add(roll);
+        }
+        if (!running) {
+            // No writer thread (not open yet, or closing): write what is queued here
+            synchronized (channelLock) {
+                writeBatch(drainPending());
+            }
+        }
+        try {
+            roll.done().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rolling the WAL", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        return roll.coveredLsn();
+    }
+
+    /**
+     * Deletes segments whose records are all covered by a completed checkpoint.
+     */
+    public void deleteSegmentsBefore(Path keep) throws IOException {
+        for (Path segment : listSegments()) {
+            if (!segment.equals(keep)) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * @return The segment currently being written
+     */
+    public Path currentSegment() {
+        synchronized (channelLock) {
+            return currentSegment;
+        }
+    }
+
+    public long getLastLsn() {
+        return lastLsn.get();
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public long getSyncCount() {
+        return syncs.get();
+    }
+
+    /**
+     * Stops the writer, commits whatever is queued and closes the segment.
+     */
+    public void close() {
+        running = false;
+        if (writerThread != null) {
+            // Not interrupted: an interrupt during FileChannel I/O closes the channel.
+            // The writer notices within one poll timeout.
+            try {
+                writerThread.join(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (channelLock) {
+            writeBatch(drainPending());
+            closeChannel();
+        }
+    }
+
+    private void writerLoop() {
+        List<Object> batch = new ArrayList<>(batchRecords);
+        while (running) {
+            try {
+                Object first = pending.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Group commit: wait up to one window for more records to share the write/fsync.
+                // A roll ends the batch, so the checkpoint doesn't wait for the window.
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchMillis);
+                while (batch.size() < batchRecords && !(batch.get(batch.size() - 1) instanceof Roll)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Object next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    pending.drainTo(batch, batchRecords - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break; // close() commits whatever is left
+            }
+            synchronized (channelLock) {
+                writeBatch(batch);
+            }
+            batch.clear();
+        }
+        // Anything polled but not yet written goes out with the final flush, ahead of what is still queued
+        List<Object> rest = drainPending();
+        pending.addAll(batch);
+        pending.addAll(rest);
+    }
+
+    /*
+     * Writes the records in queue order; a roll writes the records before it to the old segment
+     * and the ones after it to the new one. Failures are logged, and a roll always completes
+     * (exceptionally if the new segment could not be opened). Must hold channelLock.
+     */
+    private void writeBatch(List<Object> batch) {
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (Object item : batch) {
+            if (item instanceof Roll roll) {
+                writeRecords(records);
+                records.clear();
+                try {
+                    if (channel != null) {
+                        closeChannel();
+                        openSegment(roll.coveredLsn() + 1);
+                    }
+                    roll.done().complete(null);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to start a new WAL segment: {}", e.getMessage());
+                    roll.done().completeExceptionally(e);
+                }
+            } else {
+                records.add((byte[]) item);
+            }
+        }
+        writeRecords(records);
+    }
+
+    // Must hold channelLock
+    private void writeRecords(List<byte[]> records) {
+        if (records.isEmpty() || channel == null) {
+            return;
+        }
+        if (!fence.getAsBoolean()) {
+            log.error("Not the failover leader any more, dropping {} WAL records", records.size());
+            return;
+        }
+        int total = 0;
+        for (byte[] record : records) {
+            total += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] record : records) {
+            buffer.put(record);
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (durability == Durability.BATCH) {
+                channel.force(false);
+                syncs.incrementAndGet();
+            }
+        } catch (IOException e) {
+            log.error("WAL write failed, {} records lost: {}", records.size(), e.getMessage());
+            return;
+        }
+        committedBatches.incrementAndGet();
+    }
+
+    private List<Object> drainPending() {
+        List<Object> drained = new ArrayList<>();
+        pending.drainTo(drained);
+        return drained;
+    }
+
+    // Must hold channelLock
+    private void openSegment(long firstLsn) throws IOException {
+        currentSegment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // Must hold channelLock
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing WAL segment {}: {}", currentSegment, e.getMessage());
+        }
+        channel = null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null); // Zero-padded start LSN, so name order is log order
+        return segments;
+    }
+
+    static byte[] encode(long lsn, byte op, String vrcUid, UserState state) throws IOException {
+        return frame(lsn, encodeBody(op, vrcUid, state));
+    }
+
+    // The payload after the LSN: op, vrcUid, state
+    private static byte[] encodeBody(byte op, String vrcUid, UserState state) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeByte(op);
+        UserStateCodec.INLINE_WRITER.write(payload, vrcUid);
+        UserStateCodec.writeState(payload, state, UserStateCodec.INLINE_WRITER);
+        return payloadBytes.toByteArray();
+    }
+
+    // Length and CRC header, then the payload: LSN and body
+    private static byte[] frame(long lsn, byte[] body) {
+        ByteBuffer record = ByteBuffer.allocate(8 + 8 + body.length);
+        record.putInt(8 + body.length);
+        record.putInt(0); // CRC, below
+        record.putLong(lsn);
+        record.put(body);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, 8 + body.length);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    /*
+     * Reads the intact records from 'offset' on and returns the offset after the last one.
+     * While tailing, a record cut short at the end is one the leader is still writing, so it
+     * is left for the next read instead of being reported as torn.
+     */
+    private static long readSegment(Path segment, long offset, List<Entry> entries, boolean tailing) throws IOException {
+        byte[] bytes;
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size - offset > Integer.MAX_VALUE) {
+                throw new IOException("WAL segment too large: " + segment.getFileName());
+            }
+            ByteBuffer read = ByteBuffer.allocate((int) Math.max(0, size - offset));
+            while (read.hasRemaining() && file.read(read, offset + read.position()) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            bytes = read.array();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int intact = 0;
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                if (!tailing || length <= 0 || length > MAX_RECORD_BYTES) {
+                    log.warn("Torn WAL record at offset {} in {}, ignoring the rest", offset + buffer.position() - 8, segment.getFileName());
+                }
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != expectedCrc) {
+                log.warn("Corrupt WAL record at offset {} in {}, ignoring the rest", offset + buffer.position() - length - 8, segment.getFileName());
+                break;
+            }
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+                long lsn = in.readLong();
+                byte op = in.readByte();
+                String vrcUid = UserStateCodec.INLINE_READER.read(in);
+                UserState state = UserStateCodec.readState(in, UserStateCodec.INLINE_READER);
+                if (op != OP_STATE && op != OP_ERROR) {
+                    throw new IOException("Unknown op " + op);
+                }
+                entries.add(new Entry(lsn, vrcUid, state));
+            } catch (EOFException e) {
+                throw new IOException("Truncated WAL record body in " + segment.getFileName(), e);
+            }
+            intact = buffer.position();
+        }
+        return offset + intact;
+    }
+
+    /**
+     * Follows a log written by another process (a failover standby reading the leader's log).
+     * Each {@link #poll()} returns the records appended since the previous one.
+     */
+    public final class Tail {
+        private Path segment;  // Segment being followed; null before the first poll
+        private long offset;   // Read up to here in 'segment'
+        private long lastLsn;  // Highest LSN returned (or skipped as already applied)
+
+        private Tail(long afterLsn) {
+            this.lastLsn = afterLsn;
+        }
+
+        /**
+         * @return Records with an LSN above the last one returned, in log order
+         */
+        public List<Entry> poll() throws IOException {
+            List<Entry> entries = new ArrayList<>();
+            for (Path candidate : listSegments()) {
+                if (segment != null && candidate.compareTo(segment) < 0) {
+                    continue; // Already read to the end
+                }
+                long from = candidate.equals(segment) ? offset : 0;
+                List<Entry> read = new ArrayList<>();
+                long end;
+                try {
+                    end = readSegment(candidate, from, read, true);
+                } catch (NoSuchFileException e) {
+                    continue; // Deleted by a checkpoint since it was listed
+                }
+                segment = candidate;
+                offset = end;
+                for (Entry entry : read) {
+                    if (entry.lsn() > lastLsn) {
+                        entries.add(entry);
+                        lastLsn = entry.lsn();
+                    }
+                }
+            }
+            return entries;
+        }
+
+        public long getLastLsn() {
+            return lastLsn;
+        }
+    }
+
+    /**
+     * Starts following this log's directory without opening it for writing.
+     *
+     * @param afterLsn Records up to this LSN are already applied and are skipped
+     */
+    public Tail tail(long afterLsn) {
+        return new Tail(afterLsn);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Binary encoding of a single {@link UserState}. Strings go through a pluggable
+ * {@link StringWriter}/{@link StringReader} so a container format can either write them
+ * inline or as references into its own string table.
+ */
+final class UserStateCodec {
+
+    // Strings longer than this are treated as corruption when reading
+    static final int MAX_STRING_BYTES = 1 << 20;
+
+    @FunctionalInterface
+    interface StringWriter {
+        void write(DataOutput out, String value) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface StringReader {
+        String read(DataInput in) throws IOException;
+    }
+
+    // Inline strings: varint (length + 1) followed by UTF-8 bytes, 0 for null
+    static final StringWriter INLINE_WRITER = (out, value) -> {
+        if (value == null) {
+            Varints.writeUnsigned(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varints.writeUnsigned(out, bytes.length + 1L);
+        out.write(bytes);
+    };
+
+    static final StringReader INLINE_READER = in -> {
+        int lengthPlusOne = Varints.readCount(in, MAX_STRING_BYTES + 1);
+        if (lengthPlusOne == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[lengthPlusOne - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    };
+
+    private static final StatusType[] STATUS_TYPES = StatusType.values();
+
+    private UserStateCodec() {
+    }
+
+    static void writeState(DataOutput out, UserState state, StringWriter strings) throws IOException {
+        out.writeByte(state.statusType().ordinal());
+        strings.write(out, state.errorMessage());
+        writeInstant(out, state.lastUpdated());
+
+        VRChatUser user = state.user();
+        out.writeBoolean(user != null);
+        if (user == null) {
+            return;
+        }
+        strings.write(out, user.getId());
+        strings.write(out, user.getUsername());
+        strings.write(out, user.getDisplayName());
+        strings.write(out, user.getState());
+        strings.write(out, user.getStatus());
+        strings.write(out, user.getStatusDescription());
+        strings.write(out, user.getLocation());
+        strings.write(out, user.getWorldId());
+        strings.write(out, user.getInstanceId());
+        strings.write(out, user.getCurrentAvatarImageUrl());
+        strings.write(out, user.getCurrentAvatarThumbnailImageUrl());
+        strings.write(out, user.getBio());
+        strings.write(out, user.getUserIcon());
+        writeInstant(out, user.getLast_login());
+        writeInstant(out, user.getLast_activity());
+        out.writeBoolean(user.isFriend());
+    }
+
+    static UserState readState(DataInput in, StringReader strings) throws IOException {
+        int typeOrdinal = in.readUnsignedByte();
+        if (typeOrdinal >= STATUS_TYPES.length) {
+            throw new IOException("Unknown status type " + typeOrdinal);
+        }
+        StatusType statusType = STATUS_TYPES[typeOrdinal];
+        String errorMessage = strings.read(in);
+        Instant lastUpdated = readInstant(in);
+
+        VRChatUser user = null;
+        if (in.readBoolean()) {
+            user = new VRChatUser();
+            user.setId(strings.read(in));
+            user.setUsername(strings.read(in));
+            user.setDisplayName(strings.read(in));
+            user.setState(strings.read(in));
+            user.setStatus(strings.read(in));
+            user.setStatusDescription(strings.read(in));
+            user.setLocation(strings.read(in));
+            user.setWorldId(strings.read(in));
+            user.setInstanceId(strings.read(in));
+            user.setCurrentAvatarImageUrl(strings.read(in));
+            user.setCurrentAvatarThumbnailImageUrl(strings.read(in));
+            user.setBio(strings.read(in));
+            user.setUserIcon(strings.read(in));
+            user.setLast_login(readInstant(in));
+            user.setLast_activity(readInstant(in));
+            user.setFriend(in.readBoolean());
+        }
+        // Not attached to a user yet; UserStateService stamps the id when the state is restored
+        return new UserState(UserRegistry.NO_ID, user, statusType, errorMessage, lastUpdated);
+    }
+
+    // Millisecond precision; Long.MIN_VALUE marks null
+    static void writeInstant(DataOutput out, Instant instant) throws IOException {
+        out.writeLong(instant != null ? instant.toEpochMilli() : Long.MIN_VALUE);
+    }
+
+    static Instant readInstant(DataInput in) throws IOException {
+        long millis = in.readLong();
+        return millis != Long.MIN_VALUE ? Instant.ofEpochMilli(millis) : null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.vrcmonitor.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Unsigned LEB128 varints and zig-zag signed varints, shared by the binary persistence formats.
+ */
+final class Varints {
+
+    private Varints() {
+    }
+
+    static void writeUnsigned(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readUnsigned(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeSigned(DataOutput out, long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSigned(DataInput in) throws IOException {
+        long raw = readUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static int readCount(DataInput in, int max) throws IOException {
+        long count = readUnsigned(in);
+        if (count < 0 || count > max) {
+            throw new IOException("Count out of range: " + count);
+        }
+        return (int) count;
+    }
+}
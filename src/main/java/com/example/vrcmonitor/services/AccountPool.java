@@ -0,0 +1,298 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.events.AccountSessionEvent;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.LeadershipChangedEvent;
+import com.example.vrcmonitor.events.SessionEstablishedEvent;
+import com.example.vrcmonitor.events.SessionInvalidatedEvent;
+import com.example.vrcmonitor.logging.ErrorFileLogger;
+import com.example.vrcmonitor.persistence.LeaderLease;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The VRChat accounts polling is spread over. The primary account is the normal login (the
+ * singleton {@link VRChatApiService}, {@link SessionManager} and {@link ApiRateLimiter} beans);
+ * the config's {@code accounts} list adds more, each with its own session, session cache file
+ * and rate limiter, so total polling capacity grows with the number of accounts.
+ *
+ * Users are assigned to accounts on a consistent hash ring built from the accounts that
+ * currently have a session. When an account's session ends, only the users it owned move to
+ * the other accounts, and they move back once it is logged in again; everyone else keeps
+ * their account (and its warmed-up limiter) throughout.
+ *
+ * An account dedicated to a tenant ({@link com.example.vrcmonitor.config.TenantConfig#getAccount()})
+ * is kept off the ring and polls only that tenant's users.
+ */
+@Service
+public class AccountPool {
+    private static final Logger log = LoggerFactory.getLogger(AccountPool.class);
+
+    public static final String PRIMARY = "primary";
+    static final int VIRTUAL_NODES = 128;
+    static final int MAX_ACCOUNTS = 63; // Active accounts are tracked in a long bit mask
+
+    private static final Pattern ACCOUNT_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    /**
+     * One polling account.
+     */
+    public record Account(String name, VRChatApiService api, SessionManager sessionManager, ApiRateLimiter limiter) {}
+
+    /**
+     * Account status for the API.
+     * @param tenant The tenant the account is dedicated to, or null if it is shared
+     * @param assignedUsers Users currently routed to this account
+     */
+    public record AccountStatus(String name, boolean active, boolean hasSession, String tenant, int assignedUsers,
+                                Map<String, Map<String, Object>> limiter) {}
+
+    // Ring over the shared accounts in 'activeMask' (bit i = accounts.get(i))
+    private record Ring(long activeMask, ConsistentHashRing<Account> ring) {}
+
+    private final List<Account> accounts; // Primary first, then config order
+    private final Map<String, Account> accountsByName;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TenantRegistry tenantRegistry;
+    private final LeaderLease leaderLease;
+    private volatile Ring ring = new Ring(-1L, new ConsistentHashRing<>(Map.of(), VIRTUAL_NODES));
+
+    public AccountPool(ConfigLoader configLoader, VRChatApiService primaryApi, SessionManager primarySessionManager,
+                       ApiRateLimiter primaryLimiter, WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                       ErrorFileLogger errorFileLogger, ApplicationEventPublisher eventPublisher,
+                       TenantRegistry tenantRegistry, LeaderLease leaderLease) {
+        this.eventPublisher = eventPublisher;
+        this.tenantRegistry = tenantRegistry;
+        this.leaderLease = leaderLease;
+        List<Account> all = new ArrayList<>();
+        all.add(new Account(PRIMARY, primaryApi, primarySessionManager, primaryLimiter));
+
+        List<String> names = configLoader.getConfig().getAccounts();
+        if (names != null) {
+            for (String name : names) {
+                if (name == null || !ACCOUNT_NAME.matcher(name).matches() || PRIMARY.equals(name)
+                        || all.stream().anyMatch(account -> account.name().equals(name))) {
+                    log.warn("Ignoring invalid or duplicate account name in config: '{}'", name);
+                    continue;
+                }
+                if (all.size() >= MAX_ACCOUNTS) {
+                    log.warn("Too many accounts configured; ignoring '{}' and any after it", name);
+                    break;
+                }
+                all.add(createAccount(name, configLoader, webClientBuilder, objectMapper, errorFileLogger));
+            }
+        }
+        this.accounts = List.copyOf(all);
+        Map<String, Account> byName = new LinkedHashMap<>();
+        accounts.forEach(account -> byName.put(account.name(), account));
+        this.accountsByName = byName;
+        if (accounts.size() > 1) {
+            log.info("Polling accounts: {}", byName.keySet());
+        }
+    }
+
+    // Each extra account gets its own session (cached in its own file) and its own limiter
+    private Account createAccount(String name, ConfigLoader configLoader, WebClient.Builder webClientBuilder,
+                                  ObjectMapper objectMapper, ErrorFileLogger errorFileLogger) {
+        SessionCacheManager cache = new SessionCacheManager(configLoader, objectMapper, "vrc_session_cache_" + name + ".json");
+        // The shared session events mean "the primary session"; translate this account's ones
+        SessionManager sessionManager = new SessionManager(cache, event -> {
+            if (event instanceof SessionEstablishedEvent established) {
+                eventPublisher.publishEvent(new AccountSessionEvent(name, true, established.source().name()));
+            } else if (event instanceof SessionInvalidatedEvent invalidated) {
+                eventPublisher.publishEvent(new AccountSessionEvent(name, false, invalidated.reason()));
+            }
+        });
+        ApiRateLimiter limiter = new ApiRateLimiter();
+        VRChatApiService api = new VRChatApiService(webClientBuilder.clone(), objectMapper, limiter, errorFileLogger, sessionManager);
+        return new Account(name, api, sessionManager, limiter);
+    }
+
+    /**
+     * Validates sessions of extra accounts restored from their cache files (the primary one is
+     * validated by {@link AuthService}). A 401 invalidates the session as usual.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void validateRestoredSessions() {
+        if (!leaderLease.isLeader()) {
+            return; // Failover standby: the sessions belong to the leader
+        }
+        for (Account account : accounts.subList(1, accounts.size())) {
+            if (account.api().hasActiveSession()) {
+                log.info("Validating restored session for account '{}'", account.name());
+                account.api().getCurrentUser()
+                    .doOnError(error -> log.warn("Restored session for account '{}' failed validation: {}",
+                            account.name(), error.getMessage()))
+                    .onErrorResume(e -> Mono.empty())
+                    .subscribe();
+            }
+        }
+    }
+
+    /**
+     * Failover: the extra accounts follow the primary session (see AuthService): reuse the
+     * leader's cached sessions on takeover, let go of them without logging out on losing the lease.
+     */
+    @EventListener
+    @Order(10)
+    public void onLeadershipChanged(LeadershipChangedEvent event) {
+        for (Account account : accounts.subList(1, accounts.size())) {
+            if (event.leader()) {
+                account.sessionManager().reloadFromCache();
+            } else {
+                account.sessionManager().detach("failover standby");
+            }
+        }
+        if (event.leader()) {
+            validateRestoredSessions();
+        }
+    }
+
+    /**
+     * Warns about tenants whose dedicated account is not configured (they use the shared ones)
+     */
+    @EventListener({ApplicationReadyEvent.class, ConfigChangedEvent.class})
+    public void checkTenantAccounts() {
+        for (TenantRegistry.Tenant tenant : tenantRegistry.tenants()) {
+            if (tenant.account() != null && !accountsByName.containsKey(tenant.account())) {
+                log.warn("Tenant '{}' uses unknown account '{}'; its users are polled by the shared accounts",
+                        tenant.name(), tenant.account());
+            }
+        }
+    }
+
+    @EventListener
+    public void onAccountSession(AccountSessionEvent event) {
+        log.info("Account '{}' session {} ({})", event.account(), event.active() ? "active" : "ended", event.reason());
+    }
+
+    /**
+     * @return true if at least one account can poll
+     */
+    public boolean hasActiveAccount() {
+        for (Account account : accounts) {
+            if (account.sessionManager().isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The account polling this user; the primary account if none is active (its calls
+     *         then fail the same way they always have without a session)
+     */
+    public Account accountFor(String vrcUid) {
+        Account account = assignedAccount(vrcUid);
+        return account != null ? account : accounts.get(0);
+    }
+
+    // The tenant's dedicated account if it is active, otherwise the shared ring; null if nobody can poll
+    private Account assignedAccount(String vrcUid) {
+        String dedicated = tenantRegistry.dedicatedAccountFor(vrcUid);
+        if (dedicated != null) {
+            Account account = accountsByName.get(dedicated);
+            if (account != null && account.sessionManager().isActive()) {
+                return account;
+            }
+            // Logged out (or misconfigured): borrow the shared accounts until it is back
+        }
+        return currentRing().ring().nodeFor(vrcUid);
+    }
+
+    /**
+     * @return The API client to poll this user with
+     */
+    public VRChatApiService apiFor(String vrcUid) {
+        return accountFor(vrcUid).api();
+    }
+
+    /**
+     * @return The tenant whose share of the limiter polls of this user count against, or null
+     */
+    public String limiterShareFor(String vrcUid) {
+        return tenantRegistry.tenantOf(vrcUid);
+    }
+
+    /**
+     * @return The account with this name, or null
+     */
+    public Account getAccount(String name) {
+        return accountsByName.get(name);
+    }
+
+    /**
+     * @param vrcUids The monitored users, to count assignments
+     */
+    public List<AccountStatus> getStatus(List<String> vrcUids) {
+        Map<Account, Integer> assigned = new LinkedHashMap<>();
+        for (String vrcUid : vrcUids) {
+            Account account = assignedAccount(vrcUid);
+            if (account != null) {
+                assigned.merge(account, 1, Integer::sum);
+            }
+        }
+        Map<String, String> tenantByAccount = new LinkedHashMap<>();
+        tenantRegistry.tenants().forEach(tenant -> {
+            if (tenant.account() != null) {
+                tenantByAccount.put(tenant.account(), tenant.name());
+            }
+        });
+        List<AccountStatus> result = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            result.add(new AccountStatus(account.name(), account.sessionManager().isActive(), account.api().hasActiveSession(),
+                    tenantByAccount.get(account.name()), assigned.getOrDefault(account, 0), account.limiter().getStats()));
+        }
+        return result;
+    }
+
+    /*
+     * The ring is rebuilt lazily whenever the set of active shared accounts differs from the one
+     * it was built for. Checking a handful of flags per lookup is cheap, and it means routing
+     * never depends on the order in which session event listeners run. Accounts dedicated to a
+     * tenant are left out, so their budget is only spent on that tenant's users.
+     */
+    private Ring currentRing() {
+        Set<String> dedicated = tenantRegistry.dedicatedAccounts();
+        long mask = 0;
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            if (account.sessionManager().isActive() && !dedicated.contains(account.name())) {
+                mask |= 1L << i;
+            }
+        }
+        Ring current = ring;
+        if (current.activeMask() == mask) {
+            return current;
+        }
+        Map<String, Account> active = new LinkedHashMap<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                active.put(accounts.get(i).name(), accounts.get(i));
+            }
+        }
+        Ring rebuilt = new Ring(mask, new ConsistentHashRing<>(active, VIRTUAL_NODES));
+        ring = rebuilt;
+        if (accounts.size() > 1) {
+            log.info("Shared polling accounts: {}", active.keySet());
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.vrcmonitor.services;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Time-of-week histogram of one user's transitions (going online or offline), in 168 hourly
+ * slots of the server's time zone. {@link #weight} says how likely a transition is in an hour
+ * relative to an average hour (1.0), with neighbouring hours blended in and a prior that keeps
+ * sparse histograms close to uniform.
+ */
+final class ActivityModel {
+
+    static final int SLOTS = 7 * 24;
+
+    // Below this many transitions the model says "uniform" everywhere
+    static final int MIN_TRANSITIONS = 8;
+
+    private static final double PRIOR = 0.5;
+
+    private final double[] counts = new double[SLOTS];
+    private int transitions = 0;
+
+    void record(Instant transition, ZoneId zone) {
+        counts[slotOf(transition, zone)]++;
+        transitions++;
+    }
+
+    int transitions() {
+        return transitions;
+    }
+
+    /**
+     * @return Relative transition likelihood for the slot (1.0 = average hour)
+     */
+    double weight(int slot) {
+        if (transitions < MIN_TRANSITIONS) {
+            return 1.0;
+        }
+        double smoothed = 0.25 * counts[(slot + SLOTS - 1) % SLOTS] + 0.5 * counts[slot] + 0.25 * counts[(slot + 1) % SLOTS];
+        double mean = (double) transitions / SLOTS;
+        return (smoothed + PRIOR) / (mean + PRIOR);
+    }
+
+    /**
+     * @return Weights for all slots (for display)
+     */
+    double[] weights() {
+        double[] weights = new double[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            weights[slot] = weight(slot);
+        }
+        return weights;
+    }
+
+    /**
+     * @return Hour-of-week slot, 0 = Monday 00:00-01:00
+     */
+    static int slotOf(Instant instant, ZoneId zone) {
+        ZonedDateTime time = instant.atZone(zone);
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+}
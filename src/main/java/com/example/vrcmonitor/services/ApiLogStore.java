@@ -0,0 +1,125 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.dto.LogEntryDTO;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent API log entries (requests/responses of VRChatApiService), so clients get
+ * short previews in broadcasts, fetch a full body only when they open it, and can backfill
+ * what was logged before they connected.
+ *
+ * Memory is bounded twice: at most {@value #MAX_ENTRIES} entries, and their content at most
+ * {@value #BYTE_BUDGET} bytes; the oldest entries are evicted first. Entries get consecutive
+ * ids, so an entry is found by its offset in the ring.
+ */
+@Service
+public class ApiLogStore {
+    static final int MAX_ENTRIES = 4096;
+    static final long BYTE_BUDGET = 8L * 1024 * 1024;
+    // One response body may not take more than this share of the budget
+    static final int MAX_ENTRY_CHARS = 256 * 1024;
+    static final int PREVIEW_CHARS = 300;
+
+    // Guarded by 'this'; ids oldestId..nextId-1 are in the ring
+    private final LogEntryDTO[] ring = new LogEntryDTO[MAX_ENTRIES];
+    private long oldestId = 1;
+    private long nextId = 1;
+    private long bytes = 0;
+    private long evicted = 0;
+
+    /**
+     * Stores an entry and assigns its id.
+     * @return The preview to broadcast: the same entry with its content cut to {@value #PREVIEW_CHARS} characters
+     */
+    public LogEntryDTO add(LogEntryDTO entry) {
+        String content = entry.getContent() != null ? entry.getContent() : "";
+        boolean cut = content.length() > MAX_ENTRY_CHARS;
+        LogEntryDTO stored;
+        synchronized (this) {
+            stored = new LogEntryDTO(entry.getType(), cut ? content.substring(0, MAX_ENTRY_CHARS) : content,
+                    entry.getTimestamp(), entry.getLevel(), nextId++, cut);
+            if (nextId - oldestId > MAX_ENTRIES) {
+                evictOldest();
+            }
+            ring[index(stored.getId())] = stored;
+            bytes += sizeOf(stored);
+            while (bytes > BYTE_BUDGET && oldestId < stored.getId()) {
+                evictOldest();
+            }
+        }
+        return preview(stored);
+    }
+
+    /**
+     * @return The full entry, or null if it was evicted (or never existed)
+     */
+    public synchronized LogEntryDTO get(long id) {
+        return id >= oldestId && id < nextId ? ring[index(id)] : null;
+    }
+
+    /**
+     * Previews of the entries after an id and not older than a time, oldest first.
+     * @param afterId Only entries after this id (0 for any)
+     * @param since Only entries logged at or after this time
+     * @param limit At most this many, the newest ones
+     */
+    public synchronized List<LogEntryDTO> previews(long afterId, Instant since, int limit) {
+        List<LogEntryDTO> previews = new ArrayList<>();
+        // Walk back from the newest so the limit keeps the latest entries
+        for (long id = nextId - 1; id >= Math.max(oldestId, afterId + 1) && previews.size() < limit; id--) {
+            LogEntryDTO entry = ring[index(id)];
+            if (entry.getTimestamp() != null && entry.getTimestamp().isBefore(since)) {
+                break;
+            }
+            previews.add(preview(entry));
+        }
+        Collections.reverse(previews);
+        return previews;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", nextId - oldestId);
+        stats.put("bytes", bytes);
+        stats.put("byteBudget", BYTE_BUDGET);
+        stats.put("maxEntries", MAX_ENTRIES);
+        stats.put("oldestId", nextId > oldestId ? oldestId : null);
+        stats.put("newestId", nextId > oldestId ? nextId - 1 : null);
+        stats.put("evicted", evicted);
+        return stats;
+    }
+
+    // Caller holds the lock
+    private void evictOldest() {
+        int index = index(oldestId);
+        bytes -= sizeOf(ring[index]);
+        ring[index] = null;
+        oldestId++;
+        evicted++;
+    }
+
+    private static int index(long id) {
+        return (int) (id % MAX_ENTRIES);
+    }
+
+    // Strings are UTF-16 in the worst case; the rest of the entry is a small constant
+    private static long sizeOf(LogEntryDTO entry) {
+        return entry.getContent().length() * 2L + 64;
+    }
+
+    private static LogEntryDTO preview(LogEntryDTO entry) {
+        String content = entry.getContent();
+        if (content.length() <= PREVIEW_CHARS) {
+            return entry;
+        }
+        return new LogEntryDTO(entry.getType(), content.substring(0, PREVIEW_CHARS), entry.getTimestamp(),
+                entry.getLevel(), entry.getId(), true);
+    }
+}
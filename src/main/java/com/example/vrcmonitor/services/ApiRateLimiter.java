@@ -5,106 +5,379 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
  * Utility to enforce rate limiting for VRChat API calls.
- * 
+ *
  * This ensures all API requests are properly throttled by:
  * 1. Ensuring at least 1 second between the start of subsequent requests
  * 2. Ensuring at least 0.5 seconds after the completion of one request before starting another
- * 
+ *
  * These limits apply across all users and request types.
+ *
+ * Requests are tagged with a {@link RequestClass}. When several requests are waiting, the next
+ * slot is handed out by smooth weighted round-robin over the classes that have waiters, so
+ * interactive requests get most slots, presence polls most of the rest and background work
+ * the leftovers. A request that has waited longer than its class's starvation limit is served
+ * ahead of everything else (oldest first), so no class can be starved indefinitely.
+ *
+ * Requests may also name an owner (the tenant they are made for). Within a class, the slot
+ * goes to the waiting owner that was served least recently, so on a limiter shared by several
+ * tenants each one gets an equal share of its class rather than whatever its poll volume takes.
  */
 @Component
 public class ApiRateLimiter {
     private static final Logger log = LoggerFactory.getLogger(ApiRateLimiter.class);
-    
+
     // Minimum time between request starts (1 second)
     private static final Duration MIN_TIME_BETWEEN_REQUESTS = Duration.ofSeconds(1);
-    
+
     // Minimum time after a request finishes before the next can start (0.5 seconds)
     private static final Duration MIN_TIME_AFTER_COMPLETION = Duration.ofMillis(500);
-    
-    // Last request start and finish times
-    private volatile Instant lastRequestStartTime = Instant.EPOCH;
-    private volatile Instant lastRequestFinishTime = Instant.EPOCH;
-    
+
+    // Time source for the timing rules and starvation limits (System.nanoTime outside tests)
+    private final LongSupplier nanoClock;
+
+    // Last request start and finish times, on nanoClock (guarded by limiterLock)
+    private long lastRequestStartNanos;
+    private long lastRequestFinishNanos;
+
     // Add lock for thread safety
-    private final Object limiterLock = new Object();
-    
+    private final ReentrantLock limiterLock = new ReentrantLock();
+    private final Condition slotChanged = limiterLock.newCondition();
+
+    // Waiting requests per class, in arrival order (guarded by limiterLock)
+    private final Map<RequestClass, ArrayDeque<Ticket>> waiting = new EnumMap<>(RequestClass.class);
+    // Smooth weighted round-robin state (guarded by limiterLock)
+    private final Map<RequestClass, Integer> currentWeights = new EnumMap<>(RequestClass.class);
+    // Per class, the grant sequence number each owner was last served at (guarded by limiterLock)
+    private final Map<RequestClass, Map<String, Long>> lastGrantByOwner = new EnumMap<>(RequestClass.class);
+    private long grantSequence;
+
+    // Simple statistics per class
+    private final Map<RequestClass, AtomicLong> grantedCounts = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, AtomicLong> totalWaitMillis = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, AtomicLong> starvationPromotions = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, AtomicLong> droppedCounts = new EnumMap<>(RequestClass.class);
+
+    /**
+     * Classes of API requests, from most to least important.
+     */
+    public enum RequestClass {
+        INTERACTIVE(8, Duration.ofSeconds(10)), // Session validation, user-triggered refreshes
+        PRESENCE(4, Duration.ofSeconds(30)),    // Routine status polls
+        BACKGROUND(1, Duration.ofSeconds(90));  // Enrichment (world metadata etc.)
+
+        private final int weight;
+        private final Duration starvationLimit;
+
+        RequestClass(int weight, Duration starvationLimit) {
+            this.weight = weight;
+            this.starvationLimit = starvationLimit;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public Duration getStarvationLimit() {
+            return starvationLimit;
+        }
+    }
+
+    private static final class Ticket {
+        final RequestClass requestClass;
+        final String owner;
+        final long enqueuedNanos;
+
+        Ticket(RequestClass requestClass, String owner, long enqueuedNanos) {
+            this.requestClass = requestClass;
+            this.owner = owner;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        boolean isStarving(long nowNanos) {
+            return nowNanos - enqueuedNanos > requestClass.getStarvationLimit().toNanos();
+        }
+    }
+
+    public ApiRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    // For tests, which drive the clock themselves
+    ApiRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        // As if the last request started and finished long enough ago
+        long now = nanoClock.getAsLong();
+        lastRequestStartNanos = now - MIN_TIME_BETWEEN_REQUESTS.toNanos();
+        lastRequestFinishNanos = now - MIN_TIME_AFTER_COMPLETION.toNanos();
+        for (RequestClass requestClass : RequestClass.values()) {
+            waiting.put(requestClass, new ArrayDeque<>());
+            currentWeights.put(requestClass, 0);
+            lastGrantByOwner.put(requestClass, new HashMap<>());
+            grantedCounts.put(requestClass, new AtomicLong());
+            totalWaitMillis.put(requestClass, new AtomicLong());
+            starvationPromotions.put(requestClass, new AtomicLong());
+            droppedCounts.put(requestClass, new AtomicLong());
+        }
+    }
+
     /**
      * Wait for throttling constraints to be satisfied before proceeding with a request.
      * This ensures we're respecting both the time-since-last-start and time-since-last-finish rules.
-     * 
+     * Untagged callers are treated as presence requests.
+     *
      * @throws InterruptedException if the thread is interrupted while waiting
      */
     public void waitForThrottlingConstraints() throws InterruptedException {
-        synchronized (limiterLock) {
-            Instant now = Instant.now();
-            
-            // Check if we need to wait for the time-since-last-start rule
-            if (lastRequestStartTime != null) {
-                Duration timeSinceLastStart = Duration.between(lastRequestStartTime, now);
-                if (timeSinceLastStart.compareTo(MIN_TIME_BETWEEN_REQUESTS) < 0) {
-                    // Need to wait
-                    long waitTime = MIN_TIME_BETWEEN_REQUESTS.toMillis() - timeSinceLastStart.toMillis();
-                    log.debug("Rate limiting: Waiting {}ms to satisfy time-since-last-start constraint", waitTime);
-                    try {
-                        Thread.sleep(waitTime);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        log.warn("Rate limiting wait interrupted", e);
-                        throw e;
-                    }
+        waitForThrottlingConstraints(RequestClass.PRESENCE);
+    }
+
+    /**
+     * Wait until this request is granted the next slot.
+     * A request is granted when it is the scheduler's pick among all waiting requests
+     * and both timing rules are satisfied.
+     *
+     * @param requestClass The class of the request about to be made
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void waitForThrottlingConstraints(RequestClass requestClass) throws InterruptedException {
+        waitForThrottlingConstraints(requestClass, () -> true);
+    }
+
+    /**
+     * Wait until this request is granted the next slot, unless it stops being wanted first.
+     * The condition is checked on every wake-up (at least once a second, and at once after
+     * {@link #wakeWaiters()}); a dropped request leaves the queue without using a slot.
+     *
+     * @param requestClass The class of the request about to be made
+     * @param stillWanted Whether the request should still be made (called with the limiter lock held)
+     * @return true if the slot was granted, false if the request was dropped
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean waitForThrottlingConstraints(RequestClass requestClass, BooleanSupplier stillWanted)
+            throws InterruptedException {
+        return waitForThrottlingConstraints(requestClass, null, stillWanted);
+    }
+
+    /**
+     * Wait until this request is granted the next slot, unless it stops being wanted first,
+     * sharing its class's slots fairly with the requests of other owners.
+     *
+     * @param requestClass The class of the request about to be made
+     * @param owner The tenant the request is made for, or null
+     * @param stillWanted Whether the request should still be made (called with the limiter lock held)
+     * @return true if the slot was granted, false if the request was dropped
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean waitForThrottlingConstraints(RequestClass requestClass, String owner, BooleanSupplier stillWanted)
+            throws InterruptedException {
+        Ticket ticket = new Ticket(requestClass, owner, nanoClock.getAsLong());
+        limiterLock.lock();
+        try {
+            waiting.get(requestClass).addLast(ticket);
+            // A new arrival may change who should go next
+            slotChanged.signalAll();
+
+            while (true) {
+                if (!stillWanted.getAsBoolean()) {
+                    waiting.get(requestClass).remove(ticket);
+                    droppedCounts.get(requestClass).incrementAndGet();
+                    slotChanged.signalAll();
+                    log.debug("Rate limiting: {} request dropped while waiting", requestClass);
+                    return false;
                 }
-            }
-            
-            // Check if we need to wait for the time-since-last-finish rule
-            if (lastRequestFinishTime != null) {
-                Instant updatedNow = Instant.now(); // Refresh current time
-                Duration timeSinceLastFinish = Duration.between(lastRequestFinishTime, updatedNow);
-                if (timeSinceLastFinish.compareTo(MIN_TIME_AFTER_COMPLETION) < 0) {
-                    // Need to wait
-                    long waitTime = MIN_TIME_AFTER_COMPLETION.toMillis() - timeSinceLastFinish.toMillis();
-                    log.debug("Rate limiting: Waiting {}ms to satisfy time-since-last-finish constraint", waitTime);
-                    try {
-                        Thread.sleep(waitTime);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        log.warn("Rate limiting wait interrupted", e);
-                        throw e;
-                    }
+                long nowNanos = nanoClock.getAsLong();
+                Ticket next = selectNext(nowNanos);
+                long waitNanos = nanosUntilSlotAvailable(nowNanos);
+                if (next == ticket && waitNanos <= 0) {
+                    grant(ticket, nowNanos);
+                    return true;
+                }
+                if (next == ticket) {
+                    log.debug("Rate limiting: {} request waiting {}ms for next slot", requestClass,
+                            TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                    slotChanged.awaitNanos(waitNanos);
+                } else {
+                    // Not our turn; wake up on any change, and periodically to re-check starvation
+                    slotChanged.awaitNanos(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(100)));
                 }
             }
-            
-            // Update the start time
-            lastRequestStartTime = Instant.now();
-            log.debug("Rate limiting: Request started at {}", lastRequestStartTime);
+        } catch (InterruptedException e) {
+            waiting.get(requestClass).remove(ticket);
+            slotChanged.signalAll();
+            Thread.currentThread().interrupt();
+            log.warn("Rate limiting wait interrupted", e);
+            throw e;
+        } finally {
+            limiterLock.unlock();
+        }
+    }
+
+    // Must be called while holding limiterLock. Does not modify scheduler state.
+    private Ticket selectNext(long nowNanos) {
+        // Starvation protection: the oldest overdue request goes first, regardless of class
+        Ticket oldestStarving = null;
+        for (ArrayDeque<Ticket> queue : waiting.values()) {
+            Ticket head = queue.peekFirst();
+            if (head != null && head.isStarving(nowNanos)
+                    && (oldestStarving == null || head.enqueuedNanos < oldestStarving.enqueuedNanos)) {
+                oldestStarving = head;
+            }
+        }
+        if (oldestStarving != null) {
+            return oldestStarving;
+        }
+
+        RequestClass chosen = selectClassByWeight();
+        return chosen != null ? selectByOwner(chosen) : null;
+    }
+
+    // The earliest request of the owner served least recently within the class (never served goes first)
+    private Ticket selectByOwner(RequestClass requestClass) {
+        Map<String, Long> lastGrants = lastGrantByOwner.get(requestClass);
+        Ticket chosen = null;
+        long chosenLastGrant = Long.MAX_VALUE;
+        for (Ticket ticket : waiting.get(requestClass)) {
+            long lastGrant = lastGrants.getOrDefault(ticket.owner, -1L);
+            if (lastGrant < chosenLastGrant) {
+                chosen = ticket;
+                chosenLastGrant = lastGrant;
+            }
+        }
+        return chosen;
+    }
+
+    // Smooth weighted round-robin over classes with waiters (pure; see commitWeights)
+    private RequestClass selectClassByWeight() {
+        RequestClass chosen = null;
+        int best = Integer.MIN_VALUE;
+        for (RequestClass requestClass : RequestClass.values()) {
+            if (waiting.get(requestClass).isEmpty()) {
+                continue;
+            }
+            int candidate = currentWeights.get(requestClass) + requestClass.getWeight();
+            if (candidate > best) {
+                best = candidate;
+                chosen = requestClass;
+            }
+        }
+        return chosen;
+    }
+
+    // Must be called while holding limiterLock
+    private void grant(Ticket ticket, long nowNanos) {
+        boolean starving = ticket.isStarving(nowNanos);
+        commitWeights(ticket.requestClass);
+        waiting.get(ticket.requestClass).remove(ticket);
+        lastGrantByOwner.get(ticket.requestClass).put(ticket.owner, grantSequence++);
+
+        lastRequestStartNanos = nowNanos;
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(nowNanos - ticket.enqueuedNanos);
+        grantedCounts.get(ticket.requestClass).incrementAndGet();
+        totalWaitMillis.get(ticket.requestClass).addAndGet(waitedMillis);
+        if (starving) {
+            starvationPromotions.get(ticket.requestClass).incrementAndGet();
+            log.debug("Rate limiting: {} request promoted after waiting {}ms", ticket.requestClass, waitedMillis);
+        }
+        log.debug("Rate limiting: {} request started after {}ms", ticket.requestClass, waitedMillis);
+        slotChanged.signalAll();
+    }
+
+    // Apply the smooth weighted round-robin update for a grant to the given class
+    private void commitWeights(RequestClass granted) {
+        int totalWeight = 0;
+        for (RequestClass requestClass : RequestClass.values()) {
+            if (!waiting.get(requestClass).isEmpty()) {
+                currentWeights.merge(requestClass, requestClass.getWeight(), Integer::sum);
+                totalWeight += requestClass.getWeight();
+            } else {
+                // Idle classes don't bank credit
+                currentWeights.put(requestClass, 0);
+            }
         }
+        currentWeights.merge(granted, -totalWeight, Integer::sum);
     }
-    
+
+    // Time until both the time-since-last-start and time-since-last-finish rules allow a start
+    private long nanosUntilSlotAvailable(long nowNanos) {
+        return Math.max(MIN_TIME_BETWEEN_REQUESTS.toNanos() - (nowNanos - lastRequestStartNanos),
+                        MIN_TIME_AFTER_COMPLETION.toNanos() - (nowNanos - lastRequestFinishNanos));
+    }
+
+    /**
+     * Makes every waiting request re-check whether it is still wanted (e.g. after the session
+     * it was queued for has ended).
+     */
+    public void wakeWaiters() {
+        limiterLock.lock();
+        try {
+            slotChanged.signalAll();
+        } finally {
+            limiterLock.unlock();
+        }
+    }
+
     /**
      * Records that a request has finished, updating the finish timestamp.
      * This should be called when an API request completes (successfully or with error).
      */
     public void recordRequestFinished() {
-        synchronized (limiterLock) {
-            lastRequestFinishTime = Instant.now();
-            log.debug("Recorded API request completion at {}", lastRequestFinishTime);
+        limiterLock.lock();
+        try {
+            lastRequestFinishNanos = nanoClock.getAsLong();
+            log.debug("Recorded API request completion");
+            slotChanged.signalAll();
+        } finally {
+            limiterLock.unlock();
         }
     }
-    
+
+    /**
+     * @return Per-class statistics (granted requests, average wait, starvation promotions, dropped while
+     *         waiting, currently waiting)
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        limiterLock.lock();
+        try {
+            for (RequestClass requestClass : RequestClass.values()) {
+                long granted = grantedCounts.get(requestClass).get();
+                Map<String, Object> classStats = new LinkedHashMap<>();
+                classStats.put("granted", granted);
+                classStats.put("avgWaitMs", granted > 0 ? totalWaitMillis.get(requestClass).get() / granted : 0);
+                classStats.put("starvationPromotions", starvationPromotions.get(requestClass).get());
+                classStats.put("dropped", droppedCounts.get(requestClass).get());
+                classStats.put("waiting", waiting.get(requestClass).size());
+                stats.put(requestClass.name(), classStats);
+            }
+        } finally {
+            limiterLock.unlock();
+        }
+        return stats;
+    }
+
     /**
      * Execute a task with proper API rate limiting.
      * This method will:
      * 1. Wait if necessary to satisfy rate limiting constraints
      * 2. Execute the provided task
      * 3. Record the completion time
-     * 
+     *
      * @param <T> The result type of the task
      * @param task The task to execute
      * @return The result of the task
@@ -117,20 +390,20 @@ public class ApiRateLimiter {
             Thread.currentThread().interrupt();
             log.warn("Throttling wait interrupted", e);
         }
-        
+
         try {
             // Execute the task
             return task.get();
         } finally {
             // Record when we finished, regardless of success or failure
-            lastRequestFinishTime = Instant.now();
+            recordRequestFinished();
         }
     }
-    
+
     /**
      * Execute a CompletableFuture task with proper API rate limiting.
      * This is for async operations where we need to enforce rate limiting.
-     * 
+     *
      * @param <T> The result type of the task
      * @param asyncTask The async task to execute
      * @return A CompletableFuture with the result
@@ -143,16 +416,16 @@ public class ApiRateLimiter {
             Thread.currentThread().interrupt();
             log.warn("Throttling wait interrupted", e);
         }
-        
+
         // Start the async task
         CompletableFuture<T> future = asyncTask.get();
-        
+
         // When it completes (successfully or with exception), record the finish time
         return future.whenComplete((result, ex) -> {
-            lastRequestFinishTime = Instant.now();
+            recordRequestFinished();
             if (ex != null) {
                 log.debug("Rate-limited async task completed with exception", ex);
             }
         });
     }
-} 
\ No newline at end of file
+}
@@ -2,16 +2,19 @@ package com.example.vrcmonitor.services;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.ApplicationContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import jakarta.annotation.PostConstruct;
-import com.example.vrcmonitor.web.StatusUpdateHandler;
+import reactor.util.retry.Retry;
+import com.example.vrcmonitor.events.LeadershipChangedEvent;
+import com.example.vrcmonitor.events.SessionInvalidatedEvent;
+import com.example.vrcmonitor.persistence.LeaderLease;
+import org.springframework.core.annotation.Order;
 
-import java.io.Console;
-import java.util.Arrays;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class AuthService {
@@ -21,133 +24,132 @@ public class AuthService {
     // Password is not stored long-term anymore
     // private char[] password = null; 
     
-    // Add session tracking
-    private AtomicBoolean hasActiveSession = new AtomicBoolean(false);
-    private Instant lastSessionTime = null;
+    // A session that has not proven itself for this long gets a lightweight health check
+    private static final Duration REVALIDATE_AFTER = Duration.ofMinutes(10);
 
     private final VRChatApiService vrchatApiService;
-    private final ApplicationContext applicationContext;  // Use ApplicationContext instead of direct reference
+    private final SessionManager sessionManager;
+    private final LeaderLease leaderLease; // A failover standby leaves the shared session alone
 
-    // Inject VRChatApiService and ApplicationContext
-    public AuthService(VRChatApiService vrchatApiService, ApplicationContext applicationContext) {
+    // Monitoring start and client broadcasts react to SessionEstablishedEvent, so no
+    // reference to MonitoringService or StatusUpdateHandler is needed here
+    public AuthService(VRChatApiService vrchatApiService, SessionManager sessionManager, LeaderLease leaderLease) {
         this.vrchatApiService = vrchatApiService;
-        this.applicationContext = applicationContext;
+        this.sessionManager = sessionManager;
+        this.leaderLease = leaderLease;
     }
 
     /**
-     * Validates the session on application startup.
-     * If a session was restored from cache, this will verify if it's still valid
-     * by making a test API call to VRChat.
+     * Validates a session restored from cache once the application is ready.
+     * Running on ApplicationReadyEvent (rather than @PostConstruct) means the web server and
+     * WebSocket endpoint are already accepting connections; clients that connect later get
+     * the session status on connect. The check is fire-and-forget: on success SessionManager
+     * publishes a SessionEstablishedEvent, which starts monitoring and notifies clients.
      */
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
     public void validateRestoredSession() {
+        if (!leaderLease.isLeader()) {
+            log.info("Failover standby: leaving the session to the leader");
+            return;
+        }
         // Check if we have auth cookies (restored from cache)
-        if (vrchatApiService.getAuthCookie() != null) {
-            log.info("Session cookies found, validating restored session...");
-            
-            // Get a valid user ID for validation
-            String testUserId = null;
-            
-            // Safer way to check if the cookie is valid - just do a self user lookup
-            // which should work with any valid session
-            try {
-                // Use test API call to validate with self user endpoint instead
-                vrchatApiService.getCurrentUser()
-                    .retryWhen(reactor.util.retry.Retry.backoff(3, java.time.Duration.ofSeconds(2))
-                        .maxBackoff(java.time.Duration.ofSeconds(10))
-                        .filter(throwable -> {
-                            // Only retry on network-related errors, not authentication errors
-                            if (throwable instanceof VRChatApiService.AuthenticationException) {
-                                log.debug("Not retrying authentication error during session validation");
-                                return false;
-                            }
-                            
-                            // Retry on network-related errors
-                            boolean shouldRetry = isRetryableError(throwable);
-                            if (shouldRetry) {
-                                log.debug("Retrying session validation due to network error: {}", throwable.getMessage());
-                            }
-                            return shouldRetry;
-                        })
-                        .doBeforeRetry(retrySignal -> {
-                            log.warn("Retrying session validation (attempt {}/3): {}", 
-                                    retrySignal.totalRetries() + 1, retrySignal.failure().getMessage());
-                        })
-                    )
-                    .doOnNext(user -> {
-                        // If we got a response without error, the session is valid
-                        log.info("Restored session is valid, user: {}", user.getDisplayName());
-                        hasActiveSession.set(true);
-                        lastSessionTime = Instant.now();
-                        startMonitoring();
-                        
-                        // Broadcast the session status to all clients after slight delay
-                        // to ensure WebSocket connections are established
-                        try {
-                            // Short delay to allow WebSocket connections to be established
-                            Thread.sleep(1000);
-                            
-                            // Get StatusUpdateHandler to broadcast session status
-                            try {
-                                StatusUpdateHandler statusHandler = applicationContext.getBean(StatusUpdateHandler.class);
-                                statusHandler.broadcastSessionStatus();
-                                log.debug("Session status broadcast after successful session restoration");
-                            } catch (Exception e) {
-                                log.warn("Could not broadcast session status: {}", e.getMessage());
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            log.warn("Session status broadcast delay interrupted");
-                        }
-                    })
-                    .doOnError(error -> {
-                        // If we got an authentication error, the session is invalid
-                        log.warn("Restored session validation failed: {}", error.getMessage());
-                        hasActiveSession.set(false);
-                        // Clear the invalid session
-                        vrchatApiService.logout();
-                    })
-                    .onErrorResume(e -> Mono.empty()) // Don't propagate errors
-                    .subscribe();
-            } catch (Exception e) {
-                log.error("Error validating restored session: {}", e.getMessage());
-            }
-        } else {
+        if (vrchatApiService.getAuthCookie() == null) {
             log.debug("No session cookies found, skipping validation");
+            return;
         }
+        log.info("Session cookies found, validating restored session...");
+        
+        // Self user lookup works with any valid session; success marks the session validated
+        vrchatApiService.getCurrentUser()
+            .retryWhen(Retry.backoff(3, Duration.ofSeconds(2))
+                .maxBackoff(Duration.ofSeconds(10))
+                .filter(throwable -> {
+                    // Only retry on network-related errors, not authentication errors
+                    if (throwable instanceof VRChatApiService.AuthenticationException) {
+                        log.debug("Not retrying authentication error during session validation");
+                        return false;
+                    }
+                    
+                    // Retry on network-related errors
+                    boolean shouldRetry = isRetryableError(throwable);
+                    if (shouldRetry) {
+                        log.debug("Retrying session validation due to network error: {}", throwable.getMessage());
+                    }
+                    return shouldRetry;
+                })
+                .doBeforeRetry(retrySignal -> {
+                    log.warn("Retrying session validation (attempt {}/3): {}", 
+                            retrySignal.totalRetries() + 1, retrySignal.failure().getMessage());
+                })
+            )
+            .doOnNext(user -> log.info("Restored session is valid, user: {}", user.getDisplayName()))
+            .switchIfEmpty(Mono.fromRunnable(() -> log.warn("Restored session could not be validated")))
+            // A 401 already invalidated the session; anything else leaves it unvalidated
+            .doOnError(error -> log.warn("Restored session validation failed: {}", error.getMessage()))
+            .onErrorResume(e -> Mono.empty()) // Don't propagate errors
+            .subscribe();
     }
 
-    // Helper method to start monitoring via ApplicationContext to avoid circular dependency
-    private void startMonitoring() {
-        try {
-            MonitoringService monitoringService = applicationContext.getBean(MonitoringService.class);
-            monitoringService.startMonitoring();
-        } catch (Exception e) {
-            log.error("Failed to start monitoring: {}", e.getMessage());
-        }
+    /**
+     * @return true if there is an active session
+     */
+    public boolean hasActiveSession() {
+        return sessionManager.isActive();
     }
 
-    // Use real VRChat API interaction. Returns specific result code.
-    private VRChatApiService.LoginResult attemptLogin(String user, char[] pass) {
-        log.info("Attempting VRChat login for user: {}", user);
-        // Block until the reactive call completes (including potential 2FA prompt within API service)
-        VRChatApiService.LoginResult result = vrchatApiService.login(user, pass).block();
-        // Password char array is cleared within vrchatApiService.login or its sub-methods now
-        return result != null ? result : VRChatApiService.LoginResult.FAILURE_NETWORK; // Handle null block result
+    /**
+     * Periodic session health check. Any successful API call (including routine polls)
+     * counts as verification, so this only makes a lightweight /auth/user call when the
+     * session has been quiet for a while. A 401 here invalidates the session through
+     * {@link SessionManager} exactly like a 401 during polling would.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void revalidateSession() {
+        SessionCredentials session = sessionManager.current();
+        if (session == null || !session.validated()) {
+            return; // Nothing to check, or startup validation is still pending
+        }
+        Instant lastVerified = sessionManager.getLastVerifiedAt();
+        if (lastVerified != null && Duration.between(lastVerified, Instant.now()).compareTo(REVALIDATE_AFTER) < 0) {
+            return;
+        }
+
+        log.info("Revalidating session (cookie age {} min, last verified {})",
+                session.age().toMinutes(), lastVerified);
+        vrchatApiService.getCurrentUser(ApiRateLimiter.RequestClass.PRESENCE)
+            .doOnNext(user -> log.debug("Session health check passed for {}", user.getDisplayName()))
+            .doOnError(error -> log.warn("Session health check failed: {}", error.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .subscribe();
     }
 
     /**
-     * @return true if there is an active session
+     * Failover: on takeover, reuses the session the old leader saved instead of logging in
+     * again (one validation request, then monitoring starts as after a restart). On losing the
+     * lease, stops using the session but keeps the cache file for the new leader. Runs after
+     * the state has caught up with the old leader's WAL.
      */
-    public boolean hasActiveSession() {
-        return hasActiveSession.get();
+    @EventListener
+    @Order(10)
+    public void onLeadershipChanged(LeadershipChangedEvent event) {
+        if (event.leader()) {
+            sessionManager.reloadFromCache();
+            validateRestoredSession();
+        } else {
+            sessionManager.detach("failover standby");
+        }
+    }
+
+    @EventListener
+    public void onSessionInvalidated(SessionInvalidatedEvent event) {
+        log.info("Session ended ({}); a new login is required", event.reason());
     }
     
     /**
      * @return the time of last active session
      */
     public Instant getLastSessionTime() {
-        return lastSessionTime;
+        return sessionManager.getLastActivatedAt();
     }
     
     /**
@@ -167,9 +169,6 @@ public class AuthService {
             return vrchatApiService.login(username, passwordChars)
                 .doOnSuccess(result -> {
                     if (result == VRChatApiService.LoginResult.SUCCESS) {
-                        hasActiveSession.set(true);
-                        lastSessionTime = Instant.now();
-                        startMonitoring(); // Use the helper method
                         log.info("Authentication successful via client login.");
                     }
                 });
@@ -188,9 +187,6 @@ public class AuthService {
         return vrchatApiService.verify2FACode(code)
             .doOnSuccess(result -> {
                 if (result == VRChatApiService.LoginResult.SUCCESS) {
-                    hasActiveSession.set(true);
-                    lastSessionTime = Instant.now();
-                    startMonitoring(); // Use the helper method
                     log.info("2FA verification successful via client.");
                 }
             });
@@ -210,92 +206,9 @@ public class AuthService {
     public void logout() {
         vrchatApiService.logout();
         this.username = null;
-        this.hasActiveSession.set(false);
         log.info("User logged out. Session cleared.");
     }
 
-    /**
-     * Performs the console login flow, including retries and potential 2FA.
-     * @return true if login succeeds, false if it fails definitively after retries or due to fatal error.
-     */
-    public boolean performConsoleLogin() {
-        Console console = System.console();
-        if (console == null) {
-            log.error("FATAL: No console available. Cannot securely read password or 2FA code.");
-            return false; // Indicate fatal failure
-        }
-
-        int maxAttempts = 3;
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            // Use System.out directly for prompts, as logging framework might buffer
-            System.out.println("\nPlease enter VRChat credentials (attempt " + attempt + "/" + maxAttempts + "):");
-            String currentUsername = console.readLine("Username: ");
-            char[] currentPassword = console.readPassword("Password: ");
-
-            if (currentUsername == null || currentUsername.isBlank() || currentPassword == null || currentPassword.length == 0) {
-                log.warn("Username and password cannot be empty.");
-                VRChatApiService.clearPassword(currentPassword); // Clear potentially partially read password
-                continue; // Try again
-            }
-
-            VRChatApiService.LoginResult loginResult = attemptLogin(currentUsername, currentPassword);
-            // Password array is cleared within attemptLogin/VRChatApiService
-
-            // Use unqualified enum constant names in case labels
-            switch (loginResult) {
-                case SUCCESS:
-                    log.info("Authentication successful via AuthService.");
-                    this.username = currentUsername; // Store username for reference
-                    this.hasActiveSession.set(true);
-                    this.lastSessionTime = Instant.now();
-                    return true; // Overall success
-                case FAILURE_CREDENTIALS:
-                    log.warn("Login failed (invalid username or password). Please try again.");
-                    break; // Continue to next attempt
-                case FAILURE_2FA_INVALID_CODE:
-                    log.warn("Login failed (invalid 2FA code). Please try again.");
-                    break; // Continue to next attempt (will re-prompt for credentials)
-                // Handle fatal errors that should stop the process immediately
-                case FAILURE_2FA_VERIFICATION_FAILED:
-                    log.error("Login failed: 2FA verification failed (API error).");
-                    return false; // Treat as fatal error for now
-                case FAILURE_CONSOLE_UNAVAILABLE:
-                    log.error("Login failed: Console became unavailable during 2FA.");
-                    return false;
-                case FAILURE_NETWORK:
-                    log.error("Login failed: Network error during authentication.");
-                    return false;
-                case FAILURE_MISSING_AUTH_COOKIE:
-                    log.error("Login failed: Internal authentication error (missing initial auth cookie).");
-                    return false;
-                case FAILURE_UNSUPPORTED_2FA:
-                    log.error("Login failed: Unsupported 2FA type reported by API.");
-                    return false;
-                default:
-                    log.error("Login failed: Unexpected authentication result: {}", loginResult);
-                    return false;
-            }
-            // If we reach here, it was a recoverable failure (wrong creds/2fa), loop continues
-        }
-
-        log.error("Authentication failed after maximum attempts.");
-        clearCredentials(); // Ensure cleanup on final failure
-        return false; // Failed after max attempts
-    }
-
-    // Method to clear stored credentials
-    public void clearCredentials() {
-        this.username = null;
-        // Password array is no longer stored here
-        // if (this.password != null) {
-        //     Arrays.fill(this.password, ' ');
-        //     this.password = null;
-        // }
-        // Also log out from VRChat API Service
-        vrchatApiService.logout();
-        log.info("Stored local username cleared and VRChat API logout performed.");
-    }
-
     // Methods to potentially access credentials (use with caution)
     public String getUsername() {
         // Username is still stored locally for reference if needed
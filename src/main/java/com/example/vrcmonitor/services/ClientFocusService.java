@@ -0,0 +1,112 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.events.ClientFocusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which users connected clients are focused on (the users they are viewing or have
+ * pinned), so polling can follow where someone is actually looking.
+ *
+ * Each client declares its whole focus set at once; it is dropped when the client disconnects
+ * or after {@link #FOCUS_TTL} without being declared again.
+ */
+@Service
+public class ClientFocusService {
+    private static final Logger log = LoggerFactory.getLogger(ClientFocusService.class);
+
+    static final Duration FOCUS_TTL = Duration.ofMinutes(15);
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Guarded by 'this'
+    private final Map<String, ClientFocus> focusByClient = new HashMap<>();
+    // Union over all clients, replaced on change so readers need no lock
+    private volatile Set<String> focusedUsers = Set.of();
+
+    private record ClientFocus(Set<String> users, Instant expiresAt) {}
+
+    public ClientFocusService(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Replaces a client's focus set (an empty set clears it).
+     * @param clientId The client's WebSocket session ID
+     * @param vrcUids The users the client is focused on
+     */
+    public void setFocus(String clientId, Collection<String> vrcUids) {
+        synchronized (this) {
+            if (vrcUids.isEmpty()) {
+                focusByClient.remove(clientId);
+            } else {
+                focusByClient.put(clientId, new ClientFocus(Set.copyOf(vrcUids), Instant.now().plus(FOCUS_TTL)));
+            }
+        }
+        log.debug("Client {} focused on {}", clientId, vrcUids);
+        recompute();
+    }
+
+    /**
+     * Drops a client's focus (e.g. on disconnect).
+     */
+    public void clearFocus(String clientId) {
+        boolean removed;
+        synchronized (this) {
+            removed = focusByClient.remove(clientId) != null;
+        }
+        if (removed) {
+            recompute();
+        }
+    }
+
+    /**
+     * @return Users focused by at least one client (immutable)
+     */
+    public Set<String> getFocusedUsers() {
+        return focusedUsers;
+    }
+
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void expireFocus() {
+        boolean removed;
+        synchronized (this) {
+            Instant now = Instant.now();
+            removed = focusByClient.values().removeIf(focus -> focus.expiresAt().isBefore(now));
+        }
+        if (removed) {
+            recompute();
+        }
+    }
+
+    // Publishes outside the lock so listeners can read the new set
+    private void recompute() {
+        Set<String> previous;
+        Set<String> current;
+        synchronized (this) {
+            Set<String> union = new HashSet<>();
+            focusByClient.values().forEach(focus -> union.addAll(focus.users()));
+            previous = focusedUsers;
+            current = Set.copyOf(union);
+            if (current.equals(previous)) {
+                return;
+            }
+            focusedUsers = current;
+        }
+        Set<String> newlyFocused = new HashSet<>(current);
+        newlyFocused.removeAll(previous);
+        log.info("Client focus changed: {} user(s) focused", current.size());
+        eventPublisher.publishEvent(new ClientFocusChangedEvent(current, Set.copyOf(newlyFocused)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.vrcmonitor.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring. Each node is placed at several pseudo-random points
+ * ("virtual nodes") and a key belongs to the node owning the first point at or after the
+ * key's hash. Removing a node only moves the keys it owned; everyone else stays put.
+ */
+final class ConsistentHashRing<T> {
+
+    private final long[] points; // Sorted
+    private final List<T> owners; // Parallel to points
+
+    /**
+     * @param nodes Nodes by a stable name (the name decides where the node's points go)
+     * @param virtualNodes Points per node; more points spread keys more evenly
+     */
+    ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        TreeMap<Long, T> ring = new TreeMap<>();
+        nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.putIfAbsent(hash(name + '#' + i), node);
+            }
+        });
+        points = new long[ring.size()];
+        owners = new ArrayList<>(ring.size());
+        int index = 0;
+        for (Map.Entry<Long, T> entry : ring.entrySet()) {
+            points[index++] = entry.getKey();
+            owners.add(entry.getValue());
+        }
+    }
+
+    boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    /**
+     * @return The node the key belongs to, or null if the ring is empty
+     */
+    T nodeFor(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners.get(index == points.length ? 0 : index); // Wrap around
+    }
+
+    // 64-bit FNV-1a with a final avalanche step, so similar names still land far apart
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
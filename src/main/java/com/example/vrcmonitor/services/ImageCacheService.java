@@ -0,0 +1,343 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side cache for avatar/icon images so that browsers never talk to the VRChat CDN directly.
+ *
+ * Images are keyed by a hash of their source URL, which makes revalidation implicit: when the
+ * latest {@link VRChatUser} for a user reports a different icon URL, the key changes and the new
+ * image is fetched once. Two tiers are kept:
+ * 1. A bounded on-disk LRU in {@value #CACHE_DIRECTORY} (survives restarts)
+ * 2. A small in-memory LRU of freshly downloaded (hot) entries served without touching the disk
+ *
+ * Concurrent requests for the same image share a single download. Leftover temp files from
+ * downloads interrupted by a crash are removed at startup.
+ */
+@Service
+public class ImageCacheService {
+    private static final Logger log = LoggerFactory.getLogger(ImageCacheService.class);
+
+    private static final String CACHE_DIRECTORY = "image_cache";
+    private static final String CACHE_FILE_EXTENSION = ".img";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final long MAX_DISK_BYTES = 128L * 1024 * 1024; // 128 MB on disk
+    private static final int MAX_HOT_ENTRIES = 64; // Quick-status bar + timeline for typical configs
+
+    private final VRChatApiService vrchatApiService;
+    private final UserStateService userStateService;
+
+    private final Path cacheDirectory = Paths.get(CACHE_DIRECTORY);
+
+    // Disk index in access order (eldest = least recently used), guarded by itself
+    private final LinkedHashMap<String, DiskEntry> diskIndex = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes = 0;
+
+    // Hot tier in access order, bounded by entry count
+    private final Map<String, CachedImage> hotEntries = new LinkedHashMap<>(MAX_HOT_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedImage> eldest) {
+            return size() > MAX_HOT_ENTRIES;
+        }
+    };
+
+    // Downloads currently in progress, so concurrent misses coalesce into one fetch
+    private final Map<String, CompletableFuture<CachedImage>> inFlight = new ConcurrentHashMap<>();
+
+    // Last image key served per user, used to drop superseded entries from the hot tier
+    private final Map<String, String> currentKeyByUser = new ConcurrentHashMap<>();
+
+    public ImageCacheService(VRChatApiService vrchatApiService, UserStateService userStateService) {
+        this.vrchatApiService = vrchatApiService;
+        this.userStateService = userStateService;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(cacheDirectory);
+        } catch (IOException e) {
+            log.error("Failed to create image cache directory: {}", e.getMessage(), e);
+            return;
+        }
+
+        deleteTempFiles();
+
+        // Rebuild the disk index from what a previous run left behind, oldest first
+        File[] files = cacheDirectory.toFile().listFiles((dir, name) -> name.endsWith(CACHE_FILE_EXTENSION));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (diskIndex) {
+            for (File file : files) {
+                String key = file.getName().substring(0, file.getName().length() - CACHE_FILE_EXTENSION.length());
+                MediaType contentType = sniffContentType(file.toPath());
+                if (contentType == null) {
+                    // Unknown/corrupt content; don't keep it around
+                    file.delete();
+                    continue;
+                }
+                diskIndex.put(key, new DiskEntry(file.toPath(), file.length(), contentType));
+                diskBytes += file.length();
+            }
+            evictDiskEntriesIfNeeded();
+        }
+        log.info("Image cache initialized with {} entries ({} KB) in {}",
+                diskIndex.size(), diskBytes / 1024, cacheDirectory.toAbsolutePath());
+    }
+
+    // A crash between writing a temp file and moving it into place leaves it behind for good
+    private void deleteTempFiles() {
+        File[] leftovers = cacheDirectory.toFile().listFiles((dir, name) -> name.endsWith(TEMP_FILE_EXTENSION));
+        if (leftovers == null) {
+            return;
+        }
+        for (File leftover : leftovers) {
+            if (!leftover.delete()) {
+                log.warn("Failed to delete leftover image temp file {}", leftover);
+            }
+        }
+        if (leftovers.length > 0) {
+            log.info("Deleted {} leftover image temp files", leftovers.length);
+        }
+    }
+
+    /**
+     * Resolves the current icon URL for a monitored user.
+     * Uses the same preference order as the web client: userIcon, then the avatar thumbnail.
+     *
+     * @param vrcUid The VRChat user ID
+     * @return The image URL, or null if the user has no known icon yet
+     */
+    public String resolveImageUrl(String vrcUid) {
+        UserStateService.UserState state = userStateService.getLatestUserState(vrcUid);
+        VRChatUser user = state != null ? state.user() : null;
+        if (user == null) {
+            return null;
+        }
+        if (user.getUserIcon() != null && !user.getUserIcon().isBlank()) {
+            return user.getUserIcon();
+        }
+        if (user.getCurrentAvatarThumbnailImageUrl() != null && !user.getCurrentAvatarThumbnailImageUrl().isBlank()) {
+            return user.getCurrentAvatarThumbnailImageUrl();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached image for a user, downloading it once if the user's icon URL is new.
+     *
+     * @param vrcUid The VRChat user ID
+     * @return A future with the image, or completing with null if the user has no icon
+     */
+    public CompletableFuture<CachedImage> getImageForUser(String vrcUid) {
+        String imageUrl = resolveImageUrl(vrcUid);
+        if (imageUrl == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String key = keyForUrl(imageUrl);
+        String version = versionForUrl(imageUrl);
+        String previousKey = currentKeyByUser.put(vrcUid, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            // The user's icon changed; the old image is no longer hot
+            log.debug("Icon URL changed for {}, revalidating image cache", vrcUid);
+            synchronized (hotEntries) {
+                hotEntries.remove(previousKey);
+            }
+        }
+
+        CachedImage hot;
+        synchronized (hotEntries) {
+            hot = hotEntries.get(key);
+        }
+        if (hot != null) {
+            return CompletableFuture.completedFuture(hot);
+        }
+
+        DiskEntry diskEntry;
+        synchronized (diskIndex) {
+            diskEntry = diskIndex.get(key);
+        }
+        if (diskEntry != null && Files.exists(diskEntry.path())) {
+            // Cold hits are streamed straight from the file (sendfile) rather than pulled into memory
+            return CompletableFuture.completedFuture(
+                new CachedImage(key, version, diskEntry.contentType(), diskEntry.size(), diskEntry.path(), null));
+        }
+
+        CompletableFuture<CachedImage> pending = new CompletableFuture<>();
+        CompletableFuture<CachedImage> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            // Someone else is already downloading this image; share their result
+            return existing;
+        }
+        download(key, version, imageUrl, pending);
+        return pending;
+    }
+
+    private void download(String key, String version, String imageUrl, CompletableFuture<CachedImage> pending) {
+        log.debug("Downloading image {} for cache key {}", imageUrl, key);
+        Mono.defer(() -> vrchatApiService.fetchImage(imageUrl))
+            .map(response -> store(key, version, response))
+            .subscribe(
+                pending::complete,
+                error -> {
+                    inFlight.remove(key);
+                    pending.completeExceptionally(error);
+                },
+                () -> {
+                    inFlight.remove(key);
+                    pending.complete(null); // No-op unless the response was empty
+                }
+            );
+    }
+
+    private CachedImage store(String key, String version, ResponseEntity<byte[]> response) {
+        byte[] bytes = response.getBody();
+        if (bytes == null || bytes.length == 0) {
+            throw new IllegalStateException("Empty image response");
+        }
+        MediaType contentType = response.getHeaders().getContentType();
+        if (contentType == null || !"image".equals(contentType.getType())) {
+            contentType = sniffContentType(bytes);
+        }
+        if (contentType == null) {
+            throw new IllegalStateException("Response is not a recognized image");
+        }
+
+        Path target = cacheDirectory.resolve(key + CACHE_FILE_EXTENSION);
+        Path temp = cacheDirectory.resolve(key + TEMP_FILE_EXTENSION);
+        try {
+            // Write via temp file so a crash never leaves a truncated image in the cache
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (diskIndex) {
+                DiskEntry replaced = diskIndex.put(key, new DiskEntry(target, bytes.length, contentType));
+                if (replaced != null) {
+                    diskBytes -= replaced.size();
+                }
+                diskBytes += bytes.length;
+                evictDiskEntriesIfNeeded();
+            }
+        } catch (IOException e) {
+            // Still serve from memory; the disk tier is only an optimization
+            log.warn("Failed to persist cached image {}: {}", key, e.getMessage());
+        }
+
+        CachedImage image = new CachedImage(key, version, contentType, bytes.length, target, bytes);
+        promoteToHot(image);
+        return image;
+    }
+
+    private void promoteToHot(CachedImage image) {
+        synchronized (hotEntries) {
+            hotEntries.put(image.key(), image);
+        }
+    }
+
+    // Must be called while holding the diskIndex lock
+    private void evictDiskEntriesIfNeeded() {
+        Iterator<Map.Entry<String, DiskEntry>> iterator = diskIndex.entrySet().iterator();
+        while (diskBytes > MAX_DISK_BYTES && iterator.hasNext()) {
+            Map.Entry<String, DiskEntry> eldest = iterator.next();
+            iterator.remove();
+            diskBytes -= eldest.getValue().size();
+            synchronized (hotEntries) {
+                hotEntries.remove(eldest.getKey());
+            }
+            try {
+                Files.deleteIfExists(eldest.getValue().path());
+                log.debug("Evicted cached image {}", eldest.getKey());
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted image {}: {}", eldest.getValue().path(), e.getMessage());
+            }
+        }
+    }
+
+    private static String keyForUrl(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The short version hash the web client puts in {@code ?v=} for an image URL: 32-bit FNV-1a
+     * over the UTF-16 code units, in base 36 (see {@code hashString} in script.js).
+     *
+     * @param url The source image URL
+     * @return The version string the client sends for this URL
+     */
+    public static String versionForUrl(String url) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x01000193;
+        }
+        return Integer.toUnsignedString(hash, 36);
+    }
+
+    private static MediaType sniffContentType(Path path) {
+        try (var in = Files.newInputStream(path)) {
+            return sniffContentType(in.readNBytes(12));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Detect the common image formats by magic number
+    private static MediaType sniffContentType(byte[] head) {
+        if (head.length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return MediaType.IMAGE_PNG;
+        }
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return MediaType.IMAGE_JPEG;
+        }
+        if (head.length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F') {
+            return MediaType.IMAGE_GIF;
+        }
+        if (head.length >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        return null;
+    }
+
+    private record DiskEntry(Path path, long size, MediaType contentType) {}
+
+    /**
+     * A cached image. Entries from the hot tier carry their bytes; entries that only exist
+     * on disk have {@code bytes == null} and should be streamed from {@code path}.
+     * {@code version} is the client-side version of the source URL the image was resolved from.
+     */
+    public record CachedImage(String key, String version, MediaType contentType, long size, Path path, byte[] bytes) {}
+}
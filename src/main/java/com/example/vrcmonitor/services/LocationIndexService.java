@@ -0,0 +1,222 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.events.CoPresenceEvent;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.UserLocationChangedEvent;
+import com.example.vrcmonitor.models.VRChatUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary index from world and instance to the monitored users currently there.
+ *
+ * Kept up to date incrementally from {@link UserLocationChangedEvent}s, so "who is in world X"
+ * is a map lookup instead of a scan over every user's state. Moves into an instance that already
+ * holds other monitored users (and out of one that still does) are published as
+ * {@link CoPresenceEvent}s.
+ *
+ * Only users in a world instance ("wrld_...") are indexed; offline, private and traveling users
+ * are not in any instance. Users whose polls are failing keep their last known location.
+ */
+@Service
+public class LocationIndexService {
+    private static final Logger log = LoggerFactory.getLogger(LocationIndexService.class);
+
+    private final UserStateService userStateService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // All three maps are guarded by 'this'; writes are one per location change, so a plain lock is plenty
+    private final Map<String, Presence> presenceByUser = new HashMap<>();
+    private final Map<String, Set<String>> usersByInstance = new HashMap<>();
+    private final Map<String, Set<String>> usersByWorld = new HashMap<>();
+
+    public LocationIndexService(UserStateService userStateService, ApplicationEventPublisher eventPublisher) {
+        this.userStateService = userStateService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Where a user is, as far as the index knows.
+     * @param since When the index first saw the user at this location
+     */
+    public record Presence(String vrcUid, String displayName, String location, String worldId, Instant since) {}
+
+    /**
+     * An instance and the monitored users in it, in order of arrival.
+     */
+    public record InstanceOccupancy(String location, String worldId, List<Presence> users) {}
+
+    /**
+     * Builds the index from the states restored at startup (snapshot and WAL replay publish no
+     * events). From here on it is maintained from location change events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        presenceByUser.clear();
+        usersByInstance.clear();
+        usersByWorld.clear();
+        userStateService.getCurrentStates().forEach((vrcUid, state) -> {
+            VRChatUser user = state.user();
+            if (user != null) {
+                place(vrcUid, user.getDisplayName(), user.getLocation(), state.lastUpdated());
+            }
+        });
+        long shared = usersByInstance.values().stream().filter(users -> users.size() > 1).count();
+        log.info("Location index built: {} users in {} instances ({} shared)",
+                presenceByUser.size(), usersByInstance.size(), shared);
+    }
+
+    @EventListener
+    public void onLocationChanged(UserLocationChangedEvent event) {
+        List<CoPresenceEvent> coPresence = new ArrayList<>(2);
+        synchronized (this) {
+            Presence previous = presenceByUser.get(event.vrcUid());
+            String instance = instanceLocation(event.newLocation());
+            if (previous != null && previous.location().equals(instance)) {
+                return; // Already indexed there (e.g. restored state caught up by the first poll)
+            }
+
+            if (previous != null) {
+                remove(previous);
+                Set<String> remaining = usersByInstance.get(previous.location());
+                if (remaining != null) {
+                    coPresence.add(new CoPresenceEvent(CoPresenceEvent.Kind.LEFT, event.vrcUid(),
+                            previous.location(), previous.worldId(), List.copyOf(remaining), event.timestamp()));
+                }
+            }
+
+            Presence placed = place(event.vrcUid(), event.displayName(), event.newLocation(), event.timestamp());
+            if (placed != null) {
+                List<String> companions = new ArrayList<>(usersByInstance.get(placed.location()));
+                companions.remove(event.vrcUid());
+                if (!companions.isEmpty()) {
+                    coPresence.add(new CoPresenceEvent(CoPresenceEvent.Kind.JOINED, event.vrcUid(),
+                            placed.location(), placed.worldId(), List.copyOf(companions), event.timestamp()));
+                }
+            }
+        }
+
+        // Publish outside the lock; listeners may query the index
+        for (CoPresenceEvent coPresenceEvent : coPresence) {
+            log.info("Co-presence: {} {} {} in {}", event.vrcUid(),
+                    coPresenceEvent.kind() == CoPresenceEvent.Kind.JOINED ? "joined" : "left",
+                    coPresenceEvent.companions(), coPresenceEvent.location());
+            eventPublisher.publishEvent(coPresenceEvent);
+        }
+    }
+
+    /**
+     * Drops users that are no longer configured; they would otherwise stay in their last
+     * instance forever, since nothing polls them any more. No co-presence event goes out:
+     * the user didn't leave, the monitor stopped watching.
+     */
+    @EventListener
+    public synchronized void onConfigChanged(ConfigChangedEvent event) {
+        for (UserConfig user : event.removed()) {
+            Presence presence = presenceByUser.get(user.getVrcUid());
+            if (presence != null) {
+                remove(presence);
+                log.debug("Removed {} from the location index (no longer configured)", user.getVrcUid());
+            }
+        }
+    }
+
+    /**
+     * @return The user's indexed location, or null if they are not in a world instance
+     */
+    public synchronized Presence getPresence(String vrcUid) {
+        return presenceByUser.get(vrcUid);
+    }
+
+    /**
+     * @return Monitored users in any instance of the world (empty if none)
+     */
+    public synchronized List<Presence> getUsersInWorld(String worldId) {
+        return presences(usersByWorld.get(worldId));
+    }
+
+    /**
+     * @param location The full instance location ("wrld_xxx:12345~...")
+     * @return Monitored users in that instance, in order of arrival (empty if none)
+     */
+    public synchronized List<Presence> getUsersInInstance(String location) {
+        return presences(usersByInstance.get(location));
+    }
+
+    /**
+     * @param minUsers Only instances with at least this many monitored users (2 = shared instances)
+     * @return Occupied instances, fullest first
+     */
+    public synchronized List<InstanceOccupancy> getOccupiedInstances(int minUsers) {
+        List<InstanceOccupancy> occupied = new ArrayList<>();
+        usersByInstance.forEach((location, users) -> {
+            if (users.size() >= minUsers) {
+                occupied.add(new InstanceOccupancy(location, worldIdOf(location), presences(users)));
+            }
+        });
+        occupied.sort((a, b) -> Integer.compare(b.users().size(), a.users().size()));
+        return occupied;
+    }
+
+    // Indexes the user at the location if it is a world instance; caller holds the lock
+    private Presence place(String vrcUid, String displayName, String location, Instant since) {
+        String instance = instanceLocation(location);
+        if (instance == null) {
+            return null;
+        }
+        Presence presence = new Presence(vrcUid, displayName, instance, worldIdOf(instance), since);
+        presenceByUser.put(vrcUid, presence);
+        usersByInstance.computeIfAbsent(instance, k -> new LinkedHashSet<>()).add(vrcUid);
+        usersByWorld.computeIfAbsent(presence.worldId(), k -> new LinkedHashSet<>()).add(vrcUid);
+        return presence;
+    }
+
+    // Caller holds the lock; empty sets are dropped so the maps only hold occupied places
+    private void remove(Presence presence) {
+        presenceByUser.remove(presence.vrcUid());
+        removeFrom(usersByInstance, presence.location(), presence.vrcUid());
+        removeFrom(usersByWorld, presence.worldId(), presence.vrcUid());
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String vrcUid) {
+        Set<String> users = index.get(key);
+        if (users != null && users.remove(vrcUid) && users.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private List<Presence> presences(Set<String> vrcUids) {
+        if (vrcUids == null) {
+            return Collections.emptyList();
+        }
+        List<Presence> result = new ArrayList<>(vrcUids.size());
+        for (String vrcUid : vrcUids) {
+            result.add(presenceByUser.get(vrcUid));
+        }
+        return result;
+    }
+
+    // Location strings look like "wrld_xxx:12345~private(usr_yyy)"; anything else isn't an instance
+    private static String instanceLocation(String location) {
+        return location != null && location.startsWith("wrld_") ? location : null;
+    }
+
+    private static String worldIdOf(String location) {
+        int separator = location.indexOf(':');
+        return separator > 0 ? location.substring(0, separator) : location;
+    }
+}
@@ -1,54 +1,85 @@
 package com.example.vrcmonitor.services;
 
-import com.example.vrcmonitor.config.AppConfig;
-import com.example.vrcmonitor.config.ConfigLoader;
 import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.events.AccountSessionEvent;
+import com.example.vrcmonitor.events.ClientFocusChangedEvent;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.LeadershipChangedEvent;
+import com.example.vrcmonitor.events.SessionEstablishedEvent;
+import com.example.vrcmonitor.events.SessionInvalidatedEvent;
+import com.example.vrcmonitor.logging.ErrorFileLogger;
 import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.persistence.LeaderLease;
+import com.example.vrcmonitor.persistence.ReplicationClient;
 import com.example.vrcmonitor.web.StatusUpdateHandler;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.Duration;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class MonitoringService {
 
     private static final Logger log = LoggerFactory.getLogger(MonitoringService.class);
     
-    private final ConfigLoader configLoader;
-    private final VRChatApiService vrchatApiService;
+    private final UserRegistry userRegistry;
+    private final AccountPool accountPool;
     private final UserStateService userStateService;
     private final StatusUpdateHandler statusUpdateHandler;
-    private final AuthService authService;
-    
-    // For storing user config for quick lookup
-    private final Map<String, UserConfig> userConfigMap = new ConcurrentHashMap<>();
+    private final WorldMetadataService worldMetadataService;
+    private final PollPlanner pollPlanner;
+    private final ReplicationClient replicationClient; // A read replica never polls
+    private final LeaderLease leaderLease; // Nor does a failover standby
+    private final ErrorFileLogger errorFileLogger;
     
     // Task scheduling
     private ThreadPoolTaskScheduler threadPoolTaskScheduler;
     private TaskScheduler taskScheduler;
     private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
     private boolean isRunning = false;
+    // Bumped on every start/stop so poll chains from an earlier run don't reschedule themselves
+    private long runGeneration = 0;
+    
+    // When each user was last polled, so a restart (or session change) resumes each user's phase
+    private final Map<String, Instant> lastPollTimes = new ConcurrentHashMap<>();
+
+    // A user polled on request is not polled on request again for this long, however many clients ask
+    static final Duration IMMEDIATE_POLL_COOLDOWN = Duration.ofSeconds(15);
+    private final Map<String, Instant> lastImmediatePolls = new ConcurrentHashMap<>();
+    
+    // Polls that have been dispatched but not yet finished; drained when the session ends
+    private final AtomicInteger inFlightPolls = new AtomicInteger();
+    private volatile boolean draining = false;
 
-    public MonitoringService(ConfigLoader configLoader, VRChatApiService vrchatApiService, 
+    public MonitoringService(UserRegistry userRegistry, AccountPool accountPool, 
                             UserStateService userStateService, StatusUpdateHandler statusUpdateHandler,
-                            AuthService authService) {
-        this.configLoader = configLoader;
-        this.vrchatApiService = vrchatApiService;
+                            WorldMetadataService worldMetadataService, PollPlanner pollPlanner,
+                            ReplicationClient replicationClient, LeaderLease leaderLease,
+                            ErrorFileLogger errorFileLogger) {
+        this.userRegistry = userRegistry;
+        this.accountPool = accountPool;
         this.userStateService = userStateService;
         this.statusUpdateHandler = statusUpdateHandler;
-        this.authService = authService;
+        this.worldMetadataService = worldMetadataService;
+        this.pollPlanner = pollPlanner;
+        this.replicationClient = replicationClient;
+        this.leaderLease = leaderLease;
+        this.errorFileLogger = errorFileLogger;
     }
 
     @PostConstruct
@@ -64,8 +95,16 @@ public class MonitoringService {
         taskScheduler = threadPoolTaskScheduler;
     }
 
-    public void startMonitoring() {
-        if (!authService.hasActiveSession()) {
+    public synchronized void startMonitoring() {
+        if (replicationClient.isEnabled()) {
+            log.info("Not polling: this server is a read replica and gets its states from the primary");
+            return;
+        }
+        if (!leaderLease.isLeader()) {
+            log.info("Not polling: this server is a failover standby");
+            return;
+        }
+        if (!accountPool.hasActiveAccount()) {
             log.error("Cannot start monitoring: Not authenticated.");
             return;
         }
@@ -74,11 +113,12 @@ public class MonitoringService {
         
         // Cancel any existing tasks
         stopMonitoring();
+        runGeneration++;
         
-        // Get our configuration
-        AppConfig config = configLoader.getConfig();
+        // Get our configured users
+        List<UserConfig> users = userRegistry.users();
         
-        if (config == null || config.getUsers() == null || config.getUsers().isEmpty()) {
+        if (users.isEmpty()) {
             log.warn("No users to monitor. Check configuration.");
             return;
         }
@@ -89,33 +129,24 @@ public class MonitoringService {
         // 2. At least 0.5 seconds after a request completes before starting the next
         // 3. These limits apply across all users to prevent API rate limiting
         
-        // Add a small delay to allow network connectivity to stabilize after hibernation/restart
-        log.info("Waiting 3 seconds for network connectivity to stabilize before starting monitoring...");
-        
-        // Start monitoring for each user with a delay
-        for (UserConfig user : config.getUsers()) {
-            // Cache user config for later lookups
-            userConfigMap.put(user.getVrcUid(), user);
-            
+        // Monitoring only starts once a request has just succeeded with this session, so the
+        // network is known to be up: the first polls go out immediately and the limiter spaces them
+        for (UserConfig user : users) {
             log.info("Scheduling monitoring for user: {} ({}) with poll rate: {}", 
                     user.getHrToken(), user.getVrcUid(), user.getPollRate());
             
-            // Schedule a fixed-delay task for this user with initial delay to allow network stabilization
-            ScheduledFuture<?> task = taskScheduler.scheduleWithFixedDelay(
-                () -> pollUserStatus(user),
-                new Date(System.currentTimeMillis() + 3000), // Start after 3 second delay
-                user.getPollRateDuration().toMillis()
-            );
-            scheduledTasks.put(user.getVrcUid(), task);
+            // Each poll schedules the next one, with the delay chosen by the poll planner; first run
+            // right away unless the user was polled recently (e.g. before a restart), in which case keep its phase
+            scheduleNextPoll(user, firstPollTime(user), runGeneration);
         }
         
         isRunning = true;
         log.info("Monitoring started for {} users - API throttling ensures proper rate limiting", 
-                 config.getUsers().size());
+                 users.size());
     }
     
     @PreDestroy
-    public void stopMonitoring() {
+    public synchronized void stopMonitoring() {
         if (!isRunning) {
             log.info("Monitoring service already stopped.");
             return;
@@ -129,14 +160,258 @@ public class MonitoringService {
             future.cancel(false);
         });
         scheduledTasks.clear();
+        runGeneration++;
         
         isRunning = false;
         log.info("Monitoring stopped.");
     }
 
+    // Schedules one poll; the poll then schedules the next unless monitoring was stopped or restarted meanwhile
+    private synchronized void scheduleNextPoll(UserConfig user, Instant when, long generation) {
+        if (generation != runGeneration) {
+            return;
+        }
+        if (userRegistry.get(user.getVrcUid()) == null) {
+            // Removed from the config while its poll was running
+            scheduledTasks.remove(user.getVrcUid());
+            return;
+        }
+        ScheduledFuture<?> task = taskScheduler.schedule(() -> {
+            // The config may have been reloaded since this poll was scheduled
+            UserConfig current = userRegistry.get(user.getVrcUid());
+            if (current == null) {
+                return; // Removed; the next scheduleNextPoll won't happen either
+            }
+            try {
+                pollUserStatus(current);
+            } finally {
+                scheduleNextPoll(current, Instant.now().plus(pollPlanner.nextInterval(current, Instant.now())), generation);
+            }
+        }, when);
+        scheduledTasks.put(user.getVrcUid(), task);
+    }
+
+    // Moves the user's pending poll to when it is due under the current config and plan.
+    // A poll that is already running is left alone: it reschedules itself with the current config.
+    private synchronized void reschedule(UserConfig user) {
+        ScheduledFuture<?> pending = scheduledTasks.get(user.getVrcUid());
+        if (pending != null && !pending.isDone() && !pending.cancel(false)) {
+            return;
+        }
+        scheduleNextPoll(user, nextDueTime(user, Instant.now()), runGeneration);
+    }
+
+    private Instant nextDueTime(UserConfig user, Instant now) {
+        Instant lastPoll = lastPollTimes.get(user.getVrcUid());
+        if (lastPoll == null) {
+            return now;
+        }
+        Instant due = lastPoll.plus(pollPlanner.nextInterval(user, now));
+        return due.isAfter(now) ? due : now;
+    }
+
+    private Instant firstPollTime(UserConfig user) {
+        Instant now = Instant.now();
+        Instant lastPoll = lastPollTimes.get(user.getVrcUid());
+        if (lastPoll == null) {
+            return now;
+        }
+        Instant due = lastPoll.plus(user.getPollRateDuration());
+        return due.isAfter(now) ? due : now;
+    }
+
+    /**
+     * @return When each user was last polled (copy)
+     */
+    public Map<String, Instant> getLastPollTimes() {
+        return new HashMap<>(lastPollTimes);
+    }
+
+    /**
+     * Seeds last poll times from a persisted snapshot so the first poll after a restart
+     * happens when it would have anyway, instead of re-polling everybody at once.
+     * @param restored Last poll time per VRChat user ID
+     */
+    public void restoreLastPollTimes(Map<String, Instant> restored) {
+        restored.forEach(lastPollTimes::putIfAbsent);
+    }
+
+    /**
+     * Records a poll another instance made (the failover leader, as seen in its WAL), so
+     * polling continues on the same schedule if this instance takes over.
+     */
+    public void recordPollTime(String vrcUid, Instant polledAt) {
+        lastPollTimes.merge(vrcUid, polledAt, (previous, latest) -> latest.isAfter(previous) ? latest : previous);
+    }
+
+    /**
+     * A leader that lost its lease stops polling at once. Taking over needs no action here:
+     * monitoring starts when the leader's session has been validated.
+     */
+    @EventListener
+    public void onLeadershipChanged(LeadershipChangedEvent event) {
+        if (!event.leader()) {
+            log.warn("Lost the leader lease ({}), stopping polling", event.reason());
+            pauseMonitoring();
+        }
+    }
+
+    /**
+     * Starts (or restarts) monitoring when a session becomes active, whether from a login
+     * or from a restored session passing validation.
+     */
+    @EventListener
+    public void onSessionEstablished(SessionEstablishedEvent event) {
+        log.info("Session active ({}), starting monitoring", event.source());
+        startMonitoring();
+    }
+
+    /**
+     * Pauses polling once when the session ends, instead of every in-flight poll
+     * failing on its own. Polls already on the wire are left to finish (they end
+     * quietly) and the drain is logged when the last one completes.
+     */
+    @EventListener
+    public void onSessionInvalidated(SessionInvalidatedEvent event) {
+        if (accountPool.hasActiveAccount()) {
+            // The ended session's users have already moved to the remaining accounts
+            log.warn("Session invalidated ({}), polling continues on the other accounts", event.reason());
+            return;
+        }
+        log.warn("Session invalidated ({}), pausing monitoring", event.reason());
+        pauseMonitoring();
+    }
+
+    /**
+     * Sessions of the extra polling accounts: the first one to become active starts
+     * monitoring, and losing the last active account pauses it like the primary session does.
+     */
+    @EventListener
+    public void onAccountSession(AccountSessionEvent event) {
+        if (event.active()) {
+            if (!isRunning) {
+                log.info("Account '{}' active, starting monitoring", event.account());
+                startMonitoring();
+            }
+        } else if (!accountPool.hasActiveAccount()) {
+            log.warn("Account '{}' session ended and no account is left, pausing monitoring", event.account());
+            pauseMonitoring();
+        }
+    }
+
+    private void pauseMonitoring() {
+        stopMonitoring();
+        int pending = inFlightPolls.get();
+        if (pending > 0) {
+            draining = true;
+            log.info("Draining {} in-flight poll(s)", pending);
+        }
+    }
+
+    /**
+     * Brings the next poll of newly focused users forward to their boosted interval,
+     * instead of waiting out the (possibly long) delay that was planned before.
+     */
+    @EventListener
+    public void onClientFocusChanged(ClientFocusChangedEvent event) {
+        event.newlyFocused().forEach(this::pollSoonerIfDue);
+    }
+
+    private synchronized void pollSoonerIfDue(String vrcUid) {
+        UserConfig user = userRegistry.get(vrcUid);
+        ScheduledFuture<?> pending = scheduledTasks.get(vrcUid);
+        if (!isRunning || user == null || pending == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant due = nextDueTime(user, now);
+        // cancel() fails if the poll is already running; it then reschedules itself with the new interval
+        if (pending.getDelay(TimeUnit.MILLISECONDS) > Duration.between(now, due).toMillis() && pending.cancel(false)) {
+            log.debug("Polling focused user {} sooner", user.getHrToken());
+            scheduleNextPoll(user, due, runGeneration);
+        }
+    }
+
+    /**
+     * Applies a reloaded config (already in the UserRegistry): new users start being polled,
+     * removed users stop, and users whose poll rate changed are rescheduled. Everyone else
+     * keeps their pending poll.
+     */
+    @EventListener
+    public synchronized void onConfigChanged(ConfigChangedEvent event) {
+        for (UserConfig user : event.removed()) {
+            ScheduledFuture<?> pending = scheduledTasks.get(user.getVrcUid());
+            if (pending != null && pending.cancel(false)) {
+                scheduledTasks.remove(user.getVrcUid());
+            }
+            lastImmediatePolls.remove(user.getVrcUid());
+            log.info("Stopped monitoring removed user: {} ({})", user.getHrToken(), user.getVrcUid());
+        }
+        for (UserConfig user : event.added()) {
+            if (isRunning) {
+                log.info("Scheduling monitoring for added user: {} ({}) with poll rate: {}",
+                        user.getHrToken(), user.getVrcUid(), user.getPollRate());
+                reschedule(user);
+            }
+        }
+        for (UserConfig user : event.changed()) {
+            // Keeps the pending poll time unless the poll rate (and so the due time) changed
+            if (isRunning) {
+                reschedule(user);
+            }
+        }
+    }
+
+    /**
+     * @return Number of polls currently in flight
+     */
+    public int getInFlightPollCount() {
+        return inFlightPolls.get();
+    }
+
+    /**
+     * Polls a user right away on behalf of a client (e.g. a refresh click).
+     * Runs in the limiter's interactive class, ahead of routine polls, at most once per
+     * {@link #IMMEDIATE_POLL_COOLDOWN} per user.
+     * 
+     * @param vrcUid The VRChat user ID to poll
+     * @return true if the user is monitored and the poll was started
+     */
+    public boolean requestImmediatePoll(String vrcUid) {
+        UserConfig user = userRegistry.get(vrcUid);
+        if (user == null) {
+            log.warn("Ignoring immediate poll request for unmonitored user {}", vrcUid);
+            return false;
+        }
+        if (replicationClient.isEnabled() || !leaderLease.isLeader()) {
+            log.info("Ignoring immediate poll request for {}: this server does not poll", user.getHrToken());
+            return false;
+        }
+        Instant now = Instant.now();
+        Instant previous = lastImmediatePolls.get(vrcUid);
+        if (previous != null && now.isBefore(previous.plus(IMMEDIATE_POLL_COOLDOWN))) {
+            log.debug("Ignoring immediate poll request for {}: polled on request at {}", user.getHrToken(), previous);
+            return false;
+        }
+        // Of concurrent requests, only the one that records its time polls
+        boolean claimed = previous == null
+                ? lastImmediatePolls.putIfAbsent(vrcUid, now) == null
+                : lastImmediatePolls.replace(vrcUid, previous, now);
+        if (!claimed) {
+            return false;
+        }
+        log.info("Immediate poll requested for user: {}", user.getHrToken());
+        pollUserStatus(user, ApiRateLimiter.RequestClass.INTERACTIVE);
+        return true;
+    }
+
     // Method to poll a user's status
     private void pollUserStatus(UserConfig user) {
-        if (!authService.hasActiveSession()) {
+        pollUserStatus(user, ApiRateLimiter.RequestClass.PRESENCE);
+    }
+
+    private void pollUserStatus(UserConfig user, ApiRateLimiter.RequestClass requestClass) {
+        if (!accountPool.hasActiveAccount()) {
             log.warn("Skipping poll for {} - no active session", user.getHrToken());
             return;
         }
@@ -149,20 +424,26 @@ public class MonitoringService {
         }
         
         try {
+            lastPollTimes.put(user.getVrcUid(), Instant.now());
+            inFlightPolls.incrementAndGet();
             // Make the API call using reactive approach with improved error handling
-            vrchatApiService.getUserByUid(user.getVrcUid())
+            accountPool.apiFor(user.getVrcUid())
+                .getUserByUid(user.getVrcUid(), requestClass, accountPool.limiterShareFor(user.getVrcUid()))
                 .doOnNext(vrchatUser -> {
                     log.debug("Received user data for {}: {}", user.getHrToken(), vrchatUser.getStatus());
                     userStateService.updateUserState(user.getVrcUid(), vrchatUser, Instant.now());
                     broadcastUserUpdate(user.getVrcUid(), vrchatUser);
+                    resolveWorldInBackground(user.getVrcUid(), vrchatUser);
                 })
                 .doOnError(error -> {
                     // Use proper error classification instead of string matching
                     String errorMessage = error.getMessage();
                     
                     if (error instanceof VRChatApiService.AuthenticationException) {
-                        log.error("Authentication error polling user {}: {}", user.getHrToken(), errorMessage);
-                        userStateService.updateUserErrorState(user.getVrcUid(), "Authentication error: " + errorMessage, Instant.now());
+                        // The account's session has been invalidated centrally; this is not a per-user
+                        // failure, and the user's next poll goes to one of the remaining accounts
+                        log.debug("Poll for {} ended by session invalidation", user.getHrToken());
+                        return;
                     } else if (error instanceof VRChatApiService.ApiException) {
                         VRChatApiService.ApiException apiError = (VRChatApiService.ApiException) error;
                         log.error("API error polling user {} (status {}): {}", user.getHrToken(), apiError.getStatusCode(), errorMessage);
@@ -176,16 +457,30 @@ public class MonitoringService {
                         log.error("Error polling user {}: {}", user.getHrToken(), errorMessage);
                         userStateService.updateUserErrorState(user.getVrcUid(), errorMessage, Instant.now());
                     }
+                    // Searchable by user, status and class via /api/errors
+                    Integer statusCode = error instanceof VRChatApiService.ApiException apiError
+                            ? apiError.getStatusCode() : null;
+                    errorFileLogger.logError("Error polling user " + user.getHrToken(), error,
+                            user.getVrcUid(), "/users/" + user.getVrcUid(), statusCode);
                     broadcastUserErrorUpdate(user.getVrcUid(), errorMessage);
                 })
+                .doFinally(signalType -> onPollFinished())
                 .subscribe();
         } catch (Exception e) {
+            onPollFinished();
             log.error("Exception during poll for {}: {}", user.getHrToken(), e.getMessage(), e);
             userStateService.updateUserErrorState(user.getVrcUid(), "Exception: " + e.getMessage(), Instant.now());
             broadcastUserErrorUpdate(user.getVrcUid(), e.getMessage());
         }
     }
     
+    private void onPollFinished() {
+        if (inFlightPolls.decrementAndGet() == 0 && draining) {
+            draining = false;
+            log.info("All in-flight polls drained");
+        }
+    }
+    
     private void broadcastUserUpdate(String vrcUid, VRChatUser user) {
         UserStateService.UserState state = userStateService.getLatestUserState(vrcUid);
         if (state != null) {
@@ -193,6 +488,19 @@ public class MonitoringService {
         }
     }
     
+    // Resolve the user's world (low priority) and re-send the update once its name is known
+    private void resolveWorldInBackground(String vrcUid, VRChatUser user) {
+        String worldId = WorldMetadataService.extractWorldId(user);
+        if (worldId == null || worldMetadataService.getCachedWorld(worldId) != null) {
+            return;
+        }
+        worldMetadataService.resolveWorld(worldId).thenAccept(world -> {
+            if (world != null) {
+                broadcastUserUpdate(vrcUid, user);
+            }
+        });
+    }
+    
     private void broadcastUserErrorUpdate(String vrcUid, String errorMessage) {
         UserStateService.UserState state = userStateService.getLatestUserState(vrcUid);
         if (state != null) {
@@ -202,9 +510,9 @@ public class MonitoringService {
 
     // Add a helper method to get the first user ID for session validation
     public String getFirstUserIdForValidation() {
-        AppConfig config = configLoader.getConfig();
-        if (config != null && config.getUsers() != null && !config.getUsers().isEmpty()) {
-            UserConfig firstUser = config.getUsers().get(0);
+        List<UserConfig> users = userRegistry.users();
+        if (!users.isEmpty()) {
+            UserConfig firstUser = users.get(0);
             if (firstUser != null && firstUser.getVrcUid() != null && !firstUser.getVrcUid().isBlank()) {
                 log.debug("Using user {} for session validation", firstUser.getHrToken());
                 return firstUser.getVrcUid();
@@ -0,0 +1,28 @@
+package com.example.vrcmonitor.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One span during which a user was in-game, as observed by polling.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param start The first poll that saw the user in-game
+ * @param end The first poll that saw the user out of the game again, or null while still online
+ * @param worlds World IDs visited during the session, in order (consecutive repeats collapsed)
+ */
+public record OnlineSession(String vrcUid, Instant start, Instant end, List<String> worlds) {
+
+    public boolean isOpen() {
+        return end == null;
+    }
+
+    /**
+     * @param now End time to use for an open session
+     * @return The session's length
+     */
+    public Duration duration(Instant now) {
+        return Duration.between(start, end != null ? end : now);
+    }
+}
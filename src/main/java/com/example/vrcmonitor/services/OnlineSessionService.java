@@ -0,0 +1,306 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.UserLocationChangedEvent;
+import com.example.vrcmonitor.events.UserOnlineChangedEvent;
+import com.example.vrcmonitor.models.VRChatUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns status transitions into online sessions (in-game spans per user, with the worlds
+ * visited) and answers time-range questions about them: online time per user, who was online
+ * together, longest sessions.
+ *
+ * Closed sessions live in a {@link SessionIntervalTree}, so range queries only touch the
+ * sessions that overlap the range. Open sessions (at most one per user) are kept on the side
+ * and treated as ending "now". Sessions are persisted with the state snapshot and kept for
+ * {@link #RETENTION}.
+ */
+@Service
+public class OnlineSessionService {
+    private static final Logger log = LoggerFactory.getLogger(OnlineSessionService.class);
+
+    static final Duration RETENTION = Duration.ofDays(35);
+
+    private final UserStateService userStateService;
+
+    // Guarded by 'this'
+    private final SessionIntervalTree closedSessions = new SessionIntervalTree();
+    private final Map<String, OpenSession> openSessions = new HashMap<>();
+    private boolean restoredFromSnapshot = false;
+
+    public OnlineSessionService(UserStateService userStateService) {
+        this.userStateService = userStateService;
+    }
+
+    private static final class OpenSession {
+        final Instant start;
+        final List<String> worlds = new ArrayList<>();
+
+        OpenSession(Instant start) {
+            this.start = start;
+        }
+
+        OnlineSession toSession(String vrcUid, Instant end) {
+            return new OnlineSession(vrcUid, start, end, List.copyOf(worlds));
+        }
+    }
+
+    /**
+     * Online time per user within a range.
+     * @param sessions Number of sessions overlapping the range
+     */
+    public record OnlineTime(String vrcUid, long onlineMillis, int sessions) {}
+
+    /**
+     * Time two users were online at the same time within a range.
+     */
+    public record Overlap(String vrcUid, String otherVrcUid, long overlapMillis) {}
+
+    /**
+     * Whether the user is in the game, using the same rule as the web client's ONLINE status:
+     * state "online", or "active" with a location other than "offline".
+     */
+    public static boolean isInGame(VRChatUser user) {
+        if (user == null) {
+            return false;
+        }
+        String state = user.getState();
+        return "online".equals(state) || ("active".equals(state) && !"offline".equals(user.getLocation()));
+    }
+
+    /**
+     * Seeds sessions from a persisted snapshot. Called during startup, before polling starts.
+     */
+    public synchronized void restore(List<OnlineSession> sessions) {
+        for (OnlineSession session : sessions) {
+            if (session.isOpen()) {
+                OpenSession open = new OpenSession(session.start());
+                open.worlds.addAll(session.worlds());
+                openSessions.put(session.vrcUid(), open);
+            } else {
+                closedSessions.insert(session);
+            }
+        }
+        restoredFromSnapshot = !sessions.isEmpty();
+    }
+
+    /**
+     * Applies an observation replayed from the WAL during startup (the replay publishes no
+     * events), so sessions that started or ended after the snapshot are not lost. Without
+     * persisted sessions, {@link #reconcile} rebuilds them from the history instead.
+     */
+    public synchronized void replay(String vrcUid, UserStateService.UserState state) {
+        if (restoredFromSnapshot) {
+            observe(vrcUid, state);
+        }
+    }
+
+    /**
+     * Brings sessions in line with the restored user states. Without persisted sessions (first
+     * run, or persistence disabled) they are rebuilt from the retained status history.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconcile() {
+        if (!restoredFromSnapshot) {
+            userStateService.getSnapshot().forEach((vrcUid, container) -> {
+                for (UserStateService.UserState state : container.history()) {
+                    observe(vrcUid, state);
+                }
+            });
+        }
+        // Sessions already follow the WAL replay (see replay); this only catches up to the latest state
+        userStateService.getCurrentStates().forEach(this::observe);
+        log.info("Online sessions ready: {} closed, {} open", closedSessions.size(), openSessions.size());
+    }
+
+    @EventListener
+    public synchronized void onOnlineChanged(UserOnlineChangedEvent event) {
+        apply(event.vrcUid(), event.online(), event.location(), event.timestamp());
+    }
+
+    @EventListener
+    public synchronized void onLocationChanged(UserLocationChangedEvent event) {
+        OpenSession open = openSessions.get(event.vrcUid());
+        if (open != null) {
+            addWorld(open, event.newLocation());
+        }
+    }
+
+    /**
+     * Ends the open sessions of users that are no longer configured (nothing would ever close
+     * them, and they would keep growing as "now"). Their closed sessions age out as usual.
+     */
+    @EventListener
+    public synchronized void onConfigChanged(ConfigChangedEvent event) {
+        Instant now = Instant.now();
+        for (UserConfig user : event.removed()) {
+            if (openSessions.containsKey(user.getVrcUid())) {
+                apply(user.getVrcUid(), false, null, now);
+                log.debug("Closed the online session of {} (no longer configured)", user.getVrcUid());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public synchronized void pruneOldSessions() {
+        int dropped = closedSessions.retainEndingAfter(Instant.now().minus(RETENTION).toEpochMilli());
+        if (dropped > 0) {
+            log.info("Dropped {} online sessions older than {} days", dropped, RETENTION.toDays());
+        }
+    }
+
+    /**
+     * @return Every retained session, closed ones first (for the state snapshot)
+     */
+    public synchronized List<OnlineSession> getAllSessions() {
+        List<OnlineSession> sessions = new ArrayList<>(closedSessions.size() + openSessions.size());
+        closedSessions.forEachOverlapping(Long.MIN_VALUE, Long.MAX_VALUE, sessions::add);
+        openSessions.forEach((vrcUid, open) -> sessions.add(open.toSession(vrcUid, null)));
+        return sessions;
+    }
+
+    /**
+     * @param vrcUid Only this user's sessions, or null for everyone
+     * @return Sessions overlapping [from, to), in start order
+     */
+    public synchronized List<OnlineSession> getSessions(String vrcUid, Instant from, Instant to) {
+        List<OnlineSession> sessions = new ArrayList<>();
+        closedSessions.forEachOverlapping(from.toEpochMilli(), to.toEpochMilli(), session -> {
+            if (vrcUid == null || vrcUid.equals(session.vrcUid())) {
+                sessions.add(session);
+            }
+        });
+        openSessions.forEach((uid, open) -> {
+            if ((vrcUid == null || vrcUid.equals(uid)) && open.start.isBefore(to)) {
+                sessions.add(open.toSession(uid, null));
+            }
+        });
+        sessions.sort(Comparator.comparing(OnlineSession::start));
+        return sessions;
+    }
+
+    /**
+     * @return Online time per user within [from, to) (sessions clipped to the range), most first
+     */
+    public List<OnlineTime> getOnlineTime(Instant from, Instant to) {
+        Map<String, long[]> totals = new LinkedHashMap<>(); // vrcUid -> {millis, sessions}
+        for (OnlineSession session : getSessions(null, from, to)) {
+            long[] total = totals.computeIfAbsent(session.vrcUid(), k -> new long[2]);
+            total[0] += clippedMillis(session.start(), endOrNow(session), from, to);
+            total[1]++;
+        }
+        List<OnlineTime> result = new ArrayList<>(totals.size());
+        totals.forEach((vrcUid, total) -> result.add(new OnlineTime(vrcUid, total[0], (int) total[1])));
+        result.sort(Comparator.comparingLong(OnlineTime::onlineMillis).reversed());
+        return result;
+    }
+
+    /**
+     * Who was online at the same time as whom within [from, to). Sweeps the overlapping
+     * sessions in start order, so only pairs that actually overlap are compared.
+     * @return One entry per pair of users, longest overlap first
+     */
+    public List<Overlap> getOverlaps(Instant from, Instant to) {
+        List<OnlineSession> sessions = getSessions(null, from, to);
+        Map<String, Overlap> pairs = new HashMap<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            OnlineSession first = sessions.get(i);
+            Instant firstEnd = endOrNow(first);
+            for (int j = i + 1; j < sessions.size() && sessions.get(j).start().isBefore(firstEnd); j++) {
+                OnlineSession second = sessions.get(j);
+                if (first.vrcUid().equals(second.vrcUid())) {
+                    continue;
+                }
+                Instant overlapEnd = firstEnd.isBefore(endOrNow(second)) ? firstEnd : endOrNow(second);
+                long millis = clippedMillis(second.start(), overlapEnd, from, to);
+                if (millis <= 0) {
+                    continue;
+                }
+                // One entry per unordered pair
+                String a = first.vrcUid().compareTo(second.vrcUid()) < 0 ? first.vrcUid() : second.vrcUid();
+                String b = a.equals(first.vrcUid()) ? second.vrcUid() : first.vrcUid();
+                pairs.merge(a + '\n' + b, new Overlap(a, b, millis),
+                        (existing, added) -> new Overlap(a, b, existing.overlapMillis() + added.overlapMillis()));
+            }
+        }
+        List<Overlap> result = new ArrayList<>(pairs.values());
+        result.sort(Comparator.comparingLong(Overlap::overlapMillis).reversed());
+        return result;
+    }
+
+    /**
+     * @return The longest sessions overlapping [from, to) (full length, not clipped), longest first
+     */
+    public List<OnlineSession> getLongestSessions(Instant from, Instant to, int limit) {
+        Instant now = Instant.now();
+        List<OnlineSession> sessions = getSessions(null, from, to);
+        sessions.sort(Comparator.comparing((OnlineSession session) -> session.duration(now)).reversed());
+        return sessions.subList(0, Math.min(limit, sessions.size()));
+    }
+
+    // Startup catch-up from stored states; errors say nothing about being online
+    private void observe(String vrcUid, UserStateService.UserState state) {
+        VRChatUser user = state.user();
+        if (state.statusType() == UserStateService.StatusType.OK && user != null && state.lastUpdated() != null) {
+            boolean online = isInGame(user);
+            apply(vrcUid, online, user.getLocation(), state.lastUpdated());
+            OpenSession open = openSessions.get(vrcUid);
+            if (open != null) {
+                addWorld(open, user.getLocation());
+            }
+        }
+    }
+
+    // Opens or closes the user's session; idempotent, so repeated observations are harmless
+    private void apply(String vrcUid, boolean online, String location, Instant timestamp) {
+        OpenSession open = openSessions.get(vrcUid);
+        if (online && open == null) {
+            open = new OpenSession(timestamp);
+            addWorld(open, location);
+            openSessions.put(vrcUid, open);
+            log.debug("Online session started for {} at {}", vrcUid, timestamp);
+        } else if (!online && open != null) {
+            openSessions.remove(vrcUid);
+            Instant end = timestamp.isAfter(open.start) ? timestamp : open.start;
+            closedSessions.insert(open.toSession(vrcUid, end));
+            log.debug("Online session ended for {}: {} min", vrcUid, Duration.between(open.start, end).toMinutes());
+        }
+    }
+
+    private static void addWorld(OpenSession open, String location) {
+        if (location == null || !location.startsWith("wrld_")) {
+            return;
+        }
+        int separator = location.indexOf(':');
+        String worldId = separator > 0 ? location.substring(0, separator) : location;
+        if (open.worlds.isEmpty() || !open.worlds.get(open.worlds.size() - 1).equals(worldId)) {
+            open.worlds.add(worldId);
+        }
+    }
+
+    private static Instant endOrNow(OnlineSession session) {
+        return session.end() != null ? session.end() : Instant.now();
+    }
+
+    private static long clippedMillis(Instant start, Instant end, Instant from, Instant to) {
+        Instant clippedStart = start.isAfter(from) ? start : from;
+        Instant clippedEnd = end.isBefore(to) ? end : to;
+        return Math.max(0, Duration.between(clippedStart, clippedEnd).toMillis());
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Predictive polling: decides each user's next poll interval from their learned time-of-week
+ * activity ({@link ActivityModel}), so polls concentrate in the hours where users usually come
+ * online or go offline and thin out where nothing happens (e.g. at night).
+ *
+ * Each user's polls over a week add up to what their configured poll rate would use, so the
+ * overall API budget is unchanged; only the distribution over the week changes. Intervals stay
+ * within {@link #MAX_FACTOR} of the configured rate, and the combined rate in any hour is capped
+ * (see {@link #peakRate}).
+ *
+ * While clients are focused on some users ({@link ClientFocusService}), those users are polled
+ * up to {@link #FOCUS_FACTOR} times faster than configured, everyone else at most at their
+ * configured rate, and the boost is scaled down if it would exceed the hour's peak rate.
+ *
+ * Models are trained from the recorded online sessions ({@link OnlineSessionService}) of the
+ * last {@link #TRAINING_WINDOW}, once a minute after startup and then hourly.
+ */
+@Service
+public class PollPlanner {
+    private static final Logger log = LoggerFactory.getLogger(PollPlanner.class);
+
+    static final double MAX_FACTOR = 4.0;
+    static final Duration MIN_INTERVAL = Duration.ofSeconds(5);
+    static final Duration TRAINING_WINDOW = Duration.ofDays(28);
+    // Focused users are polled up to this many times faster than their configured rate
+    static final double FOCUS_FACTOR = 4.0;
+
+    private final ConfigLoader configLoader;
+    private final UserRegistry userRegistry;
+    private final OnlineSessionService onlineSessionService;
+    private final ClientFocusService clientFocusService;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile Map<String, ActivityModel> models = Map.of();
+    // Intervals per hour-of-week slot for the current users and models; rebuilt when either changes
+    private volatile Plan plan;
+
+    private record Plan(List<UserConfig> users, Map<String, ActivityModel> models, List<Map<String, Duration>> bySlot) {}
+
+    // Poll rate sums behind the focus boost; rebuilt when the focus, the plan or predictive polling changes
+    private volatile FocusRates focusRates;
+
+    /**
+     * @param budget Sum of the configured rates
+     * @param focusedRate Sum of the focused users' boosted rates
+     * @param unfocusedBySlot Per hour-of-week slot, sum of everyone else's rates (no faster than configured)
+     */
+    private record FocusRates(Plan plan, Set<String> focused, boolean predictive, double budget, double focusedRate,
+                              double[] unfocusedBySlot) {}
+
+    public PollPlanner(ConfigLoader configLoader, UserRegistry userRegistry, OnlineSessionService onlineSessionService,
+                       ClientFocusService clientFocusService) {
+        this.configLoader = configLoader;
+        this.userRegistry = userRegistry;
+        this.onlineSessionService = onlineSessionService;
+        this.clientFocusService = clientFocusService;
+    }
+
+    /**
+     * Current planning state of one user.
+     */
+    public record UserPlan(String vrcUid, String hrToken, long configuredSeconds, long currentSeconds,
+                           double activityWeight, int learnedTransitions, boolean focused) {}
+
+    /**
+     * Detection latency of one polling strategy in a simulation.
+     */
+    public record StrategyResult(long polls, double meanLatencySeconds, double p50LatencySeconds,
+                                 double p90LatencySeconds) {}
+
+    /**
+     * Replay of recorded transitions against fixed and predictive polling with the same budget.
+     */
+    public record SimulationResult(Instant from, Instant to, int trainingTransitions, int transitions,
+                                   StrategyResult fixed, StrategyResult predictive, double latencyReductionPercent) {}
+
+    /**
+     * @return How long to wait before polling the user again
+     */
+    public Duration nextInterval(UserConfig user, Instant now) {
+        AppConfig config = configLoader.getConfig();
+        if (config == null) {
+            return user.getPollRateDuration();
+        }
+        Set<String> focused = clientFocusService.getFocusedUsers();
+        if (focused.isEmpty()) {
+            return plannedInterval(config, user, now);
+        }
+
+        long configured = user.getPollRateDuration().toMillis();
+        if (!focused.contains(user.getVrcUid())) {
+            return Duration.ofMillis(Math.max(configured, plannedInterval(config, user, now).toMillis()));
+        }
+        // Someone is watching: boost the focused users with whatever the hour's peak rate leaves
+        // after everyone else has been dropped back to (at most) their configured rate
+        FocusRates rates = currentFocusRates(config, focused);
+        double available = peakRate(rates.budget()) - rates.unfocusedBySlot()[ActivityModel.slotOf(now, zone)];
+        double focusedRate = rates.focusedRate();
+        double scale = focusedRate > available ? Math.max(0, available) / focusedRate : 1.0;
+        long boosted = scale > 0 ? Math.round(focusedTarget(user) / scale) : Long.MAX_VALUE;
+        // Never slower than without focus
+        return Duration.ofMillis(Math.min(boosted, plannedInterval(config, user, now).toMillis()));
+    }
+
+    // The interval from the weekly plan (or the configured rate with predictive polling off)
+    private Duration plannedInterval(AppConfig config, UserConfig user, Instant now) {
+        if (Boolean.FALSE.equals(config.getPredictivePolling())) {
+            return user.getPollRateDuration();
+        }
+        Duration interval = currentPlan(userRegistry.users()).bySlot().get(ActivityModel.slotOf(now, zone)).get(user.getVrcUid());
+        return interval != null ? interval : user.getPollRateDuration();
+    }
+
+    private FocusRates currentFocusRates(AppConfig config, Set<String> focused) {
+        Plan currentPlan = currentPlan(userRegistry.users());
+        boolean predictive = !Boolean.FALSE.equals(config.getPredictivePolling());
+        FocusRates current = focusRates;
+        if (current != null && current.plan() == currentPlan && current.focused() == focused
+                && current.predictive() == predictive) {
+            return current;
+        }
+        double budget = 0;
+        double focusedRate = 0;
+        double[] unfocusedBySlot = new double[ActivityModel.SLOTS];
+        for (UserConfig other : currentPlan.users()) {
+            long configured = other.getPollRateDuration().toMillis();
+            budget += 1000.0 / configured;
+            if (focused.contains(other.getVrcUid())) {
+                focusedRate += 1000.0 / focusedTarget(other);
+                continue;
+            }
+            for (int slot = 0; slot < ActivityModel.SLOTS; slot++) {
+                Duration planned = predictive ? currentPlan.bySlot().get(slot).get(other.getVrcUid()) : null;
+                long interval = planned != null ? Math.max(configured, planned.toMillis()) : configured;
+                unfocusedBySlot[slot] += 1000.0 / interval;
+            }
+        }
+        current = new FocusRates(currentPlan, focused, predictive, budget, focusedRate, unfocusedBySlot);
+        focusRates = current;
+        return current;
+    }
+
+    private static long focusedTarget(UserConfig user) {
+        return Math.max(MIN_INTERVAL.toMillis(), Math.round(user.getPollRateDuration().toMillis() / FOCUS_FACTOR));
+    }
+
+    @Scheduled(fixedDelay = 3600000, initialDelay = 60000)
+    public void retrain() {
+        Instant now = Instant.now();
+        Map<String, ActivityModel> trained = train(onlineSessionService.getSessions(null, now.minus(TRAINING_WINDOW), now),
+                now.minus(TRAINING_WINDOW), now);
+        models = trained;
+        int ready = (int) trained.values().stream().filter(m -> m.transitions() >= ActivityModel.MIN_TRANSITIONS).count();
+        log.info("Activity models trained: {} users, {} with enough transitions for predictive polling",
+                trained.size(), ready);
+    }
+
+    /**
+     * @return Configured and current interval per user, with the activity weight of the current hour
+     */
+    public List<UserPlan> getUserPlans() {
+        Instant now = Instant.now();
+        int slot = ActivityModel.slotOf(now, zone);
+        Set<String> focused = clientFocusService.getFocusedUsers();
+        List<UserPlan> plans = new ArrayList<>();
+        for (UserConfig user : userRegistry.users()) {
+            ActivityModel model = models.get(user.getVrcUid());
+            plans.add(new UserPlan(user.getVrcUid(), user.getHrToken(), user.getPollRateDuration().toSeconds(),
+                    nextInterval(user, now).toSeconds(), model != null ? model.weight(slot) : 1.0,
+                    model != null ? model.transitions() : 0, focused.contains(user.getVrcUid())));
+        }
+        return plans;
+    }
+
+    /**
+     * @return Activity weight per hour of the week (Monday 00:00 first), or null if unknown user
+     */
+    public double[] getActivityWeights(String vrcUid) {
+        ActivityModel model = models.get(vrcUid);
+        return model != null ? model.weights() : null;
+    }
+
+    /**
+     * Replays the transitions recorded in the last {@code days} days against fixed polling at
+     * the configured rates and against predictive polling with the same total budget, trained
+     * only on sessions before the replayed range. Latency is the time from a transition to the
+     * first poll after it.
+     */
+    public SimulationResult simulate(int days) {
+        Instant to = Instant.now();
+        Instant from = to.minus(Duration.ofDays(days));
+        List<UserConfig> users = userRegistry.users();
+
+        Instant trainFrom = from.minus(TRAINING_WINDOW);
+        Map<String, ActivityModel> trained = train(onlineSessionService.getSessions(null, trainFrom, from), trainFrom, from);
+        int trainingTransitions = trained.values().stream().mapToInt(ActivityModel::transitions).sum();
+        List<Map<String, Duration>> bySlot = allocateAllSlots(users, trained);
+
+        Map<String, List<Long>> transitions = transitionTimes(onlineSessionService.getSessions(null, from, to), from, to);
+        List<Long> fixedLatencies = new ArrayList<>();
+        List<Long> predictiveLatencies = new ArrayList<>();
+        long fixedPolls = 0;
+        long predictivePolls = 0;
+        for (UserConfig user : users) {
+            long period = user.getPollRateDuration().toMillis();
+            // Same pseudo-random phase for both strategies
+            long phase = Math.floorMod(user.getVrcUid().hashCode(), Math.max(1, period));
+            long[] fixed = fixedPollTimes(from.toEpochMilli() + phase, to.toEpochMilli(), period);
+            long[] predictive = predictivePollTimes(user.getVrcUid(), period, from.toEpochMilli() + phase,
+                    to.toEpochMilli(), bySlot);
+            fixedPolls += fixed.length;
+            predictivePolls += predictive.length;
+            for (long transition : transitions.getOrDefault(user.getVrcUid(), List.of())) {
+                addLatency(fixed, transition, fixedLatencies);
+                addLatency(predictive, transition, predictiveLatencies);
+            }
+        }
+
+        StrategyResult fixedResult = summarize(fixedPolls, fixedLatencies);
+        StrategyResult predictiveResult = summarize(predictivePolls, predictiveLatencies);
+        double reduction = fixedResult.meanLatencySeconds() > 0
+                ? 100.0 * (fixedResult.meanLatencySeconds() - predictiveResult.meanLatencySeconds()) / fixedResult.meanLatencySeconds()
+                : 0;
+        return new SimulationResult(from, to, trainingTransitions, fixedLatencies.size(), fixedResult, predictiveResult,
+                Math.round(reduction * 10) / 10.0);
+    }
+
+    private Plan currentPlan(List<UserConfig> users) {
+        Plan current = plan;
+        Map<String, ActivityModel> currentModels = models;
+        if (current == null || current.users() != users || current.models() != currentModels) {
+            current = new Plan(users, currentModels, allocateAllSlots(users, currentModels));
+            plan = current;
+        }
+        return current;
+    }
+
+    /**
+     * Plans every user's interval for each hour of the week.
+     *
+     * Per user, the poll rate in an hour is proportional to the square root of the activity
+     * weight (minimizing expected detection latency, sum of p x interval, for a fixed number of
+     * polls gives rate ~ sqrt(p)), clamped to {@link #MAX_FACTOR} and normalized so the user's
+     * weekly poll count matches their configured rate. Hours where the users' peaks add up to
+     * more than {@link #peakRate} are scaled down, so the limiter never sees more than that.
+     */
+    static List<Map<String, Duration>> allocateAllSlots(List<UserConfig> users, Map<String, ActivityModel> trained) {
+        if (users == null || users.isEmpty()) {
+            return Collections.nCopies(ActivityModel.SLOTS, Map.of());
+        }
+        double budget = 0;
+        double[][] rates = new double[users.size()][]; // Polls per second, per user and slot
+        for (int u = 0; u < users.size(); u++) {
+            UserConfig user = users.get(u);
+            double configuredRate = 1000.0 / Math.max(1, user.getPollRateDuration().toMillis());
+            budget += configuredRate;
+            double[] factors = activityFactors(trained.get(user.getVrcUid()));
+            rates[u] = new double[ActivityModel.SLOTS];
+            for (int slot = 0; slot < ActivityModel.SLOTS; slot++) {
+                rates[u][slot] = configuredRate * factors[slot];
+            }
+        }
+
+        double peak = peakRate(budget);
+        List<Map<String, Duration>> bySlot = new ArrayList<>(ActivityModel.SLOTS);
+        for (int slot = 0; slot < ActivityModel.SLOTS; slot++) {
+            double total = 0;
+            for (double[] userRates : rates) {
+                total += userRates[slot];
+            }
+            double scale = total > peak ? peak / total : 1.0;
+            Map<String, Duration> intervals = new HashMap<>();
+            for (int u = 0; u < users.size(); u++) {
+                long interval = Math.round(1000.0 / (rates[u][slot] * scale));
+                intervals.put(users.get(u).getVrcUid(), Duration.ofMillis(Math.max(MIN_INTERVAL.toMillis(), interval)));
+            }
+            bySlot.add(Collections.unmodifiableMap(intervals));
+        }
+        return bySlot;
+    }
+
+    // Rate multipliers per slot, averaging 1 over the week (all 1 without a usable model)
+    private static double[] activityFactors(ActivityModel model) {
+        double[] factors = new double[ActivityModel.SLOTS];
+        Arrays.fill(factors, 1.0);
+        if (model == null || model.transitions() < ActivityModel.MIN_TRANSITIONS) {
+            return factors;
+        }
+        for (int slot = 0; slot < ActivityModel.SLOTS; slot++) {
+            factors[slot] = Math.sqrt(model.weight(slot));
+        }
+        // Clamping shifts the mean, so normalize and clamp a few times
+        for (int round = 0; round < 4; round++) {
+            double mean = Arrays.stream(factors).average().orElse(1.0);
+            for (int slot = 0; slot < ActivityModel.SLOTS; slot++) {
+                factors[slot] = Math.max(1 / MAX_FACTOR, Math.min(MAX_FACTOR, factors[slot] / mean));
+            }
+        }
+        return factors;
+    }
+
+    /**
+     * Highest total poll rate allowed in any hour: up to {@link #MAX_FACTOR} times the budget,
+     * but not more than half the limiter's one request per second (leaving room for interactive
+     * and background requests) unless the configured rates already need more.
+     */
+    static double peakRate(double budget) {
+        return Math.max(budget, Math.min(budget * MAX_FACTOR, 0.5));
+    }
+
+    // Session starts and ends inside [from, to) are the transitions
+    private Map<String, ActivityModel> train(List<OnlineSession> sessions, Instant from, Instant to) {
+        Map<String, ActivityModel> trained = new HashMap<>();
+        transitionTimes(sessions, from, to).forEach((vrcUid, times) -> {
+            ActivityModel model = new ActivityModel();
+            times.forEach(time -> model.record(Instant.ofEpochMilli(time), zone));
+            trained.put(vrcUid, model);
+        });
+        return trained;
+    }
+
+    private static Map<String, List<Long>> transitionTimes(List<OnlineSession> sessions, Instant from, Instant to) {
+        Map<String, List<Long>> times = new HashMap<>();
+        for (OnlineSession session : sessions) {
+            for (Instant transition : new Instant[] { session.start(), session.end() }) {
+                if (transition != null && !transition.isBefore(from) && transition.isBefore(to)) {
+                    times.computeIfAbsent(session.vrcUid(), k -> new ArrayList<>()).add(transition.toEpochMilli());
+                }
+            }
+        }
+        return times;
+    }
+
+    private static long[] fixedPollTimes(long start, long end, long period) {
+        int count = (int) Math.max(0, (end - start + period - 1) / period);
+        long[] polls = new long[count];
+        for (int i = 0; i < count; i++) {
+            polls[i] = start + i * period;
+        }
+        return polls;
+    }
+
+    private long[] predictivePollTimes(String vrcUid, long period, long start, long end, List<Map<String, Duration>> bySlot) {
+        long[] polls = new long[64];
+        int count = 0;
+        for (long time = start; time < end; ) {
+            if (count == polls.length) {
+                polls = Arrays.copyOf(polls, count * 2);
+            }
+            polls[count++] = time;
+            Duration interval = bySlot.get(ActivityModel.slotOf(Instant.ofEpochMilli(time), zone)).get(vrcUid);
+            time += interval != null ? interval.toMillis() : period;
+        }
+        return Arrays.copyOf(polls, count);
+    }
+
+    private static void addLatency(long[] polls, long transition, List<Long> latencies) {
+        int index = Arrays.binarySearch(polls, transition);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index < polls.length) {
+            latencies.add(polls[index] - transition);
+        }
+    }
+
+    private static StrategyResult summarize(long polls, List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return new StrategyResult(polls, 0, 0, 0);
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double mean = sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1000.0;
+        double p50 = sorted.get(sorted.size() / 2) / 1000.0;
+        double p90 = sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * 0.9))) / 1000.0;
+        return new StrategyResult(polls, round(mean), round(p50), round(p90));
+    }
+
+    private static double round(double seconds) {
+        return Math.round(seconds * 10) / 10.0;
+    }
+}
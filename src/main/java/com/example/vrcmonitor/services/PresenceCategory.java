@@ -0,0 +1,23 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+
+/**
+ * Coarse presence of a user, as counted by the presence statistics.
+ */
+public enum PresenceCategory {
+    ONLINE,  // In-game and not busy
+    BUSY,    // In-game with status "busy"
+    OFFLINE; // Not in the game (offline or only on the website)
+
+    public static PresenceCategory of(VRChatUser user) {
+        if (!OnlineSessionService.isInGame(user)) {
+            return OFFLINE;
+        }
+        return "busy".equals(user.getStatus()) ? BUSY : ONLINE;
+    }
+
+    public boolean isInGame() {
+        return this != OFFLINE;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.vrcmonitor.services;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Persisted form of one user's presence statistics (see {@link PresenceStatsService}).
+ * Each bucket holds {@link #SLOT_COUNT} values: milliseconds online, busy and offline (by
+ * {@link PresenceCategory} ordinal), then the number of online sessions started in the bucket.
+ *
+ * @param vrcUid The VRChat user ID
+ * @param firstSeen First time the user was seen in-game (null if never)
+ * @param lastSeen Last time the user was seen in-game (null if never)
+ * @param lastPresence The user's presence when the counters were taken (null if unknown)
+ * @param hourly Buckets per epoch hour (UTC)
+ * @param daily Buckets per epoch day (server time zone)
+ */
+public record PresenceCounters(String vrcUid, Instant firstSeen, Instant lastSeen, PresenceCategory lastPresence,
+                               Map<Long, long[]> hourly, Map<Long, long[]> daily) {
+
+    public static final int SESSIONS_SLOT = 3;
+    public static final int SLOT_COUNT = 4;
+}
@@ -0,0 +1,332 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.UserPresenceChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Streaming presence aggregates: per user, time spent online, busy and offline and the number
+ * of online sessions, bucketed per hour and per day, plus first/last seen in-game.
+ *
+ * Counters are updated from {@link UserPresenceChangedEvent}s: each change closes the previous
+ * presence span and adds its length to the buckets it covers. The span that is still open is
+ * added on the fly when counters are read, so summaries are current without per-poll work.
+ * Weekly/monthly summaries read at most ~31 daily buckets per user instead of raw history.
+ *
+ * Counters are persisted with the state snapshot. The WAL records after the snapshot are fed
+ * in by {@link #replay}, so spans up to the last observation before a restart are counted.
+ * Time while the monitor is not running is not: new spans start when the server is ready.
+ */
+@Service
+public class PresenceStatsService {
+    private static final Logger log = LoggerFactory.getLogger(PresenceStatsService.class);
+
+    static final Duration HOURLY_RETENTION = Duration.ofDays(14);
+    static final Duration DAILY_RETENTION = Duration.ofDays(400);
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private final UserStateService userStateService;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Guarded by 'this'
+    private final Map<String, UserCounters> countersByUser = new HashMap<>();
+    private Instant restoredAt; // When the restored snapshot was taken; replayed spans start there
+
+    public PresenceStatsService(UserStateService userStateService) {
+        this.userStateService = userStateService;
+    }
+
+    private static final class UserCounters {
+        Instant firstSeen;
+        Instant lastSeen;
+        final NavigableMap<Long, long[]> hourly = new TreeMap<>();
+        final NavigableMap<Long, long[]> daily = new TreeMap<>();
+        PresenceCategory current; // Latest known presence (kept across restarts)
+        Instant since;            // Start of the open span; null while not counting
+    }
+
+    /**
+     * Presence totals for one user over a period.
+     */
+    public record Summary(String vrcUid, long onlineSeconds, long busySeconds, long offlineSeconds,
+                          long sessions, Instant firstSeen, Instant lastSeen, PresenceCategory presence) {}
+
+    /**
+     * One hourly or daily bucket.
+     */
+    public record Bucket(Instant start, long onlineSeconds, long busySeconds, long offlineSeconds, long sessions) {}
+
+    /**
+     * Seeds counters from a persisted snapshot. Called during startup, before polling starts.
+     *
+     * @param takenAt When the snapshot was taken (its open spans were counted up to then)
+     */
+    public synchronized void restore(List<PresenceCounters> persisted, Instant takenAt) {
+        restoredAt = takenAt;
+        for (PresenceCounters entry : persisted) {
+            UserCounters counters = countersByUser.computeIfAbsent(entry.vrcUid(), k -> new UserCounters());
+            counters.firstSeen = entry.firstSeen();
+            counters.lastSeen = entry.lastSeen();
+            counters.current = entry.lastPresence();
+            entry.hourly().forEach((hour, slots) -> counters.hourly.put(hour, slots.clone()));
+            entry.daily().forEach((day, slots) -> counters.daily.put(day, slots.clone()));
+        }
+    }
+
+    /**
+     * Counts an observation replayed from the WAL during startup (the replay publishes no
+     * events). A restored user's first one continues the span the snapshot ended.
+     */
+    public synchronized void replay(String vrcUid, UserStateService.UserState state) {
+        if (state.statusType() != UserStateService.StatusType.OK || state.user() == null || state.lastUpdated() == null) {
+            return;
+        }
+        UserCounters counters = countersByUser.get(vrcUid);
+        if (counters != null && counters.since == null && counters.current != null
+                && restoredAt != null && state.lastUpdated().isAfter(restoredAt)) {
+            counters.since = restoredAt;
+        }
+        apply(vrcUid, PresenceCategory.of(state.user()), state.lastUpdated());
+    }
+
+    /**
+     * Starts counting for users whose state is known at startup (restored from the snapshot/WAL).
+     * Replayed spans end at the last observation before the restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startCounting() {
+        Instant now = Instant.now();
+        countersByUser.values().forEach(counters -> counters.since = null);
+        userStateService.getCurrentStates().forEach((vrcUid, state) -> {
+            if (state.statusType() == UserStateService.StatusType.OK && state.user() != null) {
+                apply(vrcUid, PresenceCategory.of(state.user()), now);
+            }
+        });
+        log.info("Presence stats ready for {} users", countersByUser.size());
+    }
+
+    @EventListener
+    public synchronized void onPresenceChanged(UserPresenceChangedEvent event) {
+        apply(event.vrcUid(), event.presence(), event.timestamp());
+    }
+
+    /**
+     * Stops counting for users that are no longer configured: their open span ends now, and
+     * their buckets age out as usual. If they come back, counting starts over with a new session.
+     */
+    @EventListener
+    public synchronized void onConfigChanged(ConfigChangedEvent event) {
+        Instant now = Instant.now();
+        for (UserConfig user : event.removed()) {
+            UserCounters counters = countersByUser.get(user.getVrcUid());
+            if (counters == null) {
+                continue;
+            }
+            if (counters.since != null && counters.current != null && now.isAfter(counters.since)) {
+                addSpan(counters.hourly, counters.daily, counters.current, counters.since, now);
+                if (counters.current.isInGame()) {
+                    counters.lastSeen = now;
+                }
+            }
+            counters.current = null;
+            counters.since = null;
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public synchronized void pruneOldBuckets() {
+        Instant now = Instant.now();
+        long oldestHour = now.minus(HOURLY_RETENTION).toEpochMilli() / HOUR_MILLIS;
+        long oldestDay = LocalDate.ofInstant(now.minus(DAILY_RETENTION), zone).toEpochDay();
+        for (UserCounters counters : countersByUser.values()) {
+            counters.hourly.headMap(oldestHour, false).clear();
+            counters.daily.headMap(oldestDay, false).clear();
+        }
+        // Users that stopped being counted (removed from the config) go once their buckets have
+        countersByUser.values().removeIf(counters -> counters.since == null && counters.current == null
+                && counters.hourly.isEmpty() && counters.daily.isEmpty());
+    }
+
+    /**
+     * @return Copies of all counters with open spans counted up to now (for the state snapshot)
+     */
+    public synchronized List<PresenceCounters> getAllCounters() {
+        Instant now = Instant.now();
+        List<PresenceCounters> result = new ArrayList<>(countersByUser.size());
+        countersByUser.forEach((vrcUid, counters) -> {
+            NavigableMap<Long, long[]> hourly = copy(counters.hourly);
+            NavigableMap<Long, long[]> daily = copy(counters.daily);
+            addOpenSpan(counters, hourly, daily, now);
+            result.add(new PresenceCounters(vrcUid, counters.firstSeen, lastSeen(counters, now),
+                    counters.current, hourly, daily));
+        });
+        return result;
+    }
+
+    /**
+     * Totals per user over the last {@code days} days, including today.
+     * @return One summary per user, most online time first
+     */
+    public synchronized List<Summary> getSummaries(int days) {
+        Instant now = Instant.now();
+        long today = LocalDate.ofInstant(now, zone).toEpochDay();
+        long firstDay = today - Math.max(1, days) + 1;
+
+        List<Summary> result = new ArrayList<>(countersByUser.size());
+        countersByUser.forEach((vrcUid, counters) -> {
+            // Only the buckets in range are copied; the open span is added to the copies
+            NavigableMap<Long, long[]> daily = copy(counters.daily.tailMap(firstDay, true));
+            addOpenSpan(counters, null, daily, now);
+            long[] total = new long[PresenceCounters.SLOT_COUNT];
+            daily.tailMap(firstDay, true).values().forEach(slots -> {
+                for (int i = 0; i < PresenceCounters.SLOT_COUNT; i++) {
+                    total[i] += slots[i];
+                }
+            });
+            result.add(new Summary(vrcUid, total[0] / 1000, total[1] / 1000, total[2] / 1000,
+                    total[PresenceCounters.SESSIONS_SLOT], counters.firstSeen, lastSeen(counters, now), counters.current));
+        });
+        result.sort(Comparator.comparingLong(Summary::onlineSeconds).reversed());
+        return result;
+    }
+
+    /**
+     * @return The user's daily buckets for the last {@code days} days (oldest first, empty days included)
+     */
+    public synchronized List<Bucket> getDaily(String vrcUid, int days) {
+        UserCounters counters = countersByUser.get(vrcUid);
+        if (counters == null) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        long today = LocalDate.ofInstant(now, zone).toEpochDay();
+        long firstDay = today - Math.max(1, days) + 1;
+        NavigableMap<Long, long[]> daily = copy(counters.daily.tailMap(firstDay, true));
+        addOpenSpan(counters, null, daily, now);
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (long day = firstDay; day <= today; day++) {
+            Instant start = LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant();
+            buckets.add(toBucket(start, daily.get(day)));
+        }
+        return buckets;
+    }
+
+    /**
+     * @return The user's hourly buckets for the last {@code hours} hours (oldest first, empty hours included)
+     */
+    public synchronized List<Bucket> getHourly(String vrcUid, int hours) {
+        UserCounters counters = countersByUser.get(vrcUid);
+        if (counters == null) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        long currentHour = now.toEpochMilli() / HOUR_MILLIS;
+        long firstHour = currentHour - Math.max(1, hours) + 1;
+        NavigableMap<Long, long[]> hourly = copy(counters.hourly.tailMap(firstHour, true));
+        addOpenSpan(counters, hourly, null, now);
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (long hour = firstHour; hour <= currentHour; hour++) {
+            buckets.add(toBucket(Instant.ofEpochMilli(hour * HOUR_MILLIS), hourly.get(hour)));
+        }
+        return buckets;
+    }
+
+    // Closes the open span and starts a new one; caller holds the lock
+    private void apply(String vrcUid, PresenceCategory presence, Instant timestamp) {
+        UserCounters counters = countersByUser.computeIfAbsent(vrcUid, k -> new UserCounters());
+        if (counters.since != null && timestamp.isAfter(counters.since)) {
+            addSpan(counters.hourly, counters.daily, counters.current, counters.since, timestamp);
+        }
+        if (counters.since != null && counters.current != null && counters.current.isInGame()) {
+            counters.lastSeen = timestamp;
+        }
+        if (presence.isInGame()) {
+            if (counters.firstSeen == null) {
+                counters.firstSeen = timestamp;
+            }
+            // Busy <-> online is the same session; only coming from offline (or nothing) starts one
+            if (counters.current == null || !counters.current.isInGame()) {
+                slots(counters.hourly, timestamp.toEpochMilli() / HOUR_MILLIS)[PresenceCounters.SESSIONS_SLOT]++;
+                slots(counters.daily, LocalDate.ofInstant(timestamp, zone).toEpochDay())[PresenceCounters.SESSIONS_SLOT]++;
+            }
+        }
+        counters.current = presence;
+        if (counters.since == null || timestamp.isAfter(counters.since)) {
+            counters.since = timestamp;
+        }
+    }
+
+    private void addOpenSpan(UserCounters counters, Map<Long, long[]> hourly, Map<Long, long[]> daily, Instant now) {
+        if (counters.since != null && counters.current != null && now.isAfter(counters.since)) {
+            addSpan(hourly, daily, counters.current, counters.since, now);
+        }
+    }
+
+    // Splits [from, to) at hour and day boundaries; either map may be null to skip it
+    private void addSpan(Map<Long, long[]> hourly, Map<Long, long[]> daily, PresenceCategory presence,
+                         Instant from, Instant to) {
+        int slot = presence.ordinal();
+        long end = to.toEpochMilli();
+        if (hourly != null) {
+            long cursor = from.toEpochMilli();
+            while (cursor < end) {
+                long hour = cursor / HOUR_MILLIS;
+                long bucketEnd = Math.min(end, (hour + 1) * HOUR_MILLIS);
+                slots(hourly, hour)[slot] += bucketEnd - cursor;
+                cursor = bucketEnd;
+            }
+        }
+        if (daily != null) {
+            LocalDate day = LocalDate.ofInstant(from, zone);
+            long cursor = from.toEpochMilli();
+            while (cursor < end) {
+                long bucketEnd = Math.min(end, day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+                slots(daily, day.toEpochDay())[slot] += bucketEnd - cursor;
+                cursor = bucketEnd;
+                day = day.plusDays(1);
+            }
+        }
+    }
+
+    private static long[] slots(Map<Long, long[]> buckets, long key) {
+        return buckets.computeIfAbsent(key, k -> new long[PresenceCounters.SLOT_COUNT]);
+    }
+
+    private static NavigableMap<Long, long[]> copy(Map<Long, long[]> buckets) {
+        NavigableMap<Long, long[]> copy = new TreeMap<>();
+        buckets.forEach((key, slots) -> copy.put(key, slots.clone()));
+        return copy;
+    }
+
+    private static Instant lastSeen(UserCounters counters, Instant now) {
+        return counters.since != null && counters.current != null && counters.current.isInGame() ? now : counters.lastSeen;
+    }
+
+    private static Bucket toBucket(Instant start, long[] slots) {
+        if (slots == null) {
+            return new Bucket(start, 0, 0, 0, 0);
+        }
+        return new Bucket(start, slots[0] / 1000, slots[1] / 1000, slots[2] / 1000, slots[PresenceCounters.SESSIONS_SLOT]);
+    }
+}
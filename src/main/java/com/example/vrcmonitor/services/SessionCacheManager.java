@@ -4,12 +4,14 @@ import com.example.vrcmonitor.config.ConfigLoader;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,10 +31,21 @@ public class SessionCacheManager {
     
     private final ConfigLoader configLoader;
     private final ObjectMapper objectMapper;
+    private final String cacheFileName;
     
+    @Autowired
     public SessionCacheManager(ConfigLoader configLoader, ObjectMapper objectMapper) {
+        this(configLoader, objectMapper, SESSION_CACHE_FILENAME);
+    }
+
+    /**
+     * Cache for an additional polling account, kept in its own file.
+     * @param cacheFileName File name in the working directory
+     */
+    public SessionCacheManager(ConfigLoader configLoader, ObjectMapper objectMapper, String cacheFileName) {
         this.configLoader = configLoader;
         this.objectMapper = objectMapper;
+        this.cacheFileName = cacheFileName;
     }
     
     /**
@@ -43,6 +56,19 @@ public class SessionCacheManager {
      * @return true if the cache was successfully saved, false otherwise
      */
     public boolean saveSessionCache(String authCookie, String twoFactorAuthCookie) {
+        return saveSessionCache(authCookie, twoFactorAuthCookie, null);
+    }
+    
+    /**
+     * Saves the session cookies to a file if configured to do so, along with the time the
+     * session was established (so cookie age survives restarts).
+     * 
+     * @param authCookie The main auth cookie
+     * @param twoFactorAuthCookie The two-factor auth cookie (may be null)
+     * @param establishedAt When the session was established (may be null)
+     * @return true if the cache was successfully saved, false otherwise
+     */
+    public boolean saveSessionCache(String authCookie, String twoFactorAuthCookie, Instant establishedAt) {
         if (!configLoader.getConfig().getFileCacheSesssionInfo()) {
             log.debug("Session caching is disabled, not saving session cookies");
             return false;
@@ -60,9 +86,12 @@ public class SessionCacheManager {
             if (twoFactorAuthCookie != null) {
                 sessionData.put("twoFactorAuthCookie", twoFactorAuthCookie);
             }
+            if (establishedAt != null) {
+                sessionData.put("establishedAt", String.valueOf(establishedAt.toEpochMilli()));
+            }
             
-            objectMapper.writeValue(new File(SESSION_CACHE_FILENAME), sessionData);
-            log.info("Session cache saved successfully to {}", SESSION_CACHE_FILENAME);
+            objectMapper.writeValue(new File(cacheFileName), sessionData);
+            log.info("Session cache saved successfully to {}", cacheFileName);
             return true;
         } catch (IOException e) {
             log.error("Failed to save session cache: {}", e.getMessage(), e);
@@ -81,16 +110,16 @@ public class SessionCacheManager {
             return null;
         }
         
-        File cacheFile = new File(SESSION_CACHE_FILENAME);
+        File cacheFile = new File(cacheFileName);
         if (!cacheFile.exists()) {
-            log.debug("No session cache file found at {}", SESSION_CACHE_FILENAME);
+            log.debug("No session cache file found at {}", cacheFileName);
             return null;
         }
         
         try {
             @SuppressWarnings("unchecked")
             Map<String, String> sessionData = objectMapper.readValue(cacheFile, Map.class);
-            log.info("Session cache loaded successfully from {}", SESSION_CACHE_FILENAME);
+            log.info("Session cache loaded successfully from {}", cacheFileName);
             return sessionData;
         } catch (IOException e) {
             log.error("Failed to load session cache: {}", e.getMessage(), e);
@@ -105,14 +134,14 @@ public class SessionCacheManager {
      * @return true if the cache was successfully cleared or didn't exist, false on error
      */
     public boolean clearSessionCache() {
-        File cacheFile = new File(SESSION_CACHE_FILENAME);
+        File cacheFile = new File(cacheFileName);
         if (!cacheFile.exists()) {
             log.debug("No session cache file to clear");
             return true;
         }
         
         try {
-            Files.delete(Paths.get(SESSION_CACHE_FILENAME));
+            Files.delete(Paths.get(cacheFileName));
             log.info("Session cache cleared successfully");
             return true;
         } catch (IOException e) {
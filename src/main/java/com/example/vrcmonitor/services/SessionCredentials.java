@@ -0,0 +1,33 @@
+package com.example.vrcmonitor.services;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable snapshot of the VRChat session cookies.
+ *
+ * The whole record is swapped atomically by {@link SessionManager}, so a request always sees a
+ * consistent auth/2FA cookie pair. The generation identifies the session: a 401 only invalidates
+ * the session it was issued with, never a newer one established in the meantime.
+ *
+ * @param authCookie The main auth cookie
+ * @param twoFactorAuthCookie The two-factor auth cookie (may be null)
+ * @param establishedAt When this session was created (login or restore)
+ * @param generation Monotonic session id
+ * @param validated Whether the session has been confirmed by a successful API call
+ */
+public record SessionCredentials(
+    String authCookie,
+    String twoFactorAuthCookie,
+    Instant establishedAt,
+    long generation,
+    boolean validated
+) {
+    public SessionCredentials asValidated() {
+        return validated ? this : new SessionCredentials(authCookie, twoFactorAuthCookie, establishedAt, generation, true);
+    }
+
+    public Duration age() {
+        return Duration.between(establishedAt, Instant.now());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.vrcmonitor.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Augmented interval tree of closed {@link OnlineSession}s: an AVL tree keyed by start time in
+ * which every node also holds the latest end time in its subtree. An overlap query skips every
+ * subtree whose latest end is before the range and everything starting after it, so it costs
+ * O(log n + k) for k matches instead of a scan over all sessions.
+ *
+ * Insert-only; retention is applied by rebuilding from the sessions to keep (see
+ * {@link #retainEndingAfter}). Not thread-safe, the owning service synchronizes.
+ */
+final class SessionIntervalTree {
+
+    private Node root;
+    private int size;
+
+    private static final class Node {
+        final OnlineSession session;
+        final long start;
+        final long end;
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(OnlineSession session) {
+            this.session = session;
+            this.start = session.start().toEpochMilli();
+            this.end = session.end().toEpochMilli();
+            this.maxEnd = end;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(OnlineSession session) {
+        root = insert(root, new Node(session));
+        size++;
+    }
+
+    /**
+     * Visits every session with start &lt; toMillis and end &gt; fromMillis, in start order.
+     */
+    void forEachOverlapping(long fromMillis, long toMillis, Consumer<OnlineSession> visitor) {
+        forEachOverlapping(root, fromMillis, toMillis, visitor);
+    }
+
+    /**
+     * Drops sessions that ended at or before the cutoff by rebuilding the tree.
+     * @return Number of sessions dropped
+     */
+    int retainEndingAfter(long cutoffMillis) {
+        List<OnlineSession> kept = new ArrayList<>(size);
+        forEachOverlapping(root, cutoffMillis, Long.MAX_VALUE, kept::add);
+        int dropped = size - kept.size();
+        if (dropped > 0) {
+            root = null;
+            size = 0;
+            kept.forEach(this::insert);
+        }
+        return dropped;
+    }
+
+    private static void forEachOverlapping(Node node, long from, long to, Consumer<OnlineSession> visitor) {
+        if (node == null || node.maxEnd <= from) {
+            return; // Nothing in this subtree ends inside the range
+        }
+        forEachOverlapping(node.left, from, to, visitor);
+        if (node.start >= to) {
+            return; // This node and its right subtree start after the range
+        }
+        if (node.end > from) {
+            visitor.accept(node.session);
+        }
+        forEachOverlapping(node.right, from, to, visitor);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        // Equal starts go right, so sessions with the same start stay in insertion order
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.events.SessionEstablishedEvent;
+import com.example.vrcmonitor.events.SessionInvalidatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the current VRChat session cookies and their lifecycle.
+ *
+ * The cookies live in a single {@link AtomicReference} to an immutable {@link SessionCredentials},
+ * so readers never take a lock and never see a mismatched auth/2FA pair. Invalidation is a
+ * compare-and-set against the session generation: when several in-flight polls hit a 401 at once,
+ * exactly one of them ends the session and a single {@link SessionInvalidatedEvent} is published.
+ * Likewise a {@link SessionEstablishedEvent} is published once when a session becomes usable.
+ *
+ * Session cache persistence (see {@link SessionCacheManager}) follows the session: it is written
+ * when a session is established and cleared when it is invalidated.
+ */
+@Service
+public class SessionManager {
+    private static final Logger log = LoggerFactory.getLogger(SessionManager.class);
+
+    private final SessionCacheManager sessionCacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<SessionCredentials> credentials = new AtomicReference<>();
+    private final AtomicLong generationCounter = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    // Last time an authenticated request succeeded; any success proves the session is alive
+    private volatile Instant lastVerifiedAt = null;
+    // Last time a session became active (login, or first successful use of a restored session)
+    private volatile Instant lastActivatedAt = null;
+
+    public SessionManager(SessionCacheManager sessionCacheManager, ApplicationEventPublisher eventPublisher) {
+        this.sessionCacheManager = sessionCacheManager;
+        this.eventPublisher = eventPublisher;
+        tryRestoreFromCache();
+    }
+
+    /**
+     * Attempts to restore a previously saved session from the cache file.
+     * The restored session is not validated until a request succeeds with it.
+     */
+    private void tryRestoreFromCache() {
+        Map<String, String> sessionData = sessionCacheManager.loadSessionCache();
+        if (sessionData == null) {
+            return;
+        }
+        String cachedAuthCookie = sessionData.get("authCookie");
+        String cachedTwoFactorAuthCookie = sessionData.get("twoFactorAuthCookie");
+        if (cachedAuthCookie == null || cachedAuthCookie.isEmpty()) {
+            return;
+        }
+
+        log.info("Restoring auth cookie from session cache");
+        if (cachedTwoFactorAuthCookie != null && !cachedTwoFactorAuthCookie.isEmpty()) {
+            log.info("Restoring two-factor auth cookie from session cache");
+        } else {
+            cachedTwoFactorAuthCookie = null;
+        }
+        Instant establishedAt = parseInstant(sessionData.get("establishedAt"));
+        credentials.set(new SessionCredentials(cachedAuthCookie, cachedTwoFactorAuthCookie,
+                establishedAt != null ? establishedAt : Instant.now(), generationCounter.incrementAndGet(), false));
+    }
+
+    /**
+     * @return The current session cookies, or null if there is no session
+     */
+    public SessionCredentials current() {
+        return credentials.get();
+    }
+
+    /**
+     * @return true if there is a session that has been confirmed by the API
+     */
+    public boolean isActive() {
+        SessionCredentials current = credentials.get();
+        return current != null && current.validated();
+    }
+
+    /**
+     * Installs a freshly logged-in session (already validated by the login response).
+     *
+     * @param authCookie The auth cookie
+     * @param twoFactorAuthCookie The 2FA cookie, may be null
+     * @return The new credentials
+     */
+    public SessionCredentials establish(String authCookie, String twoFactorAuthCookie) {
+        Instant now = Instant.now();
+        SessionCredentials established = new SessionCredentials(authCookie, twoFactorAuthCookie, now,
+                generationCounter.incrementAndGet(), true);
+        credentials.set(established);
+        lastVerifiedAt = now;
+        lastActivatedAt = now;
+        sessionCacheManager.saveSessionCache(authCookie, twoFactorAuthCookie, now);
+        log.info("Session established (generation {})", established.generation());
+        eventPublisher.publishEvent(new SessionEstablishedEvent(established.generation(), SessionEstablishedEvent.Source.LOGIN));
+        return established;
+    }
+
+    /**
+     * Records that an authenticated request succeeded with the given session.
+     * Marks a restored session as validated on its first success, which activates it.
+     *
+     * @param generation The generation the request was made with
+     */
+    public void markVerified(long generation) {
+        Instant now = Instant.now();
+        lastVerifiedAt = now;
+        SessionCredentials current = credentials.get();
+        if (current == null || current.generation() != generation || current.validated()) {
+            return;
+        }
+        // Only the request that flips the flag announces the session
+        if (credentials.compareAndSet(current, current.asValidated())) {
+            lastActivatedAt = now;
+            log.info("Restored session validated (generation {})", generation);
+            eventPublisher.publishEvent(new SessionEstablishedEvent(generation, SessionEstablishedEvent.Source.RESTORED));
+        }
+    }
+
+    /**
+     * Ends the given session if it is still the current one.
+     * Only the first caller for a generation succeeds; later callers (e.g. other polls
+     * that received the same 401) are no-ops.
+     *
+     * @param generation The generation the failing request was made with
+     * @param reason Why the session is being invalidated
+     * @return true if this call ended the session
+     */
+    public boolean invalidate(long generation, String reason) {
+        SessionCredentials current = credentials.get();
+        if (current == null || current.generation() != generation || !credentials.compareAndSet(current, null)) {
+            log.debug("Ignoring invalidation of session generation {} ({}): already ended", generation, reason);
+            return false;
+        }
+
+        invalidationCount.incrementAndGet();
+        sessionCacheManager.clearSessionCache();
+        log.warn("Session generation {} invalidated: {}", generation, reason);
+        eventPublisher.publishEvent(new SessionInvalidatedEvent(generation, reason));
+        return true;
+    }
+
+    /**
+     * Ends whatever session is current (explicit logout or a new login starting).
+     *
+     * @param reason Why the session is being cleared
+     */
+    public void clear(String reason) {
+        SessionCredentials current = credentials.get();
+        if (current != null) {
+            invalidate(current.generation(), reason);
+        } else {
+            sessionCacheManager.clearSessionCache();
+        }
+    }
+
+    /**
+     * Picks up the session the failover leader saved to the shared cache file, unless a
+     * validated session is already in use. Like a restore at startup, it becomes active once
+     * a request succeeds with it.
+     */
+    public void reloadFromCache() {
+        SessionCredentials current = credentials.get();
+        if (current != null && current.validated()) {
+            return;
+        }
+        tryRestoreFromCache();
+    }
+
+    /**
+     * Stops using the current session without ending it: the cache file is kept, because the
+     * session now belongs to the failover leader that took over.
+     *
+     * @param reason Why the session is being dropped
+     */
+    public void detach(String reason) {
+        SessionCredentials current = credentials.getAndSet(null);
+        if (current == null) {
+            return;
+        }
+        log.warn("Session generation {} detached: {}", current.generation(), reason);
+        eventPublisher.publishEvent(new SessionInvalidatedEvent(current.generation(), reason));
+    }
+
+    /**
+     * @return Time of the last successful authenticated request, or null
+     */
+    public Instant getLastVerifiedAt() {
+        return lastVerifiedAt;
+    }
+
+    /**
+     * @return Time the current (or most recent) session became active, or null
+     */
+    public Instant getLastActivatedAt() {
+        return lastActivatedAt;
+    }
+
+    /**
+     * @return Health details for diagnostics (session age, last verification, invalidations)
+     */
+    public Map<String, Object> getHealth() {
+        SessionCredentials current = credentials.get();
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("hasSession", current != null);
+        health.put("validated", current != null && current.validated());
+        health.put("generation", current != null ? current.generation() : null);
+        health.put("establishedAt", current != null ? current.establishedAt().toEpochMilli() : null);
+        health.put("ageSeconds", current != null ? current.age().toSeconds() : null);
+        health.put("lastVerifiedAt", lastVerifiedAt != null ? lastVerifiedAt.toEpochMilli() : null);
+        health.put("invalidations", invalidationCount.get());
+        return health;
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
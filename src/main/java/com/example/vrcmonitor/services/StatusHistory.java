@@ -0,0 +1,388 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One user's status history, stored column by column instead of as a list of
+ * {@link UserState} objects.
+ *
+ * Consecutive history entries mostly differ in one or two fields, so:
+ * <ul>
+ *   <li>timestamps are zig-zag varint deltas in a byte array,</li>
+ *   <li>the status type is its ordinal; state and status, which only take a handful of
+ *       values, are codes from a {@link StringDictionary} shared by all users,</li>
+ *   <li>every column is run-length encoded, so a field that did not change costs only a
+ *       run counter increment; the remaining fields (free text like the status
+ *       description and error message, locations, names, URLs, ...) keep one reference
+ *       per run, which goes away with the run.</li>
+ * </ul>
+ * Full {@link UserState}/{@link VRChatUser} objects are only built when an entry is read.
+ * Access is synchronized on the instance.
+ */
+final class StatusHistory {
+
+    private static final StatusType[] STATUS_TYPES = StatusType.values();
+    private static final long NULL_MILLIS = Long.MIN_VALUE;
+
+    private final int userId; // Stamped on materialized states
+    private final StringDictionary dictionary;
+    private int size = 0;
+
+    private final DeltaTimeColumn lastUpdated = new DeltaTimeColumn();
+    private final RleIntColumn statusType = new RleIntColumn();
+    private final RleIntColumn hasUser = new RleIntColumn();
+
+    // Dictionary-coded user fields
+    private final RleIntColumn state = new RleIntColumn();
+    private final RleIntColumn status = new RleIntColumn();
+
+    // Unbounded values, one reference per run
+    private final RleColumn errorMessage = new RleColumn();
+    private final RleColumn statusDescription = new RleColumn();
+    private final RleColumn location = new RleColumn();
+    private final RleColumn id = new RleColumn();
+    private final RleColumn username = new RleColumn();
+    private final RleColumn displayName = new RleColumn();
+    private final RleColumn worldId = new RleColumn();
+    private final RleColumn instanceId = new RleColumn();
+    private final RleColumn avatarImageUrl = new RleColumn();
+    private final RleColumn avatarThumbnailImageUrl = new RleColumn();
+    private final RleColumn bio = new RleColumn();
+    private final RleColumn userIcon = new RleColumn();
+    private final RleColumn lastLogin = new RleColumn();
+    private final RleColumn lastActivity = new RleColumn();
+    private final RleColumn friend = new RleColumn();
+
+    StatusHistory(int userId, StringDictionary dictionary) {
+        this.userId = userId;
+        this.dictionary = dictionary;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized void add(UserState entry) {
+        lastUpdated.append(entry.lastUpdated() != null ? entry.lastUpdated().toEpochMilli() : NULL_MILLIS);
+        statusType.append(entry.statusType().ordinal());
+        errorMessage.append(entry.errorMessage());
+
+        VRChatUser user = entry.user();
+        hasUser.append(user != null ? 1 : 0);
+        state.append(user != null ? dictionary.encode(user.getState()) : 0);
+        status.append(user != null ? dictionary.encode(user.getStatus()) : 0);
+        statusDescription.append(user != null ? user.getStatusDescription() : null);
+        location.append(user != null ? user.getLocation() : null);
+        id.append(user != null ? user.getId() : null);
+        username.append(user != null ? user.getUsername() : null);
+        displayName.append(user != null ? user.getDisplayName() : null);
+        worldId.append(user != null ? user.getWorldId() : null);
+        instanceId.append(user != null ? user.getInstanceId() : null);
+        avatarImageUrl.append(user != null ? user.getCurrentAvatarImageUrl() : null);
+        avatarThumbnailImageUrl.append(user != null ? user.getCurrentAvatarThumbnailImageUrl() : null);
+        bio.append(user != null ? user.getBio() : null);
+        userIcon.append(user != null ? user.getUserIcon() : null);
+        lastLogin.append(user != null ? user.getLast_login() : null);
+        lastActivity.append(user != null ? user.getLast_activity() : null);
+        friend.append(user != null ? user.isFriend() : null);
+        size++;
+    }
+
+    synchronized void removeFirst() {
+        if (size == 0) {
+            return;
+        }
+        lastUpdated.removeFirst();
+        for (RleIntColumn column : intColumns()) {
+            column.removeFirst();
+        }
+        for (RleColumn column : refColumns()) {
+            column.removeFirst();
+        }
+        size--;
+    }
+
+    synchronized void replaceLast(UserState entry) {
+        if (size == 0) {
+            add(entry);
+            return;
+        }
+        lastUpdated.removeLast();
+        for (RleIntColumn column : intColumns()) {
+            column.removeLast();
+        }
+        for (RleColumn column : refColumns()) {
+            column.removeLast();
+        }
+        size--;
+        add(entry);
+    }
+
+    /**
+     * Materializes one entry.
+     */
+    synchronized UserState get(int index) {
+        Objects.checkIndex(index, size);
+        long millis = lastUpdated.get(index);
+        Instant timestamp = millis != NULL_MILLIS ? Instant.ofEpochMilli(millis) : null;
+
+        VRChatUser user = null;
+        if (hasUser.get(index) == 1) {
+            user = new VRChatUser();
+            user.setId((String) id.get(index));
+            user.setUsername((String) username.get(index));
+            user.setDisplayName((String) displayName.get(index));
+            user.setState(dictionary.decode(state.get(index)));
+            user.setStatus(dictionary.decode(status.get(index)));
+            user.setStatusDescription((String) statusDescription.get(index));
+            user.setLocation((String) location.get(index));
+            user.setWorldId((String) worldId.get(index));
+            user.setInstanceId((String) instanceId.get(index));
+            user.setCurrentAvatarImageUrl((String) avatarImageUrl.get(index));
+            user.setCurrentAvatarThumbnailImageUrl((String) avatarThumbnailImageUrl.get(index));
+            user.setBio((String) bio.get(index));
+            user.setUserIcon((String) userIcon.get(index));
+            user.setLast_login((Instant) lastLogin.get(index));
+            user.setLast_activity((Instant) lastActivity.get(index));
+            user.setFriend(Boolean.TRUE.equals(friend.get(index)));
+        }
+        return new UserState(userId, user, STATUS_TYPES[statusType.get(index)],
+                (String) errorMessage.get(index), timestamp);
+    }
+
+    synchronized UserState last() {
+        return size > 0 ? get(size - 1) : null;
+    }
+
+    /**
+     * Materializes the whole history, oldest first.
+     */
+    synchronized List<UserState> toList() {
+        List<UserState> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(get(i));
+        }
+        return entries;
+    }
+
+    private RleIntColumn[] intColumns() {
+        return new RleIntColumn[] { statusType, hasUser, state, status };
+    }
+
+    private RleColumn[] refColumns() {
+        return new RleColumn[] { errorMessage, statusDescription, location, id, username, displayName, worldId, instanceId, avatarImageUrl,
+                avatarThumbnailImageUrl, bio, userIcon, lastLogin, lastActivity, friend };
+    }
+
+    /**
+     * Run-length encoded int column: parallel arrays of run values and run lengths.
+     */
+    private static final class RleIntColumn {
+        private int[] values = new int[2];
+        private int[] lengths = new int[2];
+        private int runs = 0;
+
+        void append(int value) {
+            if (runs > 0 && values[runs - 1] == value) {
+                lengths[runs - 1]++;
+                return;
+            }
+            if (runs == values.length) {
+                values = Arrays.copyOf(values, runs * 2);
+                lengths = Arrays.copyOf(lengths, runs * 2);
+            }
+            values[runs] = value;
+            lengths[runs] = 1;
+            runs++;
+        }
+
+        int get(int index) {
+            for (int run = 0; run < runs; run++) {
+                if (index < lengths[run]) {
+                    return values[run];
+                }
+                index -= lengths[run];
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        void removeFirst() {
+            if (--lengths[0] == 0) {
+                System.arraycopy(values, 1, values, 0, runs - 1);
+                System.arraycopy(lengths, 1, lengths, 0, runs - 1);
+                runs--;
+            }
+        }
+
+        void removeLast() {
+            if (--lengths[runs - 1] == 0) {
+                runs--;
+            }
+        }
+    }
+
+    /**
+     * Run-length encoded reference column; runs compare values with equals().
+     */
+    private static final class RleColumn {
+        private Object[] values = new Object[1];
+        private int[] lengths = new int[1];
+        private int runs = 0;
+
+        void append(Object value) {
+            if (runs > 0 && Objects.equals(values[runs - 1], value)) {
+                lengths[runs - 1]++;
+                return;
+            }
+            if (runs == values.length) {
+                values = Arrays.copyOf(values, runs * 2);
+                lengths = Arrays.copyOf(lengths, runs * 2);
+            }
+            values[runs] = value;
+            lengths[runs] = 1;
+            runs++;
+        }
+
+        Object get(int index) {
+            for (int run = 0; run < runs; run++) {
+                if (index < lengths[run]) {
+                    return values[run];
+                }
+                index -= lengths[run];
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        void removeFirst() {
+            if (--lengths[0] == 0) {
+                System.arraycopy(values, 1, values, 0, runs - 1);
+                System.arraycopy(lengths, 1, lengths, 0, runs - 1);
+                values[--runs] = null;
+            }
+        }
+
+        void removeLast() {
+            if (--lengths[runs - 1] == 0) {
+                values[--runs] = null;
+            }
+        }
+    }
+
+    /**
+     * Epoch-millisecond column: the first value in full, then zig-zag varint deltas.
+     */
+    private static final class DeltaTimeColumn {
+        private byte[] deltas = new byte[16];
+        private int length = 0;         // Bytes used in deltas
+        private int count = 0;          // Values stored
+        private long first;             // Value of entry 0
+        private long last;              // Value of the newest entry
+        private int lastDeltaStart = 0; // Offset of the newest entry's delta (count > 1)
+
+        void append(long value) {
+            if (count == 0) {
+                first = value;
+            } else {
+                lastDeltaStart = length;
+                writeVarint(zigZag(value - last));
+            }
+            last = value;
+            count++;
+        }
+
+        long get(int index) {
+            long value = first;
+            int offset = 0;
+            for (int i = 0; i < index; i++) {
+                long raw = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = deltas[offset++];
+                    raw |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                value += unZigZag(raw);
+            }
+            return value;
+        }
+
+        void removeFirst() {
+            if (count <= 1) {
+                clear();
+                return;
+            }
+            // Fold the first delta into the base value and drop its bytes
+            long raw = 0;
+            int shift = 0;
+            int offset = 0;
+            byte b;
+            do {
+                b = deltas[offset++];
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            first += unZigZag(raw);
+            System.arraycopy(deltas, offset, deltas, 0, length - offset);
+            length -= offset;
+            lastDeltaStart -= offset;
+            count--;
+        }
+
+        void removeLast() {
+            if (count <= 1) {
+                clear();
+                return;
+            }
+            last = get(count - 2);
+            length = lastDeltaStart;
+            count--;
+            // Recompute where the (new) newest delta starts
+            lastDeltaStart = 0;
+            int offset = 0;
+            for (int i = 1; i < count; i++) {
+                lastDeltaStart = offset;
+                while ((deltas[offset++] & 0x80) != 0) {
+                    // Skip continuation bytes
+                }
+            }
+        }
+
+        private void clear() {
+            length = 0;
+            count = 0;
+            lastDeltaStart = 0;
+        }
+
+        private void writeVarint(long value) {
+            if (length + 10 > deltas.length) {
+                deltas = Arrays.copyOf(deltas, Math.max(deltas.length * 2, length + 10));
+            }
+            while ((value & ~0x7FL) != 0) {
+                deltas[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            deltas[length++] = (byte) value;
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unZigZag(long raw) {
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.vrcmonitor.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns strings from small, fixed vocabularies (a user's state and status) into int codes
+ * shared by every user's {@link StatusHistory}.
+ * Code 0 is reserved for null. Codes are never freed, so the dictionary grows with the number
+ * of distinct values ever seen; free text and locations must not go in here.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    StringDictionary() {
+        values.add(null); // Code 0
+    }
+
+    synchronized int encode(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    synchronized String decode(int code) {
+        return values.get(code);
+    }
+
+    synchronized int size() {
+        return values.size() - 1;
+    }
+}
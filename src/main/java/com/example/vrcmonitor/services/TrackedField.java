@@ -0,0 +1,58 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * User fields whose changes count as a status transition.
+ * Which ones are tracked is configured globally (AppConfig.trackedFields) and can be
+ * overridden per user (UserConfig.trackedFields); the default is STATE and STATUS.
+ */
+public enum TrackedField {
+    STATE(VRChatUser::getState),
+    STATUS(VRChatUser::getStatus),
+    STATUS_DESCRIPTION(VRChatUser::getStatusDescription),
+    LOCATION(VRChatUser::getLocation),
+    WORLD(user -> WorldMetadataService.extractWorldId(user)),
+    AVATAR(VRChatUser::getCurrentAvatarImageUrl),
+    DISPLAY_NAME(VRChatUser::getDisplayName);
+
+    public static final EnumSet<TrackedField> DEFAULTS = EnumSet.of(STATE, STATUS);
+
+    private final Function<VRChatUser, String> extractor;
+
+    TrackedField(Function<VRChatUser, String> extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * @return The field's value for the user, or null if there is no user
+     */
+    public String extract(VRChatUser user) {
+        return user != null ? extractor.apply(user) : null;
+    }
+
+    /**
+     * Parses field names from configuration, ignoring unknown names.
+     * @return The parsed fields, or null if none were given (meaning "inherit")
+     */
+    public static EnumSet<TrackedField> parse(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return null;
+        }
+        EnumSet<TrackedField> fields = EnumSet.noneOf(TrackedField.class);
+        for (String name : names) {
+            try {
+                fields.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                LoggerFactory.getLogger(TrackedField.class).warn("Ignoring unknown tracked field '{}'", name);
+            }
+        }
+        return fields.isEmpty() ? null : fields;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+
+import java.time.Instant;
+
+/**
+ * Receives every observation applied to {@link UserStateService}, e.g. to make it durable.
+ * Called on the poll completion path, so implementations must not block.
+ */
+public interface UserStateJournal {
+
+    void recordState(String vrcUid, VRChatUser user, Instant timestamp);
+
+    void recordError(String vrcUid, String errorMessage, Instant timestamp);
+}
@@ -1,15 +1,26 @@
 package com.example.vrcmonitor.services;
 
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.ConfigLoader;
 import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.UserFieldChangedEvent;
+import com.example.vrcmonitor.events.UserLocationChangedEvent;
+import com.example.vrcmonitor.events.UserOnlineChangedEvent;
+import com.example.vrcmonitor.events.UserPresenceChangedEvent;
 import com.example.vrcmonitor.models.VRChatUser;
 import com.example.vrcmonitor.models.dto.StatusUpdateDTO;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -24,23 +35,123 @@ public class UserStateService {
     // Store latest state AND history per user ID
     private final Map<String, UserStateContainer> userStateAndHistory = new ConcurrentHashMap<>();
 
+    // Shared by all users' columnar histories (status strings, locations, error messages)
+    private final StringDictionary dictionary = new StringDictionary();
+
+    // Optional sink for every applied observation (the write-ahead log); attached after recovery
+    private volatile UserStateJournal journal;
+    // Further sinks (e.g. replication to read replicas), attached whenever they start
+    private final List<UserStateJournal> additionalJournals = new CopyOnWriteArrayList<>();
+
+    // Tracked fields per user, compiled from config on first use
+    private final Map<String, TrackedField[]> trackedFieldsByUser = new ConcurrentHashMap<>();
+
+    private final ConfigLoader configLoader;
+    private final UserRegistry userRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserStateService(ConfigLoader configLoader, UserRegistry userRegistry, ApplicationEventPublisher eventPublisher) {
+        this.configLoader = configLoader;
+        this.userRegistry = userRegistry;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Attaches (or detaches, with null) the journal that records every update.
+     * Set once recovery has replayed the old journal, so replayed updates aren't recorded twice.
+     */
+    public void setJournal(UserStateJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Attaches a journal in addition to the one set by {@link #setJournal}.
+     */
+    public void addJournal(UserStateJournal additionalJournal) {
+        additionalJournals.add(additionalJournal);
+    }
+
+    public void removeJournal(UserStateJournal additionalJournal) {
+        additionalJournals.remove(additionalJournal);
+    }
+
     public void updateUserState(String vrcUid, VRChatUser user, Instant timestamp) {
-        UserState newState = new UserState(user, StatusType.OK, null, timestamp);
-        UserStateContainer container = userStateAndHistory.computeIfAbsent(vrcUid, k -> new UserStateContainer());
+        applyUserState(vrcUid, user, timestamp, true);
+        UserStateJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.recordState(vrcUid, user, timestamp);
+        }
+        for (UserStateJournal additionalJournal : additionalJournals) {
+            additionalJournal.recordState(vrcUid, user, timestamp);
+        }
+    }
+
+    public void updateUserErrorState(String vrcUid, String errorMessage, Instant timestamp) {
+        applyUserErrorState(vrcUid, errorMessage, timestamp, true);
+        UserStateJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.recordError(vrcUid, errorMessage, timestamp);
+        }
+        for (UserStateJournal additionalJournal : additionalJournals) {
+            additionalJournal.recordError(vrcUid, errorMessage, timestamp);
+        }
+    }
+
+    /**
+     * Re-applies a journaled observation during recovery: same transition logic as a live
+     * update, but quiet and not journaled again. Observations that are not newer than the
+     * user's latest state are already reflected in it (the snapshot can hold records after
+     * its checkpoint) and are skipped; applying them would add the old state to history again.
+     *
+     * @return true if the observation was applied
+     */
+    public boolean replayUserState(String vrcUid, VRChatUser user, Instant timestamp) {
+        if (isReflected(vrcUid, timestamp)) {
+            return false;
+        }
+        applyUserState(vrcUid, user, timestamp, false);
+        return true;
+    }
+
+    /**
+     * Error counterpart of {@link #replayUserState}.
+     *
+     * @return true if the observation was applied
+     */
+    public boolean replayUserErrorState(String vrcUid, String errorMessage, Instant timestamp) {
+        if (isReflected(vrcUid, timestamp)) {
+            return false;
+        }
+        applyUserErrorState(vrcUid, errorMessage, timestamp, false);
+        return true;
+    }
+
+    private boolean isReflected(String vrcUid, Instant timestamp) {
+        UserState latest = getLatestUserState(vrcUid);
+        return latest != null && latest.lastUpdated() != null && timestamp != null && !timestamp.isAfter(latest.lastUpdated());
+    }
+
+    private void applyUserState(String vrcUid, VRChatUser user, Instant timestamp, boolean logChanges) {
+        UserStateContainer container = containerFor(vrcUid);
+        UserState newState = new UserState(container.getUserId(), user, StatusType.OK, null, timestamp);
         
+        // Tracked fields are folded into one fingerprint, so an unchanged poll is a single long compare
+        TrackedField[] fields = getTrackedFields(vrcUid);
+        long fingerprint = fingerprint(user, fields);
         UserState previousState = container.getLatestState();
         boolean changed = previousState == null || 
                         previousState.statusType() != StatusType.OK || // Changed if previous was error
-                        // Check state change (handle null user objects)
-                        !nullSafeEquals(previousState.user() == null ? null : previousState.user().getState(), 
-                                         user == null ? null : user.getState()) || 
-                        // Check status change (handle null user objects)
-                        !nullSafeEquals(previousState.user() == null ? null : previousState.user().getStatus(), 
-                                         user == null ? null : user.getStatus());
+                        container.fingerprintFor(fields) != fingerprint;
 
         if (changed) 
         {
-             container.addHistory(newState);
+             container.addHistory(newState, fields, fingerprint);
+             if (!logChanges) {
+                 return;
+             }
+             if (previousState != null && previousState.user() != null) {
+                 publishFieldChanges(vrcUid, previousState.user(), user, fields, timestamp);
+             }
              // Use null checks for display name as well
              log.info("Updated state for {} ({}): State='{}', Status='{}' (History updated)", 
                       user != null ? user.getDisplayName() : "UNKNOWN_USER", 
@@ -48,33 +159,64 @@ public class UserStateService {
                       user != null ? user.getState() : "N/A", 
                       user != null ? user.getStatus() : "N/A");
         } else {
-             // Update timestamp even if state/status is the same
-             container.setLatestState(newState);
+             // Update timestamp (and untracked fields) even if tracked fields are the same
+             container.refreshLatestState(newState, fields, fingerprint);
+             if (!logChanges) {
+                 return;
+             }
              log.debug("Refreshed state for {} ({}) - no change: State='{}', Status='{}'", 
                       user != null ? user.getDisplayName() : "UNKNOWN_USER", 
                       vrcUid, 
                       user != null ? user.getState() : "N/A", 
                       user != null ? user.getStatus() : "N/A");
         }
+
+        // Location moves and online/busy/offline flips are published whatever the tracked fields
+        // are (for the location index, online sessions and presence stats), after the state is
+        // applied so listeners already read the new state
+        if (logChanges && user != null) {
+            VRChatUser previousUser = previousState != null ? previousState.user() : null;
+            String previousLocation = previousUser != null ? previousUser.getLocation() : null;
+            if (previousState == null || !nullSafeEquals(previousLocation, user.getLocation())) {
+                eventPublisher.publishEvent(new UserLocationChangedEvent(vrcUid, user.getDisplayName(),
+                        previousLocation, user.getLocation(), timestamp));
+            }
+            boolean online = OnlineSessionService.isInGame(user);
+            if (previousUser == null || OnlineSessionService.isInGame(previousUser) != online) {
+                eventPublisher.publishEvent(new UserOnlineChangedEvent(vrcUid, online, user.getLocation(), timestamp));
+            }
+            PresenceCategory presence = PresenceCategory.of(user);
+            if (previousUser == null || PresenceCategory.of(previousUser) != presence) {
+                eventPublisher.publishEvent(new UserPresenceChangedEvent(vrcUid, presence, timestamp));
+            }
+        }
     }
 
-    public void updateUserErrorState(String vrcUid, String errorMessage, Instant timestamp) {
-        UserStateContainer container = userStateAndHistory.computeIfAbsent(vrcUid, k -> new UserStateContainer());
+    private void applyUserErrorState(String vrcUid, String errorMessage, Instant timestamp, boolean logChanges) {
+        UserStateContainer container = containerFor(vrcUid);
         UserState previousState = container.getLatestState();
         VRChatUser lastKnownUser = (previousState != null && previousState.statusType() != StatusType.ERROR) ? previousState.user() : null;
-        UserState errorState = new UserState(lastKnownUser, StatusType.ERROR, errorMessage, timestamp);
+        UserState errorState = new UserState(container.getUserId(), lastKnownUser, StatusType.ERROR, errorMessage, timestamp);
         
         // Only add error to history if previous state was OK
         if (previousState == null || previousState.statusType() == StatusType.OK) {
              container.addHistory(errorState);
-             log.warn("Error updating state for {}: {} (History updated)", vrcUid, errorMessage);
+             if (logChanges) {
+                 log.warn("Error updating state for {}: {} (History updated)", vrcUid, errorMessage);
+             }
         } else {
              // Update timestamp of existing error state
               container.setLatestState(errorState);
-              log.warn("Refreshed error state for {}: {}", vrcUid, errorMessage);
+              if (logChanges) {
+                  log.warn("Refreshed error state for {}: {}", vrcUid, errorMessage);
+              }
         }
     }
 
+    private UserStateContainer containerFor(String vrcUid) {
+        return userStateAndHistory.computeIfAbsent(vrcUid, k -> new UserStateContainer(userRegistry.idOf(k), dictionary));
+    }
+
     public UserState getLatestUserState(String vrcUid) {
         UserStateContainer container = userStateAndHistory.get(vrcUid);
         return (container != null) ? container.getLatestState() : null;
@@ -87,16 +229,17 @@ public class UserStateService {
      */
     public UserState getPreviousUserState(String vrcUid) {
         UserStateContainer container = userStateAndHistory.get(vrcUid);
-        if (container == null || container.getHistory().isEmpty()) {
+        if (container == null) {
             return null;
         }
         
-        List<UserState> history = container.getHistory();
-        if (history.size() < 2) {
-            return null; // No previous state
+        StatusHistory history = container.getHistory();
+        synchronized (history) {
+            if (history.size() < 2) {
+                return null; // No previous state
+            }
+            return history.get(history.size() - 2); // Second to last entry
         }
-        
-        return history.get(history.size() - 2); // Second to last entry
     }
 
     // Method to get snapshot for initial WebSocket send
@@ -108,6 +251,38 @@ public class UserStateService {
         return snapshot;
     }
 
+    /**
+     * Seeds state from a persisted snapshot (warm restart). Users that already have live
+     * state are left alone, so this is only meaningful before polling starts.
+     * @param snapshot Latest state and history per VRChat user ID
+     * @return Number of users restored
+     */
+    public int restoreSnapshot(Map<String, UserStateContainerSnapshot> snapshot) {
+        int restored = 0;
+        for (Map.Entry<String, UserStateContainerSnapshot> entry : snapshot.entrySet()) {
+            UserStateContainer container = new UserStateContainer(userRegistry.idOf(entry.getKey()), dictionary);
+            container.restore(entry.getValue());
+            if (userStateAndHistory.putIfAbsent(entry.getKey(), container) == null) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Replaces all state with a snapshot taken elsewhere (a read replica resyncing from its
+     * primary). Users missing from the snapshot are dropped. Publishes no events.
+     * @param snapshot Latest state and history per VRChat user ID
+     */
+    public void replaceSnapshot(Map<String, UserStateContainerSnapshot> snapshot) {
+        snapshot.forEach((vrcUid, containerSnapshot) -> {
+            UserStateContainer container = new UserStateContainer(userRegistry.idOf(vrcUid), dictionary);
+            container.restore(containerSnapshot);
+            userStateAndHistory.put(vrcUid, container);
+        });
+        userStateAndHistory.keySet().retainAll(snapshot.keySet());
+    }
+
     // Renamed from getAllUserStates
     public Map<String, UserState> getCurrentStates() {
         Map<String, UserState> current = new ConcurrentHashMap<>();
@@ -119,6 +294,76 @@ public class UserStateService {
         return current;
     }
 
+    /**
+     * Returns the fields tracked for a user: the user's own trackedFields if set, else the
+     * global setting, else {@link TrackedField#DEFAULTS}. Compiled once per user.
+     * @param vrcUid The VRChat user ID
+     * @return The tracked fields in declaration order
+     */
+    public TrackedField[] getTrackedFields(String vrcUid) {
+        return trackedFieldsByUser.computeIfAbsent(vrcUid, this::compileTrackedFields);
+    }
+
+    /**
+     * Drops the compiled tracked-field sets so they are rebuilt from the current config.
+     */
+    public void invalidateTrackedFields() {
+        trackedFieldsByUser.clear();
+    }
+
+    @EventListener
+    public void onConfigChanged(ConfigChangedEvent event) {
+        // Global or per-user trackedFields may have changed
+        invalidateTrackedFields();
+    }
+
+    private TrackedField[] compileTrackedFields(String vrcUid) {
+        AppConfig config = configLoader.getConfig();
+        UserConfig userConfig = userRegistry.get(vrcUid);
+        EnumSet<TrackedField> fields = userConfig != null ? TrackedField.parse(userConfig.getTrackedFields()) : null;
+        if (fields == null && config != null) {
+            fields = TrackedField.parse(config.getTrackedFields());
+        }
+        if (fields == null) {
+            fields = TrackedField.DEFAULTS;
+        }
+        return fields.toArray(new TrackedField[0]);
+    }
+
+    /**
+     * 64-bit FNV-1a over the tracked field values (with field ordinals and lengths mixed in,
+     * so values can't run into each other).
+     */
+    static long fingerprint(VRChatUser user, TrackedField[] fields) {
+        long hash = 0xcbf29ce484222325L;
+        for (TrackedField field : fields) {
+            hash = (hash ^ (field.ordinal() + 1)) * 0x100000001b3L;
+            String value = field.extract(user);
+            if (value == null) {
+                hash = (hash ^ 0x10000) * 0x100000001b3L;
+                continue;
+            }
+            hash = (hash ^ (0x20000 + value.length())) * 0x100000001b3L;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    // One event per tracked field whose value differs
+    private void publishFieldChanges(String vrcUid, VRChatUser before, VRChatUser after,
+                                     TrackedField[] fields, Instant timestamp) {
+        for (TrackedField field : fields) {
+            String previousValue = field.extract(before);
+            String newValue = field.extract(after);
+            if (!nullSafeEquals(previousValue, newValue)) {
+                log.debug("Tracked field {} changed for {}: '{}' -> '{}'", field, vrcUid, previousValue, newValue);
+                eventPublisher.publishEvent(new UserFieldChangedEvent(vrcUid, field, previousValue, newValue, timestamp));
+            }
+        }
+    }
+
     // Helper for null-safe equals
     private boolean nullSafeEquals(Object a, Object b) {
         return (a == b) || (a != null && a.equals(b));
@@ -127,44 +372,111 @@ public class UserStateService {
     // Container to hold both latest state and history
     @Getter // Lombok for getters
     private static class UserStateContainer {
-        private UserState latestState;
-        private final List<UserState> history = new CopyOnWriteArrayList<>(); // Thread-safe list
+        private final int userId;
+        private volatile UserState latestState;
+        // Columnar, shares the service-wide dictionary; entries are materialized on read
+        private final StatusHistory history;
+
+        UserStateContainer(int userId, StringDictionary dictionary) {
+            this.userId = userId;
+            this.history = new StatusHistory(userId, dictionary);
+        }
+
+        // Fingerprint of latestState's tracked fields, and the field set it was computed for
+        private long latestFingerprint;
+        private TrackedField[] fingerprintFields;
+
+        /**
+         * @return The latest state's fingerprint for the given fields (recomputed if the
+         *         tracked set changed or the state was restored/replaced by an error)
+         */
+        public long fingerprintFor(TrackedField[] fields) {
+            synchronized (history) {
+                if (fingerprintFields != fields) {
+                    latestFingerprint = fingerprint(latestState != null ? latestState.user() : null, fields);
+                    fingerprintFields = fields;
+                }
+                return latestFingerprint;
+            }
+        }
+
+        public void addHistory(UserState state, TrackedField[] fields, long fingerprint) {
+            synchronized (history) {
+                addHistory(state);
+                this.latestFingerprint = fingerprint;
+                this.fingerprintFields = fields;
+            }
+        }
+
+        /**
+         * Replaces the newest history entry with a poll whose tracked fields didn't change.
+         */
+        public void refreshLatestState(UserState state, TrackedField[] fields, long fingerprint) {
+            synchronized (history) {
+                this.latestState = state;
+                if (history.isEmpty()) {
+                    history.add(state);
+                } else {
+                    history.replaceLast(state);
+                }
+                this.latestFingerprint = fingerprint;
+                this.fingerprintFields = fields;
+            }
+        }
 
         public void addHistory(UserState state) {
-            this.latestState = state;
-            this.history.add(state);
-            // Trim history if it exceeds the limit
-            while (history.size() > MAX_HISTORY_PER_USER) {
-                history.remove(0); // Remove the oldest entry
+            synchronized (history) {
+                this.fingerprintFields = null; // Recompute lazily for the new latest state
+                this.latestState = state;
+                this.history.add(state);
+                // Trim history if it exceeds the limit
+                while (history.size() > MAX_HISTORY_PER_USER) {
+                    history.removeFirst(); // Remove the oldest entry
+                }
             }
         }
         
         public void setLatestState(UserState state) {
-            this.latestState = state;
-             // Update the timestamp of the last entry if it represents the same state logically
-             if (!history.isEmpty()) {
-                  UserState lastHistory = history.get(history.size() - 1);
-                  if (lastHistory.statusType() == state.statusType() && 
-                      nullSafeEquals(lastHistory.errorMessage(), state.errorMessage()) &&
-                      (state.user() != null && lastHistory.user() != null && 
-                       nullSafeEquals(lastHistory.user().getState(), state.user().getState()) &&
-                       nullSafeEquals(lastHistory.user().getStatus(), state.user().getStatus())) ||
-                      (state.user() == null && lastHistory.user() == null) // Both null (e.g., initial error state)
-                     ) 
-                  { 
-                       // Replace last entry with updated timestamp rather than adding duplicate
-                       history.set(history.size() - 1, state);
-                       return;
-                  } 
-             }
-             // If different or history empty, just add
-             // This case should ideally be covered by addHistory, but added as safeguard
-             // log.warn("setLatestState called without adding history when state changed, adding now.");
-             // addHistory(state);
+            synchronized (history) {
+                this.fingerprintFields = null;
+                this.latestState = state;
+                 // Update the timestamp of the last entry if it represents the same state logically
+                 if (!history.isEmpty()) {
+                      UserState lastHistory = history.last();
+                      if (lastHistory.statusType() == state.statusType() && 
+                          nullSafeEquals(lastHistory.errorMessage(), state.errorMessage()) &&
+                          (state.user() != null && lastHistory.user() != null && 
+                           nullSafeEquals(lastHistory.user().getState(), state.user().getState()) &&
+                           nullSafeEquals(lastHistory.user().getStatus(), state.user().getStatus())) ||
+                          (state.user() == null && lastHistory.user() == null) // Both null (e.g., initial error state)
+                         ) 
+                      { 
+                           // Replace last entry with updated timestamp rather than adding duplicate
+                           history.replaceLast(state);
+                           return;
+                      } 
+                 }
+                 // If different or history empty, just add
+                 // This case should ideally be covered by addHistory, but added as safeguard
+                 // log.warn("setLatestState called without adding history when state changed, adding now.");
+                 // addHistory(state);
+            }
+        }
+
+        public void restore(UserStateContainerSnapshot snapshot) {
+            synchronized (history) {
+                List<UserState> restoredHistory = snapshot.history();
+                int from = Math.max(0, restoredHistory.size() - MAX_HISTORY_PER_USER);
+                restoredHistory.subList(from, restoredHistory.size()).forEach(history::add);
+                this.latestState = snapshot.latestState() != null ? snapshot.latestState().withUserId(userId) : null;
+                this.fingerprintFields = null;
+            }
         }
 
         public UserStateContainerSnapshot getSnapshot() {
-            return new UserStateContainerSnapshot(latestState, List.copyOf(history));
+            synchronized (history) {
+                return new UserStateContainerSnapshot(latestState, List.copyOf(history.toList()));
+            }
         }
         
         // Helper for null-safe equals within the container context
@@ -179,13 +491,21 @@ public class UserStateService {
         List<UserState> history
     ) {}
 
-    // Inner record for individual state points (remains same)
+    // Inner record for individual state points; userId is the user's UserRegistry id
     public record UserState(
+        int userId,
         VRChatUser user, 
         StatusType statusType,
         String errorMessage, 
         Instant lastUpdated
-    ) {}
+    ) {
+        /**
+         * @return This state attached to the given user (states are decoded without one)
+         */
+        public UserState withUserId(int id) {
+            return id == userId ? this : new UserState(id, user, statusType, errorMessage, lastUpdated);
+        }
+    }
 
     // Enum for status type (remains same)
     public enum StatusType {
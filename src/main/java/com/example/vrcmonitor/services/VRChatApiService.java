@@ -2,6 +2,7 @@ package com.example.vrcmonitor.services;
 
 import com.example.vrcmonitor.models.CurrentUser;
 import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.models.VRChatWorld;
 import com.example.vrcmonitor.models.dto.LogEntryDTO;
 import com.example.vrcmonitor.models.dto.WsMessageDTO;
 import com.example.vrcmonitor.web.StatusUpdateHandler;
@@ -24,7 +25,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 import java.time.Duration;
-import java.io.Console;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
@@ -35,6 +35,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.io.IOException;
 import java.net.SocketException;
+import java.net.URI;
 import io.netty.channel.ConnectTimeoutException;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import com.example.vrcmonitor.services.ApiRateLimiter;
@@ -42,9 +43,11 @@ import reactor.core.scheduler.Schedulers;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 import com.example.vrcmonitor.logging.ErrorFileLogger;
-import com.example.vrcmonitor.services.SessionCacheManager;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
 
 @Service
 public class VRChatApiService {
@@ -55,33 +58,38 @@ public class VRChatApiService {
     private static final String VRC_USER_AGENT = "VRC.Core.BestHTTP/2.2.1.0";
 
     private final WebClient webClient;
+    // Separate client for binary image downloads: no body logging, follows CDN redirects
+    private final WebClient imageWebClient;
     private final ObjectMapper objectMapper;
     private final ApiRateLimiter apiRateLimiter;
     private final ErrorFileLogger errorFileLogger;
-    private final SessionCacheManager sessionCacheManager;
+    private final SessionManager sessionManager;
     
     @Lazy
     @Autowired
     private StatusUpdateHandler statusUpdateHandler; // Used to broadcast logs
 
+    // Session cookies live in SessionManager; this only holds the temporary cookie
+    // between the initial /auth/user call and 2FA verification
+    private volatile String pendingAuthCookie = null;
     @Getter
-    private String authCookie = null; // Holds the current auth cookie (temporary or final)
-    // Add field to store the 2FA cookie received after successful verification
-    private String twoFactorAuthCookie = null;
-    @Getter
-    private String required2faType = null;
+    private volatile String required2faType = null;
 
     // Retry configuration
     private static final int MAX_RETRY_ATTEMPTS = 7; // Example: allows delays up to 64s, then hits max
     private static final Duration MIN_RETRY_BACKOFF = Duration.ofSeconds(1);
     private static final Duration MAX_RETRY_BACKOFF = Duration.ofMinutes(10);
 
+    // Upper bound for a single avatar/icon image download
+    public static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+    private static final Duration IMAGE_FETCH_TIMEOUT = Duration.ofSeconds(20);
+
     public VRChatApiService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper, ApiRateLimiter apiRateLimiter, ErrorFileLogger errorFileLogger,
-                           SessionCacheManager sessionCacheManager) {
+                           SessionManager sessionManager) {
         this.objectMapper = objectMapper;
         this.apiRateLimiter = apiRateLimiter;
         this.errorFileLogger = errorFileLogger;
-        this.sessionCacheManager = sessionCacheManager;
+        this.sessionManager = sessionManager;
         
         // Create filter functions to log requests and responses
         ExchangeFilterFunction requestLoggingFilter = ExchangeFilterFunction.ofRequestProcessor(request -> {
@@ -119,7 +127,10 @@ public class VRChatApiService {
                     // Broadcast to clients if handler is available
                     try {
                         if (statusUpdateHandler != null) {
-                            LogEntryDTO logEntry = new LogEntryDTO("response", sanitizedLog, Instant.now());
+                            // Failed calls stand out for clients that only subscribe to warnings
+                            int status = response.statusCode().value();
+                            String level = status >= 500 ? "ERROR" : status >= 400 ? "WARN" : "DEBUG";
+                            LogEntryDTO logEntry = new LogEntryDTO("response", sanitizedLog, Instant.now(), level);
                             statusUpdateHandler.broadcastLogEntry(logEntry);
                         } else {
                             log.debug("statusUpdateHandler is null, cannot broadcast response log");
@@ -160,10 +171,20 @@ public class VRChatApiService {
                 .filter(responseLoggingFilter)
                 .build();
                 
+        // Image downloads skip the logging filters (binary bodies) and follow the
+        // api.vrchat.cloud -> CDN redirects that file URLs usually go through. They never
+        // carry credentials, not even on a redirect.
+        this.imageWebClient = webClientBuilder.clone()
+                .filters(filters -> filters.clear())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
+                        .followRedirect(true, redirect -> redirect.requestHeaders()
+                                .remove(HttpHeaders.COOKIE)
+                                .remove(HttpHeaders.AUTHORIZATION))))
+                .defaultHeader(HttpHeaders.USER_AGENT, VRC_USER_AGENT)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IMAGE_BYTES))
+                .build();
+                
         log.debug("VRChatApiService using injected ObjectMapper: {}", objectMapper.hashCode());
-        
-        // Try to restore session from cache on startup
-        tryRestoreSessionFromCache();
     }
     
     /**
@@ -192,7 +213,7 @@ public class VRChatApiService {
         // Broadcast to clients if handler is available
         try {
             if (statusUpdateHandler != null) {
-                LogEntryDTO logEntry = new LogEntryDTO("request", sanitizedLog, Instant.now());
+                LogEntryDTO logEntry = new LogEntryDTO("request", sanitizedLog, Instant.now(), "DEBUG");
                 statusUpdateHandler.broadcastLogEntry(logEntry);
             } else {
                 log.debug("statusUpdateHandler is null, cannot broadcast request log");
@@ -280,38 +301,13 @@ public class VRChatApiService {
         return result;
     }
 
-    /**
-     * Attempts to restore a previously saved session from the cache file.
-     * Only runs once during initialization.
-     */
-    private void tryRestoreSessionFromCache() {
-        Map<String, String> sessionData = sessionCacheManager.loadSessionCache();
-        if (sessionData != null) {
-            String cachedAuthCookie = sessionData.get("authCookie");
-            String cachedTwoFactorAuthCookie = sessionData.get("twoFactorAuthCookie");
-            
-            if (cachedAuthCookie != null && !cachedAuthCookie.isEmpty()) {
-                log.info("Restoring auth cookie from session cache");
-                this.authCookie = cachedAuthCookie;
-                
-                if (cachedTwoFactorAuthCookie != null && !cachedTwoFactorAuthCookie.isEmpty()) {
-                    log.info("Restoring two-factor auth cookie from session cache");
-                    this.twoFactorAuthCookie = cachedTwoFactorAuthCookie;
-                }
-                
-                // The session will be tested with the first API request
-                // If it's invalid, it will be cleared automatically
-            }
-        }
-    }
-
     public Mono<LoginResult> login(String username, char[] password) {
         String credentials = username + ":" + new String(password);
         String encodedCredentials = Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
         clearPassword(password);
 
-        this.authCookie = null; // Reset before login
-        this.twoFactorAuthCookie = null; // Reset 2FA cookie
+        sessionManager.clear("New login started"); // Reset before login
+        this.pendingAuthCookie = null;
         this.required2faType = null;
 
         // Step 1: Initial /auth/user check
@@ -326,7 +322,7 @@ public class VRChatApiService {
                     // Store the initial auth cookie - it's needed even if 2FA is required
                     ResponseCookie initialAuthCookie = response.cookies().getFirst("auth");
                     if (initialAuthCookie != null) {
-                        this.authCookie = initialAuthCookie.getValue();
+                        this.pendingAuthCookie = initialAuthCookie.getValue();
                         log.debug("Stored initial 'auth' cookie from /auth/user response.");
                         
                         // Process successful responses (2xx status codes)
@@ -338,7 +334,7 @@ public class VRChatApiService {
                                     currentUser = objectMapper.readValue(rawBody, CurrentUser.class);
                                 } catch (Exception e) {
                                     log.error("Error parsing CurrentUser JSON: {}", e.getMessage());
-                                    this.authCookie = null; 
+                                    this.pendingAuthCookie = null; 
                                     return Mono.just(LoginResult.FAILURE_NETWORK);
                                 }
 
@@ -349,7 +345,7 @@ public class VRChatApiService {
                                     log.info("Selected 2FA type: {}. Returning REQUIRES_2FA result.", this.required2faType);
 
                                     // Initial auth cookie must exist to proceed
-                                    if (this.authCookie == null) { 
+                                    if (this.pendingAuthCookie == null) { 
                                          log.error("INTERNAL ERROR: 2FA required, but initial 'auth' cookie is missing. Cannot proceed.");
                                          return Mono.just(LoginResult.FAILURE_MISSING_AUTH_COOKIE); 
                                     }
@@ -357,17 +353,19 @@ public class VRChatApiService {
                                     // Return that 2FA is required - client will handle collecting the code
                                     return Mono.just(LoginResult.REQUIRES_2FA);
                                 } else {
-                                    // Login successful, 2FA not required - save to cache
-                                    sessionCacheManager.saveSessionCache(this.authCookie, null);
+                                    // Login successful, 2FA not required - establish the session (also saves to cache)
+                                    String authCookie = this.pendingAuthCookie;
+                                    this.pendingAuthCookie = null;
                                     log.info("VRChat login successful (No 2FA). Using 'auth' cookie from initial response.");
-                                    return Mono.just(LoginResult.SUCCESS);
+                                    return afterSessionChange(() -> sessionManager.establish(authCookie, null),
+                                            Mono.just(LoginResult.SUCCESS));
                                 }
                             });
                         } else {
                             // Handle non-2xx status with auth cookie present
                             // This is unusual but possible - we got an auth cookie but response indicates failure
                             // In this case, we don't trust the auth cookie and clear it
-                            this.authCookie = null;
+                            this.pendingAuthCookie = null;
                             return response.bodyToMono(String.class)
                                     .defaultIfEmpty("[No error body]")
                                     .map(body -> {
@@ -390,7 +388,7 @@ public class VRChatApiService {
                     }
                 })
                 .onErrorResume(error -> {
-                    this.authCookie = null; 
+                    this.pendingAuthCookie = null; 
                     log.error("Error during VRChat initial login request: {}", error.getMessage(), error);
                     return Mono.just(LoginResult.FAILURE_NETWORK);
                 });
@@ -407,7 +405,7 @@ public class VRChatApiService {
             return Mono.just(LoginResult.FAILURE_2FA_INVALID_CODE);
         }
         
-        if (this.authCookie == null) {
+        if (this.pendingAuthCookie == null) {
             log.error("INTERNAL ERROR: Cannot verify 2FA code, initial 'auth' cookie is missing.");
             return Mono.just(LoginResult.FAILURE_MISSING_AUTH_COOKIE);
         }
@@ -417,7 +415,7 @@ public class VRChatApiService {
             return Mono.just(LoginResult.FAILURE_UNSUPPORTED_2FA);
         }
         
-        final String initialAuthCookieValue = this.authCookie;
+        final String initialAuthCookieValue = this.pendingAuthCookie;
         // Don't clear the auth cookie before verification, keep it until we have a confirmed new one
         // this.authCookie = null; -- REMOVE THIS LINE
 
@@ -449,35 +447,39 @@ public class VRChatApiService {
                         ResponseCookie finalAuthCookie = response.cookies().getFirst("auth");
                         ResponseCookie received2faCookie = response.cookies().getFirst("twoFactorAuth"); // Extract 2FA cookie
 
+                        String finalAuthCookieValue;
                         if (finalAuthCookie != null) {
-                            this.authCookie = finalAuthCookie.getValue();
+                            finalAuthCookieValue = finalAuthCookie.getValue();
                             log.debug("Stored final 'auth' cookie from verification response.");
                         } else {
                             // If no new auth cookie, maybe the initial one is still valid? Re-use it.
                              log.warn("No new 'auth' cookie in verification response. Re-using initial one.");
-                             this.authCookie = initialAuthCookieValue;
+                             finalAuthCookieValue = initialAuthCookieValue;
                         }
 
+                        String twoFactorAuthCookieValue = null;
                         if (received2faCookie != null) {
-                            this.twoFactorAuthCookie = received2faCookie.getValue(); // Store the 2FA cookie
+                            twoFactorAuthCookieValue = received2faCookie.getValue(); // Store the 2FA cookie
                             log.debug("Stored 'twoFactorAuth' cookie from verification response.");
                         } else {
                              // This might be okay, but log a warning
                              log.warn("'twoFactorAuth' cookie was MISSING from successful verification response.");
                         }
                         
-                        // Save the complete session to cache after successful 2FA
-                        sessionCacheManager.saveSessionCache(this.authCookie, this.twoFactorAuthCookie);
+                        // Install both cookies atomically; this also saves the session cache
+                        String finalTwoFactorAuthCookieValue = twoFactorAuthCookieValue;
+                        this.pendingAuthCookie = null;
                         
                         log.info("VRChat 2FA verification successful.");
-                        return response.bodyToMono(String.class).thenReturn(LoginResult.SUCCESS);
+                        return response.bodyToMono(String.class).then(afterSessionChange(
+                                () -> sessionManager.establish(finalAuthCookieValue, finalTwoFactorAuthCookieValue),
+                                Mono.just(LoginResult.SUCCESS)));
 
                     } else {
                         // Handle 2FA failure - clear auth cookies and cache
-                        this.authCookie = null;
-                        this.twoFactorAuthCookie = null;
-                        sessionCacheManager.clearSessionCache();
-                         return response.bodyToMono(String.class)
+                        this.pendingAuthCookie = null;
+                        return afterSessionChange(() -> sessionManager.clear("2FA verification failed"),
+                                response.bodyToMono(String.class)
                                 .defaultIfEmpty("[No error body]")
                                 .map(body -> {
                                     log.warn("VRChat 2FA verification failed. Status: {}, Body: {}", response.statusCode(), body);
@@ -486,12 +488,11 @@ public class VRChatApiService {
                                     } else {
                                          return LoginResult.FAILURE_2FA_VERIFICATION_FAILED;
                                     }
-                                });
+                                }));
                     }
                 })
                 .onErrorResume(error -> {
-                    this.authCookie = null; // Clear cookies on network error
-                    this.twoFactorAuthCookie = null;
+                    this.pendingAuthCookie = null; // Clear cookies on network error
                     log.error("Error during VRChat 2FA submission: {}", error.getMessage(), error);
                     return Mono.just(LoginResult.FAILURE_NETWORK);
                 });
@@ -522,45 +523,41 @@ public class VRChatApiService {
     }
     
     public Mono<VRChatUser> getUserByUid(String vrcUid) {
-        if (authCookie == null) {
+        return getUserByUid(vrcUid, ApiRateLimiter.RequestClass.PRESENCE);
+    }
+
+    /**
+     * Fetches a user's current status.
+     * 
+     * @param vrcUid The VRChat user ID
+     * @param requestClass Limiter class: PRESENCE for routine polls, INTERACTIVE for user-triggered refreshes
+     * @return Mono with the user, or empty if not authenticated
+     */
+    public Mono<VRChatUser> getUserByUid(String vrcUid, ApiRateLimiter.RequestClass requestClass) {
+        return getUserByUid(vrcUid, requestClass, null);
+    }
+
+    /**
+     * Fetches a user's current status, sharing the limiter's slots fairly between owners.
+     *
+     * @param vrcUid The VRChat user ID
+     * @param requestClass Limiter class: PRESENCE for routine polls, INTERACTIVE for user-triggered refreshes
+     * @param owner The tenant the poll is made for, or null
+     * @return Mono with the user, or empty if not authenticated
+     */
+    public Mono<VRChatUser> getUserByUid(String vrcUid, ApiRateLimiter.RequestClass requestClass, String owner) {
+        if (sessionManager.current() == null) {
             log.warn("Auth Cookie not available. Cannot fetch user ID: {}. Please login again.", vrcUid);
             return Mono.empty();
         }
 
-        // Define the core request logic as a deferred Mono
-        return Mono.fromCallable(() -> {
-            // Check auth cookie again inside the deferred execution
-            // to catch any auth cookie that was cleared by another request
-            if (authCookie == null) {
-                log.warn("Auth Cookie was cleared during wait. Cannot fetch user ID: {}. Please login again.", vrcUid);
-                return null;
-            }
-
-            // Apply rate limiting before making the API call
-            try {
-                apiRateLimiter.waitForThrottlingConstraints();
-                return true;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Rate limiting wait interrupted", e);
-            }
-        })
-        .flatMap(readyToFetch -> {
-            if (readyToFetch == null) {
-                return Mono.empty();
-            }
-            
+        return awaitSessionSlot(requestClass, owner)
+        .flatMap(session -> {
             log.debug("Fetching user data for: {}", vrcUid);
             
-            MultiValueMap<String, String> cookies = new LinkedMultiValueMap<>();
-            cookies.add("auth", authCookie);
-            if (twoFactorAuthCookie != null) {
-                cookies.add("twoFactorAuth", twoFactorAuthCookie);
-            }
-            
             return webClient.get()
                 .uri("/users/" + vrcUid)
-                .cookies(cookiesMap -> cookiesMap.addAll(cookies))
+                .cookies(cookiesMap -> cookiesMap.addAll(sessionCookies(session)))
                 .header(HttpHeaders.USER_AGENT, VRC_USER_AGENT)
                 .exchangeToMono(response -> {
                     // Log request details for debugging
@@ -568,8 +565,9 @@ public class VRChatApiService {
                     
                     // Process response based on status code
                     if (response.statusCode().is2xxSuccessful()) {
-                        return response.bodyToMono(VRChatUser.class)
-                            .doOnError(e -> log.error("Error parsing user response: {}", e.getMessage()));
+                        return afterSessionChange(() -> sessionManager.markVerified(session.generation()),
+                            response.bodyToMono(VRChatUser.class)
+                                .doOnError(e -> log.error("Error parsing user response: {}", e.getMessage())));
                     } else {
                         // For error responses, try to extract error message from body
                         return response.bodyToMono(String.class)
@@ -579,9 +577,7 @@ public class VRChatApiService {
                                          vrcUid, response.statusCode().value(), body);
                                 
                                 if (response.statusCode().equals(HttpStatusCode.valueOf(401))) {
-                                    log.warn("Authentication failed (401) for user {}, clearing session", vrcUid);
-                                    logout(); // Clear session cookies
-                                    return Mono.error(new AuthenticationException("Authentication error"));
+                                    return sessionRejected(session, "401 while polling user " + vrcUid);
                                 } else {
                                     return Mono.error(new ApiException(
                                         "API Error " + response.statusCode().value() + ": " + body, 
@@ -620,7 +616,68 @@ public class VRChatApiService {
                                 retrySignal.failure().getMessage());
                     })
                 );
-        }).subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+
+    /**
+     * Waits for a limiter slot on a worker thread. Requests queued while the session ends are
+     * dropped from the limiter without using a slot, so nothing queued under a dead session is
+     * sent and a new login is not stuck behind them.
+     *
+     * @return Mono with the session to make the request with, or empty if there is none
+     */
+    private Mono<SessionCredentials> awaitSessionSlot(ApiRateLimiter.RequestClass requestClass) {
+        return awaitSessionSlot(requestClass, null);
+    }
+
+    // As above, for a request made for the given owner (tenant) of the limiter's slots
+    private Mono<SessionCredentials> awaitSessionSlot(ApiRateLimiter.RequestClass requestClass, String owner) {
+        return Mono.fromCallable(() -> {
+            boolean granted;
+            try {
+                granted = apiRateLimiter.waitForThrottlingConstraints(requestClass, owner, () -> sessionManager.current() != null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Rate limiting wait interrupted", e);
+            }
+            // Take one consistent snapshot of the session for this request
+            SessionCredentials session = granted ? sessionManager.current() : null;
+            if (session == null) {
+                if (granted) {
+                    apiRateLimiter.recordRequestFinished(); // Ended right after the grant; give the slot back
+                }
+                log.debug("Session ended while waiting for a {} slot", requestClass);
+            }
+            return session;
+        })
+        .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Handles a 401: only the first one for a session ends it (the rest are no-ops), and that
+     * one also releases the requests still waiting in the limiter for the session.
+     *
+     * @return Mono failing with an {@link AuthenticationException}
+     */
+    private <T> Mono<T> sessionRejected(SessionCredentials session, String reason) {
+        return afterSessionChange(() -> {
+            boolean ended = sessionManager.invalidate(session.generation(), reason);
+            log.warn("Authentication failed: {}{}", reason, ended ? ", session invalidated" : "");
+            if (ended) {
+                apiRateLimiter.wakeWaiters();
+            }
+        }, Mono.error(new AuthenticationException("Authentication error", session.generation())));
+    }
+
+    /**
+     * Applies a session change, then continues with {@code then}. Responses arrive on the Netty
+     * event loop, while a session change can write the session cache and runs the session event
+     * listeners (which start or pause monitoring), so the change runs on a worker thread instead.
+     */
+    private <T> Mono<T> afterSessionChange(Runnable change, Mono<T> then) {
+        return Mono.fromRunnable(change)
+            .subscribeOn(Schedulers.boundedElastic())
+            .then(then);
     }
 
     // Helper method to determine if an error is retryable
@@ -633,16 +690,34 @@ public class VRChatApiService {
     }
 
     public void logout() {
-        this.authCookie = null;
-        this.twoFactorAuthCookie = null; // Clear 2FA cookie too
+        this.pendingAuthCookie = null;
         this.required2faType = null;
         
-        // Clear the session cache when explicitly logging out
-        sessionCacheManager.clearSessionCache();
+        // Ends the session (if any) and clears the session cache
+        sessionManager.clear("Logout");
+        apiRateLimiter.wakeWaiters();
         
         log.info("Local auth cookies cleared and session cache removed.");
     }
 
+    /**
+     * @return The current auth cookie, or null if there is no session
+     */
+    public String getAuthCookie() {
+        SessionCredentials session = sessionManager.current();
+        return session != null ? session.authCookie() : null;
+    }
+
+    // Build the cookie map for a request from a single session snapshot
+    private static MultiValueMap<String, String> sessionCookies(SessionCredentials session) {
+        MultiValueMap<String, String> cookies = new LinkedMultiValueMap<>();
+        cookies.add("auth", session.authCookie());
+        if (session.twoFactorAuthCookie() != null) {
+            cookies.add("twoFactorAuth", session.twoFactorAuthCookie());
+        }
+        return cookies;
+    }
+
     // Utility to safely clear password array
     public static void clearPassword(char[] password) {
         if (password != null) {
@@ -657,7 +732,6 @@ public class VRChatApiService {
         FAILURE_2FA_INVALID_CODE,
         FAILURE_2FA_VERIFICATION_FAILED, // General failure during POST verify step
         FAILURE_MISSING_AUTH_COOKIE, // Specifically for the *initial* auth cookie needed for 2FA verify
-        FAILURE_CONSOLE_UNAVAILABLE,
         FAILURE_UNSUPPORTED_2FA,
         FAILURE_NETWORK,
         REQUIRES_2FA         // New status to indicate client needs to provide 2FA code
@@ -668,63 +742,55 @@ public class VRChatApiService {
      * @return true if an active session exists
      */
     public boolean hasActiveSession() {
-        return authCookie != null;
+        return sessionManager.current() != null;
     }
 
     /**
      * Gets the currently logged-in user's profile.
      * This is used to validate if a session is still active.
      * 
-     * @return Mono with the current user's profile or empty if not authenticated
+     * @return Mono with the current user's profile, empty if not authenticated, or an
+     *         {@link AuthenticationException} if the session was rejected
      */
     public Mono<VRChatUser> getCurrentUser() {
-        if (authCookie == null) {
+        // Session validation is interactive by default: the UI is waiting on it
+        return getCurrentUser(ApiRateLimiter.RequestClass.INTERACTIVE);
+    }
+
+    /**
+     * Gets the currently logged-in user's profile using the given rate limiter class.
+     * Background session health checks use {@link ApiRateLimiter.RequestClass#PRESENCE}.
+     * 
+     * @param requestClass The rate limiter priority class for this request
+     * @return Mono with the current user's profile, empty if not authenticated, or an
+     *         {@link AuthenticationException} if the session was rejected
+     */
+    public Mono<VRChatUser> getCurrentUser(ApiRateLimiter.RequestClass requestClass) {
+        if (sessionManager.current() == null) {
             log.warn("Auth Cookie not available. Cannot get current user. Please login again.");
             return Mono.empty();
         }
 
-        // Use Mono.fromCallable with proper rate limiting
-        return Mono.fromCallable(() -> {
-            try {
-                apiRateLimiter.waitForThrottlingConstraints();
-                return true;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Rate limiting wait interrupted", e);
-            }
-        })
-        .flatMap(readyToFetch -> {
-            // Check auth cookie again inside the deferred execution
-            if (authCookie == null) {
-                log.warn("Auth Cookie was cleared during wait. Cannot get current user. Please login again.");
-                return Mono.empty();
-            }
-            
+        return awaitSessionSlot(requestClass)
+        .flatMap(session -> {
             log.debug("Fetching current user profile");
             
-            MultiValueMap<String, String> cookies = new LinkedMultiValueMap<>();
-            cookies.add("auth", authCookie);
-            if (twoFactorAuthCookie != null) {
-                cookies.add("twoFactorAuth", twoFactorAuthCookie);
-            }
-            
             return webClient.get()
                 .uri("/auth/user")
-                .cookies(cookiesMap -> cookiesMap.addAll(cookies))
+                .cookies(cookiesMap -> cookiesMap.addAll(sessionCookies(session)))
                 .header(HttpHeaders.USER_AGENT, VRC_USER_AGENT)
                 .exchangeToMono(response -> {
                     // Log request details for debugging
                     logRequestDetails("GET", "/auth/user");
                     
                     if (response.statusCode().is2xxSuccessful()) {
-                        return response.bodyToMono(VRChatUser.class)
-                            .doOnError(error -> {
-                                log.error("Error parsing current user data: {}", error.getMessage());
-                            });
+                        return afterSessionChange(() -> sessionManager.markVerified(session.generation()),
+                            response.bodyToMono(VRChatUser.class)
+                                .doOnError(error -> {
+                                    log.error("Error parsing current user data: {}", error.getMessage());
+                                }));
                     } else if (response.statusCode().equals(HttpStatusCode.valueOf(401))) {
-                        log.warn("Authentication expired. Session invalid.");
-                        logout(); // Clear session since it's invalid
-                        return Mono.empty();
+                        return sessionRejected(session, "401 from /auth/user");
                     } else {
                         // Other errors
                         return response.bodyToMono(String.class)
@@ -741,18 +807,117 @@ public class VRChatApiService {
                     apiRateLimiter.recordRequestFinished();
                     log.debug("Current user request completed with signal: {}", signalType);
                 });
+        });
+    }
+
+    /**
+     * Fetches world metadata (name, capacity, thumbnails).
+     * This is an enrichment call, so it runs in the limiter's background class and
+     * only gets the slots left over by interactive requests and presence polls.
+     * 
+     * @param worldId The world ID (wrld_...)
+     * @return Mono with the world, or empty if not authenticated
+     */
+    public Mono<VRChatWorld> getWorld(String worldId) {
+        if (sessionManager.current() == null) {
+            log.debug("Auth Cookie not available. Cannot fetch world: {}", worldId);
+            return Mono.empty();
+        }
+
+        return awaitSessionSlot(ApiRateLimiter.RequestClass.BACKGROUND)
+        .flatMap(session -> {
+            log.debug("Fetching world metadata for: {}", worldId);
+            
+            return webClient.get()
+                .uri("/worlds/" + worldId)
+                .cookies(cookiesMap -> cookiesMap.addAll(sessionCookies(session)))
+                .header(HttpHeaders.USER_AGENT, VRC_USER_AGENT)
+                .exchangeToMono(response -> {
+                    logRequestDetails("GET", "/worlds/" + worldId);
+                    
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return afterSessionChange(() -> sessionManager.markVerified(session.generation()),
+                            response.bodyToMono(VRChatWorld.class)
+                                .doOnError(e -> log.error("Error parsing world response: {}", e.getMessage())));
+                    }
+                    if (response.statusCode().equals(HttpStatusCode.valueOf(401))) {
+                        return sessionRejected(session, "401 while fetching world " + worldId);
+                    }
+                    return response.bodyToMono(String.class)
+                        .defaultIfEmpty("{}")
+                        .flatMap(body -> {
+                            log.warn("Error response for world {}: Status: {}, Body: {}", 
+                                     worldId, response.statusCode().value(), body);
+                            return Mono.<VRChatWorld>error(new ApiException(
+                                "API Error " + response.statusCode().value() + ": " + body, 
+                                response.statusCode().value()));
+                        });
+                })
+                .doFinally(signalType -> {
+                    apiRateLimiter.recordRequestFinished();
+                    log.debug("Request for world {} completed with signal: {}", worldId, signalType);
+                });
+        });
+    }
+
+    /**
+     * Downloads an avatar/icon image. The URL comes from a user's profile, so it is fetched
+     * anonymously (no session cookies or auth headers, wherever it points). Like other
+     * enrichment calls, it waits in the limiter's background class.
+     * 
+     * @param imageUrl Absolute http(s) image URL as reported in a {@link VRChatUser}
+     * @return Mono with the response entity holding the raw bytes and content type
+     */
+    public Mono<ResponseEntity<byte[]>> fetchImage(String imageUrl) {
+        URI uri;
+        try {
+            uri = URI.create(imageUrl);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new IllegalArgumentException("Invalid image URL: " + imageUrl, e));
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) && !"http".equalsIgnoreCase(uri.getScheme())) {
+            return Mono.error(new IllegalArgumentException("Not an http(s) image URL: " + imageUrl));
+        }
+
+        return Mono.fromCallable(() -> {
+            try {
+                apiRateLimiter.waitForThrottlingConstraints(ApiRateLimiter.RequestClass.BACKGROUND);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Rate limiting wait interrupted", e);
+            }
         })
+        .flatMap(readyToFetch -> imageWebClient.get().uri(uri)
+            .retrieve()
+            .toEntity(byte[].class)
+            .timeout(IMAGE_FETCH_TIMEOUT)
+            .doFinally(signalType -> apiRateLimiter.recordRequestFinished()))
+        .doOnError(error -> log.warn("Image download failed for {}: {}", imageUrl, error.getMessage()))
         .subscribeOn(Schedulers.boundedElastic());
     }
 
     // Custom exception classes for proper error classification
     public static class AuthenticationException extends RuntimeException {
+        // Session generation the failing request was made with, or -1 if unknown
+        private final long sessionGeneration;
+        
         public AuthenticationException(String message) {
+            this(message, -1L);
+        }
+        
+        public AuthenticationException(String message, long sessionGeneration) {
             super(message);
+            this.sessionGeneration = sessionGeneration;
         }
         
         public AuthenticationException(String message, Throwable cause) {
             super(message, cause);
+            this.sessionGeneration = -1L;
+        }
+        
+        public long getSessionGeneration() {
+            return sessionGeneration;
         }
     }
     
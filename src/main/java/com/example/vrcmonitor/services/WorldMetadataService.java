@@ -0,0 +1,154 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.models.VRChatWorld;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves world IDs (from {@link VRChatUser#getLocation()} / worldId) into world metadata.
+ *
+ * Results are kept in a bounded LRU with a TTL. Expired entries keep being served while a
+ * refresh runs lazily in the background, and lookups of the same world from many users
+ * share a single API call. All fetches go through {@link VRChatApiService#getWorld(String)},
+ * which uses the rate limiter's low-priority background class.
+ */
+@Service
+public class WorldMetadataService {
+    private static final Logger log = LoggerFactory.getLogger(WorldMetadataService.class);
+
+    private static final int MAX_CACHED_WORLDS = 512;
+    private static final Duration WORLD_TTL = Duration.ofHours(6);
+    // Worlds that failed to resolve (deleted, private, API error) are retried less eagerly
+    private static final Duration FAILED_LOOKUP_TTL = Duration.ofMinutes(30);
+
+    private final VRChatApiService vrchatApiService;
+
+    // LRU in access order, guarded by itself
+    private final Map<String, CacheEntry> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > MAX_CACHED_WORLDS;
+        }
+    };
+
+    // Lookups currently in progress, so simultaneous requests for one world coalesce
+    private final Map<String, CompletableFuture<VRChatWorld>> inFlight = new ConcurrentHashMap<>();
+
+    public WorldMetadataService(VRChatApiService vrchatApiService) {
+        this.vrchatApiService = vrchatApiService;
+    }
+
+    /**
+     * Extracts the world ID a user is currently in.
+     *
+     * @param user The user as returned by the API
+     * @return The world ID (wrld_...), or null for offline/private/traveling users
+     */
+    public static String extractWorldId(VRChatUser user) {
+        if (user == null) {
+            return null;
+        }
+        String candidate = user.getWorldId();
+        if (candidate == null || candidate.isBlank()) {
+            candidate = user.getLocation();
+        }
+        if (candidate == null || !candidate.startsWith("wrld_")) {
+            return null;
+        }
+        // Location strings look like "wrld_xxx:12345~private(usr_yyy)"
+        int separator = candidate.indexOf(':');
+        return separator > 0 ? candidate.substring(0, separator) : candidate;
+    }
+
+    /**
+     * Returns the cached metadata for a world without blocking.
+     * Missing or expired entries are refreshed in the background.
+     *
+     * @param worldId The world ID
+     * @return The cached world (possibly stale), or null if not known yet
+     */
+    public VRChatWorld getCachedWorld(String worldId) {
+        if (worldId == null) {
+            return null;
+        }
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(worldId);
+        }
+        if (entry == null || entry.isExpired()) {
+            resolveWorld(worldId); // Lazy refresh; result lands in the cache
+        }
+        return entry != null ? entry.world() : null;
+    }
+
+    /**
+     * Resolves a world, fetching it if it is not cached or has expired.
+     *
+     * @param worldId The world ID
+     * @return A future with the world, completing with null if it could not be resolved
+     */
+    public CompletableFuture<VRChatWorld> resolveWorld(String worldId) {
+        if (worldId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(worldId);
+        }
+        if (entry != null && !entry.isExpired()) {
+            return CompletableFuture.completedFuture(entry.world());
+        }
+
+        CompletableFuture<VRChatWorld> pending = new CompletableFuture<>();
+        CompletableFuture<VRChatWorld> existing = inFlight.putIfAbsent(worldId, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        log.debug("Resolving world metadata for {}", worldId);
+        Mono.defer(() -> vrchatApiService.getWorld(worldId))
+            .subscribe(
+                world -> {
+                    put(worldId, new CacheEntry(world, Instant.now().plus(WORLD_TTL)));
+                    inFlight.remove(worldId);
+                    pending.complete(world);
+                },
+                error -> {
+                    log.warn("Failed to resolve world {}: {}", worldId, error.getMessage());
+                    // Keep serving stale data if we have it, but don't retry immediately
+                    VRChatWorld stale = entry != null ? entry.world() : null;
+                    put(worldId, new CacheEntry(stale, Instant.now().plus(FAILED_LOOKUP_TTL)));
+                    inFlight.remove(worldId);
+                    pending.complete(stale);
+                },
+                () -> {
+                    // Empty: no session right now; leave the cache untouched so the next access retries
+                    inFlight.remove(worldId);
+                    pending.complete(entry != null ? entry.world() : null);
+                }
+            );
+        return pending;
+    }
+
+    private void put(String worldId, CacheEntry entry) {
+        synchronized (cache) {
+            cache.put(worldId, entry);
+        }
+    }
+
+    private record CacheEntry(VRChatWorld world, Instant expiresAt) {
+        boolean isExpired() {
+            return Instant.now().isAfter(expiresAt);
+        }
+    }
+}
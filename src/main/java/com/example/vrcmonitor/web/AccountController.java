@@ -0,0 +1,93 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.dto.LoginRequestDTO;
+import com.example.vrcmonitor.models.dto.LoginResultDTO;
+import com.example.vrcmonitor.services.AccountPool;
+import com.example.vrcmonitor.services.VRChatApiService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Status and login of the extra polling accounts (see {@link AccountPool}). The primary
+ * account keeps logging in through /api/auth and the web UI.
+ */
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountController {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountController.class);
+    private final AccountPool accountPool;
+    private final UserRegistry userRegistry;
+
+    public AccountController(AccountPool accountPool, UserRegistry userRegistry) {
+        this.accountPool = accountPool;
+        this.userRegistry = userRegistry;
+    }
+
+    /**
+     * All accounts, whether they are polling and how many users each one currently owns.
+     */
+    @GetMapping
+    public ResponseEntity<List<AccountPool.AccountStatus>> getAccounts() {
+        List<String> vrcUids = userRegistry.users().stream().map(UserConfig::getVrcUid).toList();
+        return ResponseEntity.ok(accountPool.getStatus(vrcUids));
+    }
+
+    /**
+     * Same request and result shapes as /api/auth/login: "credentials" first, then "2fa" if
+     * the result asks for it.
+     */
+    @PostMapping("/{name}/login")
+    public Mono<ResponseEntity<LoginResultDTO>> login(@PathVariable String name, @RequestBody LoginRequestDTO request) {
+        AccountPool.Account account = accountPool.getAccount(name);
+        if (account == null || AccountPool.PRIMARY.equals(name)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        VRChatApiService api = account.api();
+
+        if ("credentials".equals(request.getType())) {
+            log.info("Processing login request for account '{}' (user {})", name, request.getUsername());
+            char[] password = request.getPassword() != null ? request.getPassword().toCharArray() : new char[0];
+            try {
+                return api.login(request.getUsername(), password).map(result -> toResponse(api, result));
+            } finally {
+                VRChatApiService.clearPassword(password);
+            }
+        } else if ("2fa".equals(request.getType())) {
+            log.info("Processing 2FA verification for account '{}'", name);
+            return api.verify2FACode(request.getTwoFactorCode()).map(result -> toResponse(api, result));
+        }
+        return Mono.just(ResponseEntity.ok(new LoginResultDTO(false, false, null, "Invalid request type", "INVALID_REQUEST")));
+    }
+
+    @PostMapping("/{name}/logout")
+    public ResponseEntity<Void> logout(@PathVariable String name) {
+        AccountPool.Account account = accountPool.getAccount(name);
+        if (account == null || AccountPool.PRIMARY.equals(name)) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Processing logout request for account '{}'", name);
+        account.api().logout();
+        return ResponseEntity.ok().build();
+    }
+
+    private static ResponseEntity<LoginResultDTO> toResponse(VRChatApiService api, VRChatApiService.LoginResult result) {
+        if (result == VRChatApiService.LoginResult.SUCCESS) {
+            return ResponseEntity.ok(LoginResultDTO.success());
+        }
+        boolean requires2fa = result == VRChatApiService.LoginResult.REQUIRES_2FA
+                || result == VRChatApiService.LoginResult.FAILURE_2FA_INVALID_CODE;
+        String message = result == VRChatApiService.LoginResult.REQUIRES_2FA
+                ? "Two-factor authentication required"
+                : AuthController.getErrorMessageForLoginResult(result);
+        return ResponseEntity.ok(new LoginResultDTO(false, requires2fa, requires2fa ? api.getRequired2faType() : null,
+                message, result.name()));
+    }
+}
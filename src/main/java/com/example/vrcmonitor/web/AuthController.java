@@ -4,6 +4,7 @@ import com.example.vrcmonitor.models.dto.LoginRequestDTO;
 import com.example.vrcmonitor.models.dto.LoginResultDTO;
 import com.example.vrcmonitor.models.dto.SessionStatusDTO;
 import com.example.vrcmonitor.services.AuthService;
+import com.example.vrcmonitor.services.SessionManager;
 import com.example.vrcmonitor.services.VRChatApiService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -19,11 +21,11 @@ public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
     private final AuthService authService;
-    private final StatusUpdateHandler statusUpdateHandler;
+    private final SessionManager sessionManager;
 
-    public AuthController(AuthService authService, StatusUpdateHandler statusUpdateHandler) {
+    public AuthController(AuthService authService, SessionManager sessionManager) {
         this.authService = authService;
-        this.statusUpdateHandler = statusUpdateHandler;
+        this.sessionManager = sessionManager;
     }
 
     @GetMapping("/status")
@@ -37,6 +39,14 @@ public class AuthController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Session health details: cookie age, last successful verification and invalidation count.
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, Object>> getSessionHealth() {
+        return ResponseEntity.ok(sessionManager.getHealth());
+    }
+
     @PostMapping("/login")
     public Mono<ResponseEntity<LoginResultDTO>> login(@RequestBody LoginRequestDTO request) {
         log.info("Processing login request for user: {}", request.getUsername());
@@ -46,8 +56,7 @@ public class AuthController {
             return authService.clientLogin(request.getUsername(), request.getPassword())
                 .map(result -> {
                     if (result == VRChatApiService.LoginResult.SUCCESS) {
-                        // Login successful
-                        statusUpdateHandler.broadcastSessionStatus();
+                        // Login successful; clients are notified via SessionEstablishedEvent
                         return ResponseEntity.ok(LoginResultDTO.success());
                     } else if (result == VRChatApiService.LoginResult.REQUIRES_2FA) {
                         // 2FA required
@@ -74,8 +83,7 @@ public class AuthController {
             return authService.verify2FACode(request.getTwoFactorCode())
                 .map(result -> {
                     if (result == VRChatApiService.LoginResult.SUCCESS) {
-                        // 2FA verification successful
-                        statusUpdateHandler.broadcastSessionStatus();
+                        // 2FA verification successful; clients are notified via SessionEstablishedEvent
                         return ResponseEntity.ok(LoginResultDTO.success());
                     } else {
                         // 2FA verification failed
@@ -100,7 +108,7 @@ public class AuthController {
         }
     }
     
-    private String getErrorMessageForLoginResult(VRChatApiService.LoginResult result) {
+    static String getErrorMessageForLoginResult(VRChatApiService.LoginResult result) {
         return switch (result) {
             case FAILURE_CREDENTIALS -> "Invalid username or password";
             case FAILURE_2FA_INVALID_CODE -> "Invalid verification code";
@@ -115,11 +123,9 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<Void> logout() {
         log.info("Processing logout request");
+        // Clients are notified through the SessionInvalidatedEvent the logout publishes
         authService.logout();
         
-        // Notify all clients about session status change
-        statusUpdateHandler.broadcastSessionStatus();
-        
         return ResponseEntity.ok().build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,215 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.VrcMonitorApplication;
+import com.example.vrcmonitor.models.dto.WsMessageDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sequenced record of the messages {@link StatusUpdateHandler} broadcasts. Each change is
+ * serialized at most once per namespace (the global one, /ws/status, and each tenant that
+ * gets a view of it), and the same JSON goes to WebSocket clients and to the SSE streams of
+ * {@link StreamController}.
+ *
+ * The last {@value #CAPACITY} changes are kept in a ring so a stream can resume after the last
+ * change it received (SSE Last-Event-ID). Change ids are "{serverStart}-{sequence}", so an id
+ * from before a restart is recognized as not resumable instead of replaying the wrong changes.
+ */
+@Component
+public class ChangeLog {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+
+    static final int CAPACITY = 2048;
+    // Changes a slow stream may fall behind before it is ended (it then resumes from its last id)
+    static final int SUBSCRIBER_BUFFER = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final String epoch = Long.toString(VrcMonitorApplication.getServerStartTime().toEpochMilli());
+
+    // Guarded by 'this'
+    private final Change[] ring = new Change[CAPACITY];
+    private long lastSequence = 0;
+
+    // Appends and emissions happen under the lock, so subscribers see changes in sequence order
+    private final Sinks.Many<Change> live = Sinks.many().multicast().directBestEffort();
+
+    public ChangeLog(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * One broadcast message. It is serialized the first time its JSON is needed, so messages
+     * that no client subscribed to are never serialized.
+     */
+    public final class Change {
+        private final long sequence;
+        private final WsMessageDTO message;
+        private final Set<String> vrcUids;
+        private final Instant timestamp;
+        private final Function<String, WsMessageDTO> tenantView;
+        private volatile String json;
+        // Serialized tenant views; empty for tenants that don't get the message
+        private final Map<String, Optional<String>> tenantJson = new ConcurrentHashMap<>();
+
+        private Change(long sequence, WsMessageDTO message, Set<String> vrcUids, Instant timestamp,
+                       Function<String, WsMessageDTO> tenantView) {
+            this.sequence = sequence;
+            this.message = message;
+            this.vrcUids = vrcUids;
+            this.timestamp = timestamp;
+            this.tenantView = tenantView;
+        }
+
+        /** Position in the log (1-based, per server run) */
+        public long sequence() {
+            return sequence;
+        }
+
+        /** The message type, for filtering */
+        public WsMessageDTO.MessageType type() {
+            return message.getType();
+        }
+
+        /** Users the message is about; empty for messages about no particular user */
+        public Set<String> vrcUids() {
+            return vrcUids;
+        }
+
+        public Instant timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return The serialized {@link WsMessageDTO}, or null if it could not be serialized
+         */
+        public String json() {
+            String serialized = json;
+            if (serialized == null) {
+                // Two threads may both serialize it; they get the same text
+                serialized = serialize(message);
+                json = serialized;
+            }
+            return serialized;
+        }
+
+        /**
+         * @param tenantName A tenant, or null for the global namespace
+         * @return The tenant's view of the message, serialized; null if the tenant doesn't get it
+         */
+        public String jsonFor(String tenantName) {
+            if (tenantName == null) {
+                return json();
+            }
+            return tenantJson.computeIfAbsent(tenantName, name ->
+                    Optional.ofNullable(tenantView.apply(name)).map(ChangeLog.this::serialize)).orElse(null);
+        }
+
+        public boolean concernsAny(Set<String> users) {
+            if (vrcUids.isEmpty()) {
+                return true;
+            }
+            for (String vrcUid : vrcUids) {
+                if (users.contains(vrcUid)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private String serialize(WsMessageDTO message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize {} message: {}", message.getType(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Appends a message. Its payload must not be changed afterwards, since it may be
+     * serialized later.
+     *
+     * @param tenantView Builds a tenant's view of the message (null if the tenant doesn't get
+     *                   it); called at most once per tenant, when a client of it first needs it
+     */
+    public Change append(WsMessageDTO message, Set<String> vrcUids, Function<String, WsMessageDTO> tenantView) {
+        synchronized (this) {
+            Change change = new Change(++lastSequence, message, vrcUids, Instant.now(), tenantView);
+            ring[(int) (change.sequence() % CAPACITY)] = change;
+            live.tryEmitNext(change); // Subscribers buffer on their own; a failure only means nobody listens
+            return change;
+        }
+    }
+
+    /**
+     * @return The id of a change, for SSE
+     */
+    public String idOf(Change change) {
+        return epoch + "-" + change.sequence();
+    }
+
+    /**
+     * @return The id of the latest change (a position to stream from)
+     */
+    public synchronized String currentId() {
+        return epoch + "-" + lastSequence;
+    }
+
+    /**
+     * @return The sequence an id stands for, or -1 if it is not from this server run or has
+     *         fallen out of the ring (the client then needs the full state again)
+     */
+    public synchronized long resumableSequence(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int separator = id.lastIndexOf('-');
+        if (separator <= 0 || !epoch.equals(id.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(id.substring(separator + 1));
+            // Resuming needs the changes after it, so the oldest resumable id is just before the ring
+            boolean inRing = sequence <= lastSequence && lastSequence - sequence <= CAPACITY;
+            return sequence >= 0 && inRing ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Changes after {@code afterSequence}, then every new change as it is appended, with no gap
+     * or duplicate between the two. A subscriber that falls {@value #SUBSCRIBER_BUFFER} changes
+     * behind gets an error and can resume from its last id.
+     */
+    public Flux<Change> changesAfter(long afterSequence) {
+        Flux<Change> changes = Flux.create(emitter -> {
+            Disposable subscription;
+            synchronized (this) {
+                // Nothing can be appended while the backlog is queued and the live feed attached
+                long first = Math.max(afterSequence + 1, lastSequence - CAPACITY + 1);
+                for (long sequence = first; sequence <= lastSequence; sequence++) {
+                    emitter.next(ring[(int) (sequence % CAPACITY)]);
+                }
+                subscription = live.asFlux().subscribe(emitter::next, emitter::error, emitter::complete);
+            }
+            emitter.onDispose(subscription);
+        });
+        return changes.onBackpressureBuffer(SUBSCRIBER_BUFFER, dropped -> { }, BufferOverflowStrategy.ERROR);
+    }
+}
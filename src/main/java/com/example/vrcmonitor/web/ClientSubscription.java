@@ -0,0 +1,110 @@
+package com.example.vrcmonitor.web;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What one WebSocket client wants to receive, changed with SUBSCRIBE/UNSUBSCRIBE commands:
+ * which users' USER_UPDATE and CO_PRESENCE messages, and which levels and types of LOG_ENTRY.
+ * A new client gets everything, as before subscriptions existed.
+ *
+ * Thread safety: commands change it on the client's thread while broadcasts read it, so every
+ * method is synchronized.
+ */
+class ClientSubscription {
+    // Stands for every value, e.g. {"command":"UNSUBSCRIBE","logTypes":["*"]}
+    static final String ALL = "*";
+
+    private final Selection users = new Selection();
+    private final Selection logLevels = new Selection();
+    private final Selection logTypes = new Selection();
+
+    /*
+     * Either everything except some values, or only some values. Starts as everything.
+     */
+    private static class Selection {
+        private boolean all = true;
+        private final Set<String> values = new HashSet<>(); // Excluded if 'all', else included
+
+        void add(Collection<String> names) {
+            for (String name : names) {
+                if (ALL.equals(name)) {
+                    all = true;
+                    values.clear();
+                } else if (all) {
+                    values.remove(name);
+                } else {
+                    values.add(name);
+                }
+            }
+        }
+
+        void remove(Collection<String> names) {
+            for (String name : names) {
+                if (ALL.equals(name)) {
+                    all = false;
+                    values.clear();
+                } else if (all) {
+                    values.add(name);
+                } else {
+                    values.remove(name);
+                }
+            }
+        }
+
+        boolean matches(String value) {
+            return all != values.contains(value);
+        }
+
+        Object describe() {
+            return all ? (values.isEmpty() ? ALL : Map.of("except", Set.copyOf(values))) : Set.copyOf(values);
+        }
+    }
+
+    synchronized void subscribe(Collection<String> userNames, Collection<String> levels, Collection<String> types) {
+        users.add(userNames);
+        logLevels.add(upperCase(levels));
+        logTypes.add(types);
+    }
+
+    synchronized void unsubscribe(Collection<String> userNames, Collection<String> levels, Collection<String> types) {
+        users.remove(userNames);
+        logLevels.remove(upperCase(levels));
+        logTypes.remove(types);
+    }
+
+    synchronized boolean wantsUser(String vrcUid) {
+        return users.matches(vrcUid);
+    }
+
+    synchronized boolean wantsAnyUser(Collection<String> vrcUids) {
+        for (String vrcUid : vrcUids) {
+            if (users.matches(vrcUid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized boolean wantsLog(String level, String type) {
+        return logLevels.matches(level) && logTypes.matches(type);
+    }
+
+    /**
+     * @return The subscription as sent back to the client ("*", {"except": [...]} or a list per field)
+     */
+    synchronized Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("users", users.describe());
+        description.put("logLevels", logLevels.describe());
+        description.put("logTypes", logTypes.describe());
+        return description;
+    }
+
+    private static Collection<String> upperCase(Collection<String> levels) {
+        return levels.stream().map(level -> ALL.equals(level) ? level : level.toUpperCase()).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.logging.ErrorLogQueryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Searches the error log files (see {@link ErrorLogQueryService}).
+ */
+@RestController
+@RequestMapping("/api/errors")
+public class ErrorLogController {
+
+    private final ErrorLogQueryService errorLogQueryService;
+    private final UserRegistry userRegistry;
+    private final TenantRegistry tenantRegistry;
+
+    public ErrorLogController(ErrorLogQueryService errorLogQueryService, UserRegistry userRegistry,
+                              TenantRegistry tenantRegistry) {
+        this.errorLogQueryService = errorLogQueryService;
+        this.userRegistry = userRegistry;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    /**
+     * @param user VRChat user ID or hrToken of a configured user
+     * @param from Only errors at or after this ISO-8601 time
+     * @param to Only errors before this ISO-8601 time
+     * @param errorClass Exception class, simple ("ApiException") or full name
+     * @param fingerprint Only errors with this stack trace fingerprint
+     * @param limit At most this many entries (default 100); groups and the match count cover all matches
+     * @param tenant Only errors about this tenant's users
+     * @return {matched, entries (newest first), groups (by fingerprint, biggest first)}; 400 for a bad time,
+     *         404 for an unknown tenant
+     */
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam(required = false) String user,
+                                    @RequestParam(required = false) String from,
+                                    @RequestParam(required = false) String to,
+                                    @RequestParam(name = "class", required = false) String errorClass,
+                                    @RequestParam(required = false) String fingerprint,
+                                    @RequestParam(defaultValue = "100") int limit,
+                                    @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant fromTime;
+        Instant toTime;
+        try {
+            fromTime = from != null && !from.isBlank() ? Instant.parse(from) : null;
+            toTime = to != null && !to.isBlank() ? Instant.parse(to) : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from/to must be ISO-8601 times: " + e.getMessage()));
+        }
+        if (fingerprint != null && !fingerprint.matches("[0-9a-fA-F]{1,16}")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "fingerprint must be up to 16 hex digits"));
+        }
+        return ResponseEntity.ok(errorLogQueryService.search(vrcUidOf(user), scope.isAll() ? null : scope.tenant().vrcUids(),
+                fromTime, toTime,
+                blankToNull(errorClass), blankToNull(fingerprint), Math.min(Math.max(1, limit), 1000)));
+    }
+
+    // An hrToken is resolved to the user's VRChat user ID; anything else is taken as one
+    private String vrcUidOf(String user) {
+        if (user == null || user.isBlank()) {
+            return null;
+        }
+        for (UserConfig configured : userRegistry.users()) {
+            if (user.equals(configured.getHrToken())) {
+                return configured.getVrcUid();
+            }
+        }
+        return user;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.persistence.FailoverService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Failover status: whether this instance is the leader or the standby, the lease's fencing
+ * token and how far the standby has followed the leader's log.
+ */
+@RestController
+@RequestMapping("/api/failover")
+public class FailoverController {
+
+    private final FailoverService failoverService;
+
+    public FailoverController(FailoverService failoverService) {
+        this.failoverService = failoverService;
+    }
+
+    /**
+     * @return Lease and standby status; 404 if failover is not configured
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> status = failoverService.getStatus();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+}
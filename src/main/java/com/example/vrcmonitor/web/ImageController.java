@@ -0,0 +1,107 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.services.ImageCacheService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves avatar/icon images for monitored users from the server-side image cache.
+ * Browsers use {@code /img/{vrcUid}?v=...} instead of hitting the VRChat CDN directly.
+ * Requests are handled asynchronously, so a download never holds a servlet thread.
+ */
+@RestController
+public class ImageController {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageController.class);
+
+    /*
+     * When the client's version parameter matches the URL the image was resolved from, the
+     * response for that URL can never change, so browsers may keep it for good. Stale or
+     * missing versions are revalidated against the ETag (the SHA-256 based cache key) each time.
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+    // Below the container's default async timeout, so the request fails with our status rather than its
+    private static final long DOWNLOAD_WAIT_SECONDS = 20;
+
+    // Tomcat's sendfile support (used for zero-copy transfer of files already on disk)
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final ImageCacheService imageCacheService;
+
+    public ImageController(ImageCacheService imageCacheService) {
+        this.imageCacheService = imageCacheService;
+    }
+
+    @GetMapping("/img/{vrcUid}")
+    public CompletableFuture<ResponseEntity<?>> getUserImage(@PathVariable String vrcUid,
+                                                             @RequestParam(name = "v", required = false) String version,
+                                                             HttpServletRequest request) {
+        // The copy keeps the timeout from failing a download that other requests share
+        return imageCacheService.getImageForUser(vrcUid).copy()
+            .orTimeout(DOWNLOAD_WAIT_SECONDS, TimeUnit.SECONDS)
+            .handle((image, error) -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Timed out loading image for {}", vrcUid);
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                    }
+                    log.warn("Could not load image for {}: {}", vrcUid, cause.getMessage());
+                    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+                }
+                if (image == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                return serve(image, version, request);
+            });
+    }
+
+    private ResponseEntity<?> serve(ImageCacheService.CachedImage image, String version, HttpServletRequest request) {
+        String etag = "\"" + image.key() + "\"";
+        CacheControl cacheControl = image.version().equals(version) ? IMMUTABLE : REVALIDATE;
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+            .cacheControl(cacheControl)
+            .eTag(etag)
+            .contentType(image.contentType())
+            .contentLength(image.size());
+
+        if (image.bytes() != null) {
+            // Hot entry, already in memory
+            return ok.body(image.bytes());
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Let the connector hand the file to the kernel when the headers are committed
+            request.setAttribute(SENDFILE_FILENAME_ATTR, image.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, image.size());
+            return ok.build();
+        }
+
+        // Fallback when sendfile is unavailable: streamed from the file
+        return ok.body(new FileSystemResource(image.path()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.services.LocationIndexService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Location queries answered from the {@link LocationIndexService} index (no scan over user states).
+ * Every endpoint takes an optional tenant: only its users are returned (and counted).
+ */
+@RestController
+@RequestMapping("/api/locations")
+public class LocationController {
+
+    private final LocationIndexService locationIndexService;
+    private final TenantRegistry tenantRegistry;
+
+    public LocationController(LocationIndexService locationIndexService, TenantRegistry tenantRegistry) {
+        this.locationIndexService = locationIndexService;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    /**
+     * Occupied instances, fullest first.
+     * @param minUsers Minimum number of monitored users per instance (2 = only shared instances)
+     */
+    @GetMapping
+    public ResponseEntity<List<LocationIndexService.InstanceOccupancy>> getInstances(
+            @RequestParam(defaultValue = "1") int minUsers,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int min = Math.max(1, minUsers);
+        if (scope.isAll()) {
+            return ResponseEntity.ok(locationIndexService.getOccupiedInstances(min));
+        }
+        // Other tenants' users neither show up nor count towards minUsers
+        return ResponseEntity.ok(locationIndexService.getOccupiedInstances(min).stream()
+                .map(instance -> new LocationIndexService.InstanceOccupancy(instance.location(), instance.worldId(),
+                        visible(scope, instance.users())))
+                .filter(instance -> instance.users().size() >= min)
+                .sorted(Comparator.comparingInt((LocationIndexService.InstanceOccupancy instance) -> instance.users().size()).reversed())
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/worlds/{worldId}")
+    public ResponseEntity<List<LocationIndexService.Presence>> getUsersInWorld(@PathVariable String worldId,
+                                                                               @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(visible(scope, locationIndexService.getUsersInWorld(worldId)));
+    }
+
+    /**
+     * Instance locations contain characters like '~' and '()', so they are passed as a query parameter.
+     */
+    @GetMapping("/instance")
+    public ResponseEntity<List<LocationIndexService.Presence>> getUsersInInstance(@RequestParam String location,
+                                                                                  @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(visible(scope, locationIndexService.getUsersInInstance(location)));
+    }
+
+    @GetMapping("/users/{vrcUid}")
+    public ResponseEntity<LocationIndexService.Presence> getPresence(@PathVariable String vrcUid,
+                                                                     @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        LocationIndexService.Presence presence = scope != null && scope.includes(vrcUid)
+                ? locationIndexService.getPresence(vrcUid) : null;
+        return presence != null ? ResponseEntity.ok(presence) : ResponseEntity.notFound().build();
+    }
+
+    private static List<LocationIndexService.Presence> visible(TenantRegistry.Scope scope,
+                                                               List<LocationIndexService.Presence> presences) {
+        return scope.isAll() ? presences : presences.stream()
+                .filter(presence -> scope.includes(presence.vrcUid()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.models.dto.LogEntryDTO;
+import com.example.vrcmonitor.services.ApiLogStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent API log entries: previews for clients that connected after they were logged, and
+ * the full entry behind a (truncated) preview. API logs mention every user, so tenants
+ * (?tenant=) don't get them, as on /ws/{tenant}.
+ */
+@RestController
+@RequestMapping("/api/logs")
+public class LogController {
+
+    private final ApiLogStore apiLogStore;
+
+    public LogController(ApiLogStore apiLogStore) {
+        this.apiLogStore = apiLogStore;
+    }
+
+    /**
+     * @param afterId Only entries after this id (the last one the client has)
+     * @param minutes Only entries of the last N minutes (default 5)
+     * @param limit At most this many entries, the newest ones (default 500)
+     * @return Previews, oldest first; 403 for a tenant
+     */
+    @GetMapping
+    public ResponseEntity<List<LogEntryDTO>> getRecent(@RequestParam(defaultValue = "0") long afterId,
+                                                       @RequestParam(defaultValue = "5") int minutes,
+                                                       @RequestParam(defaultValue = "500") int limit,
+                                                       @RequestParam(required = false) String tenant) {
+        if (isTenant(tenant)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Instant since = Instant.now().minus(Duration.ofMinutes(Math.min(Math.max(1, minutes), 24 * 60)));
+        return ResponseEntity.ok(apiLogStore.previews(afterId, since, Math.min(Math.max(1, limit), 5000)));
+    }
+
+    /**
+     * @return The full entry; 404 once it has been evicted, 403 for a tenant
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<LogEntryDTO> getEntry(@PathVariable long id,
+                                                @RequestParam(required = false) String tenant) {
+        if (isTenant(tenant)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        LogEntryDTO entry = apiLogStore.get(id);
+        return entry != null ? ResponseEntity.ok(entry) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * @return Entries and bytes held, the limits and how many entries were evicted
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(apiLogStore.getStats());
+    }
+
+    private static boolean isTenant(String tenant) {
+        return tenant != null && !tenant.isBlank() && !TenantRegistry.ALL_USERS.equals(tenant);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.services.OnlineSession;
+import com.example.vrcmonitor.services.OnlineSessionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Online session queries. Every endpoint takes an optional ISO-8601 range (from, to);
+ * the default is the last 7 days. With a tenant, only its users' sessions are returned.
+ */
+@RestController
+@RequestMapping("/api/online-sessions")
+public class OnlineSessionController {
+
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(7);
+
+    private final OnlineSessionService onlineSessionService;
+    private final TenantRegistry tenantRegistry;
+
+    public OnlineSessionController(OnlineSessionService onlineSessionService, TenantRegistry tenantRegistry) {
+        this.onlineSessionService = onlineSessionService;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<OnlineSession>> getSessions(
+            @RequestParam(required = false) String vrcUid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null || vrcUid != null && !scope.includes(vrcUid)) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(onlineSessionService.getSessions(vrcUid, startOf(from, end), end).stream()
+                .filter(session -> scope.includes(session.vrcUid()))
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/time")
+    public ResponseEntity<List<OnlineSessionService.OnlineTime>> getOnlineTime(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(onlineSessionService.getOnlineTime(startOf(from, end), end).stream()
+                .filter(time -> scope.includes(time.vrcUid()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * With a tenant, only pairs of two of its users.
+     */
+    @GetMapping("/overlaps")
+    public ResponseEntity<List<OnlineSessionService.Overlap>> getOverlaps(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant end = to != null ? to : Instant.now();
+        return ResponseEntity.ok(onlineSessionService.getOverlaps(startOf(from, end), end).stream()
+                .filter(overlap -> scope.includes(overlap.vrcUid()) && scope.includes(overlap.otherVrcUid()))
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/longest")
+    public ResponseEntity<List<OnlineSession>> getLongestSessions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Instant end = to != null ? to : Instant.now();
+        if (scope.isAll()) {
+            return ResponseEntity.ok(onlineSessionService.getLongestSessions(startOf(from, end), end, Math.max(1, limit)));
+        }
+        // The tenant's longest, not the tenant's share of everyone's longest
+        return ResponseEntity.ok(onlineSessionService.getLongestSessions(startOf(from, end), end, Integer.MAX_VALUE).stream()
+                .filter(session -> scope.includes(session.vrcUid()))
+                .limit(Math.max(1, limit))
+                .collect(Collectors.toList()));
+    }
+
+    private static Instant startOf(Instant from, Instant end) {
+        return from != null ? from : end.minus(DEFAULT_RANGE);
+    }
+}
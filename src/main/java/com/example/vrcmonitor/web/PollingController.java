@@ -0,0 +1,48 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.services.PollPlanner;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Insight into predictive polling: current intervals, learned activity and a replay simulation.
+ */
+@RestController
+@RequestMapping("/api/polling")
+public class PollingController {
+
+    private final PollPlanner pollPlanner;
+
+    public PollingController(PollPlanner pollPlanner) {
+        this.pollPlanner = pollPlanner;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<PollPlanner.UserPlan>> getPlans() {
+        return ResponseEntity.ok(pollPlanner.getUserPlans());
+    }
+
+    /**
+     * Activity weight per hour of the week, Monday 00:00 first (1.0 = average hour).
+     */
+    @GetMapping("/model/{vrcUid}")
+    public ResponseEntity<double[]> getModel(@PathVariable String vrcUid) {
+        double[] weights = pollPlanner.getActivityWeights(vrcUid);
+        return weights != null ? ResponseEntity.ok(weights) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Replays the last {@code days} days of recorded transitions against fixed and predictive
+     * polling with the same request budget and reports the detection latency of each.
+     */
+    @GetMapping("/simulation")
+    public ResponseEntity<PollPlanner.SimulationResult> simulate(@RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(pollPlanner.simulate(Math.min(Math.max(1, days), 30)));
+    }
+}
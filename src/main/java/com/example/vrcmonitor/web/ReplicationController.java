@@ -0,0 +1,40 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.persistence.ReplicationClient;
+import com.example.vrcmonitor.persistence.ReplicationServer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replication status: the replicas this server feeds and, on a read replica, how far it is
+ * behind its primary.
+ */
+@RestController
+@RequestMapping("/api/replication")
+public class ReplicationController {
+
+    private final ReplicationServer replicationServer;
+    private final ReplicationClient replicationClient;
+
+    public ReplicationController(ReplicationServer replicationServer, ReplicationClient replicationClient) {
+        this.replicationServer = replicationServer;
+        this.replicationClient = replicationClient;
+    }
+
+    /**
+     * @return {@code primary}: listen address, sequence and connected replicas (null if not
+     *         serving replicas); {@code replica}: connection, sequence and lag (null if not a replica)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> status = new HashMap<>(); // Allows the null values
+        status.put("primary", replicationServer.getStatus());
+        status.put("replica", replicationClient.getStatus());
+        return ResponseEntity.ok(status);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.services.PresenceStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Presence statistics served from the running aggregates in {@link PresenceStatsService}.
+ * Every endpoint takes an optional tenant: only its users are returned, and other users are
+ * not found.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private static final Map<String, Integer> PERIOD_DAYS = Map.of("day", 1, "week", 7, "month", 30);
+
+    private final PresenceStatsService presenceStatsService;
+    private final TenantRegistry tenantRegistry;
+
+    public StatsController(PresenceStatsService presenceStatsService, TenantRegistry tenantRegistry) {
+        this.presenceStatsService = presenceStatsService;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    /**
+     * Per-user totals for a period.
+     * @param period "day", "week" (default) or "month"; or use days for any number of days
+     */
+    @GetMapping
+    public ResponseEntity<List<PresenceStatsService.Summary>> getSummaries(
+            @RequestParam(defaultValue = "week") String period,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) String tenant) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Integer periodDays = days != null ? days : PERIOD_DAYS.get(period.toLowerCase());
+        if (periodDays == null || periodDays < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(presenceStatsService.getSummaries(Math.min(periodDays, 400)).stream()
+                .filter(summary -> scope.includes(summary.vrcUid()))
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/{vrcUid}/daily")
+    public ResponseEntity<List<PresenceStatsService.Bucket>> getDaily(@PathVariable String vrcUid,
+                                                                      @RequestParam(defaultValue = "30") int days,
+                                                                      @RequestParam(required = false) String tenant) {
+        if (!visible(tenant, vrcUid)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(presenceStatsService.getDaily(vrcUid, Math.min(Math.max(1, days), 400)));
+    }
+
+    @GetMapping("/{vrcUid}/hourly")
+    public ResponseEntity<List<PresenceStatsService.Bucket>> getHourly(@PathVariable String vrcUid,
+                                                                       @RequestParam(defaultValue = "48") int hours,
+                                                                       @RequestParam(required = false) String tenant) {
+        if (!visible(tenant, vrcUid)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(presenceStatsService.getHourly(vrcUid, Math.min(Math.max(1, hours), 14 * 24)));
+    }
+
+    private boolean visible(String tenant, String vrcUid) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        return scope != null && scope.includes(vrcUid);
+    }
+}
@@ -1,55 +1,132 @@
 package com.example.vrcmonitor.web;
 
 import com.example.vrcmonitor.VrcMonitorApplication;
-import com.example.vrcmonitor.config.AppConfig;
-import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.TenantRegistry;
 import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.events.AccountSessionEvent;
+import com.example.vrcmonitor.events.CoPresenceEvent;
+import com.example.vrcmonitor.events.ConfigChangedEvent;
+import com.example.vrcmonitor.events.SessionEstablishedEvent;
+import com.example.vrcmonitor.events.SessionInvalidatedEvent;
+import com.example.vrcmonitor.models.dto.ConfigUpdateDTO;
 import com.example.vrcmonitor.models.dto.LogEntryDTO;
 import com.example.vrcmonitor.models.dto.SessionStatusDTO;
 import com.example.vrcmonitor.models.dto.StatusUpdateDTO;
 import com.example.vrcmonitor.models.dto.WsMessageDTO;
+import com.example.vrcmonitor.persistence.ReplicationClient;
+import com.example.vrcmonitor.services.AccountPool;
+import com.example.vrcmonitor.services.ApiLogStore;
 import com.example.vrcmonitor.services.AuthService;
+import com.example.vrcmonitor.services.ClientFocusService;
+import com.example.vrcmonitor.services.LocationIndexService;
+import com.example.vrcmonitor.services.MonitoringService;
 import com.example.vrcmonitor.services.UserStateService;
+import com.example.vrcmonitor.services.WorldMetadataService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * WebSocket endpoint for the web client. Clients of /ws/status see every user; clients of
+ * /ws/{tenant} (see {@link TenantRegistry}) only get the users, co-presence, location answers
+ * and config updates of their tenant, and control (poll, focus) only those users. API log
+ * entries and the shutdown command are only for /ws/status.
+ */
 @Component
 public class StatusUpdateHandler extends TextWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(StatusUpdateHandler.class);
+    // Session attribute holding the tenant name; absent for the all-users namespace
+    private static final String TENANT_ATTRIBUTE = "tenant";
+    // Session attribute holding the client's ClientSubscription
+    private static final String SUBSCRIPTION_ATTRIBUTE = "subscription";
+    // Session attribute holding the client's PollNowBudget
+    private static final String POLL_NOW_ATTRIBUTE = "pollNow";
+    // Users one client may ask to have polled per minute (MonitoringService also has a per-user cooldown)
+    static final int POLL_NOW_USERS_PER_MINUTE = 20;
     private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
     private final UserStateService userStateService;
-    private final ConfigLoader configLoader; // To get HRTokens
+    private final UserRegistry userRegistry; // To get HRTokens
     private final ObjectMapper objectMapper; // Use the configured one
     private final AuthService authService; // For session status
+    private final WorldMetadataService worldMetadataService; // For world names
+    private final MonitoringService monitoringService; // For client-triggered polls
+    private final LocationIndexService locationIndexService; // For location queries
+    private final ClientFocusService clientFocusService; // Users each client is looking at
+    private final TenantRegistry tenantRegistry; // Namespaces of /ws/{tenant}
+    private final AccountPool accountPool; // Session status of tenants with their own account
+    private final ReplicationClient replicationClient; // Session status of the primary when this is a read replica
+    private final ChangeLog changeLog; // Sequenced global messages, shared with the SSE stream
+    private final ApiLogStore apiLogStore; // Full API log entries; clients get previews
     private final Object broadcastLock = new Object();
 
-    public StatusUpdateHandler(UserStateService userStateService, ConfigLoader configLoader, ObjectMapper objectMapper, @Lazy AuthService authService) {
+    public StatusUpdateHandler(UserStateService userStateService, UserRegistry userRegistry, ObjectMapper objectMapper, @Lazy AuthService authService,
+                               WorldMetadataService worldMetadataService, @Lazy MonitoringService monitoringService,
+                               @Lazy LocationIndexService locationIndexService, ClientFocusService clientFocusService,
+                               TenantRegistry tenantRegistry, @Lazy AccountPool accountPool,
+                               @Lazy ReplicationClient replicationClient, ChangeLog changeLog, ApiLogStore apiLogStore) {
         this.userStateService = userStateService;
-        this.configLoader = configLoader;
+        this.userRegistry = userRegistry;
         this.objectMapper = objectMapper;
         this.authService = authService;
+        this.worldMetadataService = worldMetadataService;
+        this.monitoringService = monitoringService;
+        this.locationIndexService = locationIndexService;
+        this.clientFocusService = clientFocusService;
+        this.tenantRegistry = tenantRegistry;
+        this.accountPool = accountPool;
+        this.replicationClient = replicationClient;
+        this.changeLog = changeLog;
+        this.apiLogStore = apiLogStore;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String tenantName = namespaceOf(session);
+        if (tenantName != null) {
+            if (tenantRegistry.get(tenantName) == null) {
+                log.warn("Rejecting WebSocket connection for unknown tenant '{}' from {}", tenantName, session.getRemoteAddress());
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("Unknown tenant"));
+                return;
+            }
+            session.getAttributes().put(TENANT_ATTRIBUTE, tenantName);
+        } else if (!tenantRegistry.admitsAllUsers(remoteAddressOf(session))) {
+            log.warn("Rejecting all-users WebSocket connection from {} (tenant isolation)", session.getRemoteAddress());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Tenant required"));
+            return;
+        }
+        session.getAttributes().put(SUBSCRIPTION_ATTRIBUTE, new ClientSubscription());
+        session.getAttributes().put(POLL_NOW_ATTRIBUTE, new PollNowBudget());
         sessions.add(session);
-        log.info("WebSocket connection established: SessionId={}, RemoteAddress={}", session.getId(), session.getRemoteAddress());
+        log.info("WebSocket connection established: SessionId={}, RemoteAddress={}, Tenant={}", session.getId(), session.getRemoteAddress(),
+                tenantName != null ? tenantName : TenantRegistry.ALL_USERS);
         
         // First send session status
         sendSessionStatus(session);
@@ -58,20 +135,139 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
         sendInitialState(session);
     }
 
+    private static InetAddress remoteAddressOf(WebSocketSession session) {
+        InetSocketAddress remote = session.getRemoteAddress();
+        return remote != null ? remote.getAddress() : null;
+    }
+
     private void sendSessionStatus(WebSocketSession session) {
+        sendMessage(session, sessionStatusFor(tenantNameOf(session)));
+    }
+
+    // The primary login, or the dedicated account of the namespace's tenant (named in the metadata so the client logs in there)
+    private WsMessageDTO sessionStatusFor(String tenantName) {
+        AccountPool.Account account = dedicatedAccountOf(tenantName);
         SessionStatusDTO sessionStatus = new SessionStatusDTO(
-                authService.hasActiveSession(),
-                authService.getLastSessionTime(),
+                hasActiveSession(tenantName),
+                account != null ? account.sessionManager().getLastActivatedAt() : lastSessionTime(),
                 null, // Don't expose username
                 null
         );
-        
-        WsMessageDTO message = new WsMessageDTO(
-                WsMessageDTO.MessageType.SESSION_STATUS,
-                sessionStatus
-        );
-        
-        sendMessage(session, message);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("tenant", tenantName);
+        metadata.put("account", account != null ? account.name() : null);
+        return new WsMessageDTO(WsMessageDTO.MessageType.SESSION_STATUS, sessionStatus, metadata);
+    }
+
+    /**
+     * Tells clients a session is now active (login or validated restore).
+     * Clients that connect later get the status in afterConnectionEstablished, so there
+     * is nothing to wait for here.
+     */
+    @EventListener
+    public void onSessionEstablished(SessionEstablishedEvent event) {
+        broadcastSessionStatusAsync();
+    }
+
+    /**
+     * Tells clients the session is gone (401, logout or failed validation)
+     */
+    @EventListener
+    public void onSessionInvalidated(SessionInvalidatedEvent event) {
+        broadcastSessionStatusAsync();
+    }
+
+    /**
+     * Tells clients of tenants with their own account that its session started or ended
+     */
+    @EventListener
+    public void onAccountSession(AccountSessionEvent event) {
+        if (tenantRegistry.dedicatedAccounts().contains(event.account())) {
+            broadcastSessionStatusAsync();
+        }
+    }
+
+    /**
+     * Tells clients that monitored users are now together in (or have left each other in) an instance
+     */
+    @EventListener
+    public void onCoPresence(CoPresenceEvent event) {
+        Set<String> involved = new HashSet<>(event.companions());
+        involved.add(event.vrcUid());
+        ChangeLog.Change change = changeLog.append(new WsMessageDTO(WsMessageDTO.MessageType.CO_PRESENCE, event), involved,
+                tenantName -> coPresenceView(tenantName, event));
+        if (sessions.isEmpty()) {
+            return;
+        }
+        // Polls run on reactor threads; don't block them on socket writes
+        Mono.fromRunnable(() -> broadcastPerNamespace(change, subscription -> subscription.wantsAnyUser(involved)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnError(e -> log.warn("Could not broadcast co-presence: {}", e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .subscribe();
+    }
+
+    // Tenants only hear about co-presence between their own users
+    private WsMessageDTO coPresenceView(String tenantName, CoPresenceEvent event) {
+        if (!canSee(tenantName, event.vrcUid())) {
+            return null;
+        }
+        List<String> companions = event.companions().stream()
+                .filter(uid -> canSee(tenantName, uid))
+                .collect(Collectors.toList());
+        if (companions.isEmpty()) {
+            return null;
+        }
+        CoPresenceEvent view = companions.size() == event.companions().size() ? event
+                : new CoPresenceEvent(event.kind(), event.vrcUid(), event.location(), event.worldId(), companions, event.timestamp());
+        return new WsMessageDTO(WsMessageDTO.MessageType.CO_PRESENCE, view);
+    }
+
+    /**
+     * Sends clients the users that were added, removed or changed by a config reload,
+     * so they can update without reconnecting
+     */
+    @EventListener
+    public void onConfigChanged(ConfigChangedEvent event) {
+        List<String> userOrder = userRegistry.users().stream().map(UserConfig::getVrcUid).collect(Collectors.toList());
+        ConfigUpdateDTO update = new ConfigUpdateDTO(
+                userOrder,
+                event.added().stream().map(this::toStatusUpdate).collect(Collectors.toList()),
+                event.changed().stream().map(this::toStatusUpdate).collect(Collectors.toList()),
+                event.removed().stream().map(UserConfig::getVrcUid).collect(Collectors.toList()));
+        ChangeLog.Change change = changeLog.append(new WsMessageDTO(WsMessageDTO.MessageType.CONFIG_UPDATE, update), Set.of(),
+                tenantName -> new WsMessageDTO(WsMessageDTO.MessageType.CONFIG_UPDATE, tenantConfigUpdate(tenantName, event)));
+        if (sessions.isEmpty()) {
+            return;
+        }
+        Mono.fromRunnable(() -> broadcastPerNamespace(change, subscription -> true))
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnError(e -> log.warn("Could not broadcast config update: {}", e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .subscribe();
+    }
+
+    /*
+     * The reload may also have changed who belongs to the tenant, so a tenant's clients get all
+     * of its users as "changed" (the client adds the ones it doesn't have yet) and the new order
+     * (users that left the tenant drop out of it).
+     */
+    private ConfigUpdateDTO tenantConfigUpdate(String tenantName, ConfigChangedEvent event) {
+        List<UserConfig> users = usersFor(tenantName);
+        return new ConfigUpdateDTO(
+                users.stream().map(UserConfig::getVrcUid).collect(Collectors.toList()),
+                List.of(),
+                users.stream().map(this::toStatusUpdate).collect(Collectors.toList()),
+                event.removed().stream().map(UserConfig::getVrcUid).collect(Collectors.toList()));
+    }
+
+    // Events are published from request/reactor threads; do the socket writes elsewhere
+    private void broadcastSessionStatusAsync() {
+        Mono.fromRunnable(this::broadcastSessionStatus)
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnError(e -> log.warn("Could not broadcast session status: {}", e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .subscribe();
     }
 
     /**
@@ -79,27 +275,15 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
      */
     public void broadcastSessionStatus() {
         log.info("Broadcasting session status: hasActiveSession={}, lastSessionTime={}", 
-                authService.hasActiveSession(), authService.getLastSessionTime());
-        
-        SessionStatusDTO sessionStatus = new SessionStatusDTO(
-                authService.hasActiveSession(),
-                authService.getLastSessionTime(),
-                null, // Don't expose username
-                null
-        );
-        
-        WsMessageDTO message = new WsMessageDTO(
-                WsMessageDTO.MessageType.SESSION_STATUS,
-                sessionStatus
-        );
+                hasActiveSession(null), lastSessionTime());
         
         int sessionCount = sessions.size();
         log.debug("Broadcasting session status to {} active WebSocket sessions", sessionCount);
-        broadcastMessage(message);
+        broadcastPerNamespace(changeLog.append(sessionStatusFor(null), Set.of(), this::sessionStatusFor), subscription -> true);
         
-        // If we just got a session, send initial state to all clients
-        if (authService.hasActiveSession()) {
-            for (WebSocketSession session : sessions) {
+        // If a session is active (for the client's namespace), send it the initial state
+        for (WebSocketSession session : sessions) {
+            if (hasActiveSession(tenantNameOf(session))) {
                 try {
                     log.debug("Sending initial state to session {} after session update", session.getId());
                     sendInitialState(session);
@@ -111,57 +295,69 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
         }
     }
 
+    // A user's latest state, or a placeholder while nothing is known yet
+    private StatusUpdateDTO toStatusUpdate(UserConfig userConfig) {
+        UserStateService.UserState currentState = userStateService.getLatestUserState(userConfig.getVrcUid());
+        if (currentState != null) {
+            return new StatusUpdateDTO(
+                userConfig.getVrcUid(),
+                userConfig.getHrToken(),
+                currentState.user(),
+                currentState.statusType(),
+                currentState.errorMessage(),
+                currentState.lastUpdated(),
+                userConfig.getAnnounceVolumeMult(),
+                worldMetadataService.getCachedWorld(WorldMetadataService.extractWorldId(currentState.user()))
+            );
+        } else {
+            // When not logged in or no data yet, show appropriate state
+            if (hasActiveSession(null)) {
+                // We have a session but no user data yet - show as unknown
+                return new StatusUpdateDTO(
+                    userConfig.getVrcUid(),
+                    userConfig.getHrToken(),
+                    null, 
+                    UserStateService.StatusType.UNKNOWN, 
+                    "Initializing...", 
+                    Instant.now(),
+                    userConfig.getAnnounceVolumeMult(),
+                    null
+                );
+            } else {
+                // No active session - show as unknown (we don't know their state)
+                return new StatusUpdateDTO(
+                    userConfig.getVrcUid(),
+                    userConfig.getHrToken(),
+                    null, 
+                    UserStateService.StatusType.UNKNOWN, 
+                    "Server not connected", 
+                    Instant.now(),
+                    userConfig.getAnnounceVolumeMult(),
+                    null
+                );
+            }
+        }
+    }
+
     private void sendInitialState(WebSocketSession session) {
         log.debug("Sending initial state snapshot to session: {}", session.getId());
-        AppConfig config = configLoader.getConfig();
-        if (config == null || config.getUsers() == null) {
-            log.warn("Cannot send initial state: Config not loaded or no users.");
-            return;
+        WsMessageDTO message = initialStateFor(tenantNameOf(session));
+        ClientSubscription subscription = subscriptionOf(session);
+        if (subscription != null) {
+            @SuppressWarnings("unchecked")
+            List<StatusUpdateDTO> states = (List<StatusUpdateDTO>) message.getPayload();
+            message.setPayload(states.stream().filter(state -> subscription.wantsUser(state.getVrcUid())).collect(Collectors.toList()));
         }
+        sendMessage(session, message);
+    }
 
-        Map<String, UserConfig> configMap = config.getUsers().stream()
-            .collect(Collectors.toMap(UserConfig::getVrcUid, uc -> uc));
-
-        List<StatusUpdateDTO> initialStatePayload = config.getUsers().stream()
-                .map(userConfig -> {
-                    UserStateService.UserState currentState = userStateService.getLatestUserState(userConfig.getVrcUid());
-                    if (currentState != null) {
-                        return new StatusUpdateDTO(
-                            userConfig.getVrcUid(),
-                            userConfig.getHrToken(),
-                            currentState.user(),
-                            currentState.statusType(),
-                            currentState.errorMessage(),
-                            currentState.lastUpdated(),
-                            userConfig.getAnnounceVolumeMult()
-                        );
-                    } else {
-                        // When not logged in or no data yet, show appropriate state
-                        if (authService.hasActiveSession()) {
-                            // We have a session but no user data yet - show as unknown
-                            return new StatusUpdateDTO(
-                                userConfig.getVrcUid(),
-                                userConfig.getHrToken(),
-                                null, 
-                                UserStateService.StatusType.UNKNOWN, 
-                                "Initializing...", 
-                                Instant.now(),
-                                userConfig.getAnnounceVolumeMult()
-                            );
-                        } else {
-                            // No active session - show as unknown (we don't know their state)
-                            return new StatusUpdateDTO(
-                                userConfig.getVrcUid(),
-                                userConfig.getHrToken(),
-                                null, 
-                                UserStateService.StatusType.UNKNOWN, 
-                                "Server not connected", 
-                                Instant.now(),
-                                userConfig.getAnnounceVolumeMult()
-                            );
-                        }
-                    }
-                })
+    /**
+     * @param tenantName A tenant, or null for the all-users namespace
+     * @return The namespace's INITIAL_STATE message (also for SSE streams that can't resume)
+     */
+    public WsMessageDTO initialStateFor(String tenantName) {
+        List<StatusUpdateDTO> initialStatePayload = usersFor(tenantName).stream()
+                .map(this::toStatusUpdate)
                 .collect(Collectors.toList());
 
         // Include server start time in the message
@@ -169,13 +365,21 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
             "serverStartTime", VrcMonitorApplication.getServerStartTime().toEpochMilli()
         );
         
-        WsMessageDTO message = new WsMessageDTO(
+        return new WsMessageDTO(
             WsMessageDTO.MessageType.INITIAL_STATE, 
             initialStatePayload,
             metadata
         );
-        
-        sendMessage(session, message);
+    }
+
+    /**
+     * Resends the full state to every client, e.g. after a read replica replaced its state
+     * with a new snapshot from the primary.
+     */
+    public void broadcastInitialState() {
+        for (WebSocketSession session : sessions) {
+            sendInitialState(session);
+        }
     }
 
     @Override
@@ -188,9 +392,53 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
             try {
                 Map<String, Object> commandMap = objectMapper.readValue(payload, Map.class);
                 if ("COMMAND".equals(commandMap.get("type")) && "SHUTDOWN".equals(commandMap.get("command"))) {
+                    if (tenantNameOf(session) != null) {
+                        // One tenant must not stop the server for everyone
+                        log.warn("Ignoring SHUTDOWN command from tenant session {} ({})", session.getId(), tenantNameOf(session));
+                        return;
+                    }
                     handleShutdownCommand(session);
                     return;
                 }
+                if ("COMMAND".equals(commandMap.get("type")) && "POLL_NOW".equals(commandMap.get("command"))) {
+                    // User-triggered refresh of specific users; polled ahead of routine polls
+                    Object users = commandMap.get("users");
+                    if (users instanceof List<?> userList) {
+                        PollNowBudget budget = (PollNowBudget) session.getAttributes().get(POLL_NOW_ATTRIBUTE);
+                        userList.stream()
+                                .map(String::valueOf)
+                                .distinct()
+                                .filter(uid -> userRegistry.get(uid) != null && canSee(tenantNameOf(session), uid))
+                                .filter(uid -> {
+                                    if (budget.tryTake()) {
+                                        return true;
+                                    }
+                                    log.warn("Ignoring POLL_NOW for {} from session {}: over {} users per minute",
+                                            uid, session.getId(), POLL_NOW_USERS_PER_MINUTE);
+                                    return false;
+                                })
+                                .forEach(monitoringService::requestImmediatePoll);
+                    }
+                    return;
+                }
+                if ("COMMAND".equals(commandMap.get("type")) && "FOCUS".equals(commandMap.get("command"))) {
+                    // The users this client is viewing/has pinned; replaces its previous focus
+                    Object users = commandMap.get("users");
+                    List<String> focus = users instanceof List<?> userList
+                            ? userList.stream().map(String::valueOf).filter(uid -> canSee(tenantNameOf(session), uid)).collect(Collectors.toList())
+                            : List.of();
+                    clientFocusService.setFocus(session.getId(), focus);
+                    return;
+                }
+                if ("COMMAND".equals(commandMap.get("type")) && "WHO_IS_IN".equals(commandMap.get("command"))) {
+                    handleLocationQuery(session, commandMap);
+                    return;
+                }
+                if ("COMMAND".equals(commandMap.get("type"))
+                        && ("SUBSCRIBE".equals(commandMap.get("command")) || "UNSUBSCRIBE".equals(commandMap.get("command")))) {
+                    handleSubscriptionCommand(session, commandMap);
+                    return;
+                }
             } catch (Exception e) {
                 log.warn("Failed to parse JSON command: {}", e.getMessage());
                 // Continue with regular message processing
@@ -204,6 +452,62 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
         }
     }
     
+    /**
+     * Answers {"type":"COMMAND","command":"WHO_IS_IN","worldId":"wrld_..."} (or "location" for a
+     * single instance) from the location index; without either, lists all shared instances.
+     */
+    private void handleLocationQuery(WebSocketSession session, Map<String, Object> command) {
+        Object worldId = command.get("worldId");
+        Object location = command.get("location");
+        String tenantName = tenantNameOf(session);
+        Object result;
+        if (location != null) {
+            result = visible(tenantName, locationIndexService.getUsersInInstance(String.valueOf(location)));
+        } else if (worldId != null) {
+            result = visible(tenantName, locationIndexService.getUsersInWorld(String.valueOf(worldId)));
+        } else {
+            // Instances are "shared" when at least two of the tenant's own users are in them
+            result = locationIndexService.getOccupiedInstances(2).stream()
+                    .map(instance -> new LocationIndexService.InstanceOccupancy(instance.location(), instance.worldId(),
+                            visible(tenantName, instance.users())))
+                    .filter(instance -> instance.users().size() >= 2)
+                    .collect(Collectors.toList());
+        }
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("worldId", worldId);
+        metadata.put("location", location);
+        sendMessage(session, new WsMessageDTO(WsMessageDTO.MessageType.LOCATION_QUERY, result, metadata));
+    }
+
+    /**
+     * Handles {"type":"COMMAND","command":"SUBSCRIBE"|"UNSUBSCRIBE","users":[...],"logLevels":[...],"logTypes":[...]}.
+     * Each list adds to (or removes from) what the client receives; "*" stands for every value,
+     * so ["*"] in UNSUBSCRIBE turns a kind of message off. Users are vrcUids, log levels
+     * DEBUG/INFO/WARN/ERROR and log types request/response/client-request. Changing the users
+     * resends the initial state, limited to the subscribed users. The client gets its resulting
+     * subscription back as a SUBSCRIPTION message.
+     */
+    private void handleSubscriptionCommand(WebSocketSession session, Map<String, Object> command) {
+        ClientSubscription subscription = subscriptionOf(session);
+        List<String> users = stringList(command.get("users"));
+        List<String> logLevels = stringList(command.get("logLevels"));
+        List<String> logTypes = stringList(command.get("logTypes"));
+        if ("SUBSCRIBE".equals(command.get("command"))) {
+            subscription.subscribe(users, logLevels, logTypes);
+        } else {
+            subscription.unsubscribe(users, logLevels, logTypes);
+        }
+        log.debug("Subscription of session {} is now {}", session.getId(), subscription.describe());
+        sendMessage(session, new WsMessageDTO(WsMessageDTO.MessageType.SUBSCRIPTION, subscription.describe()));
+        if (!users.isEmpty()) {
+            sendInitialState(session);
+        }
+    }
+
+    private static List<String> stringList(Object value) {
+        return value instanceof List<?> list ? list.stream().map(String::valueOf).collect(Collectors.toList()) : List.of();
+    }
+
     private void handleShutdownCommand(WebSocketSession session) {
         log.warn("SHUTDOWN command received from session: {}", session.getId());
         
@@ -249,11 +553,13 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         log.error("WebSocket transport error for session {}: {}", session.getId(), exception.getMessage(), exception);
         sessions.remove(session);
+        clientFocusService.clearFocus(session.getId());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         sessions.remove(session);
+        clientFocusService.clearFocus(session.getId());
         log.info("WebSocket connection closed: SessionId={}, Status={}", session.getId(), status);
     }
 
@@ -261,18 +567,15 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
     public void broadcastStatusUpdate(UserStateService.UserState userState) {
         if (userState == null) return;
         
-        AppConfig config = configLoader.getConfig();
-        UserConfig userConfig = config.getUsers().stream()
-            .filter(u -> u.getVrcUid().equals(userState.user() != null ? userState.user().getId() : null))
-            .findFirst()
-            .orElse(null);
+        // States carry the user's registry id, so error states without a user object resolve too
+        UserConfig userConfig = userRegistry.get(userState.userId());
 
         String hrToken = (userConfig != null) ? userConfig.getHrToken() : "UNKNOWN_TOKEN";
         Double volumeMult = (userConfig != null) ? userConfig.getAnnounceVolumeMult() : null;
 
-        String vrcUid = userState.user() != null ? userState.user().getId() : null;
-        if (vrcUid == null && userConfig != null) {
-             vrcUid = userConfig.getVrcUid();
+        String vrcUid = userConfig != null ? userConfig.getVrcUid() : null;
+        if (vrcUid == null && userState.user() != null) {
+             vrcUid = userState.user().getId();
         } else if (vrcUid == null) {
              log.warn("Cannot determine vrcUid for broadcast. User object is null and UserConfig not found.");
              return;
@@ -285,37 +588,45 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
             userState.statusType(),
             userState.errorMessage(),
             userState.lastUpdated(),
-            volumeMult
+            volumeMult,
+            worldMetadataService.getCachedWorld(WorldMetadataService.extractWorldId(userState.user()))
         );
 
         WsMessageDTO message = new WsMessageDTO(WsMessageDTO.MessageType.USER_UPDATE, payload);
-        broadcastMessage(message);
+        String updatedUid = vrcUid;
+        ChangeLog.Change change = changeLog.append(message, Set.of(updatedUid),
+                tenantName -> canSee(tenantName, updatedUid) ? message : null);
+        broadcastPerNamespace(change, subscription -> subscription.wantsUser(updatedUid));
     }
 
     /**
-     * Broadcasts a log entry to all connected WebSocket clients
-     * @param logEntry The log entry to broadcast
+     * Stores a log entry in the {@link ApiLogStore} and broadcasts its preview to all connected
+     * WebSocket clients (the full entry is fetched from /api/logs/{id})
+     * @param fullEntry The log entry to broadcast
      */
-    public void broadcastLogEntry(LogEntryDTO logEntry) {
-        if (logEntry == null) {
+    public void broadcastLogEntry(LogEntryDTO fullEntry) {
+        if (fullEntry == null) {
             log.debug("Ignoring null log entry");
             return;
         }
         
-        // Skip broadcasting if no active sessions to reduce unnecessary processing
-        if (sessions.isEmpty()) {
-            log.debug("No active sessions, skipping log broadcast");
-            return;
-        }
-        
-        log.debug("Broadcasting log entry: type={}, timestamp={}", logEntry.getType(), logEntry.getTimestamp());
+        log.debug("Broadcasting log entry: type={}, timestamp={}", fullEntry.getType(), fullEntry.getTimestamp());
         
         try {
+            LogEntryDTO logEntry = apiLogStore.add(fullEntry);
             WsMessageDTO message = new WsMessageDTO(WsMessageDTO.MessageType.LOG_ENTRY, logEntry);
-            
+            // API logs mention every user; tenants don't get them
+            ChangeLog.Change change = changeLog.append(message, Set.of(), tenantName -> null);
+
+            // Skip broadcasting if no active sessions to reduce unnecessary processing
+            if (sessions.isEmpty()) {
+                log.debug("No active sessions, skipping log broadcast");
+                return;
+            }
+
             // Use try-catch to prevent logging errors from affecting the application
             try {
-                broadcastMessage(message);
+                broadcastPerNamespace(change, subscription -> subscription.wantsLog(logEntry.getLevel(), logEntry.getType()));
             } catch (Exception e) {
                 // Don't let WebSocket issues crash the application
                 log.error("Error broadcasting log entry (WebSocket error): {}", e.getMessage());
@@ -344,6 +655,90 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
         }
     }
 
+    /*
+     * Sends each session whose subscription wants the change its namespace's view of it (see
+     * ChangeLog.Change#jsonFor; SSE streams share the serialized views). A view is only built
+     * and serialized once a session of its namespace wants it, so a message nobody subscribed
+     * to costs nothing.
+     */
+    private void broadcastPerNamespace(ChangeLog.Change change, Predicate<ClientSubscription> wants) {
+        Map<String, Optional<TextMessage>> views = new HashMap<>();
+        synchronized (broadcastLock) {
+            for (WebSocketSession session : sessions) {
+                try {
+                    if (!wants.test(subscriptionOf(session))) {
+                        continue;
+                    }
+                    Optional<TextMessage> view = views.computeIfAbsent(tenantNameOf(session), tenantName ->
+                            Optional.ofNullable(change.jsonFor(tenantName)).map(TextMessage::new));
+                    view.ifPresent(textMessage -> sendMessage(session, textMessage));
+                } catch (Exception e) {
+                    log.warn("Error sending broadcast message to session {}: {}", session.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Tenant name from the endpoint path (/ws/{tenant}); null for /ws/status
+    private static String namespaceOf(WebSocketSession session) {
+        URI uri = session.getUri();
+        String path = uri != null ? uri.getPath() : "";
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return name.isEmpty() || TenantRegistry.ALL_USERS.equals(name) ? null : name;
+    }
+
+    private static String tenantNameOf(WebSocketSession session) {
+        return (String) session.getAttributes().get(TENANT_ATTRIBUTE);
+    }
+
+    private static ClientSubscription subscriptionOf(WebSocketSession session) {
+        return (ClientSubscription) session.getAttributes().get(SUBSCRIPTION_ATTRIBUTE);
+    }
+
+    // A tenant removed by a config reload sees nobody until its clients reconnect (and are rejected)
+    private boolean canSee(String tenantName, String vrcUid) {
+        if (tenantName == null) {
+            return true;
+        }
+        TenantRegistry.Tenant tenant = tenantRegistry.get(tenantName);
+        return tenant != null && tenant.includes(vrcUid);
+    }
+
+    private List<UserConfig> usersFor(String tenantName) {
+        if (tenantName == null) {
+            return userRegistry.users();
+        }
+        return userRegistry.users().stream().filter(user -> canSee(tenantName, user.getVrcUid())).collect(Collectors.toList());
+    }
+
+    private List<LocationIndexService.Presence> visible(String tenantName, List<LocationIndexService.Presence> presences) {
+        if (tenantName == null) {
+            return presences;
+        }
+        return presences.stream().filter(presence -> canSee(tenantName, presence.vrcUid())).collect(Collectors.toList());
+    }
+
+    private boolean hasActiveSession(String tenantName) {
+        if (replicationClient.isEnabled()) {
+            return replicationClient.isPrimarySessionActive();
+        }
+        AccountPool.Account account = dedicatedAccountOf(tenantName);
+        return account != null ? account.sessionManager().isActive() : authService.hasActiveSession();
+    }
+
+    private Instant lastSessionTime() {
+        return replicationClient.isEnabled() ? replicationClient.getPrimarySessionSince() : authService.getLastSessionTime();
+    }
+
+    // A read replica only knows the primary's session, so it reports that for every namespace
+    private AccountPool.Account dedicatedAccountOf(String tenantName) {
+        if (replicationClient.isEnabled()) {
+            return null;
+        }
+        TenantRegistry.Tenant tenant = tenantRegistry.get(tenantName);
+        return tenant != null && tenant.account() != null ? accountPool.getAccount(tenant.account()) : null;
+    }
+
     private void sendMessage(WebSocketSession session, WsMessageDTO message) {
          String messageJson = convertToJson(message);
          if (messageJson == null) return;
@@ -374,15 +769,12 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Broadcasts a client API request to all connected WebSocket clients
+     * Stores a client API request in the {@link ApiLogStore} and broadcasts it to all connected
+     * WebSocket clients
      * @param requestDetails The details of the request
      */
     public void broadcastClientRequest(String requestDetails) {
-        if (sessions.isEmpty()) {
-            log.debug("No active sessions, skipping client request broadcast");
-            return;
-        }
-        
+        // Stored even with no clients connected (broadcastLogEntry only skips the sending)
         try {
             LogEntryDTO logEntry = new LogEntryDTO(
                 "client-request",
@@ -395,4 +787,25 @@ public class StatusUpdateHandler extends TextWebSocketHandler {
             log.warn("Error broadcasting client request: {}", e.getMessage());
         }
     }
+
+    /*
+     * How many more users a client may have polled this minute (fixed one-minute windows).
+     */
+    private static final class PollNowBudget {
+        private long windowStart = System.nanoTime();
+        private int taken = 0;
+
+        synchronized boolean tryTake() {
+            long now = System.nanoTime();
+            if (now - windowStart >= 60_000_000_000L) {
+                windowStart = now;
+                taken = 0;
+            }
+            if (taken >= POLL_NOW_USERS_PER_MINUTE) {
+                return false;
+            }
+            taken++;
+            return true;
+        }
+    }
 } 
\ No newline at end of file
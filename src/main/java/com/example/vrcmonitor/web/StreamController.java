@@ -0,0 +1,202 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.dto.StatusUpdateDTO;
+import com.example.vrcmonitor.models.dto.WsMessageDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Events version of /ws/status for clients that can't keep a WebSocket alive.
+ *
+ * Events come from the same {@link ChangeLog} as the WebSocket broadcasts: the event name is
+ * the message type, the data is the same JSON and the id is the change's sequence id. A client
+ * that reconnects with Last-Event-ID gets the changes it missed; if that id is from before a
+ * restart or too old, it gets an INITIAL_STATE event with the full state first.
+ *
+ * With ?tenant= a stream gets that tenant's view of each change, as /ws/{tenant} does.
+ *
+ * Streams are Flux subscriptions, so an idle stream holds no thread, only its subscription.
+ * Spring MVC gives event-stream responses no async timeout of their own, so a stream stays open
+ * while other async requests keep the default timeout.
+ */
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+    private static final Logger log = LoggerFactory.getLogger(StreamController.class);
+
+    // Keeps idle streams from being closed by proxies; one timer for all streams
+    private static final Flux<ServerSentEvent<String>> KEEPALIVE = Flux.interval(Duration.ofSeconds(15))
+            .map(tick -> ServerSentEvent.<String>builder().comment("keepalive").build())
+            .share();
+
+    private final ChangeLog changeLog;
+    private final StatusUpdateHandler statusUpdateHandler;
+    private final UserRegistry userRegistry;
+    private final TenantRegistry tenantRegistry;
+    private final ObjectMapper objectMapper;
+
+    public StreamController(ChangeLog changeLog, StatusUpdateHandler statusUpdateHandler,
+                            UserRegistry userRegistry, TenantRegistry tenantRegistry, ObjectMapper objectMapper) {
+        this.changeLog = changeLog;
+        this.statusUpdateHandler = statusUpdateHandler;
+        this.userRegistry = userRegistry;
+        this.tenantRegistry = tenantRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param tenant Only this tenant's view of the changes (no API log entries); default all users
+     * @param users Comma-separated vrcUids or hrTokens; only messages about these users (and
+     *              messages about no particular user, like SESSION_STATUS) are sent
+     * @param types Comma-separated message types (e.g. USER_UPDATE,CO_PRESENCE)
+     * @param lastEventIdHeader Set by EventSource on reconnect
+     * @param lastEventIdParam The same, for clients that can't set headers
+     * @return 400 for an unknown user or type, or a user outside the tenant; 404 for an unknown tenant
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> stream(
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) String users,
+            @RequestParam(required = false) String types,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        TenantRegistry.Scope scope = tenantRegistry.scope(tenant);
+        if (scope == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Set<String> userFilter = null;
+        if (users != null && !users.isBlank()) {
+            userFilter = resolveUsers(users);
+            if (userFilter == null || !userFilter.stream().allMatch(scope::includes)) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        Set<WsMessageDTO.MessageType> typeFilter = null;
+        if (types != null && !types.isBlank()) {
+            typeFilter = parseTypes(types);
+            if (typeFilter == null) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        long resumeAfter = changeLog.resumableSequence(lastEventId);
+        Flux<ServerSentEvent<String>> initial = Flux.empty();
+        if (resumeAfter < 0) {
+            // Take the position before the state, so nothing between the two is missed
+            String id = changeLog.currentId();
+            resumeAfter = changeLog.resumableSequence(id);
+            if (typeFilter == null || typeFilter.contains(WsMessageDTO.MessageType.INITIAL_STATE)) {
+                ServerSentEvent<String> state = initialStateEvent(id, scope.name(), userFilter);
+                if (state != null) {
+                    initial = Flux.just(state);
+                }
+            }
+        }
+
+        Set<String> finalUserFilter = userFilter;
+        Set<WsMessageDTO.MessageType> finalTypeFilter = typeFilter;
+        String tenantName = scope.name();
+        Flux<ServerSentEvent<String>> changes = changeLog.changesAfter(Math.max(resumeAfter, 0))
+                .filter(change -> finalTypeFilter == null || finalTypeFilter.contains(change.type()))
+                .filter(change -> finalUserFilter == null || change.concernsAny(finalUserFilter))
+                // Skips changes the tenant doesn't get; their ids stay resumable all the same
+                .filter(change -> change.jsonFor(tenantName) != null)
+                .map(change -> ServerSentEvent.<String>builder()
+                        .id(changeLog.idOf(change))
+                        .event(change.type().name())
+                        .data(change.jsonFor(tenantName))
+                        .build())
+                // A stream that fell too far behind ends; the client resumes from its last id
+                .onErrorResume(e -> {
+                    log.debug("Ending SSE stream: {}", e.getMessage());
+                    return Flux.empty();
+                });
+
+        // Keepalives stop when the events end, so the response completes
+        return ResponseEntity.ok(initial.concatWith(changes)
+                .publish(events -> Flux.merge(events, KEEPALIVE.takeUntilOther(events.then()))));
+    }
+
+    // Full state for streams that can't resume, limited to the tenant's and the filtered users
+    private ServerSentEvent<String> initialStateEvent(String id, String tenantName, Set<String> userFilter) {
+        WsMessageDTO message = statusUpdateHandler.initialStateFor(tenantName);
+        if (userFilter != null) {
+            @SuppressWarnings("unchecked")
+            List<StatusUpdateDTO> states = (List<StatusUpdateDTO>) message.getPayload();
+            message.setPayload(states.stream()
+                    .filter(state -> userFilter.contains(state.getVrcUid()))
+                    .collect(Collectors.toList()));
+        }
+        try {
+            return ServerSentEvent.<String>builder()
+                    .id(id)
+                    .event(WsMessageDTO.MessageType.INITIAL_STATE.name())
+                    .data(objectMapper.writeValueAsString(message))
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize initial state for SSE: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Returns null if a name matches no configured user
+    private Set<String> resolveUsers(String users) {
+        Set<String> vrcUids = new HashSet<>();
+        for (String name : users.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            UserConfig user = userRegistry.get(trimmed);
+            if (user == null) {
+                user = userRegistry.users().stream()
+                        .filter(candidate -> trimmed.equals(candidate.getHrToken()))
+                        .findFirst().orElse(null);
+            }
+            if (user == null) {
+                return null;
+            }
+            vrcUids.add(user.getVrcUid());
+        }
+        return vrcUids;
+    }
+
+    // Returns null for an unknown type
+    private static Set<WsMessageDTO.MessageType> parseTypes(String types) {
+        Set<WsMessageDTO.MessageType> parsed = EnumSet.noneOf(WsMessageDTO.MessageType.class);
+        for (String name : types.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(WsMessageDTO.MessageType.valueOf(trimmed.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return parsed;
+    }
+}
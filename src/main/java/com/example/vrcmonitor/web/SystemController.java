@@ -1,6 +1,8 @@
 package com.example.vrcmonitor.web;
 
 import com.example.vrcmonitor.VrcMonitorApplication;
+import com.example.vrcmonitor.logging.ErrorFileLogger;
+import com.example.vrcmonitor.services.ApiRateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +30,26 @@ public class SystemController {
     @Value("${application.buildTime:#{null}}")
     private String buildTime;
     
+    private final ApiRateLimiter apiRateLimiter;
+    private final ErrorFileLogger errorFileLogger;
+    
+    public SystemController(ApiRateLimiter apiRateLimiter, ErrorFileLogger errorFileLogger) {
+        this.apiRateLimiter = apiRateLimiter;
+        this.errorFileLogger = errorFileLogger;
+    }
+    
+    @GetMapping("/limiter")
+    public ResponseEntity<Map<String, Map<String, Object>>> getLimiterStats() {
+        // Per priority class: granted requests, average wait, starvation promotions, queue depth
+        return ResponseEntity.ok(apiRateLimiter.getStats());
+    }
+    
+    @GetMapping("/error-log")
+    public ResponseEntity<Map<String, Object>> getErrorLogStats() {
+        // Entries written and dropped by the async error file appender, and its rotations
+        return ResponseEntity.ok(errorFileLogger.getStats());
+    }
+    
     @GetMapping("/build-info")
     public ResponseEntity<Map<String, String>> getBuildInfo() {
         log.debug("Getting build information");
@@ -0,0 +1,63 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Enforces tenant isolation on the REST endpoints: with it on, a client that is not on
+ * loopback gets a 403 for the all-users view of a tenant-scoped endpoint (no ?tenant=), and
+ * for the endpoints that only have an all-users view (API logs, polling internals).
+ * Unknown tenants are left to the controllers, which answer 404.
+ */
+class TenantIsolationInterceptor implements HandlerInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(TenantIsolationInterceptor.class);
+
+    // Endpoints taking an optional ?tenant=
+    static final String[] TENANT_SCOPED_PATHS = {
+            "/api/stream", "/api/stats", "/api/stats/**", "/api/locations", "/api/locations/**",
+            "/api/online-sessions", "/api/online-sessions/**", "/api/errors", "/api/errors/**"
+    };
+    // Endpoints about every user, which tenants never get
+    static final String[] ALL_USERS_PATHS = {"/api/logs", "/api/logs/**", "/api/polling", "/api/polling/**"};
+
+    private final TenantRegistry tenantRegistry;
+    private final boolean allUsersOnly;
+
+    TenantIsolationInterceptor(TenantRegistry tenantRegistry, boolean allUsersOnly) {
+        this.tenantRegistry = tenantRegistry;
+        this.allUsersOnly = allUsersOnly;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (tenantRegistry.admitsAllUsers(clientAddress(request))) {
+            return true;
+        }
+        if (!allUsersOnly) {
+            TenantRegistry.Scope scope = tenantRegistry.scope(request.getParameter("tenant"));
+            if (scope == null || !scope.isAll()) {
+                return true;
+            }
+        }
+        log.warn("Rejecting all-users request {} from {} (tenant isolation)", request.getRequestURI(), request.getRemoteAddr());
+        response.sendError(HttpStatus.FORBIDDEN.value(), "Tenant required");
+        return false;
+    }
+
+    // The remote address is an IP literal, so this never does a lookup
+    private static InetAddress clientAddress(HttpServletRequest request) {
+        try {
+            return InetAddress.getByName(request.getRemoteAddr());
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
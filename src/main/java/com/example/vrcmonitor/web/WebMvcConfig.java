@@ -0,0 +1,25 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final TenantRegistry tenantRegistry;
+
+    public WebMvcConfig(TenantRegistry tenantRegistry) {
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Tenant isolation: the all-users views are for loopback clients only (see TenantRegistry)
+        registry.addInterceptor(new TenantIsolationInterceptor(tenantRegistry, false))
+                .addPathPatterns(TenantIsolationInterceptor.TENANT_SCOPED_PATHS);
+        registry.addInterceptor(new TenantIsolationInterceptor(tenantRegistry, true))
+                .addPathPatterns(TenantIsolationInterceptor.ALL_USERS_PATHS);
+    }
+}
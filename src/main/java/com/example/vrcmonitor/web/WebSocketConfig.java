@@ -20,9 +20,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        // Map the endpoint /ws/status to our handler
+        // Map /ws/status (all users) and /ws/{tenant} (one tenant's users) to our handler
         // Allow all origins for simplicity during development (adjust for production)
-        registry.addHandler(statusUpdateHandler, "/ws/status").setAllowedOrigins("*");
+        registry.addHandler(statusUpdateHandler, "/ws/status", "/ws/*").setAllowedOrigins("*");
     }
 
     // Optional: Configure buffer sizes, idle timeouts etc. if needed
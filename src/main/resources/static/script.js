@@ -59,7 +59,9 @@ document.addEventListener('DOMContentLoaded', () => {
     // Call this after a short delay to ensure DOM is ready
     setTimeout(updateVersionDisplay, 500);
     
-    const wsUri = `ws://${window.location.host}/ws/status`;
+    // Open the page with ?tenant=<name> to see only that tenant's users (server: /ws/<name>)
+    const tenant = new URLSearchParams(window.location.search).get('tenant');
+    const wsUri = `ws://${window.location.host}/ws/${tenant ? encodeURIComponent(tenant) : 'status'}`;
     let websocket;
     let userData = new Map(); // Store user data by vrcUid { latestState: DTO, previousState: DTO }
     let userOrder = []; // Maintain order from config
@@ -71,6 +73,7 @@ document.addEventListener('DOMContentLoaded', () => {
     
     // Session status variables
     let hasActiveSession = false;
+    let sessionAccount = null; // Set when the tenant polls with its own account (from SESSION_STATUS)
     let lastSessionTime = null;
     let disconnectedOverlay = null;
     let disconnectedTimer = null;
@@ -388,9 +391,25 @@ document.addEventListener('DOMContentLoaded', () => {
     function getUserIconUrl(user) {
         const defaultIcon = 'https://assets.vrchat.com/system/defaultAvatarThumbnail.png';
         if (!user) return defaultIcon;
-        if (user.userIcon && user.userIcon.trim() !== '') return user.userIcon;
-        if (user.currentAvatarThumbnailImageUrl && user.currentAvatarThumbnailImageUrl.trim() !== '') return user.currentAvatarThumbnailImageUrl;
-        return defaultIcon;
+        let sourceUrl = null;
+        if (user.userIcon && user.userIcon.trim() !== '') sourceUrl = user.userIcon;
+        else if (user.currentAvatarThumbnailImageUrl && user.currentAvatarThumbnailImageUrl.trim() !== '') sourceUrl = user.currentAvatarThumbnailImageUrl;
+        if (!sourceUrl) return defaultIcon;
+        if (!user.id) return sourceUrl;
+        // Served through the server-side image cache; the version changes whenever the source URL does
+        return `/img/${encodeURIComponent(user.id)}?v=${hashString(sourceUrl)}`;
+    }
+
+    // Small non-cryptographic string hash (FNV-1a) used for cache-busting image URLs. The server
+    // computes the same hash (ImageCacheService.versionForUrl) and marks the image immutable when
+    // it matches the URL it served, so keep the two in sync
+    function hashString(value) {
+        let hash = 0x811c9dc5;
+        for (let i = 0; i < value.length; i++) {
+            hash ^= value.charCodeAt(i);
+            hash = Math.imul(hash, 0x01000193);
+        }
+        return (hash >>> 0).toString(36);
     }
 
     function announceStatusChange(previousStateDTO, newStateDTO) {
@@ -558,6 +577,8 @@ document.addEventListener('DOMContentLoaded', () => {
 
             item.appendChild(img);
             item.appendChild(nameSpan);
+            item.title = 'Click to refresh this user now';
+            item.addEventListener('click', () => requestImmediatePoll(userData.uid));
             quickStatusBar.appendChild(item);
         });
     }
@@ -578,6 +599,11 @@ document.addEventListener('DOMContentLoaded', () => {
 
             const idArea = document.createElement('div');
             idArea.classList.add('id-area');
+            if (pinnedUsers.has(userData.uid)) {
+                idArea.classList.add('pinned');
+            }
+            idArea.title = 'Click to pin/unpin (pinned users are polled more often)';
+            idArea.addEventListener('click', () => togglePinned(userData.uid));
             
             const bgColor = statusColors[userData.status] || statusColors['OTHER']; 
             idArea.style.backgroundColor = bgColor;
@@ -616,10 +642,15 @@ document.addEventListener('DOMContentLoaded', () => {
                 durationLabel.classList.add('not-available');
             }
 
-            // Assemble: icon + (name + duration in column)
+            const worldLabel = document.createElement('span');
+            worldLabel.className = 'user-world';
+            updateWorldLabel(worldLabel, userData.state);
+
+            // Assemble: icon + (name + duration + world in column)
             idArea.appendChild(img);
             userInfo.appendChild(nameSpan);
             userInfo.appendChild(durationLabel);
+            userInfo.appendChild(worldLabel);
             idArea.appendChild(userInfo);
 
             const graphArea = document.createElement('div');
@@ -632,6 +663,20 @@ document.addEventListener('DOMContentLoaded', () => {
         });
     }
 
+    // Show the resolved world name (server-side metadata) for users that are in a world
+    function updateWorldLabel(label, stateDTO) {
+        const world = stateDTO ? stateDTO.world : null;
+        if (world && world.name && determineDisplayStatus(stateDTO) === 'ONLINE') {
+            label.textContent = world.name;
+            label.title = world.capacity ? `${world.name} (capacity ${world.capacity})` : world.name;
+            label.style.display = 'block';
+        } else {
+            label.textContent = '';
+            label.title = '';
+            label.style.display = 'none';
+        }
+    }
+
     function updateUI() {
         renderStatusLine();
         renderQuickStatusBar();
@@ -698,6 +743,8 @@ document.addEventListener('DOMContentLoaded', () => {
             // Request a refresh immediately to get latest session status and data
             log('info', 'Sending REFRESH request after WebSocket connection established');
             websocket.send('REFRESH');
+            sendFocus();
+            sendLogSubscription();
         };
 
         websocket.onclose = (event) => {
@@ -786,6 +833,7 @@ document.addEventListener('DOMContentLoaded', () => {
                         break;
                     case 'SESSION_STATUS':
                         log('info', `Processing SESSION_STATUS message: ${JSON.stringify(message.payload)}`);
+                        sessionAccount = (message.metadata && message.metadata.account) || null;
                         handleSessionStatus(message.payload);
                         break;
                     case 'USER_UPDATE':
@@ -858,6 +906,9 @@ document.addEventListener('DOMContentLoaded', () => {
                                     durationLabel.style.display = 'block'; // Show for Phase 2
                                 }
 
+                                const worldLabel = timelineIdArea.querySelector('.user-world');
+                                if (worldLabel) updateWorldLabel(worldLabel, updatedStateDTO);
+
                                 if (newStatus === 'OFFLINE' || newStatus === 'ERROR') {
                                     timelineIdArea.style.color = 'white';
                                 } else {
@@ -937,10 +988,10 @@ document.addEventListener('DOMContentLoaded', () => {
                                 }
                                 
                                 if (logData.type === 'request') {
-                                    addLogEntry('server-request', logData.content, timestamp);
+                                    addLogEntry('server-request', logData.content, timestamp, null, logData);
                                     log('debug', `Added server request log with timestamp ${timestamp.toISOString()}`);
                                 } else if (logData.type === 'response') {
-                                    addLogEntry('server-response', logData.content, timestamp);
+                                    addLogEntry('server-response', logData.content, timestamp, null, logData);
                                     log('debug', `Added server response log with timestamp ${timestamp.toISOString()}`);
                                 } else {
                                     log('warn', `Unknown log entry type: ${logData.type}`);
@@ -953,6 +1004,36 @@ document.addEventListener('DOMContentLoaded', () => {
                             log('warn', 'Received LOG_ENTRY message with no payload');
                         }
                         break;
+                    case 'CO_PRESENCE':
+                        if (message.payload) {
+                            const cp = message.payload;
+                            const verb = cp.kind === 'JOINED' ? 'joined' : 'left';
+                            log('info', `Co-presence: ${cp.vrcUid} ${verb} ${cp.companions.join(', ')} in ${cp.worldId}`);
+                        }
+                        break;
+                    case 'CONFIG_UPDATE':
+                        if (message.payload) {
+                            const update = message.payload;
+                            update.removed.forEach(uid => userData.delete(uid));
+                            // New and changed users carry their current state; keep history for changed ones
+                            update.added.concat(update.changed).forEach(userStatus => {
+                                const existing = userData.get(userStatus.vrcUid);
+                                userData.set(userStatus.vrcUid, {
+                                    latestState: userStatus,
+                                    previousState: existing ? existing.previousState : null
+                                });
+                            });
+                            userOrder = update.userOrder.filter(uid => userData.has(uid));
+                            log('info', `Config reloaded: ${update.added.length} added, ${update.removed.length} removed, ${update.changed.length} changed`);
+                            updateUI();
+                        }
+                        break;
+                    case 'LOCATION_QUERY':
+                        console.info('Location query result:', message.payload);
+                        break;
+                    case 'SUBSCRIPTION':
+                        log('debug', `Subscription: ${JSON.stringify(message.payload)}`);
+                        break;
                     case 'ERROR':
                          log('error', `Received backend error: ${JSON.stringify(message.payload)}`);
                          statusMessage = `Backend Error: ${message.payload.message || 'Unknown'}`;
@@ -962,7 +1043,8 @@ document.addEventListener('DOMContentLoaded', () => {
                         // Check for valid enum values from server that we might not be handling yet
                         const validTypes = [
                             'INITIAL_STATE', 'USER_UPDATE', 'ERROR', 'CLIENT_REQUEST', 
-                            'SYSTEM', 'LOG_ENTRY', 'SESSION_STATUS', 'LOGIN_REQUIRED', 'LOGIN_RESULT'
+                            'SYSTEM', 'LOG_ENTRY', 'SESSION_STATUS', 'LOGIN_REQUIRED', 'LOGIN_RESULT',
+                            'CO_PRESENCE', 'LOCATION_QUERY', 'CONFIG_UPDATE', 'SUBSCRIPTION'
                         ];
                         
                         if (validTypes.includes(message.type)) {
@@ -981,6 +1063,11 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     // Handle session status updates from server
+    // Login/logout endpoint of the session this page depends on
+    function authUrl(action) {
+        return sessionAccount ? `/api/accounts/${encodeURIComponent(sessionAccount)}/${action}` : `/api/auth/${action}`;
+    }
+
     function handleSessionStatus(sessionStatus) {
         const wasLoggedIn = hasActiveSession;
         hasActiveSession = sessionStatus.hasActiveSession;
@@ -1217,7 +1304,7 @@ document.addEventListener('DOMContentLoaded', () => {
             addLogEntry('client-request', `Sending 2FA verification: ${JSON.stringify({...loginRequest, twoFactorCode: '***'})}`);
             
             // Send the request
-            fetch('/api/auth/login', {
+            fetch(authUrl('login'), {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -1269,7 +1356,7 @@ document.addEventListener('DOMContentLoaded', () => {
             addLogEntry('client-request', `Sending login request: ${JSON.stringify({...loginRequest, password: '***'})}`);
             
             // Send the request
-            fetch('/api/auth/login', {
+            fetch(authUrl('login'), {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json'
@@ -1332,6 +1419,58 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     });
 
+    // --- Focus (pinned users are polled faster while this page is visible) ---
+    const PINNED_STORAGE_KEY = 'vrcMonitor.pinnedUsers';
+    const FOCUS_RESEND_MS = 5 * 60 * 1000; // Server forgets focus after 15 min without an update
+    let pinnedUsers = new Set(JSON.parse(localStorage.getItem(PINNED_STORAGE_KEY) || '[]'));
+
+    function togglePinned(uid) {
+        if (pinnedUsers.has(uid)) {
+            pinnedUsers.delete(uid);
+        } else {
+            pinnedUsers.add(uid);
+        }
+        localStorage.setItem(PINNED_STORAGE_KEY, JSON.stringify([...pinnedUsers]));
+        renderTimeline();
+        sendFocus();
+    }
+
+    // Tell the server which users we're looking at; nothing while the page is hidden
+    function sendFocus() {
+        if (websocket && websocket.readyState === WebSocket.OPEN) {
+            const users = document.visibilityState === 'visible' ? [...pinnedUsers] : [];
+            websocket.send(JSON.stringify({ type: 'COMMAND', command: 'FOCUS', users: users }));
+        }
+    }
+
+    document.addEventListener('visibilitychange', sendFocus);
+    setInterval(sendFocus, FOCUS_RESEND_MS);
+
+    // Only receive the server's API logs while the log console is open and shows them
+    function sendLogSubscription() {
+        if (websocket && websocket.readyState === WebSocket.OPEN) {
+            const open = statusLineSection.classList.contains('expanded');
+            const logTypes = [];
+            if (open && serverRequestsCheckbox && serverRequestsCheckbox.checked) logTypes.push('request');
+            if (open && serverResponsesCheckbox && serverResponsesCheckbox.checked) logTypes.push('response');
+            websocket.send(JSON.stringify({ type: 'COMMAND', command: 'UNSUBSCRIBE', logTypes: ['*'] }));
+            if (logTypes.length > 0) {
+                websocket.send(JSON.stringify({ type: 'COMMAND', command: 'SUBSCRIBE', logTypes: logTypes }));
+                backfillServerLogs();
+            }
+        }
+    }
+
+    // Ask the server to poll a user right away (served ahead of routine polls)
+    function requestImmediatePoll(uid) {
+        if (websocket && websocket.readyState === WebSocket.OPEN) {
+            addLogEntry('client-request', `Sending POLL_NOW command for ${uid}`);
+            websocket.send(JSON.stringify({ type: 'COMMAND', command: 'POLL_NOW', users: [uid] }));
+        } else {
+            log('warn', 'Cannot request poll: WebSocket not connected.');
+        }
+    }
+
     timeScaleSelect.addEventListener('change', (event) => {
          timeScale = parseInt(event.target.value, 10);
          log('info', `Time scale changed to ${timeScale}s/px`);
@@ -1370,6 +1509,10 @@ document.addEventListener('DOMContentLoaded', () => {
                 }
             }
         }
+
+        if (section === statusLineSection) {
+            sendLogSubscription();
+        }
     }
     
     // --- Tab Handling Functions ---
@@ -1492,7 +1635,12 @@ document.addEventListener('DOMContentLoaded', () => {
         return sanitized;
     }
     
-    function addLogEntry(type, content, timestamp = new Date(), level = null) {
+    function addLogEntry(type, content, timestamp = new Date(), level = null, serverEntry = null) {
+        // Server entries can arrive twice (broadcast and backfill)
+        if (serverEntry && serverEntry.id != null && findServerLogEntry(serverEntry.id)) {
+            return;
+        }
+
         // Sanitize content before storing
         const sanitizedContent = sanitizeLogContent(content);
         
@@ -1500,7 +1648,9 @@ document.addEventListener('DOMContentLoaded', () => {
         const logEntry = {
             timestamp: timestamp,
             content: sanitizedContent,
-            level: level  // Add level property for client logging
+            level: level,  // Add level property for client logging
+            id: serverEntry ? serverEntry.id : null,             // Server log id, to fetch the full entry
+            truncated: serverEntry ? serverEntry.truncated : false // Content is only a preview
         };
         
         // Add to appropriate log array
@@ -1545,6 +1695,42 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     }
     
+    function findServerLogEntry(id) {
+        return logEntries.serverRequests.find(entry => entry.id === id)
+            || logEntries.serverResponses.find(entry => entry.id === id);
+    }
+
+    // Server log broadcasts are previews; load the full entry when one is clicked
+    function loadFullServerLog(id) {
+        fetch(`/api/logs/${id}`)
+            .then(response => response.ok ? response.json() : Promise.reject(new Error(`HTTP ${response.status}`)))
+            .then(full => {
+                const entry = findServerLogEntry(id);
+                if (entry) {
+                    entry.content = sanitizeLogContent(full.content);
+                    entry.truncated = false;
+                    updateLogConsole();
+                }
+            })
+            .catch(error => log('warn', `Could not load server log entry ${id} (it may have been evicted): ${error.message}`));
+    }
+
+    // Fill in server logs from before this page subscribed to them (tenants don't get server logs)
+    function backfillServerLogs() {
+        if (tenant) {
+            return;
+        }
+        fetch('/api/logs?minutes=5')
+            .then(response => response.ok ? response.json() : Promise.reject(new Error(`HTTP ${response.status}`)))
+            .then(entries => entries.forEach(entry => {
+                if (entry.type === 'request' || entry.type === 'response') {
+                    addLogEntry(entry.type === 'request' ? 'server-request' : 'server-response',
+                        entry.content, new Date(entry.timestamp), null, entry);
+                }
+            }))
+            .catch(error => log('warn', `Could not load recent server logs: ${error.message}`));
+    }
+
     function updateLogConsole() {
         // Clear current logs
         logConsoleOutput.innerHTML = '';
@@ -1580,6 +1766,8 @@ document.addEventListener('DOMContentLoaded', () => {
                     timestamp: entry.timestamp,
                     type: 'server-request',
                     content: entry.content,
+                    id: entry.id,
+                    truncated: entry.truncated,
                     style: 'color: #f9a'
                 });
             });
@@ -1591,6 +1779,8 @@ document.addEventListener('DOMContentLoaded', () => {
                     timestamp: entry.timestamp,
                     type: 'server-response',
                     content: entry.content,
+                    id: entry.id,
+                    truncated: entry.truncated,
                     style: 'color: #fd8'
                 });
             });
@@ -1639,6 +1829,12 @@ document.addEventListener('DOMContentLoaded', () => {
             }
             
             logElement.textContent = `${timestamp} ${prefix} ${log.content}`;
+            if (log.truncated && log.id != null) {
+                logElement.textContent += ' …';
+                logElement.title = 'Click to load the full entry';
+                logElement.style.cursor = 'pointer';
+                logElement.addEventListener('click', () => loadFullServerLog(log.id));
+            }
             logConsoleOutput.appendChild(logElement);
         });
         
@@ -1749,10 +1945,10 @@ document.addEventListener('DOMContentLoaded', () => {
         renderStatusLine();
         
         // Log client request
-        addLogEntry('client-request', 'Sending request: POST /api/auth/logout');
+        addLogEntry('client-request', `Sending request: POST ${authUrl('logout')}`);
         
         // Send the request to the server endpoint
-        fetch('/api/auth/logout', {
+        fetch(authUrl('logout'), {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json'
@@ -1986,9 +2182,11 @@ document.addEventListener('DOMContentLoaded', () => {
         }
         if (serverRequestsCheckbox) {
             serverRequestsCheckbox.addEventListener('change', updateLogConsole);
+            serverRequestsCheckbox.addEventListener('change', sendLogSubscription);
         }
         if (serverResponsesCheckbox) {
             serverResponsesCheckbox.addEventListener('change', updateLogConsole);
+            serverResponsesCheckbox.addEventListener('change', sendLogSubscription);
         }
         if (clientLoggingCheckbox) {
             clientLoggingCheckbox.addEventListener('change', updateLogConsole);
@@ -0,0 +1,94 @@
+package com.example.vrcmonitor.logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ErrorLogIndexTest {
+
+    @TempDir
+    Path directory;
+
+    // Writes the lines to a log file and its index, as ErrorFileLogger does
+    static Path write(Path file, List<String> lines) throws IOException {
+        StringBuilder content = new StringBuilder();
+        ByteBuffer index = ByteBuffer.allocate(lines.size() * ErrorLogIndex.RECORD_BYTES);
+        long offset = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            ErrorLogIndex.put(index, new ErrorLogIndex.Entry(i, offset, ErrorLogIndex.userHash("usr_" + i),
+                    ErrorLogIndex.classHash("java.io.IOException"), i));
+            content.append(lines.get(i)).append('\n');
+            offset += lines.get(i).getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        Files.writeString(file, content);
+        Files.write(file.resolveSibling(file.getFileName() + ErrorLogIndex.INDEX_EXTENSION), index.array());
+        return file;
+    }
+
+    static List<String> readAll(Path file, boolean compressed) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (ErrorLogIndex.Entry entry : ErrorLogIndex.read(file.resolveSibling(file.getFileName() + ErrorLogIndex.INDEX_EXTENSION))) {
+            lines.add(ErrorLogIndex.readLine(file, entry.offset(), compressed));
+        }
+        return lines;
+    }
+
+    @Test
+    void compressedOffsetsFindEveryLine() throws IOException {
+        List<String> lines = new ArrayList<>();
+        long length = 0;
+        for (int i = 0; length < 3L * ErrorLogIndex.BLOCK_SIZE; i++) {
+            // Lengths that don't divide the block size, so lines start and end anywhere in a block
+            String line = "{\"n\":" + i + ",\"text\":\"" + "é".repeat(i % 7) + "x".repeat(100 + i * 37 % 900) + "\"}";
+            lines.add(line);
+            length += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        // One line longer than a whole block, so it spans three members
+        lines.add(5, "y".repeat(ErrorLogIndex.BLOCK_SIZE + 10));
+        Path file = write(directory.resolve("errors.log"), lines);
+        assertEquals(lines, readAll(file, false));
+
+        // Make sure the test crosses block boundaries with lines that aren't the long one
+        int crossing = 0;
+        for (ErrorLogIndex.Entry entry : ErrorLogIndex.read(directory.resolve("errors.log.idx"))) {
+            String line = lines.get((int) entry.timeMillis());
+            long end = entry.offset() + line.getBytes(StandardCharsets.UTF_8).length;
+            if (entry.offset() / ErrorLogIndex.BLOCK_SIZE != end / ErrorLogIndex.BLOCK_SIZE) {
+                crossing++;
+            }
+        }
+        assertTrue(crossing >= 3, "Lines crossing a block boundary: " + crossing);
+
+        ErrorLogIndex.compress(file);
+
+        Path compressed = directory.resolve("errors.log.gz");
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(directory.resolve("errors.log.idx")));
+        assertEquals(lines, readAll(compressed, true));
+        List<ErrorLogIndex.Entry> entries = ErrorLogIndex.read(directory.resolve("errors.log.gz.idx"));
+        assertEquals(ErrorLogIndex.userHash("usr_3"), entries.get(3).userHash());
+        assertEquals(ErrorLogIndex.classHash("IOException"), entries.get(3).classHash());
+    }
+
+    @Test
+    void hashesAreWideAndNullIsZero() {
+        assertEquals(0, ErrorLogIndex.userHash(null));
+        assertEquals(0, ErrorLogIndex.classHash(null));
+        // Equal 32-bit String hashes, different index hashes
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(ErrorLogIndex.userHash("Aa"), ErrorLogIndex.userHash("BB"));
+        assertEquals(ErrorLogIndex.classHash("IllegalStateException"), ErrorLogIndex.classHash("java.lang.IllegalStateException"));
+    }
+}
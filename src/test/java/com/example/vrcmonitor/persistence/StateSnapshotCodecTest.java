@@ -0,0 +1,127 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.services.OnlineSession;
+import com.example.vrcmonitor.services.PresenceCategory;
+import com.example.vrcmonitor.services.PresenceCounters;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import com.example.vrcmonitor.services.UserStateService.UserStateContainerSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StateSnapshotCodecTest {
+
+    static StateSnapshot snapshot() {
+        UserState online = new UserState(UserRegistry.NO_ID, UserStateCodecTest.fullUser(), StatusType.OK, null,
+                Instant.ofEpochMilli(2_000));
+        UserState failed = new UserState(UserRegistry.NO_ID, null, StatusType.ERROR, "timeout", Instant.ofEpochMilli(3_000));
+        Map<String, UserStateContainerSnapshot> users = new LinkedHashMap<>();
+        users.put("usr_a", new UserStateContainerSnapshot(failed, List.of(online, online, failed)));
+        users.put("usr_b", new UserStateContainerSnapshot(null, List.of()));
+
+        Map<Long, long[]> hourly = new TreeMap<>(Map.of(470_000L, new long[] { 1, 2, 3, 4 }, 470_005L, new long[] { 0, 0, 9, 0 }));
+        Map<Long, long[]> daily = new TreeMap<>(Map.of(19_600L, new long[] { 10, 20, 30, 2 }));
+        return new StateSnapshot(Instant.ofEpochMilli(5_000), 42,
+                users,
+                new LinkedHashMap<>(Map.of("usr_a", Instant.ofEpochMilli(4_000))),
+                List.of(new OnlineSession("usr_a", Instant.ofEpochMilli(100), Instant.ofEpochMilli(900), List.of("wrld_x", "wrld_y")),
+                        new OnlineSession("usr_b", Instant.ofEpochMilli(1_000), null, List.of())),
+                List.of(new PresenceCounters("usr_a", Instant.ofEpochMilli(100), null, PresenceCategory.values()[0], hourly, daily),
+                        new PresenceCounters("usr_b", null, null, null, Map.of(), Map.of())));
+    }
+
+    static byte[] encode(StateSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateSnapshotCodec.write(snapshot, bytes);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void snapshotRoundTrips() throws IOException {
+        StateSnapshot written = snapshot();
+        StateSnapshot read = StateSnapshotCodec.read(new ByteArrayInputStream(encode(written)));
+
+        assertEquals(written.createdAt(), read.createdAt());
+        assertEquals(written.checkpointLsn(), read.checkpointLsn());
+        assertEquals(written.users(), read.users());
+        assertEquals(written.lastPollTimes(), read.lastPollTimes());
+        assertEquals(written.onlineSessions(), read.onlineSessions());
+        assertEquals(written.presenceCounters().size(), read.presenceCounters().size());
+        for (int i = 0; i < written.presenceCounters().size(); i++) {
+            PresenceCounters expected = written.presenceCounters().get(i);
+            PresenceCounters actual = read.presenceCounters().get(i);
+            assertEquals(expected.vrcUid(), actual.vrcUid());
+            assertEquals(expected.firstSeen(), actual.firstSeen());
+            assertEquals(expected.lastSeen(), actual.lastSeen());
+            assertEquals(expected.lastPresence(), actual.lastPresence());
+            assertBucketsEqual(expected.hourly(), actual.hourly());
+            assertBucketsEqual(expected.daily(), actual.daily());
+        }
+    }
+
+    @Test
+    void repeatedStringsAreStoredOnce() throws IOException {
+        String marker = "a status description that only appears here";
+        UserState state = new UserState(UserRegistry.NO_ID, UserStateCodecTest.fullUser(), StatusType.OK, null, Instant.EPOCH);
+        state.user().setStatusDescription(marker);
+        StateSnapshot snapshot = new StateSnapshot(Instant.EPOCH, 0,
+                Map.of("usr_a", new UserStateContainerSnapshot(state, List.of(state, state, state))),
+                Map.of(), List.of(), List.of());
+        String encoded = new String(encode(snapshot), StandardCharsets.ISO_8859_1);
+        assertEquals(encoded.indexOf(marker), encoded.lastIndexOf(marker));
+    }
+
+    @Test
+    void unknownSectionsAreSkipped() throws IOException {
+        byte[] bytes = encode(snapshot());
+        // Insert a section with an unknown tag before the end tag, as a newer version might
+        ByteArrayOutputStream extended = new ByteArrayOutputStream();
+        extended.write(bytes, 0, bytes.length - 1);
+        DataOutputStream out = new DataOutputStream(extended);
+        out.writeByte(99);
+        out.writeInt(3);
+        out.write(new byte[] { 1, 2, 3 });
+        out.writeByte(0);
+
+        StateSnapshot read = StateSnapshotCodec.read(new ByteArrayInputStream(extended.toByteArray()));
+        assertEquals(snapshot().users(), read.users());
+        assertEquals(42, read.checkpointLsn());
+    }
+
+    @Test
+    void badMagicVersionAndTruncationFail() throws IOException {
+        byte[] bytes = encode(snapshot());
+
+        byte[] badMagic = bytes.clone();
+        badMagic[0] ^= 0x7F;
+        assertThrows(IOException.class, () -> StateSnapshotCodec.read(new ByteArrayInputStream(badMagic)));
+
+        byte[] badVersion = bytes.clone();
+        badVersion[5]++;
+        assertThrows(IOException.class, () -> StateSnapshotCodec.read(new ByteArrayInputStream(badVersion)));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> StateSnapshotCodec.read(new ByteArrayInputStream(truncated)));
+    }
+
+    private static void assertBucketsEqual(Map<Long, long[]> expected, Map<Long, long[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((key, slots) -> assertArrayEquals(slots, actual.get(key), "bucket " + key));
+    }
+}
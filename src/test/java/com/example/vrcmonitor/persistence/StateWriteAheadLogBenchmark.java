@@ -0,0 +1,85 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.models.VRChatUser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput and latency of the state WAL. Not run by the build (no "Test" suffix);
+ * run it by hand, e.g. from the IDE, or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.vrcmonitor.persistence.StateWriteAheadLogBenchmark}.
+ *
+ * Each run: 4 threads x 50k appends of a typical user record, after a 20k record warmup, then
+ * every record is read back.
+ */
+public class StateWriteAheadLogBenchmark {
+    private static final int THREADS = 4;
+    private static final int APPENDS_PER_THREAD = 50_000;
+    private static final int WARMUP = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        run(StateWriteAheadLog.Durability.BATCH, 5);
+        run(StateWriteAheadLog.Durability.BATCH, 200);
+        run(StateWriteAheadLog.Durability.ASYNC, 5);
+        run(StateWriteAheadLog.Durability.ASYNC, 200);
+    }
+
+    private static void run(StateWriteAheadLog.Durability durability, long batchMillis) throws Exception {
+        Path directory = Files.createTempDirectory("wal-bench");
+        try {
+            StateWriteAheadLog wal = new StateWriteAheadLog(directory, durability, batchMillis, 256);
+            wal.open(0);
+            VRChatUser user = StateWriteAheadLogTest.user("usr_c1644b5b-3ca4-45b4-97c6-a2a0de70d469", "join me");
+            for (int i = 0; i < WARMUP; i++) {
+                wal.recordState(user.getId(), user, Instant.now());
+            }
+
+            long[][] latencies = new long[THREADS][APPENDS_PER_THREAD];
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                long[] mine = latencies[t];
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+                        long before = System.nanoTime();
+                        wal.recordState(user.getId(), user, Instant.now());
+                        mine[i] = System.nanoTime() - before;
+                    }
+                });
+                threads[t].start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long syncsBefore = wal.getSyncCount();
+            wal.close(); // Returns once everything queued is written (and fsynced in BATCH mode)
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            int readBack = new StateWriteAheadLog(directory, durability, batchMillis, 256).readAll().size();
+            System.out.printf("%s %dms: append p50 %.1fus p99 %.1fus, %.0fk rec/s %s, %d fsyncs, %d/%d records read back%n",
+                    durability, batchMillis, all[all.length / 2] / 1000.0, all[all.length * 99 / 100] / 1000.0,
+                    THREADS * APPENDS_PER_THREAD / seconds / 1000, durability == StateWriteAheadLog.Durability.BATCH ? "durable" : "written",
+                    Math.max(syncsBefore, wal.getSyncCount()), readBack, WARMUP + THREADS * APPENDS_PER_THREAD);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    static VRChatUser user(String vrcUid, String status) {
+        VRChatUser user = new VRChatUser();
+        user.setId(vrcUid);
+        user.setDisplayName("User " + vrcUid);
+        user.setState("online");
+        user.setStatus(status);
+        user.setLocation("wrld_test:1234");
+        return user;
+    }
+
+    @Test
+    void recordsAreReadBackInLsnOrder() throws Exception {
+        StateWriteAheadLog wal = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.ASYNC, 5, 64);
+        wal.open(0);
+        wal.recordState("usr_a", user("usr_a", "active"), Instant.ofEpochMilli(1000));
+        wal.recordError("usr_b", "API error (500)", Instant.ofEpochMilli(2000));
+        wal.recordState("usr_a", user("usr_a", "busy"), Instant.ofEpochMilli(3000));
+        wal.close();
+
+        List<StateWriteAheadLog.Entry> entries = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.ASYNC, 5, 64).readAll();
+        assertEquals(List.of(1L, 2L, 3L), entries.stream().map(StateWriteAheadLog.Entry::lsn).toList());
+        assertEquals("busy", entries.get(2).state().user().getStatus());
+        assertTrue(entries.get(1).isError());
+        assertEquals("API error (500)", entries.get(1).state().errorMessage());
+        assertEquals(Instant.ofEpochMilli(2000), entries.get(1).state().lastUpdated());
+    }
+
+    @Test
+    void concurrentAppendsAndRollsKeepSegmentsInLsnOrder() throws Exception {
+        StateWriteAheadLog wal = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.ASYNC, 2, 32);
+        wal.open(0);
+        int threads = 4;
+        int perThread = 5000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            String vrcUid = "usr_" + t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    wal.recordState(vrcUid, user(vrcUid, "active"), Instant.now());
+                }
+            });
+        }
+        start.countDown();
+        List<Long> checkpoints = new ArrayList<>();
+        List<Path> rolledTo = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            checkpoints.add(wal.roll());
+            rolledTo.add(wal.currentSegment());
+            Thread.sleep(1);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        wal.close();
+
+        // Every segment starts right after the checkpoint that opened it and holds ascending LSNs
+        StateWriteAheadLog reader = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.ASYNC, 2, 32);
+        List<StateWriteAheadLog.Entry> all = reader.readAll();
+        assertEquals(threads * perThread, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1, all.get(i).lsn());
+        }
+        for (int i = 0; i < rolledTo.size(); i++) {
+            long covered = checkpoints.get(i);
+            List<StateWriteAheadLog.Entry> after = segmentEntries(rolledTo.get(i));
+            for (StateWriteAheadLog.Entry entry : after) {
+                assertTrue(entry.lsn() > covered, "LSN " + entry.lsn() + " behind checkpoint " + covered);
+            }
+        }
+    }
+
+    @Test
+    void tornTailIsIgnoredOnRecovery() throws Exception {
+        StateWriteAheadLog wal = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.BATCH, 1, 1);
+        wal.open(0);
+        for (int i = 0; i < 10; i++) {
+            wal.recordState("usr_a", user("usr_a", "status " + i), Instant.now());
+        }
+        Path segment = wal.currentSegment();
+        wal.close();
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 7);
+        }
+        List<StateWriteAheadLog.Entry> entries = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.BATCH, 1, 1).readAll();
+        assertEquals(9, entries.size());
+        assertEquals("status 8", entries.get(8).state().user().getStatus());
+    }
+
+    @Test
+    void tailReturnsOnlyNewRecords() throws Exception {
+        StateWriteAheadLog wal = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.BATCH, 1, 1);
+        wal.open(0);
+        StateWriteAheadLog.Tail tail = new StateWriteAheadLog(directory, StateWriteAheadLog.Durability.BATCH, 1, 1).tail(0);
+        wal.recordState("usr_a", user("usr_a", "one"), Instant.now());
+        wal.roll();
+        wal.recordState("usr_a", user("usr_a", "two"), Instant.now());
+        wal.close();
+
+        List<StateWriteAheadLog.Entry> entries = tail.poll();
+        assertEquals(List.of(1L, 2L), entries.stream().map(StateWriteAheadLog.Entry::lsn).toList());
+        assertTrue(tail.poll().isEmpty());
+    }
+
+    // The records of one segment, read through a directory holding only that segment
+    private List<StateWriteAheadLog.Entry> segmentEntries(Path segment) throws Exception {
+        Path single = Files.createTempDirectory(directory, "single");
+        Files.copy(segment, single.resolve(segment.getFileName()));
+        try {
+            return new StateWriteAheadLog(single, StateWriteAheadLog.Durability.ASYNC, 1, 1).readAll();
+        } finally {
+            try (Stream<Path> files = Files.list(single)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(single);
+        }
+    }
+}
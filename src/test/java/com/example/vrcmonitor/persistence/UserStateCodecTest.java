@@ -0,0 +1,110 @@
+package com.example.vrcmonitor.persistence;
+
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserStateCodecTest {
+
+    static VRChatUser fullUser() {
+        VRChatUser user = new VRChatUser();
+        user.setId("usr_a");
+        user.setUsername("usera");
+        user.setDisplayName("User Ä 😀"); // Non-ASCII and a surrogate pair
+        user.setState("online");
+        user.setStatus("join me");
+        user.setStatusDescription("");
+        user.setLocation("wrld_x:123~private(usr_b)");
+        user.setWorldId("wrld_x");
+        user.setInstanceId("123~private(usr_b)");
+        user.setCurrentAvatarImageUrl("https://example.com/avatar.png");
+        user.setCurrentAvatarThumbnailImageUrl("https://example.com/thumb.png");
+        user.setBio("line one\nline two");
+        user.setUserIcon(null);
+        user.setLast_login(Instant.ofEpochMilli(1_700_000_000_123L));
+        user.setLast_activity(null);
+        user.setFriend(true);
+        return user;
+    }
+
+    static UserState roundTrip(UserState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UserStateCodec.writeState(new DataOutputStream(bytes), state, UserStateCodec.INLINE_WRITER);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        UserState read = UserStateCodec.readState(in, UserStateCodec.INLINE_READER);
+        assertEquals(-1, in.read(), "trailing bytes");
+        return read;
+    }
+
+    @Test
+    void stateWithUserRoundTrips() throws IOException {
+        UserState state = new UserState(3, fullUser(), StatusType.OK, null, Instant.ofEpochMilli(1_700_000_001_000L));
+        // Decoded states are not attached to a user yet
+        assertEquals(state.withUserId(UserRegistry.NO_ID), roundTrip(state));
+    }
+
+    @Test
+    void errorStateWithoutUserRoundTrips() throws IOException {
+        UserState state = new UserState(UserRegistry.NO_ID, null, StatusType.ERROR, "API error (500)", null);
+        assertEquals(state, roundTrip(state));
+    }
+
+    @Test
+    void instantsBeforeTheEpochSurvive() throws IOException {
+        UserState state = new UserState(UserRegistry.NO_ID, null, StatusType.OFFLINE, null, Instant.ofEpochMilli(-5));
+        assertEquals(Instant.ofEpochMilli(-5), roundTrip(state).lastUpdated());
+    }
+
+    @Test
+    void truncatedInputFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UserStateCodec.writeState(new DataOutputStream(bytes),
+                new UserState(1, fullUser(), StatusType.OK, null, Instant.EPOCH), UserStateCodec.INLINE_WRITER);
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+        assertThrows(EOFException.class, () -> UserStateCodec.readState(
+                new DataInputStream(new ByteArrayInputStream(truncated)), UserStateCodec.INLINE_READER));
+    }
+
+    @Test
+    void unknownStatusTypeFails() {
+        byte[] bytes = { (byte) StatusType.values().length };
+        assertThrows(IOException.class, () -> UserStateCodec.readState(
+                new DataInputStream(new ByteArrayInputStream(bytes)), UserStateCodec.INLINE_READER));
+    }
+
+    @Test
+    void oversizedStringLengthFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Varints.writeUnsigned(new DataOutputStream(bytes), UserStateCodec.MAX_STRING_BYTES + 2L);
+        assertThrows(IOException.class, () -> UserStateCodec.INLINE_READER.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    void varintsRoundTripAtTheEdges() throws IOException {
+        long[] values = { 0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            Varints.writeSigned(out, value);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, Varints.readSigned(in));
+        }
+    }
+}
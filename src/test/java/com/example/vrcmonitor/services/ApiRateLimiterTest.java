@@ -0,0 +1,161 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.services.ApiRateLimiter.RequestClass;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ApiRateLimiterTest {
+
+    static final RequestClass I = RequestClass.INTERACTIVE;
+    static final RequestClass P = RequestClass.PRESENCE;
+    static final RequestClass B = RequestClass.BACKGROUND;
+
+    // A limiter on a clock that only moves when the test says so, and the classes it served in order
+    final AtomicLong clock = new AtomicLong();
+    final ApiRateLimiter limiter = new ApiRateLimiter(clock::get);
+    final List<RequestClass> served = Collections.synchronizedList(new ArrayList<>());
+    final List<String> servedOwners = Collections.synchronizedList(new ArrayList<>());
+
+    void enqueue(RequestClass requestClass, int count) throws InterruptedException {
+        enqueue(requestClass, null, count);
+    }
+
+    void enqueue(RequestClass requestClass, String owner, int count) throws InterruptedException {
+        int expected = waiting() + count;
+        for (int i = 0; i < count; i++) {
+            Thread waiter = new Thread(() -> {
+                try {
+                    limiter.waitForThrottlingConstraints(requestClass, owner, () -> true);
+                    servedOwners.add(owner);
+                    served.add(requestClass);
+                } catch (InterruptedException e) {
+                    // Test over
+                }
+            });
+            waiter.setDaemon(true);
+            waiter.start();
+        }
+        while (waiting() < expected) {
+            Thread.sleep(1);
+        }
+    }
+
+    int waiting() {
+        return limiter.getStats().values().stream().mapToInt(stats -> (Integer) stats.get("waiting")).sum();
+    }
+
+    // Moves the clock to the next slot and waits for the one request it lets through
+    void serveNext(Duration advance) throws InterruptedException {
+        int before = served.size();
+        clock.addAndGet(advance.toNanos());
+        limiter.wakeWaiters();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (served.size() == before) {
+            if (System.nanoTime() > deadline) {
+                fail("No request served after " + served);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    List<RequestClass> serveAll(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            serveNext(Duration.ofSeconds(1));
+        }
+        return List.copyOf(served);
+    }
+
+    @Test
+    void slotsAreSplitByWeight() throws Exception {
+        // Takes the free slot, so the rest queue up behind it
+        limiter.waitForThrottlingConstraints(B);
+        enqueue(I, 10);
+        enqueue(P, 10);
+        enqueue(B, 10);
+
+        // Smooth weighted round-robin over 8/4/1, interleaved rather than in bursts. After ten
+        // one-second slots the interactive requests are overdue, so only these follow the weights
+        assertEquals(List.of(I, P, I, I, P, I, B, I, P, I), serveAll(10));
+        assertEquals(6L, limiter.getStats().get("INTERACTIVE").get("granted"));
+        assertEquals(3L, limiter.getStats().get("PRESENCE").get("granted"));
+        assertEquals(2L, limiter.getStats().get("BACKGROUND").get("granted"));
+        assertEquals(0L, limiter.getStats().get("INTERACTIVE").get("starvationPromotions"));
+
+        // Only one request per slot: nothing goes while the clock stands still
+        Thread.sleep(50);
+        assertEquals(10, served.size());
+        serveAll(20);
+        assertEquals(0, waiting());
+    }
+
+    @Test
+    void overdueRequestsGoFirstOldestFirst() throws Exception {
+        limiter.waitForThrottlingConstraints(P);
+        enqueue(B, 1);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        enqueue(I, 4);
+
+        // Not overdue yet: interactive requests win on weight
+        assertEquals(List.of(I), serveAll(1));
+        // Past every starvation limit, the background request is the oldest
+        serveNext(B.getStarvationLimit());
+        assertEquals(List.of(I, B), List.copyOf(served));
+        assertEquals(1L, limiter.getStats().get("BACKGROUND").get("starvationPromotions"));
+
+        assertEquals(List.of(I, B, I, I, I), serveAll(3));
+        assertEquals(3L, limiter.getStats().get("INTERACTIVE").get("starvationPromotions"));
+    }
+
+    @Test
+    void ownersShareTheirClassEqually() throws Exception {
+        limiter.waitForThrottlingConstraints(B);
+        // A tenant with many users queues up first, a smaller one after it
+        enqueue(P, "big", 4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        enqueue(P, "small", 2);
+
+        serveAll(6);
+        assertEquals(List.of("big", "small", "big", "small", "big", "big"), List.copyOf(servedOwners));
+    }
+
+    @Test
+    void waiterThatIsNoLongerWantedIsDroppedWithoutASlot() throws Exception {
+        ApiRateLimiter limiter = new ApiRateLimiter();
+        assertTrue(limiter.waitForThrottlingConstraints(RequestClass.PRESENCE, () -> true));
+
+        // The next slot is a second away; the session ends while this one waits for it
+        AtomicBoolean sessionActive = new AtomicBoolean(true);
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.waitForThrottlingConstraints(RequestClass.PRESENCE, sessionActive::get);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.getStats().get("PRESENCE").get("waiting").equals(0)) {
+            Thread.sleep(5);
+        }
+        long endedAt = System.nanoTime();
+        sessionActive.set(false);
+        limiter.wakeWaiters();
+
+        assertFalse(waiter.get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - endedAt) < 500);
+        assertEquals(1L, limiter.getStats().get("PRESENCE").get("granted"));
+        assertEquals(1L, limiter.getStats().get("PRESENCE").get("dropped"));
+        assertEquals(0, limiter.getStats().get("PRESENCE").get("waiting"));
+    }
+}
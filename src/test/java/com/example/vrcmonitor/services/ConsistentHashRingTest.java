@@ -0,0 +1,90 @@
+package com.example.vrcmonitor.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    static final int KEYS = 10_000;
+
+    static Map<String, String> nodes(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return nodes;
+    }
+
+    static Map<String, String> assign(ConsistentHashRing<String> ring) {
+        Map<String, String> byKey = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            byKey.put("usr_" + i, ring.nodeFor("usr_" + i));
+        }
+        return byKey;
+    }
+
+    @Test
+    void emptyRingHasNoNodes() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(Map.of(), AccountPool.VIRTUAL_NODES);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.nodeFor("usr_a"));
+    }
+
+    @Test
+    void singleNodeGetsEveryKey() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes("a"), 1);
+        assertFalse(ring.isEmpty());
+        // Keys hashing past the only point wrap around to it
+        assign(ring).values().forEach(node -> assertEquals("a", node));
+    }
+
+    @Test
+    void assignmentIsDeterministicAndRoughlyEven() {
+        Map<String, String> first = assign(new ConsistentHashRing<>(nodes("a", "b", "c"), AccountPool.VIRTUAL_NODES));
+        // Insertion order of the nodes does not matter either
+        Map<String, String> second = assign(new ConsistentHashRing<>(nodes("c", "a", "b"), AccountPool.VIRTUAL_NODES));
+        assertEquals(first, second);
+
+        Map<String, Integer> counts = new HashMap<>();
+        first.values().forEach(node -> counts.merge(node, 1, Integer::sum));
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 3 * 0.7 && count < KEYS / 3 * 1.3, "Uneven spread: " + counts);
+        }
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        Map<String, String> before = assign(new ConsistentHashRing<>(nodes("a", "b", "c"), AccountPool.VIRTUAL_NODES));
+        Map<String, String> after = assign(new ConsistentHashRing<>(nodes("a", "c"), AccountPool.VIRTUAL_NODES));
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!entry.getValue().equals("b")) {
+                assertEquals(entry.getValue(), after.get(entry.getKey()), entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        Map<String, String> before = assign(new ConsistentHashRing<>(nodes("a", "b", "c"), AccountPool.VIRTUAL_NODES));
+        Map<String, String> after = assign(new ConsistentHashRing<>(nodes("a", "b", "c", "d"), AccountPool.VIRTUAL_NODES));
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String now = after.get(entry.getKey());
+            if (!now.equals(entry.getValue())) {
+                assertEquals("d", now, entry.getKey());
+                moved++;
+            }
+        }
+        // About a quarter of the keys, not a reshuffle
+        assertTrue(moved > KEYS / 4 * 0.7 && moved < KEYS / 4 * 1.3, "Moved " + moved);
+    }
+}
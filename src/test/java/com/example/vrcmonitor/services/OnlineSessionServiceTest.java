@@ -0,0 +1,49 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OnlineSessionServiceTest {
+
+    static UserState observed(String state, String location, Instant at) {
+        VRChatUser user = new VRChatUser();
+        user.setId("usr_a");
+        user.setState(state);
+        user.setStatus("active");
+        user.setLocation(location);
+        return new UserState(1, user, StatusType.OK, null, at);
+    }
+
+    @Test
+    void sessionBetweenCheckpointAndCrashIsReplayed() {
+        Instant checkpoint = Instant.now().minus(Duration.ofHours(2));
+        Instant joined = checkpoint.plus(Duration.ofMinutes(1));
+        Instant left = checkpoint.plus(Duration.ofMinutes(4));
+        UserStateService userStateService = mock(UserStateService.class);
+        when(userStateService.getCurrentStates()).thenReturn(Map.of("usr_a", observed("offline", "offline", left)));
+        OnlineSessionService service = new OnlineSessionService(userStateService);
+        OnlineSession earlier = new OnlineSession("usr_a", checkpoint.minus(Duration.ofHours(1)),
+                checkpoint.minus(Duration.ofMinutes(30)), List.of());
+        service.restore(List.of(earlier));
+
+        // WAL records after the checkpoint, including an unchanged poll
+        service.replay("usr_a", observed("online", "wrld_a:1", joined));
+        service.replay("usr_a", observed("online", "wrld_b:2", joined.plusSeconds(60)));
+        service.replay("usr_a", observed("offline", "offline", left));
+        service.reconcile();
+
+        assertEquals(List.of(earlier, new OnlineSession("usr_a", joined, left, List.of("wrld_a", "wrld_b"))),
+                service.getSessions("usr_a", checkpoint.minus(Duration.ofDays(1)), Instant.now()));
+    }
+}
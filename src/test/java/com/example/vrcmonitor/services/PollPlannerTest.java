@@ -0,0 +1,174 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PollPlannerTest {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    static UserConfig user(String vrcUid, String pollRate) {
+        UserConfig user = new UserConfig();
+        user.setHrToken(vrcUid.substring(4));
+        user.setVrcUid(vrcUid);
+        user.setPollRate(pollRate);
+        return user;
+    }
+
+    // 10 users, half polled every minute and half every two minutes
+    static List<UserConfig> users() {
+        List<UserConfig> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(user("usr_" + i, i % 2 == 0 ? "60s" : "2m"));
+        }
+        return users;
+    }
+
+    /*
+     * Evening habit: every day each user comes online around 19:00 (+-45 min) and goes offline
+     * 2-4 hours later, over the last 35 days (28 days of training plus a 7-day replay).
+     */
+    static List<OnlineSession> eveningSessions(List<UserConfig> users, Instant now, long seed) {
+        Random random = new Random(seed);
+        List<OnlineSession> sessions = new ArrayList<>();
+        LocalDate today = LocalDate.ofInstant(now, ZONE);
+        for (UserConfig user : users) {
+            for (int day = 35; day >= 0; day--) {
+                Instant start = today.minusDays(day).atTime(19, 0).atZone(ZONE).toInstant()
+                        .plusSeconds(random.nextInt(90 * 60) - 45 * 60);
+                Instant end = start.plusSeconds(2 * 3600 + random.nextInt(2 * 3600));
+                if (end.isBefore(now)) {
+                    sessions.add(new OnlineSession(user.getVrcUid(), start, end, List.of()));
+                }
+            }
+        }
+        return sessions;
+    }
+
+    static PollPlanner planner(List<UserConfig> users, List<OnlineSession> sessions, ClientFocusService focus) {
+        ConfigLoader configLoader = mock(ConfigLoader.class);
+        when(configLoader.getConfig()).thenReturn(new AppConfig());
+        UserRegistry userRegistry = mock(UserRegistry.class);
+        when(userRegistry.users()).thenReturn(users);
+        OnlineSessionService onlineSessionService = new OnlineSessionService(mock(UserStateService.class));
+        onlineSessionService.restore(sessions);
+        return new PollPlanner(configLoader, userRegistry, onlineSessionService, focus);
+    }
+
+    @Test
+    void predictivePollingCutsLatencyAtTheSameBudget() {
+        List<UserConfig> users = users();
+        PollPlanner planner = planner(users, eveningSessions(users, Instant.now(), 38), new ClientFocusService(event -> { }));
+
+        PollPlanner.SimulationResult result = planner.simulate(7);
+
+        // 5 x 10080 + 5 x 5040 polls in a week at the configured rates
+        assertEquals(75_600, result.fixed().polls());
+        double pollRatio = (double) result.predictive().polls() / result.fixed().polls();
+        assertTrue(Math.abs(pollRatio - 1) < 0.01, "predictive polls: " + result.predictive().polls());
+        // At least six whole evenings per user, wherever "now" falls in the day
+        assertTrue(result.transitions() >= 10 * 6 * 2, "transitions replayed: " + result.transitions());
+        assertTrue(result.latencyReductionPercent() > 15, "fixed " + result.fixed() + ", predictive " + result.predictive());
+    }
+
+    @Test
+    void withoutModelsEveryHourUsesTheConfiguredRate() {
+        List<UserConfig> users = users();
+        List<Map<String, Duration>> bySlot = PollPlanner.allocateAllSlots(users, Map.of());
+
+        assertEquals(ActivityModel.SLOTS, bySlot.size());
+        for (Map<String, Duration> intervals : bySlot) {
+            for (UserConfig user : users) {
+                assertEquals(user.getPollRateDuration(), intervals.get(user.getVrcUid()));
+            }
+        }
+    }
+
+    @Test
+    void plannedWeekKeepsEachUsersBudgetAndBounds() {
+        List<UserConfig> users = users();
+        Map<String, ActivityModel> models = new HashMap<>();
+        for (OnlineSession session : eveningSessions(users, Instant.now(), 7)) {
+            ActivityModel model = models.computeIfAbsent(session.vrcUid(), k -> new ActivityModel());
+            model.record(session.start(), ZONE);
+            model.record(session.end(), ZONE);
+        }
+        List<Map<String, Duration>> bySlot = PollPlanner.allocateAllSlots(users, models);
+
+        for (UserConfig user : users) {
+            long configured = user.getPollRateDuration().toMillis();
+            double weeklyPolls = 0;
+            long shortest = Long.MAX_VALUE;
+            long longest = 0;
+            for (Map<String, Duration> intervals : bySlot) {
+                long interval = intervals.get(user.getVrcUid()).toMillis();
+                weeklyPolls += 3_600_000.0 / interval;
+                shortest = Math.min(shortest, interval);
+                longest = Math.max(longest, interval);
+            }
+            double configuredPolls = ActivityModel.SLOTS * 3_600_000.0 / configured;
+            assertEquals(configuredPolls, weeklyPolls, configuredPolls * 0.01, user.getHrToken());
+            assertTrue(shortest >= configured / PollPlanner.MAX_FACTOR - 1, "shortest " + shortest);
+            assertTrue(longest <= configured * PollPlanner.MAX_FACTOR + 1, "longest " + longest);
+            // The evening hours get the short intervals
+            assertTrue(shortest < configured && longest > configured, user.getHrToken());
+        }
+    }
+
+    @Test
+    void peakRateIsCappedAtHalfTheLimiterUnlessTheBudgetNeedsMore() {
+        assertEquals(0.4, PollPlanner.peakRate(0.1), 1e-9);
+        assertEquals(0.5, PollPlanner.peakRate(0.2), 1e-9);
+        assertEquals(2.0, PollPlanner.peakRate(2.0), 1e-9);
+    }
+
+    @Test
+    void focusedUsersArePolledFasterAndOthersNoFasterThanConfigured() {
+        List<UserConfig> users = users();
+        ClientFocusService focus = new ClientFocusService(event -> { });
+        PollPlanner planner = planner(users, List.of(), focus);
+        focus.setFocus("client", List.of("usr_0"));
+
+        Instant now = Instant.now();
+        assertEquals(Duration.ofSeconds(15), planner.nextInterval(users.get(0), now));
+        for (UserConfig user : users.subList(1, users.size())) {
+            assertEquals(user.getPollRateDuration(), planner.nextInterval(user, now));
+        }
+    }
+
+    @Test
+    void focusChangesAreSeenByTheNextPoll() {
+        List<UserConfig> users = users();
+        ClientFocusService focus = new ClientFocusService(event -> { });
+        PollPlanner planner = planner(users, List.of(), focus);
+        Instant now = Instant.now();
+        focus.setFocus("client", List.of("usr_0"));
+        assertEquals(Duration.ofSeconds(15), planner.nextInterval(users.get(0), now));
+
+        focus.setFocus("client", List.of("usr_1"));
+        assertEquals(Duration.ofSeconds(60), planner.nextInterval(users.get(0), now));
+        assertEquals(Duration.ofSeconds(30), planner.nextInterval(users.get(1), now));
+
+        // A new rate on the same config object is parsed again
+        users.get(0).setPollRate("90s");
+        assertEquals(Duration.ofSeconds(90), users.get(0).getPollRateDuration());
+    }
+}
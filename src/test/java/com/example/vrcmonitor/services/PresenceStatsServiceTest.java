@@ -0,0 +1,64 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PresenceStatsServiceTest {
+
+    static UserState observed(String state, Instant at) {
+        VRChatUser user = new VRChatUser();
+        user.setId("usr_a");
+        user.setState(state);
+        user.setStatus("active");
+        user.setLocation("online".equals(state) ? "wrld_a:1" : "offline");
+        return new UserState(1, user, StatusType.OK, null, at);
+    }
+
+    static long[] totals(PresenceStatsService service) {
+        long[] total = new long[PresenceCounters.SLOT_COUNT];
+        PresenceCounters counters = service.getAllCounters().get(0);
+        counters.hourly().values().forEach(slots -> {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += slots[i];
+            }
+        });
+        return total;
+    }
+
+    @Test
+    void replayedSpansAreCountedButNotTheDowntime() {
+        Instant checkpoint = Instant.now().minus(Duration.ofHours(3));
+        Instant wentOffline = checkpoint.plus(Duration.ofMinutes(20));
+        Instant lastPoll = checkpoint.plus(Duration.ofMinutes(30));
+        UserStateService userStateService = mock(UserStateService.class);
+        when(userStateService.getCurrentStates()).thenReturn(Map.of("usr_a", observed("offline", lastPoll)));
+        PresenceStatsService service = new PresenceStatsService(userStateService);
+        service.restore(List.of(new PresenceCounters("usr_a", checkpoint.minus(Duration.ofHours(1)), checkpoint,
+                PresenceCategory.ONLINE, Map.of(), Map.of())), checkpoint);
+
+        service.replay("usr_a", observed("online", checkpoint.plus(Duration.ofMinutes(10))));
+        service.replay("usr_a", observed("offline", wentOffline));
+        service.replay("usr_a", observed("offline", lastPoll));
+        service.startCounting();
+
+        long[] total = totals(service);
+        assertEquals(Duration.ofMinutes(20).toMillis(), total[PresenceCategory.ONLINE.ordinal()]);
+        // The two and a half hours between the last poll and the restart are not counted
+        long offline = total[PresenceCategory.OFFLINE.ordinal()];
+        assertTrue(offline >= Duration.ofMinutes(10).toMillis() && offline < Duration.ofMinutes(11).toMillis(), "Offline " + offline);
+        assertEquals(0, total[PresenceCounters.SESSIONS_SLOT]); // The session began before the checkpoint
+        assertEquals(wentOffline, service.getAllCounters().get(0).lastSeen());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.vrcmonitor.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionIntervalTreeTest {
+
+    static OnlineSession session(String vrcUid, long start, long end) {
+        return new OnlineSession(vrcUid, Instant.ofEpochMilli(start), Instant.ofEpochMilli(end), List.of());
+    }
+
+    static List<OnlineSession> overlapping(SessionIntervalTree tree, long from, long to) {
+        List<OnlineSession> found = new ArrayList<>();
+        tree.forEachOverlapping(from, to, found::add);
+        return found;
+    }
+
+    // What the tree must answer: a scan, in start order (stable for equal starts)
+    static List<OnlineSession> scan(List<OnlineSession> sessions, long from, long to) {
+        return sessions.stream()
+                .filter(session -> session.start().toEpochMilli() < to && session.end().toEpochMilli() > from)
+                .sorted(Comparator.comparing(OnlineSession::start))
+                .toList();
+    }
+
+    @Test
+    void rangeBoundsAreHalfOpen() {
+        SessionIntervalTree tree = new SessionIntervalTree();
+        OnlineSession session = session("usr_a", 100, 200);
+        tree.insert(session);
+
+        assertEquals(List.of(), overlapping(tree, 200, 300)); // Ended exactly at the start of the range
+        assertEquals(List.of(), overlapping(tree, 0, 100));   // Started exactly at the end of the range
+        assertEquals(List.of(session), overlapping(tree, 199, 200));
+        assertEquals(List.of(session), overlapping(tree, 150, 160)); // Range inside the session
+        assertEquals(List.of(session), overlapping(tree, 0, 1_000)); // Session inside the range
+    }
+
+    @Test
+    void equalStartsKeepInsertionOrder() {
+        SessionIntervalTree tree = new SessionIntervalTree();
+        List<OnlineSession> inserted = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // Enough nodes to force rotations around the equal keys
+            OnlineSession session = session("usr_" + i, i % 3 == 0 ? 500 : i * 10L, 10_000 - i);
+            tree.insert(session);
+            inserted.add(session);
+        }
+        assertEquals(scan(inserted, Long.MIN_VALUE, Long.MAX_VALUE), overlapping(tree, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void matchesAScanOnRandomSessions() {
+        Random random = new Random(36);
+        SessionIntervalTree tree = new SessionIntervalTree();
+        List<OnlineSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(1_000_000);
+            // Mostly short sessions with a few very long ones, which only the maxEnd pruning finds
+            long length = random.nextInt(20) == 0 ? random.nextInt(500_000) : random.nextInt(5_000);
+            OnlineSession session = session("usr_" + random.nextInt(20), start, start + length);
+            tree.insert(session);
+            sessions.add(session);
+        }
+        assertEquals(sessions.size(), tree.size());
+
+        for (int query = 0; query < 500; query++) {
+            long from = random.nextInt(1_100_000) - 50_000;
+            long to = from + random.nextInt(query % 10 == 0 ? 400_000 : 10_000);
+            assertEquals(scan(sessions, from, to), overlapping(tree, from, to), "range [" + from + ", " + to + ")");
+        }
+    }
+
+    @Test
+    void retainEndingAfterDropsOnlyOldSessions() {
+        SessionIntervalTree tree = new SessionIntervalTree();
+        List<OnlineSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            OnlineSession session = session("usr_a", i * 100L, i * 100L + (i % 2 == 0 ? 50 : 5_000));
+            tree.insert(session);
+            sessions.add(session);
+        }
+        long cutoff = 10_000;
+        List<OnlineSession> kept = scan(sessions, cutoff, Long.MAX_VALUE);
+
+        assertEquals(sessions.size() - kept.size(), tree.retainEndingAfter(cutoff));
+        assertEquals(kept.size(), tree.size());
+        assertEquals(kept, overlapping(tree, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, tree.retainEndingAfter(cutoff));
+
+        // Still a working tree after the rebuild
+        OnlineSession late = session("usr_b", 1_000_000, 1_000_001);
+        tree.insert(late);
+        assertEquals(List.of(late), overlapping(tree, 1_000_000, 1_000_001));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.StatusType;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusHistoryTest {
+
+    static UserState ok(String status, String location, long millis) {
+        VRChatUser user = new VRChatUser();
+        user.setId("usr_a");
+        user.setDisplayName("User A");
+        user.setState("online");
+        user.setStatus(status);
+        user.setStatusDescription("description " + millis);
+        user.setLocation(location);
+        return new UserState(7, user, StatusType.OK, null, Instant.ofEpochMilli(millis));
+    }
+
+    static UserState error(String message, long millis) {
+        return new UserState(7, null, StatusType.ERROR, message, Instant.ofEpochMilli(millis));
+    }
+
+    @Test
+    void entriesReadBackAsWritten() {
+        StatusHistory history = new StatusHistory(7, new StringDictionary());
+        List<UserState> written = new ArrayList<>();
+        written.add(ok("active", "wrld_a:1", 1_000));
+        written.add(ok("active", "wrld_a:1", 1_000)); // Same timestamp, zero delta
+        written.add(ok("busy", "wrld_b:2", 500));      // Clock went backwards
+        written.add(error("API error (500)", 90_000_000_000L));
+        written.add(new UserState(7, null, StatusType.OFFLINE, null, null));
+        written.add(ok("join me", "private", 90_000_000_001L));
+        written.forEach(history::add);
+
+        assertEquals(written.size(), history.size());
+        assertEquals(written, history.toList());
+        assertEquals(written.get(written.size() - 1), history.last());
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(written.size()));
+    }
+
+    @Test
+    void removeFirstAndReplaceLastKeepTheRest() {
+        StatusHistory history = new StatusHistory(7, new StringDictionary());
+        List<UserState> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Runs of 5 equal statuses and 10 equal locations
+            UserState entry = ok(i / 5 % 2 == 0 ? "active" : "busy", "wrld_" + (i / 10) + ":1", 1_000L * i);
+            history.add(entry);
+            expected.add(entry);
+        }
+        for (int i = 0; i < 12; i++) {
+            history.removeFirst();
+            expected.remove(0);
+        }
+        UserState replacement = error("timeout", 999_999);
+        history.replaceLast(replacement);
+        expected.set(expected.size() - 1, replacement);
+
+        assertEquals(expected, history.toList());
+        history.add(ok("active", "wrld_9:1", 1_000_000));
+        expected.add(ok("active", "wrld_9:1", 1_000_000));
+        assertEquals(expected, history.toList());
+    }
+
+    @Test
+    void removingEverythingLeavesAnEmptyHistory() {
+        StatusHistory history = new StatusHistory(7, new StringDictionary());
+        history.add(ok("active", "wrld_a:1", 1_000));
+        history.add(ok("busy", "wrld_a:1", 2_000));
+        history.removeFirst();
+        history.removeFirst();
+        history.removeFirst(); // No-op
+
+        assertTrue(history.isEmpty());
+        assertNull(history.last());
+        history.replaceLast(ok("active", "wrld_c:3", 3_000));
+        assertEquals(List.of(ok("active", "wrld_c:3", 3_000)), history.toList());
+    }
+
+    @Test
+    void onlyStateAndStatusAreInterned() {
+        StringDictionary dictionary = new StringDictionary();
+        StatusHistory history = new StatusHistory(7, dictionary);
+        for (int i = 0; i < 1000; i++) {
+            history.add(ok(i % 2 == 0 ? "active" : "busy", "wrld_" + i + ":" + i, i));
+            history.add(error("API error " + i, i));
+        }
+        // "online", "active" and "busy"; locations, descriptions and errors stay out
+        assertEquals(3, dictionary.size());
+    }
+}
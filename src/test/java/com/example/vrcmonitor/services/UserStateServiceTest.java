@@ -0,0 +1,61 @@
+package com.example.vrcmonitor.services;
+
+import com.example.vrcmonitor.config.AppConfig;
+import com.example.vrcmonitor.config.ConfigLoader;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.VRChatUser;
+import com.example.vrcmonitor.services.UserStateService.UserState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserStateServiceTest {
+
+    static UserStateService service() {
+        ConfigLoader configLoader = mock(ConfigLoader.class);
+        when(configLoader.getConfig()).thenReturn(new AppConfig());
+        return new UserStateService(configLoader, mock(UserRegistry.class), event -> { });
+    }
+
+    static VRChatUser user(String status) {
+        VRChatUser user = new VRChatUser();
+        user.setId("usr_a");
+        user.setState("online");
+        user.setStatus(status);
+        return user;
+    }
+
+    static List<String> statuses(UserStateService service) {
+        return service.getSnapshot().get("usr_a").history().stream()
+                .map(state -> state.user().getStatus())
+                .toList();
+    }
+
+    @Test
+    void replaySkipsRecordsTheRestoredStateAlreadyHolds() {
+        UserStateService live = service();
+        live.updateUserState("usr_a", user("active"), Instant.ofEpochMilli(1_000));
+        live.updateUserState("usr_a", user("busy"), Instant.ofEpochMilli(2_000));
+
+        // A checkpoint copied after both records, which the WAL still holds after its LSN
+        UserStateService recovered = service();
+        recovered.restoreSnapshot(live.getSnapshot());
+        assertFalse(recovered.replayUserState("usr_a", user("active"), Instant.ofEpochMilli(1_000)));
+        assertFalse(recovered.replayUserState("usr_a", user("busy"), Instant.ofEpochMilli(2_000)));
+        assertFalse(recovered.replayUserErrorState("usr_a", "timeout", Instant.ofEpochMilli(1_500)));
+        assertEquals(List.of("active", "busy"), statuses(recovered));
+
+        // Records after the copy are applied as usual
+        assertTrue(recovered.replayUserState("usr_a", user("join me"), Instant.ofEpochMilli(3_000)));
+        assertEquals(List.of("active", "busy", "join me"), statuses(recovered));
+        UserState latest = recovered.getLatestUserState("usr_a");
+        assertEquals(Instant.ofEpochMilli(3_000), latest.lastUpdated());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.models.dto.WsMessageDTO;
+import com.example.vrcmonitor.models.dto.WsMessageDTO.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChangeLogTest {
+
+    static ChangeLog.Change append(ChangeLog changeLog) {
+        return changeLog.append(new WsMessageDTO(MessageType.USER_UPDATE, "x"), Set.of("usr_a"), tenant -> null);
+    }
+
+    static List<Long> sequences(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    @Test
+    void resumeContinuesFromBacklogIntoLiveChanges() {
+        ChangeLog changeLog = new ChangeLog(new ObjectMapper());
+        String resumeFrom = changeLog.idOf(append(changeLog));
+        append(changeLog);
+        append(changeLog);
+
+        List<Long> received = new CopyOnWriteArrayList<>();
+        var subscription = changeLog.changesAfter(changeLog.resumableSequence(resumeFrom))
+                .subscribe(change -> received.add(change.sequence()));
+        append(changeLog);
+        append(changeLog);
+        subscription.dispose();
+
+        assertEquals(sequences(2, 5), received);
+    }
+
+    @Test
+    void noGapOrDuplicateWhileChangesAreAppended() throws Exception {
+        ChangeLog changeLog = new ChangeLog(new ObjectMapper());
+        for (int i = 0; i < 100; i++) {
+            append(changeLog);
+        }
+        Thread appender = new Thread(() -> {
+            for (int i = 0; i < 1_000; i++) {
+                append(changeLog);
+            }
+        });
+        appender.start();
+        // Subscribes somewhere in the middle of the appends
+        List<Long> received = changeLog.changesAfter(50).take(1_050).map(ChangeLog.Change::sequence).collectList().block(Duration.ofSeconds(10));
+        appender.join();
+
+        assertEquals(sequences(51, 1_100), received);
+    }
+
+    @Test
+    void idsFromAnotherRunAreNotResumable() {
+        ChangeLog changeLog = new ChangeLog(new ObjectMapper());
+        String id = changeLog.idOf(append(changeLog));
+        String epoch = id.substring(0, id.lastIndexOf('-'));
+
+        assertEquals(1, changeLog.resumableSequence(id));
+        assertEquals(-1, changeLog.resumableSequence((Long.parseLong(epoch) - 1) + "-1"));
+        assertEquals(-1, changeLog.resumableSequence(epoch + "-2")); // Not appended yet
+        assertEquals(-1, changeLog.resumableSequence(epoch + "-x"));
+        assertEquals(-1, changeLog.resumableSequence("1"));
+        assertEquals(-1, changeLog.resumableSequence(null));
+    }
+
+    @Test
+    void idsJustBeforeTheRingAreResumable() {
+        ChangeLog changeLog = new ChangeLog(new ObjectMapper());
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < ChangeLog.CAPACITY + 2; i++) {
+            ids.add(changeLog.idOf(append(changeLog)));
+        }
+
+        // The ring holds 3..CAPACITY+2: after 2 is complete, after 1 would miss change 2
+        assertEquals(-1, changeLog.resumableSequence(ids.get(0)));
+        assertEquals(2, changeLog.resumableSequence(ids.get(1)));
+        List<Long> received = changeLog.changesAfter(2).take(ChangeLog.CAPACITY).map(ChangeLog.Change::sequence).collectList().block(Duration.ofSeconds(5));
+        assertEquals(sequences(3, ChangeLog.CAPACITY + 2), received);
+    }
+}
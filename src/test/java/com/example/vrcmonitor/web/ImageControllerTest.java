@@ -0,0 +1,82 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.services.ImageCacheService;
+import com.example.vrcmonitor.services.ImageCacheService.CachedImage;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class ImageControllerTest {
+
+    static final String URL = "https://api.vrchat.cloud/api/1/file/file_0f3c/1/256";
+    static final byte[] BYTES = {1, 2, 3};
+
+    static MvcResult fetch(CompletableFuture<CachedImage> image, String version, String ifNoneMatch) throws Exception {
+        ImageCacheService imageCacheService = mock(ImageCacheService.class);
+        when(imageCacheService.getImageForUser("usr_a")).thenReturn(image);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ImageController(imageCacheService)).build();
+        var request = get("/img/usr_a").param("v", version);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult started = mockMvc.perform(request).andReturn();
+        assertTrue(started.getRequest().isAsyncStarted());
+        return mockMvc.perform(asyncDispatch(started)).andReturn();
+    }
+
+    static CompletableFuture<CachedImage> hotImage() {
+        return CompletableFuture.completedFuture(new CachedImage("k1", ImageCacheService.versionForUrl(URL),
+                MediaType.IMAGE_PNG, BYTES.length, Path.of("image_cache", "k1.img"), BYTES));
+    }
+
+    @Test
+    void versionMatchesTheWebClientHash() {
+        // Values from hashString in script.js
+        assertEquals("q23imv", ImageCacheService.versionForUrl(URL));
+        assertEquals("ztntfp", ImageCacheService.versionForUrl(""));
+        assertEquals("1kdufw7", ImageCacheService.versionForUrl("é✓x"));
+    }
+
+    @Test
+    void currentVersionIsImmutable() throws Exception {
+        MvcResult result = fetch(hotImage(), "q23imv", null);
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertArrayEquals(BYTES, result.getResponse().getContentAsByteArray());
+        assertEquals("max-age=31536000, public, immutable", result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals("\"k1\"", result.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void staleVersionIsRevalidated() throws Exception {
+        MvcResult result = fetch(hotImage(), "old", null);
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals("no-cache, public", result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MvcResult revalidated = fetch(hotImage(), "old", "\"k1\"");
+        assertEquals(304, revalidated.getResponse().getStatus());
+        assertEquals(0, revalidated.getResponse().getContentLength());
+    }
+
+    @Test
+    void failedDownloadIsABadGateway() throws Exception {
+        MvcResult result = fetch(CompletableFuture.failedFuture(new IllegalStateException("Empty image response")), "q23imv", null);
+        assertEquals(502, result.getResponse().getStatus());
+
+        assertEquals(404, fetch(CompletableFuture.completedFuture(null), "q23imv", null).getResponse().getStatus());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import com.example.vrcmonitor.config.UserConfig;
+import com.example.vrcmonitor.config.UserRegistry;
+import com.example.vrcmonitor.models.dto.WsMessageDTO;
+import com.example.vrcmonitor.models.dto.WsMessageDTO.MessageType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class StreamControllerTest {
+
+    static final TenantRegistry.Tenant TENANT = new TenantRegistry.Tenant("t", null, Set.of("usr_a"));
+
+    final ChangeLog changeLog = new ChangeLog(new ObjectMapper());
+    final String start = changeLog.currentId();
+
+    StreamController controller() {
+        StatusUpdateHandler statusUpdateHandler = mock(StatusUpdateHandler.class);
+        when(statusUpdateHandler.initialStateFor(any()))
+                .thenAnswer(invocation -> new WsMessageDTO(MessageType.INITIAL_STATE, List.of()));
+        UserRegistry userRegistry = mock(UserRegistry.class);
+        List<UserConfig> users = new ArrayList<>();
+        for (String vrcUid : List.of("usr_a", "usr_b")) {
+            UserConfig user = new UserConfig();
+            user.setVrcUid(vrcUid);
+            user.setHrToken(vrcUid.toUpperCase());
+            when(userRegistry.get(vrcUid)).thenReturn(user);
+            users.add(user);
+        }
+        when(userRegistry.users()).thenReturn(users);
+        TenantRegistry tenantRegistry = mock(TenantRegistry.class);
+        when(tenantRegistry.scope(null)).thenReturn(TenantRegistry.Scope.ALL);
+        when(tenantRegistry.scope("t")).thenReturn(new TenantRegistry.Scope(TENANT));
+        return new StreamController(changeLog, statusUpdateHandler, userRegistry, tenantRegistry, new ObjectMapper());
+    }
+
+    // A USER_UPDATE about one user; tenant "t" sees it with a payload of its own if the user is its
+    ChangeLog.Change update(String vrcUid) {
+        return changeLog.append(new WsMessageDTO(MessageType.USER_UPDATE, vrcUid), Set.of(vrcUid),
+                tenant -> TENANT.includes(vrcUid) ? new WsMessageDTO(MessageType.USER_UPDATE, "t:" + vrcUid) : null);
+    }
+
+    ChangeLog.Change sessionStatus() {
+        return changeLog.append(new WsMessageDTO(MessageType.SESSION_STATUS, "session"), Set.of(),
+                tenant -> new WsMessageDTO(MessageType.SESSION_STATUS, "t:session"));
+    }
+
+    static String payload(String json) {
+        try {
+            return new ObjectMapper().readTree(json).path("payload").toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The events a stream sends without waiting for new changes ("id name payload")
+    static List<String> events(ResponseEntity<Flux<ServerSentEvent<String>>> response) {
+        assertEquals(200, response.getStatusCode().value());
+        return response.getBody()
+                .filter(event -> event.event() != null)
+                .take(Duration.ofMillis(300))
+                .map(event -> event.id() + " " + event.event() + " " + payload(event.data()))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    String id(long sequence) {
+        return start.substring(0, start.lastIndexOf('-') + 1) + sequence;
+    }
+
+    @Test
+    void streamsOutliveTheDefaultAsyncTimeout() throws Exception {
+        // Other async requests keep a finite timeout
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).setAsyncRequestTimeout(100).build();
+
+        MvcResult result = mockMvc.perform(get("/api/stream").accept(MediaType.TEXT_EVENT_STREAM)).andReturn();
+
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertEquals(-1, result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void resumesAfterTheLastEventId() {
+        update("usr_a");
+        update("usr_b");
+        update("usr_a");
+
+        assertEquals(List.of(
+                id(2) + " USER_UPDATE \"usr_b\"",
+                id(3) + " USER_UPDATE \"usr_a\""),
+                events(controller().stream(null, null, null, id(1), null)));
+        // The query parameter does the same for clients that can't set headers
+        assertEquals(List.of(id(3) + " USER_UPDATE \"usr_a\""),
+                events(controller().stream(null, null, null, null, id(2))));
+    }
+
+    @Test
+    void idsItCannotResumeFromGetTheFullState() {
+        for (int i = 0; i < ChangeLog.CAPACITY + 2; i++) {
+            update("usr_a");
+        }
+        String otherRun = "1-" + (ChangeLog.CAPACITY + 1);
+        String evicted = id(1);
+
+        for (String lastEventId : List.of(otherRun, evicted, "garbage")) {
+            assertEquals(List.of(id(ChangeLog.CAPACITY + 2) + " INITIAL_STATE []"),
+                    events(controller().stream(null, null, null, lastEventId, null)), lastEventId);
+        }
+        // The oldest id the ring can still continue from
+        List<String> ids = controller().stream(null, null, null, id(2), null).getBody()
+                .filter(event -> event.event() != null)
+                .take(ChangeLog.CAPACITY)
+                .map(ServerSentEvent::id)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        assertEquals(id(3), ids.get(0));
+        assertEquals(id(ChangeLog.CAPACITY + 2), ids.get(ChangeLog.CAPACITY - 1));
+    }
+
+    @Test
+    void userFilterKeepsMessagesAboutNoParticularUser() {
+        update("usr_a");
+        update("usr_b");
+        sessionStatus();
+
+        assertEquals(List.of(
+                id(2) + " USER_UPDATE \"usr_b\"",
+                id(3) + " SESSION_STATUS \"session\""),
+                events(controller().stream(null, "usr_b", null, start, null)));
+        // By hrToken as well
+        assertEquals(3, events(controller().stream(null, "USR_A, usr_b", null, start, null)).size());
+        assertEquals(400, controller().stream(null, "usr_x", null, start, null).getStatusCode().value());
+    }
+
+    @Test
+    void typeFilter() {
+        update("usr_a");
+        sessionStatus();
+
+        assertEquals(List.of(id(2) + " SESSION_STATUS \"session\""),
+                events(controller().stream(null, null, "session_status", start, null)));
+        assertEquals(2, events(controller().stream(null, null, "USER_UPDATE,SESSION_STATUS", start, null)).size());
+        assertEquals(400, controller().stream(null, null, "NOPE", start, null).getStatusCode().value());
+    }
+
+    @Test
+    void tenantGetsItsOwnViewOfItsUsers() {
+        update("usr_a");
+        update("usr_b");
+        sessionStatus();
+
+        assertEquals(List.of(
+                id(1) + " USER_UPDATE \"t:usr_a\"",
+                id(3) + " SESSION_STATUS \"t:session\""),
+                events(controller().stream("t", null, null, start, null)));
+        // Users outside the tenant can't be asked for; unknown tenants don't exist
+        assertEquals(400, controller().stream("t", "usr_b", null, start, null).getStatusCode().value());
+        assertEquals(404, controller().stream("nope", null, null, start, null).getStatusCode().value());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.vrcmonitor.web;
+
+import com.example.vrcmonitor.config.TenantRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantIsolationInterceptorTest {
+
+    static TenantRegistry registry(boolean admitsAllUsers) {
+        TenantRegistry tenantRegistry = mock(TenantRegistry.class);
+        when(tenantRegistry.admitsAllUsers(any())).thenReturn(admitsAllUsers);
+        when(tenantRegistry.scope(null)).thenReturn(TenantRegistry.Scope.ALL);
+        when(tenantRegistry.scope("t")).thenReturn(new TenantRegistry.Scope(new TenantRegistry.Tenant("t", null, Set.of("usr_a"))));
+        return tenantRegistry;
+    }
+
+    static MockHttpServletResponse handle(TenantIsolationInterceptor interceptor, String tenant, boolean expectAdmitted) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stats");
+        request.setRemoteAddr("192.0.2.10");
+        if (tenant != null) {
+            request.setParameter("tenant", tenant);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertEquals(expectAdmitted, interceptor.preHandle(request, response, new Object()));
+        return response;
+    }
+
+    @Test
+    void isolatedServerOnlyServesTenantViewsToRemoteClients() throws Exception {
+        TenantIsolationInterceptor interceptor = new TenantIsolationInterceptor(registry(false), false);
+        assertEquals(403, handle(interceptor, null, false).getStatus());
+        assertEquals(200, handle(interceptor, "t", true).getStatus());
+        // Unknown tenants go through to the controller's 404
+        handle(interceptor, "unknown", true);
+
+        TenantIsolationInterceptor allUsersOnly = new TenantIsolationInterceptor(registry(false), true);
+        assertEquals(403, handle(allUsersOnly, "t", false).getStatus());
+    }
+
+    @Test
+    void clientsAdmittedToAllUsersAreNotChecked() throws Exception {
+        assertTrue(new TenantIsolationInterceptor(registry(true), false)
+                .preHandle(new MockHttpServletRequest("GET", "/api/stats"), new MockHttpServletResponse(), new Object()));
+        assertFalse(new TenantIsolationInterceptor(registry(false), true)
+                .preHandle(new MockHttpServletRequest("GET", "/api/logs"), new MockHttpServletResponse(), new Object()));
+    }
+}